@@ -0,0 +1,11 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "snapshots.agendamento", name = "habilitado", havingValue = "true")
+public class AgendamentoConfig {
+}
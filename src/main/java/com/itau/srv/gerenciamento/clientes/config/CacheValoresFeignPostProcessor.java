@@ -0,0 +1,42 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import com.itau.srv.gerenciamento.clientes.service.CacheValores;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coloca o {@link CacheValores} na frente do cliente Feign de valores. Roda depois do
+ * {@link ColapsadorFeignPostProcessor}: um acerto no cache não passa pelo colapsador nem pelo circuit breaker.
+ */
+@Component
+public class CacheValoresFeignPostProcessor implements BeanPostProcessor, Ordered {
+
+    static final int ORDEM = 300;
+
+    private final ObjectProvider<CacheValores> cacheValores;
+    private final boolean habilitado;
+
+    public CacheValoresFeignPostProcessor(ObjectProvider<CacheValores> cacheValores,
+                                          @Value("${valores-cache.habilitado:true}") boolean habilitado) {
+        this.cacheValores = cacheValores;
+        this.habilitado = habilitado;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (habilitado && bean instanceof ValoresFeignClient valores) {
+            return cacheValores.getObject().envolver(valores);
+        }
+
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDEM;
+    }
+}
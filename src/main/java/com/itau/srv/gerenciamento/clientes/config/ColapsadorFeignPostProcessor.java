@@ -0,0 +1,53 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import com.itau.srv.gerenciamento.clientes.feign.CustodiasFeignClient;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import com.itau.srv.gerenciamento.clientes.service.ColapsadorChamadas;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Coloca o {@link ColapsadorChamadas} na frente dos clientes Feign de custódias e valores.
+ */
+@Component
+public class ColapsadorFeignPostProcessor implements BeanPostProcessor, Ordered {
+
+    static final int ORDEM = 200;
+
+    private static final List<Class<?>> CLIENTES = List.of(CustodiasFeignClient.class, ValoresFeignClient.class);
+
+    private final ObjectProvider<ColapsadorChamadas> colapsador;
+    private final boolean habilitado;
+
+    public ColapsadorFeignPostProcessor(ObjectProvider<ColapsadorChamadas> colapsador,
+                                        @Value("${chamadas-colapsadas.habilitado:true}") boolean habilitado) {
+        this.colapsador = colapsador;
+        this.habilitado = habilitado;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!habilitado) {
+            return bean;
+        }
+
+        for (Class cliente : CLIENTES) {
+            if (cliente.isInstance(bean)) {
+                return colapsador.getObject().envolver(cliente, bean);
+            }
+        }
+
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDEM;
+    }
+}
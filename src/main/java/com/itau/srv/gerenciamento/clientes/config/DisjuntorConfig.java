@@ -0,0 +1,49 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import com.itau.srv.gerenciamento.clientes.service.ColapsadorChamadas;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class DisjuntorConfig {
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${disjuntor.janela:20}") int janela,
+            @Value("${disjuntor.minimo-chamadas:10}") int minimoChamadas,
+            @Value("${disjuntor.taxa-falhas:50}") float taxaFalhas,
+            @Value("${disjuntor.chamada-lenta:3000}") long chamadaLentaMs,
+            @Value("${disjuntor.taxa-chamadas-lentas:80}") float taxaChamadasLentas,
+            @Value("${disjuntor.espera-aberto:30000}") long esperaAbertoMs,
+            @Value("${disjuntor.chamadas-meio-aberto:5}") int chamadasMeioAberto,
+            MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowSize(janela)
+                .minimumNumberOfCalls(minimoChamadas)
+                .failureRateThreshold(taxaFalhas)
+                .slowCallDurationThreshold(Duration.ofMillis(chamadaLentaMs))
+                .slowCallRateThreshold(taxaChamadasLentas)
+                .waitDurationInOpenState(Duration.ofMillis(esperaAbertoMs))
+                .permittedNumberOfCallsInHalfOpenState(chamadasMeioAberto)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Respostas 4xx são erros do pedido, não do serviço
+                .ignoreExceptions(FeignException.FeignClientException.class)
+                // Chamadas interrompidas por quem as aguardava (prazo da consulta estourado, outra chamada paralela
+                // falhou) não dizem nada sobre a saúde do serviço; o timeout de leitura continua contando como falha
+                .ignoreException(ColapsadorChamadas::causadoPorInterrupcao)
+                .build();
+
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        return registry;
+    }
+}
@@ -0,0 +1,42 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import com.itau.srv.gerenciamento.clientes.feign.CustodiasFeignClient;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import com.itau.srv.gerenciamento.clientes.service.DisjuntorServicosExternos;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envolve cada cliente Feign com o seu circuit breaker. Roda antes do {@link ColapsadorFeignPostProcessor},
+ * de forma que o circuit breaker fica mais próximo da chamada remota.
+ */
+@Component
+public class DisjuntorFeignPostProcessor implements BeanPostProcessor, Ordered {
+
+    static final int ORDEM = 100;
+
+    private final ObjectProvider<DisjuntorServicosExternos> disjuntor;
+
+    public DisjuntorFeignPostProcessor(ObjectProvider<DisjuntorServicosExternos> disjuntor) {
+        this.disjuntor = disjuntor;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CustodiasFeignClient custodias) {
+            return disjuntor.getObject().envolver(CustodiasFeignClient.class, custodias, "custodias");
+        }
+        if (bean instanceof ValoresFeignClient valores) {
+            return disjuntor.getObject().envolver(ValoresFeignClient.class, valores, "valores");
+        }
+
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDEM;
+    }
+}
@@ -0,0 +1,50 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(name = "chamadasRemotasExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService chamadasRemotasExecutor(
+            @Value("${chamadas-paralelas.threads:64}") int threads,
+            MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("chamadas-remotas-"));
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "chamadas-remotas");
+    }
+
+    @Bean(name = "carteirasLoteExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService carteirasLoteExecutor(
+            @Value("${carteiras-lote.paralelismo:16}") int paralelismo,
+            MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo, new CustomizableThreadFactory("carteiras-lote-"));
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "carteiras-lote");
+    }
+
+    @Bean(name = "snapshotsExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService snapshotsExecutor(
+            @Value("${snapshots.paralelismo:4}") int paralelismo,
+            MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo, new CustomizableThreadFactory("snapshots-"));
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "snapshots");
+    }
+
+    // Coordena as execuções assíncronas; os lotes de cada uma rodam no snapshotsExecutor
+    @Bean(name = "snapshotsCoordenadorExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService snapshotsCoordenadorExecutor(MeterRegistry meterRegistry) {
+        ExecutorService executor = Executors.newCachedThreadPool(new CustomizableThreadFactory("snapshots-coordenador-"));
+
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "snapshots-coordenador");
+    }
+}
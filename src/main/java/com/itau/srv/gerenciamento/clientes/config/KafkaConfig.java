@@ -0,0 +1,16 @@
+package com.itau.srv.gerenciamento.clientes.config;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaAdmin;
+
+@Configuration
+public class KafkaConfig {
+
+    // Cliente administrativo compartilhado para consultar offsets; só conecta ao broker na primeira consulta
+    @Bean(destroyMethod = "close")
+    public Admin kafkaAdminClient(KafkaAdmin kafkaAdmin) {
+        return Admin.create(kafkaAdmin.getConfigurationProperties());
+    }
+}
@@ -0,0 +1,67 @@
+package com.itau.srv.gerenciamento.clientes.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itau.srv.gerenciamento.clientes.dto.valor.AporteRealizadoEventoDTO;
+import com.itau.srv.gerenciamento.clientes.service.CacheValores;
+import com.itau.srv.gerenciamento.clientes.service.SnapshotsIncrementais;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AporteConsumer {
+
+    public static final String LISTENER_ID = "valores-cache-aportes";
+    public static final String MARCACOES_LISTENER_ID = "snapshots-aportes";
+
+    private final ObjectMapper objectMapper;
+    private final CacheValores cacheValores;
+    private final SnapshotsIncrementais snapshotsIncrementais;
+
+    // O cache é local a cada instância: um grupo por instância, lendo só os aportes novos, invalida todas elas
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${valores-cache.aportes.topico:aportes-realizados}",
+            groupId = "${spring.kafka.consumer.group-id}-valores-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest",
+            autoStartup = "${valores-cache.habilitado:true}"
+    )
+    public void consumir(String mensagem) {
+        lerClienteId(mensagem).ifPresent(clienteId -> cacheValores.invalidarHistoricoAportes(clienteId, "novo-aporte"));
+    }
+
+    // Grupo durável, lendo desde o último offset confirmado: a defasagem dele diz se as marcações estão completas
+    @KafkaListener(
+            id = MARCACOES_LISTENER_ID,
+            topics = "${valores-cache.aportes.topico:aportes-realizados}",
+            groupId = "${spring.kafka.consumer.group-id}-snapshots",
+            autoStartup = "${custodias.local.habilitado:false}"
+    )
+    public void marcarCliente(String mensagem) {
+        lerClienteId(mensagem).ifPresent(snapshotsIncrementais::registrarAporte);
+    }
+
+    private Optional<Long> lerClienteId(String mensagem) {
+        AporteRealizadoEventoDTO evento;
+
+        try {
+            evento = objectMapper.readValue(mensagem, AporteRealizadoEventoDTO.class);
+        } catch (JsonProcessingException e) {
+            log.error("Evento de aporte invalido descartado: {}", mensagem, e);
+            return Optional.empty();
+        }
+
+        if (evento.clienteId() == null) {
+            log.error("Evento de aporte sem cliente descartado: {}", mensagem);
+            return Optional.empty();
+        }
+
+        return Optional.of(evento.clienteId());
+    }
+}
@@ -0,0 +1,55 @@
+package com.itau.srv.gerenciamento.clientes.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.service.CustodiaLocalService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustodiaConsumer {
+
+    public static final String LISTENER_ID = "custodias-local";
+
+    private final ObjectMapper objectMapper;
+    private final CustodiaLocalService custodiaLocalService;
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = "${custodias.local.topico:custodias-atualizadas}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            autoStartup = "${custodias.local.habilitado:false}"
+    )
+    public void consumir(String mensagem) {
+        CustodiaAtualizadaEventoDTO evento;
+
+        try {
+            evento = objectMapper.readValue(mensagem, CustodiaAtualizadaEventoDTO.class);
+        } catch (JsonProcessingException e) {
+            log.error("Evento de custodia invalido descartado: {}", mensagem, e);
+            return;
+        }
+
+        if (!eventoValido(evento)) {
+            log.error("Evento de custodia incompleto descartado: {}", mensagem);
+            return;
+        }
+
+        log.debug("Evento de custodia recebido: cliente {} ticker {}", evento.clienteId(), evento.ticker());
+
+        custodiaLocalService.aplicarEvento(evento);
+    }
+
+    private boolean eventoValido(CustodiaAtualizadaEventoDTO evento) {
+        if (evento.clienteId() == null || evento.ticker() == null || evento.quantidade() == null) {
+            return false;
+        }
+
+        return evento.quantidade() <= 0 || evento.precoMedio() != null;
+    }
+}
@@ -1,18 +1,31 @@
 package com.itau.srv.gerenciamento.clientes.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.itau.common.library.generic.ControllerGenerico;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoCancelamentoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteRequestDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.FiltroEvolucaoDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeNaDataResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+import com.itau.srv.gerenciamento.clientes.service.CarteiraLoteService;
 import com.itau.srv.gerenciamento.clientes.service.CarteiraService;
 import com.itau.srv.gerenciamento.clientes.service.ClienteService;
+import com.itau.srv.gerenciamento.clientes.service.ExecucaoSnapshotService;
+import com.itau.srv.gerenciamento.clientes.service.GeradorEtag;
 import com.itau.srv.gerenciamento.clientes.service.RentabilidadeService;
+import com.itau.srv.gerenciamento.clientes.service.SnapshotCarteiraService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -21,11 +34,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.List;
 
 
 @RestController
@@ -38,6 +57,11 @@ public class ClientesController implements ControllerGenerico {
     private final ClienteService clienteService;
     private final CarteiraService carteiraService;
     private final RentabilidadeService rentabilidadeService;
+    private final GeradorEtag geradorEtag;
+    private final CarteiraLoteService carteiraLoteService;
+    private final SnapshotCarteiraService snapshotCarteiraService;
+    private final ExecucaoSnapshotService execucaoSnapshotService;
+    private final ObjectMapper objectMapper;
 
     @Operation(
             summary = "Aderir ao produto de investimento",
@@ -111,19 +135,28 @@ public class ClientesController implements ControllerGenerico {
 
     @Operation(
             summary = "Listar clientes ativos",
-            description = "Retorna a lista de todos os clientes ativos no sistema"
+            description = "Retorna a lista de todos os clientes ativos no sistema. A lista é escrita na resposta à medida que os clientes são lidos, em lotes"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de clientes retornada com sucesso",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AdesaoResponseDTO.class)))
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = AdesaoResponseDTO.class))))
     })
     @GetMapping
-    public ResponseEntity<List<AdesaoResponseDTO>> buscarClientesAtivos() {
+    public ResponseEntity<StreamingResponseBody> buscarClientesAtivos() {
         log.info("Buscando clientes ativos");
 
+        StreamingResponseBody corpo = saida -> {
+            JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida);
+            gerador.writeStartArray();
+            clienteService.percorrerClientesAtivos(cliente -> escrever(gerador, cliente));
+            gerador.writeEndArray();
+            gerador.flush();
+        };
+
         return ResponseEntity
                 .ok()
-                .body(clienteService.buscarClientesAtivos());
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
     }
 
     @Operation(
@@ -133,6 +166,7 @@ public class ClientesController implements ControllerGenerico {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Carteira retornada com sucesso",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = CarteiraResponseDTO.class))),
+            @ApiResponse(responseCode = "304", description = "Carteira não mudou desde o ETag informado", content = @Content),
             @ApiResponse(responseCode = "404", description = "Cliente não encontrado", content = @Content)
     })
     @GetMapping("/{clienteId}/carteira")
@@ -141,45 +175,186 @@ public class ClientesController implements ControllerGenerico {
             @PathVariable Long clienteId) {
         log.info("Buscando carteira do cliente: {}", clienteId);
 
-        return ResponseEntity.ok(carteiraService.consultarCarteiraCliente(clienteId));
+        CarteiraResponseDTO carteira = carteiraService.consultarCarteiraCliente(clienteId);
+
+        // Com If-None-Match igual ao ETag, o Spring responde 304 sem serializar o corpo
+        return ResponseEntity
+                .ok()
+                .eTag(geradorEtag.gerarParaCarteira(carteira))
+                .body(carteira);
+    }
+
+    @Operation(
+            summary = "Consultar carteiras em lote",
+            description = "Retorna as carteiras de vários clientes em uma única requisição. Clientes que não puderam ser consultados são listados em erros, sem falhar o lote"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado, possivelmente com resultados parciais",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CarteirasLoteResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Lista de clientes vazia ou maior que o permitido", content = @Content)
+    })
+    @PostMapping("/carteiras:batch")
+    public ResponseEntity<CarteirasLoteResponseDTO> buscarCarteirasEmLote(
+            @Parameter(description = "IDs dos clientes", required = true)
+            @RequestBody @Valid CarteirasLoteRequestDTO dto) {
+        log.info("Buscando carteiras em lote de {} clientes", dto.clienteIds().size());
+
+        return ResponseEntity.ok(carteiraLoteService.consultarCarteiras(dto.clienteIds()));
+    }
+
+    @Operation(
+            summary = "Invalidar carteira em cache",
+            description = "Remove do cache a carteira do cliente, forçando um novo cálculo na próxima consulta"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Cache invalidado com sucesso")
+    })
+    @DeleteMapping("/{clienteId}/carteira/cache")
+    public ResponseEntity<Void> invalidarCarteiraEmCache(
+            @Parameter(description = "ID do cliente", required = true)
+            @PathVariable Long clienteId) {
+        log.info("Invalidando carteira em cache do cliente: {}", clienteId);
+
+        carteiraService.invalidarCarteiraEmCache(clienteId);
+
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(
             summary = "Gerar snapshot das carteiras",
-            description = "Gera um snapshot do estado das carteiras de todos os clientes em uma data específica"
+            description = "Inicia em segundo plano a geração do snapshot das carteiras de todos os clientes em uma data específica. O andamento é consultado pelo endereço retornado em Location"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "204", description = "Snapshot gerado com sucesso"),
-            @ApiResponse(responseCode = "400", description = "Data inválida", content = @Content)
+            @ApiResponse(responseCode = "202", description = "Geração iniciada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExecucaoSnapshotResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Data inválida", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Já existe uma geração em andamento para a data", content = @Content)
     })
     @PostMapping("/carteiras-snapshots")
-    public ResponseEntity<Void> gerarSnapshotCarteira(
+    public ResponseEntity<ExecucaoSnapshotResponseDTO> gerarSnapshotCarteira(
             @Parameter(description = "Data para o snapshot", required = true)
             @RequestParam LocalDate data) {
         log.info("Gerando snapshot de carteiras de clientes para data: {}", data);
 
-        carteiraService.gerarSnapshots(data);
+        ExecucaoSnapshotResponseDTO execucao = snapshotCarteiraService.iniciarGeracao(data);
 
-        log.info("Snapshot de carteiras de clientes gerado com sucesso");
+        log.info("Geração de snapshot de carteiras iniciada na execucao {}", execucao.id());
 
-        return ResponseEntity.noContent().build();
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                        .path("/jobs/{id}")
+                        .buildAndExpand(execucao.id())
+                        .toUri())
+                .body(execucao);
+    }
+
+    @Operation(
+            summary = "Consultar geração de snapshots",
+            description = "Retorna a situação e o andamento de uma geração de snapshots, com vazão e previsão de término"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Execução encontrada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExecucaoSnapshotResponseDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Execução não encontrada", content = @Content)
+    })
+    @GetMapping("/carteiras-snapshots/jobs/{id}")
+    public ResponseEntity<ExecucaoSnapshotResponseDTO> consultarGeracaoSnapshots(
+            @Parameter(description = "ID da execução", required = true)
+            @PathVariable Long id) {
+        return ResponseEntity.ok(execucaoSnapshotService.consultar(id));
+    }
+
+    @Operation(
+            summary = "Cancelar geração de snapshots",
+            description = "Solicita o cancelamento de uma geração em andamento. Os lotes já iniciados terminam e o progresso é mantido para uma nova execução"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancelamento solicitado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ExecucaoSnapshotResponseDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Execução não encontrada", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Execução não está em andamento", content = @Content)
+    })
+    @DeleteMapping("/carteiras-snapshots/jobs/{id}")
+    public ResponseEntity<ExecucaoSnapshotResponseDTO> cancelarGeracaoSnapshots(
+            @Parameter(description = "ID da execução", required = true)
+            @PathVariable Long id) {
+        log.info("Cancelando geração de snapshots da execucao: {}", id);
+
+        return ResponseEntity.accepted().body(execucaoSnapshotService.solicitarCancelamento(id));
     }
 
     @Operation(
             summary = "Consultar rentabilidade detalhada",
-            description = "Retorna informações detalhadas sobre a rentabilidade do cliente, incluindo histórico de aportes e evolução da carteira"
+            description = "Retorna informações detalhadas sobre a rentabilidade do cliente, incluindo histórico de aportes e evolução da carteira. " +
+                    "A evolução pode ser limitada a um período e paginada por data: a próxima página é pedida com antesDe igual ao proximaPagina da resposta. " +
+                    "Em resoluções menores que a diária a evolução não é paginada"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Rentabilidade retornada com sucesso",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentabilidadeResponseDTO.class))),
-            @ApiResponse(responseCode = "404", description = "Cliente não encontrado", content = @Content)
+            @ApiResponse(responseCode = "304", description = "Rentabilidade não mudou desde o ETag informado", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Cliente não encontrado", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Período, limite ou resolução da evolução inválidos", content = @Content)
     })
     @GetMapping("/{clienteId}/rentabilidade")
     public ResponseEntity<RentabilidadeResponseDTO> consultarRentabilidade(
             @Parameter(description = "ID do cliente", required = true)
-            @PathVariable Long clienteId) {
+            @PathVariable Long clienteId,
+            @Parameter(description = "Data inicial da evolução (inclusiva)")
+            @RequestParam(required = false) LocalDate de,
+            @Parameter(description = "Data final da evolução (inclusiva)")
+            @RequestParam(required = false) LocalDate ate,
+            @Parameter(description = "Cursor da página: apenas datas anteriores a esta")
+            @RequestParam(required = false) LocalDate antesDe,
+            @Parameter(description = "Quantidade máxima de itens da evolução (1 a 1000); sem limite, o período inteiro")
+            @RequestParam(required = false) Integer limite,
+            @Parameter(description = "Resolução da evolução: DIARIA, SEMANAL e MENSAL (último snapshot de cada período) ou LTTB (reduzida a `pontos` pontos)")
+            @RequestParam(defaultValue = "DIARIA") ResolucaoEvolucao resolucao,
+            @Parameter(description = "Quantidade de pontos da resolução LTTB (3 a 1000); padrão 120")
+            @RequestParam(required = false) Integer pontos,
+            WebRequest request) {
         log.info("Consultando rentabilidade detalhada do cliente: {}", clienteId);
 
-        return ResponseEntity.ok(rentabilidadeService.consultarRentabilidade(clienteId));
+        String etag = rentabilidadeService.calcularEtagRentabilidade(clienteId);
+
+        if (request.checkNotModified(etag)) {
+            log.info("Rentabilidade do cliente {} não mudou desde a última consulta", clienteId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity
+                .ok()
+                .eTag(etag)
+                .body(rentabilidadeService.consultarRentabilidade(clienteId, new FiltroEvolucaoDTO(de, ate, antesDe, limite, resolucao, pontos)));
+    }
+
+    @Operation(
+            summary = "Consultar rentabilidade em uma data",
+            description = "Retorna o valor da carteira e a rentabilidade do cliente na data informada, pelo último snapshot até ela. " +
+                    "Sem histórico de aportes nem evolução"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rentabilidade na data retornada com sucesso",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = RentabilidadeNaDataResponseDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Cliente não encontrado ou sem snapshot até a data", content = @Content)
+    })
+    @GetMapping(value = "/{clienteId}/rentabilidade", params = "asOf")
+    public ResponseEntity<RentabilidadeNaDataResponseDTO> consultarRentabilidadeNaData(
+            @Parameter(description = "ID do cliente", required = true)
+            @PathVariable Long clienteId,
+            @Parameter(description = "Data da consulta", required = true)
+            @RequestParam LocalDate asOf) {
+        log.info("Consultando rentabilidade do cliente {} em {}", clienteId, asOf);
+
+        return ResponseEntity.ok(rentabilidadeService.consultarRentabilidadeNaData(clienteId, asOf));
+    }
+
+    private void escrever(JsonGenerator gerador, AdesaoResponseDTO cliente) {
+        try {
+            gerador.writeObject(cliente);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
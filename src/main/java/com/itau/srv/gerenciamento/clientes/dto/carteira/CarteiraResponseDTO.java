@@ -1,7 +1,9 @@
 package com.itau.srv.gerenciamento.clientes.dto.carteira;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -23,6 +25,17 @@ public record CarteiraResponseDTO(
         ResumoResponseDTO resumo,
 
         @Schema(description = "Lista de ativos na carteira")
-        List<AtivoResponseDTO> ativos
+        List<AtivoResponseDTO> ativos,
+
+        @Schema(description = "Indica que a carteira foi montada a partir do último snapshot, pois os serviços de custódias ou valores estão indisponíveis", example = "false")
+        boolean desatualizada,
+
+        @Schema(description = "Data do snapshot usado quando a carteira está desatualizada", example = "2026-02-27")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        LocalDate dataSnapshot
 ) {
+    public CarteiraResponseDTO(Long clienteId, String nome, String contaGrafica, LocalDateTime dataConsulta,
+                               ResumoResponseDTO resumo, List<AtivoResponseDTO> ativos) {
+        this(clienteId, nome, contaGrafica, dataConsulta, resumo, ativos, false, null);
+    }
 }
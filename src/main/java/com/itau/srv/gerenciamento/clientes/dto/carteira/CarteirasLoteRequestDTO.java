@@ -0,0 +1,17 @@
+package com.itau.srv.gerenciamento.clientes.dto.carteira;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Clientes cujas carteiras devem ser consultadas em lote")
+public record CarteirasLoteRequestDTO(
+        @Schema(description = "IDs dos clientes", example = "[1, 2, 3]")
+        @NotEmpty(message = "Lista de clientes não pode ser vazia")
+        @Size(max = 500, message = "Lote deve ter no máximo 500 clientes")
+        List<@NotNull Long> clienteIds
+) {
+}
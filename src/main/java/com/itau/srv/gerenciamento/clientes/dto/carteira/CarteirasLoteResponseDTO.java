@@ -0,0 +1,15 @@
+package com.itau.srv.gerenciamento.clientes.dto.carteira;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+
+@Schema(description = "Carteiras consultadas em lote, com os erros dos clientes que não puderam ser consultados")
+public record CarteirasLoteResponseDTO(
+        @Schema(description = "Carteiras por ID do cliente")
+        Map<Long, CarteiraResponseDTO> carteiras,
+
+        @Schema(description = "Código do erro por ID do cliente", example = "{\"4\": \"CLIENTE_NAO_ENCONTRADO\"}")
+        Map<Long, String> erros
+) {
+}
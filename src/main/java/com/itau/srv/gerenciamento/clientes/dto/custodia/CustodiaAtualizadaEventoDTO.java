@@ -0,0 +1,13 @@
+package com.itau.srv.gerenciamento.clientes.dto.custodia;
+
+import java.math.BigDecimal;
+
+public record CustodiaAtualizadaEventoDTO(
+        Long clienteId,
+        String ticker,
+        Integer quantidade,
+        BigDecimal precoMedio,
+        BigDecimal valorAtual,
+        String origem
+) {
+}
@@ -0,0 +1,16 @@
+package com.itau.srv.gerenciamento.clientes.dto.rentabilidade;
+
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+
+import java.time.LocalDate;
+
+public record FiltroEvolucaoDTO(
+        LocalDate de,
+        LocalDate ate,
+        LocalDate antesDe,
+        Integer limite,
+        ResolucaoEvolucao resolucao,
+        Integer pontos
+) {
+    public static final FiltroEvolucaoDTO COMPLETA = new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.DIARIA, null);
+}
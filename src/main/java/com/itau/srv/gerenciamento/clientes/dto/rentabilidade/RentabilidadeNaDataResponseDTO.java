@@ -0,0 +1,29 @@
+package com.itau.srv.gerenciamento.clientes.dto.rentabilidade;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Schema(description = "Valor da carteira e rentabilidade do cliente em uma data, pelo último snapshot até ela")
+public record RentabilidadeNaDataResponseDTO(
+        @Schema(description = "ID do cliente", example = "1")
+        Long clienteId,
+
+        @Schema(description = "Nome do cliente", example = "João Silva")
+        String nome,
+
+        @Schema(description = "Data e hora da consulta", example = "2026-03-01T10:30:00")
+        LocalDateTime dataConsulta,
+
+        @Schema(description = "Data consultada (parâmetro asOf)", example = "2026-02-28")
+        LocalDate dataReferencia,
+
+        @Schema(description = "Data do snapshot usado: o último até a data consultada", example = "2026-02-27")
+        LocalDate dataSnapshot,
+
+        @Schema(description = "Resumo da rentabilidade no snapshot")
+        ResumoResponseDTO rentabilidade
+) {
+}
@@ -3,6 +3,7 @@ package com.itau.srv.gerenciamento.clientes.dto.rentabilidade;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -23,7 +24,10 @@ public record RentabilidadeResponseDTO(
         @Schema(description = "Histórico de aportes realizados")
         List<HistoricoAportesResponseDTO> historicoAportes,
 
-        @Schema(description = "Evolução da carteira ao longo do tempo")
-        List<EvolucaoCarteiraResponseDTO> evolucaoCarteira
+        @Schema(description = "Evolução da carteira ao longo do tempo, da data mais recente para a mais antiga")
+        List<EvolucaoCarteiraResponseDTO> evolucaoCarteira,
+
+        @Schema(description = "Cursor da próxima página da evolução (parâmetro antesDe); nulo na última página", example = "2026-01-05")
+        LocalDate proximaPagina
 ) {
 }
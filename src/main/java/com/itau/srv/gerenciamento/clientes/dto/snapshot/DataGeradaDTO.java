@@ -0,0 +1,12 @@
+package com.itau.srv.gerenciamento.clientes.dto.snapshot;
+
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+
+import java.time.LocalDate;
+
+public record DataGeradaDTO(
+        LocalDate dataSnapshot,
+        StatusExecucaoSnapshot status,
+        Long ultimoClienteId
+) {
+}
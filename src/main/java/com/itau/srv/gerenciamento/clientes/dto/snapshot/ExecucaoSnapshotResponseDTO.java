@@ -0,0 +1,57 @@
+package com.itau.srv.gerenciamento.clientes.dto.snapshot;
+
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Schema(description = "Andamento da geração de snapshots de uma data")
+public record ExecucaoSnapshotResponseDTO(
+        @Schema(description = "ID da execução", example = "12")
+        Long id,
+
+        @Schema(description = "Data dos snapshots", example = "2026-03-01")
+        LocalDate dataSnapshot,
+
+        @Schema(description = "Situação da execução", example = "EM_ANDAMENTO")
+        StatusExecucaoSnapshot status,
+
+        @Schema(description = "Clientes a processar nesta execução", example = "100000")
+        Long totalClientes,
+
+        @Schema(description = "Clientes já processados, incluindo os que já tinham snapshot", example = "42000")
+        Long clientesProcessados,
+
+        @Schema(description = "Clientes com erro", example = "3")
+        Long falhas,
+
+        @Schema(description = "Clientes recalculados com as consultas aos serviços de custódias e de valores", example = "1500")
+        Long clientesRecalculados,
+
+        @Schema(description = "Clientes com a custódia consultada e inalterada, sem consulta ao Serviço de Valores", example = "2300")
+        Long clientesCustodiaInalterada,
+
+        @Schema(description = "Clientes ainda não processados", example = "58000")
+        Long clientesRestantes,
+
+        @Schema(description = "Vazão média da execução em clientes por segundo", example = "350.5")
+        BigDecimal clientesPorSegundo,
+
+        @Schema(description = "Previsão de término, enquanto a execução está em andamento", example = "2026-03-01T21:10:00")
+        LocalDateTime previsaoTermino,
+
+        @Schema(description = "Indica que o cancelamento foi solicitado", example = "false")
+        boolean cancelamentoSolicitado,
+
+        @Schema(description = "Início da execução", example = "2026-03-01T21:00:00")
+        LocalDateTime dataInicio,
+
+        @Schema(description = "Última atualização do progresso", example = "2026-03-01T21:02:00")
+        LocalDateTime dataAtualizacao,
+
+        @Schema(description = "Término da execução", example = "2026-03-01T21:10:00")
+        LocalDateTime dataFim
+) {
+}
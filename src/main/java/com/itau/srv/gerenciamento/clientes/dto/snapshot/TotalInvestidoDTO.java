@@ -0,0 +1,9 @@
+package com.itau.srv.gerenciamento.clientes.dto.snapshot;
+
+import java.math.BigDecimal;
+
+public record TotalInvestidoDTO(
+        Long clienteId,
+        BigDecimal valorTotalInvestido
+) {
+}
@@ -0,0 +1,13 @@
+package com.itau.srv.gerenciamento.clientes.dto.snapshot;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record VersaoSnapshotsDTO(
+        Long quantidade,
+        Long ultimoId,
+        LocalDate ultimaData,
+        // Carimbo do resumo do cliente, atualizado a cada gravação: cobre os snapshots reescritos na mesma linha
+        LocalDateTime ultimaAtualizacao
+) {
+}
@@ -0,0 +1,11 @@
+package com.itau.srv.gerenciamento.clientes.dto.valor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record AporteRealizadoEventoDTO(
+        Long clienteId,
+        LocalDate data,
+        BigDecimal valor
+) {
+}
@@ -0,0 +1,4 @@
+package com.itau.srv.gerenciamento.clientes.event;
+
+public record ClienteAlteradoEvent(Long clienteId) {
+}
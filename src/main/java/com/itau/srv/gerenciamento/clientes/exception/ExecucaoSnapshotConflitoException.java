@@ -0,0 +1,12 @@
+package com.itau.srv.gerenciamento.clientes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ExecucaoSnapshotConflitoException extends RuntimeException {
+
+    public ExecucaoSnapshotConflitoException(String mensagem) {
+        super(mensagem);
+    }
+}
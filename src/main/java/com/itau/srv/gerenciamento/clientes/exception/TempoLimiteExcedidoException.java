@@ -0,0 +1,12 @@
+package com.itau.srv.gerenciamento.clientes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class TempoLimiteExcedidoException extends RuntimeException {
+
+    public TempoLimiteExcedidoException(String mensagem) {
+        super(mensagem);
+    }
+}
@@ -7,7 +7,9 @@ import com.itau.srv.gerenciamento.clientes.model.Cliente;
 import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 @Component
@@ -23,4 +25,17 @@ public class CarteiraMaper {
                 ativos
         );
     }
+
+    public CarteiraResponseDTO mapearParaCarteiraDesatualizada(Cliente cliente, ContaGrafica contaGrafica, ResumoResponseDTO resumo, LocalDate dataSnapshot) {
+        return new CarteiraResponseDTO(
+                cliente.getId(),
+                cliente.getNome(),
+                contaGrafica.getNumeroConta(),
+                LocalDateTime.now(),
+                resumo,
+                Collections.emptyList(),
+                true,
+                dataSnapshot
+        );
+    }
 }
@@ -0,0 +1,16 @@
+package com.itau.srv.gerenciamento.clientes.mapper;
+
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.model.Custodia;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CustodiaMapper {
+
+    public void atualizarCustodia(Custodia custodia, CustodiaAtualizadaEventoDTO evento) {
+        custodia.setTicker(evento.ticker());
+        custodia.setQuantidade(evento.quantidade());
+        custodia.setPrecoMedio(evento.precoMedio());
+        custodia.setOrigem(evento.origem());
+    }
+}
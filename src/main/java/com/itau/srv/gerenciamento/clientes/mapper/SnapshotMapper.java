@@ -1,9 +1,18 @@
 package com.itau.srv.gerenciamento.clientes.mapper;
 
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
 import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
 @Component
 public class SnapshotMapper {
 
@@ -15,4 +24,56 @@ public class SnapshotMapper {
                 snapshot.getRentabilidade()
         );
     }
+
+    // Cópia sem id do ponto anterior em outra data: a série esparsa é reconstruída (e continuada) levando o último valor adiante
+    public SnapshotCarteira levarAdiante(SnapshotCarteira ponto, LocalDate dataSnapshot) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(ponto.getClienteId());
+        snapshot.setDataSnapshot(dataSnapshot);
+        snapshot.setValorCarteira(ponto.getValorCarteira());
+        snapshot.setValorInvestido(ponto.getValorInvestido());
+        snapshot.setRentabilidade(ponto.getRentabilidade());
+        return snapshot;
+    }
+
+    public EvolucaoCarteiraResponseDTO levarAdiante(EvolucaoCarteiraResponseDTO evolucao, LocalDate data) {
+        return new EvolucaoCarteiraResponseDTO(
+                data,
+                evolucao.valorCarteira(),
+                evolucao.valorInvestido(),
+                evolucao.rentabilidade()
+        );
+    }
+
+    public ExecucaoSnapshotResponseDTO mapearParaExecucaoSnapshotResponseDTO(ExecucaoSnapshot execucao, LocalDateTime agora) {
+        LocalDateTime fim = execucao.getDataFim() != null ? execucao.getDataFim() : agora;
+        long duracaoMs = Math.max(Duration.between(execucao.getDataInicio(), fim).toMillis(), 1);
+        long restantes = Math.max(execucao.getTotalClientes() - execucao.getClientesProcessados(), 0);
+
+        BigDecimal clientesPorSegundo = BigDecimal.valueOf(execucao.getClientesProcessados() * 1000L)
+                .divide(BigDecimal.valueOf(duracaoMs), 1, RoundingMode.HALF_UP);
+
+        LocalDateTime previsaoTermino = null;
+        if (execucao.getStatus() == StatusExecucaoSnapshot.EM_ANDAMENTO && execucao.getClientesProcessados() > 0) {
+            previsaoTermino = agora.plus(Duration.ofMillis(restantes * duracaoMs / execucao.getClientesProcessados()));
+        }
+
+        return new ExecucaoSnapshotResponseDTO(
+                execucao.getId(),
+                execucao.getDataSnapshot(),
+                execucao.getStatus(),
+                execucao.getTotalClientes(),
+                execucao.getClientesProcessados(),
+                execucao.getFalhas(),
+                execucao.getClientesRecalculados(),
+                execucao.getClientesCustodiaInalterada(),
+                restantes,
+                clientesPorSegundo,
+                previsaoTermino,
+                execucao.isCancelamentoSolicitado(),
+                execucao.getDataInicio(),
+                execucao.getDataAtualizacao(),
+                execucao.getDataFim()
+        );
+    }
 }
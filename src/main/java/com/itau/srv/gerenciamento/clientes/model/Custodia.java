@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "custodias")
+@Table(name = "custodias",
+        uniqueConstraints = @UniqueConstraint(name = "uk_custodias_conta_ticker", columnNames = {"conta_grafica_id", "ticker"}),
+        indexes = @Index(name = "idx_custodias_conta_grafica", columnList = "conta_grafica_id"))
 @Setter
 @Getter
 public class Custodia {
@@ -30,6 +32,9 @@ public class Custodia {
     @Column(scale = 4, precision = 18, nullable = false)
     private BigDecimal precoMedio;
 
+    @Column(length = 20)
+    private String origem;
+
     @Column(nullable = false)
     private LocalDateTime dataUltimaAtualizacao;
 
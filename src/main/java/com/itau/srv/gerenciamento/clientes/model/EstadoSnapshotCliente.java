@@ -0,0 +1,38 @@
+package com.itau.srv.gerenciamento.clientes.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "estados_snapshots_clientes")
+@Setter
+@Getter
+public class EstadoSnapshotCliente {
+
+    @Id
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    // Data do valor investido; o estado só é reaproveitado nesta data ou em datas posteriores
+    @Column(name = "data_snapshot", nullable = false)
+    private LocalDate dataSnapshot;
+
+    @Column(name = "valor_investido", nullable = false, precision = 18, scale = 2)
+    private BigDecimal valorInvestido;
+
+    @Column(name = "impressao_custodias", nullable = false, length = 64)
+    private String impressaoCustodias;
+
+    // Momento anterior à leitura da custódia usada no cálculo
+    @Column(name = "data_calculo", nullable = false)
+    private LocalDateTime dataCalculo;
+
+    // Depois da inserção, só a marcação dos eventos de custódia e de aporte altera a coluna; o cálculo nunca a sobrescreve
+    @Column(name = "data_alteracao", nullable = false, updatable = false)
+    private LocalDateTime dataAlteracao;
+}
@@ -0,0 +1,58 @@
+package com.itau.srv.gerenciamento.clientes.model;
+
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "execucoes_snapshots")
+@Setter
+@Getter
+public class ExecucaoSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "data_snapshot", nullable = false, unique = true)
+    private LocalDate dataSnapshot;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private StatusExecucaoSnapshot status;
+
+    // Todos os clientes com id até este já têm snapshot gravado nesta data
+    @Column(name = "ultimo_cliente_id", nullable = false)
+    private Long ultimoClienteId;
+
+    @Column(nullable = false)
+    private Long totalClientes;
+
+    @Column(nullable = false)
+    private Long clientesProcessados;
+
+    @Column(nullable = false)
+    private Long falhas;
+
+    // Clientes gravados com as consultas externas completas e só com a custódia consultada pelo cálculo incremental
+    @Column(nullable = false)
+    private Long clientesRecalculados;
+
+    @Column(nullable = false)
+    private Long clientesCustodiaInalterada;
+
+    @Column(nullable = false)
+    private boolean cancelamentoSolicitado;
+
+    @Column(nullable = false)
+    private LocalDateTime dataInicio;
+
+    @Column(nullable = false)
+    private LocalDateTime dataAtualizacao;
+
+    private LocalDateTime dataFim;
+}
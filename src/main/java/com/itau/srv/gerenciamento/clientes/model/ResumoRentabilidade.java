@@ -0,0 +1,41 @@
+package com.itau.srv.gerenciamento.clientes.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "resumos_rentabilidade")
+@Setter
+@Getter
+public class ResumoRentabilidade {
+
+    @Id
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    // Data do último snapshot somado; nula enquanto o cliente não tem snapshots
+    @Column(name = "data_snapshot")
+    private LocalDate dataSnapshot;
+
+    // Soma do valor investido de todos os snapshots da série diária
+    @Column(name = "valor_total_investido", nullable = false, precision = 24, scale = 2)
+    private BigDecimal valorTotalInvestido;
+
+    // Valores do último snapshot: o investido permite substituí-lo quando a mesma data é gravada de novo
+    @Column(name = "valor_atual", nullable = false, precision = 18, scale = 2)
+    private BigDecimal valorAtual;
+
+    @Column(name = "valor_investido_atual", nullable = false, precision = 18, scale = 2)
+    private BigDecimal valorInvestidoAtual;
+
+    @Column(name = "pl_total", nullable = false, precision = 24, scale = 2)
+    private BigDecimal plTotal;
+
+    @Column(name = "data_atualizacao", nullable = false)
+    private LocalDateTime dataAtualizacao;
+}
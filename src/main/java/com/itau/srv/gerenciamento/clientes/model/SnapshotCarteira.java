@@ -8,13 +8,16 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "snapshots_carteiras")
+@Table(name = "snapshots_carteiras",
+        uniqueConstraints = @UniqueConstraint(name = "uk_snapshots_carteiras_cliente_data", columnNames = {"cliente_id", "data_snapshot"}))
 @Setter
 @Getter
 public class SnapshotCarteira {
 
+    // Sequência com incremento 50 para permitir inserts em lote (V1__sequencia_snapshots_carteiras.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "snapshots_carteiras_seq")
+    @SequenceGenerator(name = "snapshots_carteiras_seq", sequenceName = "snapshots_carteiras_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "cliente_id", nullable = false)
@@ -0,0 +1,8 @@
+package com.itau.srv.gerenciamento.clientes.model.enums;
+
+public enum ResolucaoEvolucao {
+    DIARIA,
+    SEMANAL,
+    MENSAL,
+    LTTB
+}
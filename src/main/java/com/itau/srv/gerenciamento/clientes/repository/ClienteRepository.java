@@ -1,9 +1,13 @@
 package com.itau.srv.gerenciamento.clientes.repository;
 
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +18,22 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     @Query("SELECT c FROM Cliente c WHERE c.cpf = :cpf AND c.ativo = TRUE")
     Optional<Cliente> findByCpfAndAtivo(String cpf);
 
-    @Query("SELECT c FROM Cliente c WHERE c.ativo = TRUE")
-    List<Cliente> findAllAtivos();
+    @Query("SELECT c FROM Cliente c WHERE c.ativo = TRUE AND c.id > :ultimoId ORDER BY c.id")
+    List<Cliente> findAtivosAposId(Long ultimoId, Pageable pageable);
+
+    @Query("SELECT c.id FROM Cliente c WHERE c.ativo = TRUE AND c.id > :ultimoId ORDER BY c.id")
+    List<Long> findIdsAtivosAposId(Long ultimoId, Pageable pageable);
+
+    // Clientes ainda sem resumo de rentabilidade (carga inicial dos resumos)
+    @Query("SELECT c.id FROM Cliente c WHERE c.ativo = TRUE AND c.id > :ultimoId AND NOT EXISTS " +
+            "(SELECT r FROM ResumoRentabilidade r WHERE r.clienteId = c.id) ORDER BY c.id")
+    List<Long> findIdsAtivosSemResumoAposId(Long ultimoId, Pageable pageable);
+
+    @Query("SELECT COUNT(c) FROM Cliente c WHERE c.ativo = TRUE AND c.id > :ultimoId")
+    long countAtivosAposId(Long ultimoId);
+
+    // SELECT ... FOR UPDATE em ordem de id, para que transações concorrentes travem na mesma ordem, sem deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cliente c WHERE c.id IN :ids ORDER BY c.id")
+    List<Cliente> travarPorIds(Collection<Long> ids);
 }
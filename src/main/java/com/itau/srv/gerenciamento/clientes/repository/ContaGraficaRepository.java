@@ -3,7 +3,17 @@ package com.itau.srv.gerenciamento.clientes.repository;
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
 import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ContaGraficaRepository extends JpaRepository<ContaGrafica, Long> {
     ContaGrafica findByCliente(Cliente cliente);
+
+    Optional<ContaGrafica> findByClienteId(Long clienteId);
+
+    @Query("SELECT c FROM ContaGrafica c JOIN FETCH c.cliente WHERE c.cliente.id IN :clienteIds")
+    List<ContaGrafica> findAllByClienteIdIn(Collection<Long> clienteIds);
 }
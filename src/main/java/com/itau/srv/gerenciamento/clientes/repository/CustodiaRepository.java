@@ -0,0 +1,16 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
+import com.itau.srv.gerenciamento.clientes.model.Custodia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CustodiaRepository extends JpaRepository<Custodia, Long> {
+    @Query("SELECT c FROM Custodia c WHERE c.contaGrafica.cliente.id = :clienteId ORDER BY c.ticker")
+    List<Custodia> findAllByClienteId(Long clienteId);
+
+    Optional<Custodia> findByContaGraficaAndTicker(ContaGrafica contaGrafica, String ticker);
+}
@@ -0,0 +1,22 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.clientes.model.EstadoSnapshotCliente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EstadoSnapshotClienteRepository extends JpaRepository<EstadoSnapshotCliente, Long> {
+    List<EstadoSnapshotCliente> findAllByClienteIdIn(Collection<Long> clienteIds);
+
+    // SQL nativo: data_alteracao não é atualizável pelo mapeamento da entidade
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE estados_snapshots_clientes SET data_alteracao = :dataAlteracao WHERE cliente_id = :clienteId",
+            nativeQuery = true)
+    int marcarAlterado(Long clienteId, LocalDateTime dataAlteracao);
+}
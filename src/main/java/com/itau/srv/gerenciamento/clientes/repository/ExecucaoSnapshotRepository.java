@@ -0,0 +1,60 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.DataGeradaDTO;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExecucaoSnapshotRepository extends JpaRepository<ExecucaoSnapshot, Long> {
+    Optional<ExecucaoSnapshot> findByDataSnapshot(LocalDate dataSnapshot);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM ExecucaoSnapshot e WHERE e.dataSnapshot = :dataSnapshot")
+    Optional<ExecucaoSnapshot> findByDataSnapshotParaAtualizacao(LocalDate dataSnapshot);
+
+    @Query("SELECT e.dataSnapshot FROM ExecucaoSnapshot e WHERE e.status = :status AND e.dataSnapshot BETWEEN :inicio AND :fim")
+    List<LocalDate> findDatasSnapshotPorStatusEntre(StatusExecucaoSnapshot status, LocalDate inicio, LocalDate fim);
+
+    @Query("SELECT MIN(e.dataSnapshot) FROM ExecucaoSnapshot e WHERE e.dataSnapshot > :dataSnapshot")
+    LocalDate findPrimeiraDataSnapshotApos(LocalDate dataSnapshot);
+
+    // Uma linha por data gerada: a lista inteira é pequena e fica em cache na leitura da série esparsa
+    @Query("SELECT new com.itau.srv.gerenciamento.clientes.dto.snapshot.DataGeradaDTO(e.dataSnapshot, e.status, e.ultimoClienteId) " +
+            "FROM ExecucaoSnapshot e ORDER BY e.dataSnapshot")
+    List<DataGeradaDTO> findDatasGeradas();
+
+    @Query("SELECT MAX(e.dataSnapshot) FROM ExecucaoSnapshot e WHERE e.status = :concluida OR :clienteId <= e.ultimoClienteId")
+    LocalDate findUltimaDataGerada(Long clienteId, StatusExecucaoSnapshot concluida);
+
+    @Query("SELECT e.cancelamentoSolicitado FROM ExecucaoSnapshot e WHERE e.id = :id")
+    boolean isCancelamentoSolicitado(Long id);
+
+    // Atualizações pontuais: não sobrescrevem um cancelamento solicitado por outra requisição
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecucaoSnapshot e SET e.ultimoClienteId = :ultimoClienteId, e.clientesProcessados = :clientesProcessados, " +
+            "e.falhas = :falhas, e.clientesRecalculados = :clientesRecalculados, " +
+            "e.clientesCustodiaInalterada = :clientesCustodiaInalterada, e.dataAtualizacao = :dataAtualizacao WHERE e.id = :id")
+    int atualizarProgresso(Long id, Long ultimoClienteId, Long clientesProcessados, Long falhas, Long clientesRecalculados,
+                           Long clientesCustodiaInalterada, LocalDateTime dataAtualizacao);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecucaoSnapshot e SET e.dataAtualizacao = :dataAtualizacao WHERE e.id = :id AND e.status = :status")
+    int registrarSinalDeVida(Long id, StatusExecucaoSnapshot status, LocalDateTime dataAtualizacao);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ExecucaoSnapshot e SET e.cancelamentoSolicitado = TRUE WHERE e.id = :id AND e.status = :status")
+    int solicitarCancelamento(Long id, StatusExecucaoSnapshot status);
+}
@@ -0,0 +1,11 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ResumoRentabilidadeRepository extends JpaRepository<ResumoRentabilidade, Long> {
+    List<ResumoRentabilidade> findAllByClienteIdIn(Collection<Long> clienteIds);
+}
@@ -1,12 +1,68 @@
 package com.itau.srv.gerenciamento.clientes.repository;
 
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.TotalInvestidoDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
 import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface SnapshotCarteiraRepository extends JpaRepository<SnapshotCarteira, Long> {
     @Query("SELECT s FROM SnapshotCarteira s WHERE s.clienteId = :clienteId ORDER BY s.dataSnapshot DESC")
     List<SnapshotCarteira> findAllByClienteId(Long clienteId);
+
+    @Query("SELECT new com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO(COUNT(s), MAX(s.id), MAX(s.dataSnapshot), " +
+            "(SELECT r.dataAtualizacao FROM ResumoRentabilidade r WHERE r.clienteId = :clienteId)) " +
+            "FROM SnapshotCarteira s WHERE s.clienteId = :clienteId")
+    VersaoSnapshotsDTO consultarVersao(Long clienteId);
+
+    Optional<SnapshotCarteira> findFirstByClienteIdOrderByDataSnapshotDesc(Long clienteId);
+
+    // Uma única busca em uk_snapshots_carteiras_cliente_data (LIMIT 1), qualquer que seja o tamanho do histórico
+    Optional<SnapshotCarteira> findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(Long clienteId, LocalDate data);
+
+    // Projeção direta no DTO da resposta, em keyset por data: sem entidades gerenciadas
+    @Query("SELECT new com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO(" +
+            "s.dataSnapshot, s.valorCarteira, s.valorInvestido, s.rentabilidade) FROM SnapshotCarteira s " +
+            "WHERE s.clienteId = :clienteId AND s.dataSnapshot BETWEEN :inicio AND :fim ORDER BY s.dataSnapshot DESC")
+    List<EvolucaoCarteiraResponseDTO> findEvolucao(Long clienteId, LocalDate inicio, LocalDate fim, Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM SnapshotCarteira s WHERE s.clienteId = :clienteId AND s.dataSnapshot BETWEEN :inicio AND :fim")
+    long countEvolucao(Long clienteId, LocalDate inicio, LocalDate fim);
+
+    @Query("SELECT new com.itau.srv.gerenciamento.clientes.dto.snapshot.TotalInvestidoDTO(s.clienteId, SUM(s.valorInvestido)) " +
+            "FROM SnapshotCarteira s WHERE s.clienteId IN :clienteIds GROUP BY s.clienteId")
+    List<TotalInvestidoDTO> somarValorInvestidoPorCliente(Collection<Long> clienteIds);
+
+    @Query("SELECT s FROM SnapshotCarteira s WHERE s.clienteId IN :clienteIds AND s.dataSnapshot = " +
+            "(SELECT MAX(u.dataSnapshot) FROM SnapshotCarteira u WHERE u.clienteId = s.clienteId)")
+    List<SnapshotCarteira> findUltimos(Collection<Long> clienteIds);
+
+    // Armazenamento esparso: cada ponto vale na própria data e nas datas geradas para o cliente até o ponto seguinte,
+    // somado no banco sem reconstruir a série
+    @Query("SELECT new com.itau.srv.gerenciamento.clientes.dto.snapshot.TotalInvestidoDTO(s.clienteId, SUM(s.valorInvestido * " +
+            "(1 + (SELECT COUNT(e) FROM ExecucaoSnapshot e WHERE e.dataSnapshot > s.dataSnapshot " +
+            "AND e.dataSnapshot < COALESCE((SELECT MIN(n.dataSnapshot) FROM SnapshotCarteira n " +
+            "WHERE n.clienteId = s.clienteId AND n.dataSnapshot > s.dataSnapshot), :limite) " +
+            "AND (e.status = :concluida OR s.clienteId <= e.ultimoClienteId))))) " +
+            "FROM SnapshotCarteira s WHERE s.clienteId IN :clienteIds GROUP BY s.clienteId")
+    List<TotalInvestidoDTO> somarValorInvestidoDaSeriePorCliente(Collection<Long> clienteIds, StatusExecucaoSnapshot concluida,
+                                                                LocalDate limite);
+
+    @Query("SELECT s.clienteId FROM SnapshotCarteira s WHERE s.dataSnapshot = :dataSnapshot AND s.clienteId IN :clienteIds")
+    List<Long> findClienteIdsComSnapshot(LocalDate dataSnapshot, Collection<Long> clienteIds);
+
+    List<SnapshotCarteira> findAllByDataSnapshotAndClienteIdIn(LocalDate dataSnapshot, Collection<Long> clienteIds);
+
+    // Último ponto gravado de cada cliente antes da data (armazenamento esparso)
+    @Query("SELECT s FROM SnapshotCarteira s WHERE s.clienteId IN :clienteIds AND s.dataSnapshot = " +
+            "(SELECT MAX(u.dataSnapshot) FROM SnapshotCarteira u WHERE u.clienteId = s.clienteId AND u.dataSnapshot < :dataSnapshot)")
+    List<SnapshotCarteira> findUltimosAntesDe(LocalDate dataSnapshot, Collection<Long> clienteIds);
 }
@@ -0,0 +1,129 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.exception.ExecucaoSnapshotConflitoException;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Gera os snapshots no cron configurado. A cada disparo (e na subida da aplicação) calcula os resumos de rentabilidade
+ * que ainda faltam, gera, da mais antiga para a mais recente, todas as datas do cron nos últimos {@code dias-recuperacao}
+ * dias que ainda não têm execução concluída, cobrindo os disparos perdidos com o serviço fora do ar, e depois remove as
+ * partições de snapshots fora da retenção, recalculando os resumos. Só a réplica que obtém a trava consultiva executa.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "snapshots.agendamento", name = "habilitado", havingValue = "true")
+public class AgendadorSnapshots {
+
+    static final long CHAVE_TRAVA = 0x534E415053484F54L;
+
+    private final SnapshotCarteiraService snapshotCarteiraService;
+    private final ExecucaoSnapshotRepository execucaoSnapshotRepository;
+    private final TravaConsultiva travaConsultiva;
+    private final ParticoesSnapshots particoesSnapshots;
+    private final ResumosRentabilidade resumosRentabilidade;
+    private final SeriesCarteiraMemoria seriesCarteiraMemoria;
+    private final ExecutorService coordenadorExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final CronExpression cron;
+    private final int diasRecuperacao;
+
+    public AgendadorSnapshots(SnapshotCarteiraService snapshotCarteiraService,
+                              ExecucaoSnapshotRepository execucaoSnapshotRepository,
+                              TravaConsultiva travaConsultiva,
+                              ParticoesSnapshots particoesSnapshots,
+                              ResumosRentabilidade resumosRentabilidade,
+                              SeriesCarteiraMemoria seriesCarteiraMemoria,
+                              @Qualifier("snapshotsCoordenadorExecutor") ExecutorService coordenadorExecutor,
+                              MeterRegistry meterRegistry,
+                              Clock clock,
+                              @Value("${snapshots.agendamento.cron}") String cron,
+                              @Value("${snapshots.agendamento.dias-recuperacao:7}") int diasRecuperacao) {
+        this.snapshotCarteiraService = snapshotCarteiraService;
+        this.execucaoSnapshotRepository = execucaoSnapshotRepository;
+        this.travaConsultiva = travaConsultiva;
+        this.particoesSnapshots = particoesSnapshots;
+        this.resumosRentabilidade = resumosRentabilidade;
+        this.seriesCarteiraMemoria = seriesCarteiraMemoria;
+        this.coordenadorExecutor = coordenadorExecutor;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.cron = CronExpression.parse(cron);
+        this.diasRecuperacao = diasRecuperacao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarAoIniciar() {
+        coordenadorExecutor.execute(this::gerarPendentes);
+    }
+
+    @Scheduled(cron = "${snapshots.agendamento.cron}")
+    public void gerarPendentes() {
+        boolean executou = travaConsultiva.executar(CHAVE_TRAVA, () -> {
+            resumosRentabilidade.recalcularPendentes();
+            datasPendentes().forEach(this::gerar);
+
+            // Os snapshots das partições removidas deixam de fazer parte dos resumos e das séries em memória
+            if (particoesSnapshots.removerExpiradas() > 0) {
+                resumosRentabilidade.recalcularTodos();
+                seriesCarteiraMemoria.limpar();
+            }
+        });
+
+        if (!executou) {
+            meterRegistry.counter("snapshots.agendamento", "resultado", "sem-trava").increment();
+        }
+    }
+
+    List<LocalDate> datasPendentes() {
+        LocalDateTime agora = LocalDateTime.now(clock);
+        LocalDate inicio = agora.toLocalDate().minusDays(diasRecuperacao);
+        Set<LocalDate> concluidas = new HashSet<>(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(
+                StatusExecucaoSnapshot.CONCLUIDA, inicio, agora.toLocalDate()));
+        List<LocalDate> pendentes = new ArrayList<>();
+
+        LocalDateTime disparo = cron.next(inicio.atStartOfDay().minusNanos(1));
+        while (disparo != null && !disparo.isAfter(agora)) {
+            LocalDate data = disparo.toLocalDate();
+            if (!concluidas.contains(data) && !pendentes.contains(data)) {
+                pendentes.add(data);
+            }
+            disparo = cron.next(disparo);
+        }
+
+        return pendentes;
+    }
+
+    private void gerar(LocalDate data) {
+        log.info("Gerando snapshots agendados de {}", data);
+
+        try {
+            ExecucaoSnapshot execucao = snapshotCarteiraService.gerarSnapshots(data);
+            meterRegistry.counter("snapshots.agendamento", "resultado", execucao.getStatus().name().toLowerCase()).increment();
+        } catch (ExecucaoSnapshotConflitoException e) {
+            log.info("Snapshots de {} ja estao sendo gerados por outra execucao", data);
+            meterRegistry.counter("snapshots.agendamento", "resultado", "em-andamento").increment();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Agrega as custódias de uma carteira (valor atual, P/L total, P/L, participação no P/L e composição por ativo)
+ * em uma única passada, usando inteiros escalados internamente. Os resultados são idênticos, inclusive na escala,
+ * aos do cálculo com {@link BigDecimal}, que continua sendo usado quando algum valor não cabe em ponto fixo.
+ */
+@Component
+public class AgregadorCarteira {
+
+    private static final int ESCALA_MAXIMA = 9;
+    private static final int ESCALA_PERCENTUAL = 2;
+    private static final long[] POTENCIAS_DE_DEZ = new long[19];
+
+    static {
+        long potencia = 1;
+        for (int i = 0; i < POTENCIAS_DE_DEZ.length; i++) {
+            POTENCIAS_DE_DEZ[i] = potencia;
+            potencia *= 10;
+        }
+    }
+
+    public Agregacao agregar(List<CustodiaResponseDTO> custodias) {
+        if (custodias.isEmpty()) {
+            return new Agregacao(BigDecimal.ZERO, BigDecimal.ZERO, new ArrayList<>());
+        }
+
+        try {
+            return agregarEmPontoFixo(custodias);
+        } catch (ArithmeticException e) {
+            return agregarEmBigDecimal(custodias);
+        }
+    }
+
+    public BigDecimal calcularValorCarteira(List<CustodiaResponseDTO> custodias) {
+        if (custodias.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+
+        try {
+            long valorTotal = 0;
+            int escalaValorTotal = 0;
+
+            for (CustodiaResponseDTO custodia : custodias) {
+                int escalaValorAtual = escalaSuportada(custodia.valorAtual());
+                long valorAtivo = Math.multiplyExact(paraLong(custodia.valorAtual()), (long) custodia.quantidade());
+
+                if (escalaValorAtual > escalaValorTotal) {
+                    valorTotal = reescalar(valorTotal, escalaValorTotal, escalaValorAtual);
+                    escalaValorTotal = escalaValorAtual;
+                }
+                valorTotal = Math.addExact(valorTotal, reescalar(valorAtivo, escalaValorAtual, escalaValorTotal));
+            }
+
+            return BigDecimal.valueOf(valorTotal, escalaValorTotal);
+        } catch (ArithmeticException e) {
+            return custodias.stream()
+                    .map(c -> c.valorAtual().multiply(BigDecimal.valueOf(c.quantidade())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    public BigDecimal calcularRentabilidade(BigDecimal valorAtual, BigDecimal valorInvestido) {
+        if (valorInvestido.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        try {
+            int escalaAtual = escalaSuportada(valorAtual);
+            int escalaInvestido = escalaSuportada(valorInvestido);
+            int escala = Math.max(escalaAtual, escalaInvestido);
+
+            long atual = reescalar(paraLong(valorAtual), escalaAtual, escala);
+            long investido = reescalar(paraLong(valorInvestido), escalaInvestido, escala);
+            long numerador = Math.multiplyExact(Math.subtractExact(atual, investido), 10_000L);
+
+            return BigDecimal.valueOf(numerador / investido, ESCALA_PERCENTUAL);
+        } catch (ArithmeticException e) {
+            return valorAtual.subtract(valorInvestido)
+                    .divide(valorInvestido, 4, RoundingMode.DOWN)
+                    .multiply(BigDecimal.valueOf(100))
+                    .setScale(ESCALA_PERCENTUAL, RoundingMode.DOWN);
+        }
+    }
+
+    private Agregacao agregarEmPontoFixo(List<CustodiaResponseDTO> custodias) {
+        int quantidadeAtivos = custodias.size();
+        long[] valoresAtivos = new long[quantidadeAtivos];
+        int[] escalasValores = new int[quantidadeAtivos];
+        long[] pls = new long[quantidadeAtivos];
+        int[] escalasPl = new int[quantidadeAtivos];
+
+        long valorTotal = 0;
+        int escalaValorTotal = 0;
+        long plTotal = 0;
+        int escalaPlTotal = 0;
+
+        int i = 0;
+        for (CustodiaResponseDTO custodia : custodias) {
+            long quantidade = custodia.quantidade();
+            int escalaValorAtual = escalaSuportada(custodia.valorAtual());
+            int escalaPrecoMedio = escalaSuportada(custodia.precoMedio());
+            int escalaPl = Math.max(escalaValorAtual, escalaPrecoMedio);
+
+            long valorAtual = paraLong(custodia.valorAtual());
+            long precoMedio = paraLong(custodia.precoMedio());
+
+            long valorAtivo = Math.multiplyExact(valorAtual, quantidade);
+            long diferenca = Math.subtractExact(
+                    reescalar(valorAtual, escalaValorAtual, escalaPl),
+                    reescalar(precoMedio, escalaPrecoMedio, escalaPl));
+            long pl = Math.multiplyExact(diferenca, quantidade);
+
+            valoresAtivos[i] = valorAtivo;
+            escalasValores[i] = escalaValorAtual;
+            pls[i] = pl;
+            escalasPl[i] = escalaPl;
+
+            if (escalaValorAtual > escalaValorTotal) {
+                valorTotal = reescalar(valorTotal, escalaValorTotal, escalaValorAtual);
+                escalaValorTotal = escalaValorAtual;
+            }
+            valorTotal = Math.addExact(valorTotal, reescalar(valorAtivo, escalaValorAtual, escalaValorTotal));
+
+            if (escalaPl > escalaPlTotal) {
+                plTotal = reescalar(plTotal, escalaPlTotal, escalaPl);
+                escalaPlTotal = escalaPl;
+            }
+            plTotal = Math.addExact(plTotal, reescalar(pl, escalaPl, escalaPlTotal));
+
+            i++;
+        }
+
+        List<AtivoResponseDTO> ativos = new ArrayList<>(quantidadeAtivos);
+
+        i = 0;
+        for (CustodiaResponseDTO custodia : custodias) {
+            BigDecimal plPercentual = plTotal == 0 ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(dividirArredondando(reescalar(pls[i], escalasPl[i], escalaPlTotal), plTotal), ESCALA_PERCENTUAL);
+            BigDecimal composicaoCarteira = valorTotal == 0 ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(dividirArredondando(reescalar(valoresAtivos[i], escalasValores[i], escalaValorTotal), valorTotal), ESCALA_PERCENTUAL);
+
+            ativos.add(new AtivoResponseDTO(
+                    custodia.ticker(),
+                    custodia.quantidade(),
+                    custodia.precoMedio(),
+                    custodia.valorAtual(),
+                    BigDecimal.valueOf(pls[i], escalasPl[i]),
+                    plPercentual,
+                    composicaoCarteira
+            ));
+
+            i++;
+        }
+
+        return new Agregacao(
+                BigDecimal.valueOf(valorTotal, escalaValorTotal),
+                BigDecimal.valueOf(plTotal, escalaPlTotal),
+                ativos
+        );
+    }
+
+    private Agregacao agregarEmBigDecimal(List<CustodiaResponseDTO> custodias) {
+        BigDecimal valorAtualCarteira = BigDecimal.ZERO;
+        BigDecimal plTotal = BigDecimal.ZERO;
+
+        for (CustodiaResponseDTO custodia : custodias) {
+            BigDecimal quantidade = BigDecimal.valueOf(custodia.quantidade());
+            valorAtualCarteira = valorAtualCarteira.add(custodia.valorAtual().multiply(quantidade));
+            plTotal = plTotal.add(custodia.valorAtual().subtract(custodia.precoMedio()).multiply(quantidade));
+        }
+
+        List<AtivoResponseDTO> ativos = new ArrayList<>(custodias.size());
+
+        for (CustodiaResponseDTO custodia : custodias) {
+            BigDecimal quantidade = BigDecimal.valueOf(custodia.quantidade());
+            BigDecimal valorTotalAtivo = custodia.valorAtual().multiply(quantidade);
+            BigDecimal pl = custodia.valorAtual().subtract(custodia.precoMedio()).multiply(quantidade);
+
+            ativos.add(new AtivoResponseDTO(
+                    custodia.ticker(),
+                    custodia.quantidade(),
+                    custodia.precoMedio(),
+                    custodia.valorAtual(),
+                    pl,
+                    plTotal.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : pl.divide(plTotal, ESCALA_PERCENTUAL, RoundingMode.HALF_UP),
+                    valorAtualCarteira.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : valorTotalAtivo.divide(valorAtualCarteira, ESCALA_PERCENTUAL, RoundingMode.HALF_UP)
+            ));
+        }
+
+        return new Agregacao(valorAtualCarteira, plTotal, ativos);
+    }
+
+    private long dividirArredondando(long numerador, long denominador) {
+        long dividendo = Math.multiplyExact(numerador, 100L);
+        long quociente = dividendo / denominador;
+        long resto = Math.absExact(dividendo % denominador);
+
+        if (resto != 0 && resto >= Math.absExact(denominador) - resto) {
+            quociente += (dividendo < 0) == (denominador < 0) ? 1 : -1;
+        }
+
+        return quociente;
+    }
+
+    private int escalaSuportada(BigDecimal valor) {
+        int escala = valor.scale();
+
+        if (escala < 0 || escala > ESCALA_MAXIMA) {
+            throw new ArithmeticException("Escala não suportada em ponto fixo: " + escala);
+        }
+
+        return escala;
+    }
+
+    private long paraLong(BigDecimal valor) {
+        return valor.unscaledValue().longValueExact();
+    }
+
+    private long reescalar(long valor, int escalaOrigem, int escalaDestino) {
+        return Math.multiplyExact(valor, POTENCIAS_DE_DEZ[escalaDestino - escalaOrigem]);
+    }
+
+    public record Agregacao(
+            BigDecimal valorAtualCarteira,
+            BigDecimal plTotal,
+            List<AtivoResponseDTO> ativos
+    ) {
+    }
+}
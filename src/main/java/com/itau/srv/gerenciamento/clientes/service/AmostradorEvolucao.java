@@ -0,0 +1,162 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reduz a evolução da carteira em uma única passada sobre a série, recebida da data mais recente para a mais antiga.
+ * Nas resoluções semanal e mensal fica o snapshot mais recente de cada período. No LTTB (Largest-Triangle-Three-Buckets)
+ * a série é dividida em {@code pontos - 2} baldes e de cada um fica o ponto que forma o maior triângulo com o ponto
+ * escolhido no balde anterior e a média do balde seguinte; só dois baldes ficam em memória por vez.
+ */
+@Component
+public class AmostradorEvolucao {
+
+    public List<EvolucaoCarteiraResponseDTO> amostrar(Iterator<EvolucaoCarteiraResponseDTO> serie, ResolucaoEvolucao resolucao,
+                                                      long tamanho, int pontos) {
+        return switch (resolucao) {
+            case DIARIA -> todos(serie);
+            case SEMANAL -> porPeriodo(serie, true);
+            case MENSAL -> porPeriodo(serie, false);
+            case LTTB -> tamanho <= pontos ? todos(serie) : lttb(serie, tamanho, pontos);
+        };
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> todos(Iterator<EvolucaoCarteiraResponseDTO> serie) {
+        List<EvolucaoCarteiraResponseDTO> resultado = new ArrayList<>();
+        serie.forEachRemaining(resultado::add);
+        return resultado;
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> porPeriodo(Iterator<EvolucaoCarteiraResponseDTO> serie, boolean semanal) {
+        List<EvolucaoCarteiraResponseDTO> resultado = new ArrayList<>();
+        LocalDate periodoAtual = null;
+
+        while (serie.hasNext()) {
+            EvolucaoCarteiraResponseDTO evolucao = serie.next();
+            LocalDate periodo = semanal
+                    ? evolucao.data().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    : evolucao.data().withDayOfMonth(1);
+
+            // Em ordem decrescente, o primeiro snapshot de cada período é o do fim do período
+            if (!periodo.equals(periodoAtual)) {
+                resultado.add(evolucao);
+                periodoAtual = periodo;
+            }
+        }
+
+        return resultado;
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> lttb(Iterator<EvolucaoCarteiraResponseDTO> serie, long tamanho, int pontos) {
+        List<EvolucaoCarteiraResponseDTO> resultado = new ArrayList<>(pontos);
+        Leitura leitura = new Leitura(serie);
+        int baldes = pontos - 2;
+
+        EvolucaoCarteiraResponseDTO escolhido = leitura.proximo();
+        resultado.add(escolhido);
+
+        List<EvolucaoCarteiraResponseDTO> balde = leitura.ate(fimDoBalde(0, tamanho, baldes));
+
+        for (int i = 0; i < baldes && !balde.isEmpty(); i++) {
+            List<EvolucaoCarteiraResponseDTO> seguinte = i + 1 < baldes
+                    ? leitura.ate(fimDoBalde(i + 1, tamanho, baldes))
+                    : leitura.ate(tamanho);
+
+            if (seguinte.isEmpty()) {
+                break;
+            }
+
+            escolhido = maiorTriangulo(escolhido, balde, seguinte);
+            resultado.add(escolhido);
+            balde = seguinte;
+        }
+
+        // O último ponto da série sempre fica, mesmo que ela tenha crescido depois da contagem
+        EvolucaoCarteiraResponseDTO ultimo = balde.isEmpty() ? escolhido : balde.get(balde.size() - 1);
+        while (leitura.temProximo()) {
+            ultimo = leitura.proximo();
+        }
+        if (ultimo != escolhido) {
+            resultado.add(ultimo);
+        }
+
+        return resultado;
+    }
+
+    // Índice (exclusivo) do fim do balde: os pontos entre o primeiro e o último são divididos igualmente entre os baldes
+    private long fimDoBalde(int balde, long tamanho, int baldes) {
+        return (balde + 1) * (tamanho - 2) / baldes + 1;
+    }
+
+    private EvolucaoCarteiraResponseDTO maiorTriangulo(EvolucaoCarteiraResponseDTO anterior, List<EvolucaoCarteiraResponseDTO> balde,
+                                                      List<EvolucaoCarteiraResponseDTO> seguinte) {
+        double mediaX = 0;
+        double mediaY = 0;
+        for (EvolucaoCarteiraResponseDTO evolucao : seguinte) {
+            mediaX += x(evolucao);
+            mediaY += y(evolucao);
+        }
+        mediaX /= seguinte.size();
+        mediaY /= seguinte.size();
+
+        double anteriorX = x(anterior);
+        double anteriorY = y(anterior);
+        EvolucaoCarteiraResponseDTO maior = balde.get(0);
+        double maiorArea = -1;
+
+        for (EvolucaoCarteiraResponseDTO evolucao : balde) {
+            double area = Math.abs((anteriorX - mediaX) * (y(evolucao) - anteriorY)
+                    - (anteriorX - x(evolucao)) * (mediaY - anteriorY));
+
+            if (area > maiorArea) {
+                maiorArea = area;
+                maior = evolucao;
+            }
+        }
+
+        return maior;
+    }
+
+    private double x(EvolucaoCarteiraResponseDTO evolucao) {
+        return evolucao.data().toEpochDay();
+    }
+
+    private double y(EvolucaoCarteiraResponseDTO evolucao) {
+        return evolucao.valorCarteira().doubleValue();
+    }
+
+    private static final class Leitura {
+        private final Iterator<EvolucaoCarteiraResponseDTO> serie;
+        private long lidos;
+
+        Leitura(Iterator<EvolucaoCarteiraResponseDTO> serie) {
+            this.serie = serie;
+        }
+
+        boolean temProximo() {
+            return serie.hasNext();
+        }
+
+        EvolucaoCarteiraResponseDTO proximo() {
+            lidos++;
+            return serie.next();
+        }
+
+        List<EvolucaoCarteiraResponseDTO> ate(long fim) {
+            List<EvolucaoCarteiraResponseDTO> balde = new ArrayList<>();
+            while (lidos < fim && serie.hasNext()) {
+                balde.add(proximo());
+            }
+            return balde;
+        }
+    }
+}
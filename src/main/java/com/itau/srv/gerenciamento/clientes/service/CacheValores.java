@@ -0,0 +1,110 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresPorDataResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cache de leitura das consultas ao Serviço de Valores. Os valores de um cliente em uma data passada não mudam mais:
+ * ficam em cache sem expiração, limitados apenas pela quantidade de entradas. O histórico de aportes expira pelo TTL
+ * e é removido quando chega um novo aporte do cliente. Consultas do dia corrente em diante sempre vão ao serviço.
+ */
+@Component
+@Slf4j
+public class CacheValores {
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Cache<ChaveValoresPorData, ValoresPorDataResponseDTO> valoresPorData;
+    private final Cache<Long, List<HistoricoAportesResponseDTO>> historicoAportes;
+
+    public CacheValores(MeterRegistry meterRegistry,
+                        Clock clock,
+                        @Value("${valores-cache.valores-por-data.maximo-entradas:100000}") long maximoValoresPorData,
+                        @Value("${valores-cache.historico-aportes.maximo-entradas:10000}") long maximoHistoricos,
+                        @Value("${valores-cache.historico-aportes.ttl:300000}") long ttlHistoricoMs) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+
+        this.valoresPorData = Caffeine.newBuilder()
+                .maximumSize(maximoValoresPorData)
+                .recordStats()
+                .build();
+
+        this.historicoAportes = Caffeine.newBuilder()
+                .maximumSize(maximoHistoricos)
+                .expireAfterWrite(Duration.ofMillis(ttlHistoricoMs))
+                .recordStats()
+                .build();
+
+        monitorar(valoresPorData, "valores-por-data");
+        monitorar(historicoAportes, "historico-aportes");
+    }
+
+    public ValoresFeignClient envolver(ValoresFeignClient alvo) {
+        log.info("Cache de valores habilitado na frente do Serviço de Valores");
+        return new ValoresEmCache(alvo);
+    }
+
+    public void invalidarHistoricoAportes(Long clienteId, String motivo) {
+        log.debug("Invalidando histórico de aportes em cache do cliente {} ({})", clienteId, motivo);
+        historicoAportes.invalidate(clienteId);
+        meterRegistry.counter("valores.cache.invalidacoes", "motivo", motivo).increment();
+    }
+
+    private void monitorar(Cache<?, ?> cache, String nome) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, nome);
+
+        Gauge.builder("valores.cache.taxa-acerto", cache, c -> c.stats().hitRate())
+                .description("Fração das consultas atendidas pelo cache")
+                .tag("cache", nome)
+                .register(meterRegistry);
+    }
+
+    private final class ValoresEmCache implements ValoresFeignClient {
+
+        private final ValoresFeignClient alvo;
+
+        private ValoresEmCache(ValoresFeignClient alvo) {
+            this.alvo = alvo;
+        }
+
+        @Override
+        public ValoresResponseDTO obterValoresPorCliente(Long clienteId) {
+            return alvo.obterValoresPorCliente(clienteId);
+        }
+
+        @Override
+        public ValoresPorDataResponseDTO obterValoresPorClienteEData(Long clienteId, LocalDate data) {
+            // O dia corrente ainda pode receber aportes e vendas
+            if (!data.isBefore(LocalDate.now(clock))) {
+                return alvo.obterValoresPorClienteEData(clienteId, data);
+            }
+
+            return valoresPorData.get(new ChaveValoresPorData(clienteId, data),
+                    chave -> alvo.obterValoresPorClienteEData(chave.clienteId(), chave.data()));
+        }
+
+        @Override
+        public List<HistoricoAportesResponseDTO> consultarHistoricoAportes(Long clienteId) {
+            return historicoAportes.get(clienteId, alvo::consultarHistoricoAportes);
+        }
+    }
+
+    private record ChaveValoresPorData(Long clienteId, LocalDate data) {
+    }
+}
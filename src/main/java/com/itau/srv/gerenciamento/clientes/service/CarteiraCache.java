@@ -0,0 +1,71 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.event.ClienteAlteradoEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Cache opcional das carteiras consultadas, por cliente. As entradas expiram pelo TTL configurado e são removidas
+ * após o commit de alterações no cliente ou por invalidação explícita.
+ */
+@Component
+@Slf4j
+public class CarteiraCache {
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<Long, CarteiraResponseDTO> cache;
+
+    public CarteiraCache(MeterRegistry meterRegistry,
+                         @Value("${carteira-cache.habilitado:false}") boolean habilitado,
+                         @Value("${carteira-cache.maximo-entradas:10000}") long maximoEntradas,
+                         @Value("${carteira-cache.ttl:30000}") long ttlMs) {
+        this.meterRegistry = meterRegistry;
+
+        if (!habilitado) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximoEntradas)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "carteira");
+        log.info("Cache de carteiras habilitado com ate {} entradas e TTL de {} ms", maximoEntradas, ttlMs);
+    }
+
+    public CarteiraResponseDTO obter(Long clienteId, Function<Long, CarteiraResponseDTO> carregador) {
+        if (cache == null) {
+            return carregador.apply(clienteId);
+        }
+
+        return cache.get(clienteId, carregador);
+    }
+
+    public void invalidar(Long clienteId, String motivo) {
+        if (cache == null) {
+            return;
+        }
+
+        log.info("Invalidando carteira em cache do cliente {} ({})", clienteId, motivo);
+        cache.invalidate(clienteId);
+        meterRegistry.counter("carteira.cache.invalidacoes", "motivo", motivo).increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarCliente(ClienteAlteradoEvent evento) {
+        invalidar(evento.clienteId(), "cliente-alterado");
+    }
+}
@@ -0,0 +1,127 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class CarteiraLoteService {
+
+    private static final String CLIENTE_NAO_ENCONTRADO = "CLIENTE_NAO_ENCONTRADO";
+    private static final String CONTA_GRAFICA_NAO_ENCONTRADA = "CONTA_GRAFICA_NAO_ENCONTRADA";
+    private static final String TEMPO_LIMITE_EXCEDIDO = "TEMPO_LIMITE_EXCEDIDO";
+    private static final String ERRO_CONSULTA_CARTEIRA = "ERRO_CONSULTA_CARTEIRA";
+
+    private final ClienteRepository clienteRepository;
+    private final ContaGraficaRepository contaGraficaRepository;
+    private final CarteiraService carteiraService;
+    private final CarteiraCache carteiraCache;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMs;
+
+    public CarteiraLoteService(ClienteRepository clienteRepository,
+                               ContaGraficaRepository contaGraficaRepository,
+                               CarteiraService carteiraService,
+                               CarteiraCache carteiraCache,
+                               @Qualifier("carteirasLoteExecutor") ExecutorService executor,
+                               MeterRegistry meterRegistry,
+                               @Value("${carteiras-lote.timeout:15000}") long timeoutMs) {
+        this.clienteRepository = clienteRepository;
+        this.contaGraficaRepository = contaGraficaRepository;
+        this.carteiraService = carteiraService;
+        this.carteiraCache = carteiraCache;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public CarteirasLoteResponseDTO consultarCarteiras(List<Long> clienteIds) {
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Set<Long> ids = new LinkedHashSet<>(clienteIds);
+
+        log.info("Consultando carteiras de {} clientes em lote", ids.size());
+
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        Map<Long, ContaGrafica> contas = contaGraficaRepository.findAllByClienteIdIn(ids).stream()
+                .collect(Collectors.toMap(conta -> conta.getCliente().getId(), Function.identity()));
+
+        Map<Long, String> erros = new LinkedHashMap<>();
+        Map<Long, Future<CarteiraResponseDTO>> consultas = new LinkedHashMap<>();
+
+        for (Long clienteId : ids) {
+            Cliente cliente = clientes.get(clienteId);
+            ContaGrafica contaGrafica = contas.get(clienteId);
+
+            if (cliente == null) {
+                erros.put(clienteId, CLIENTE_NAO_ENCONTRADO);
+            } else if (contaGrafica == null) {
+                erros.put(clienteId, CONTA_GRAFICA_NAO_ENCONTRADA);
+            } else {
+                consultas.put(clienteId, executor.submit(() ->
+                        carteiraCache.obter(clienteId, id -> carteiraService.montarCarteira(cliente, contaGrafica))));
+            }
+        }
+
+        Map<Long, CarteiraResponseDTO> carteiras = new LinkedHashMap<>();
+
+        try {
+            for (Map.Entry<Long, Future<CarteiraResponseDTO>> consulta : consultas.entrySet()) {
+                aguardarCarteira(consulta.getKey(), consulta.getValue(), prazo, carteiras, erros);
+            }
+        } finally {
+            consultas.values().forEach(futuro -> futuro.cancel(true));
+        }
+
+        meterRegistry.counter("carteiras.lote.clientes", "resultado", "sucesso").increment(carteiras.size());
+        meterRegistry.counter("carteiras.lote.clientes", "resultado", "erro").increment(erros.size());
+        log.info("Lote concluido com {} carteiras e {} erros", carteiras.size(), erros.size());
+
+        return new CarteirasLoteResponseDTO(carteiras, erros);
+    }
+
+    private void aguardarCarteira(Long clienteId, Future<CarteiraResponseDTO> consulta, long prazo,
+                                  Map<Long, CarteiraResponseDTO> carteiras, Map<Long, String> erros) {
+        try {
+            carteiras.put(clienteId, consulta.get(prazo - System.nanoTime(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            log.warn("Tempo limite excedido na consulta da carteira do cliente {}", clienteId);
+            erros.put(clienteId, TEMPO_LIMITE_EXCEDIDO);
+        } catch (ExecutionException e) {
+            log.error("Erro ao consultar carteira do cliente {}: {}", clienteId, e.getCause().getMessage());
+            erros.put(clienteId, codigoErro(e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CONSULTA_INTERROMPIDA", e);
+        }
+    }
+
+    private String codigoErro(Throwable causa) {
+        String mensagem = causa.getMessage();
+
+        return mensagem != null && mensagem.matches("[A-Z_]+") ? mensagem : ERRO_CONSULTA_CARTEIRA;
+    }
+}
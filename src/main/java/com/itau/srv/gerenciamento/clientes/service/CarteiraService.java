@@ -1,12 +1,12 @@
 package com.itau.srv.gerenciamento.clientes.service;
 
 import com.itau.common.library.exception.RecursoNaoEncontradoException;
-import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresPorDataResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.ServicoIndisponivelException;
 import com.itau.srv.gerenciamento.clientes.feign.CustodiasFeignClient;
 import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
 import com.itau.srv.gerenciamento.clientes.mapper.CarteiraMaper;
@@ -16,15 +16,14 @@ import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
 import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -38,11 +37,30 @@ public class CarteiraService {
     private final CarteiraMaper carteiraMaper;
     private final ValoresFeignClient valoresFeignClient;
     private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final ExecutorParalelo executorParalelo;
+    private final AgregadorCarteira agregadorCarteira;
+    private final CarteiraCache carteiraCache;
+    private final MeterRegistry meterRegistry;
 
-    @Transactional(readOnly = true)
     public CarteiraResponseDTO consultarCarteiraCliente(Long clienteId) {
         log.info("Consultando carteira do cliente: {}", clienteId);
 
+        try {
+            return carteiraCache.obter(clienteId, this::montarCarteiraCliente);
+        } catch (CallNotPermittedException e) {
+            // Fora do cache de propósito: a carteira desatualizada nunca é armazenada
+            log.warn("Circuit breaker {} aberto, respondendo carteira do cliente {} a partir do ultimo snapshot",
+                    e.getCausingCircuitBreakerName(), clienteId);
+            return montarCarteiraDesatualizada(clienteId, e);
+        }
+    }
+
+    public void invalidarCarteiraEmCache(Long clienteId) {
+        carteiraCache.invalidar(clienteId, "manual");
+    }
+
+    private CarteiraResponseDTO montarCarteiraCliente(Long clienteId) {
+
         Cliente cliente = clienteRepository.findById(clienteId)
                 .orElseThrow(() -> {
                     log.error("Cliente não encontrado: {}", clienteId);
@@ -53,109 +71,110 @@ public class CarteiraService {
         ContaGrafica contaGrafica = contaGraficaRepository.findByCliente(cliente);
         log.info("Conta grafica encontrada: {}", contaGrafica.getNumeroConta());
 
-        log.info("Buscando custodias do cliente: {}", cliente.getNome());
-        List<CustodiaResponseDTO> custodiasCliente = custodiasFeignClient.obterCustodiasPorClienteId(cliente.getId());
-        log.info("Total de custodias: {}", custodiasCliente.size());
+        return montarCarteira(cliente, contaGrafica);
+    }
 
-        BigDecimal valorAtualCarteira = custodiasCliente.isEmpty() ? BigDecimal.ZERO
-                : custodiasCliente.stream()
-                .map(c -> c.valorAtual().multiply(BigDecimal.valueOf(c.quantidade())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private CarteiraResponseDTO montarCarteiraDesatualizada(Long clienteId, CallNotPermittedException causa) {
+        Cliente cliente = clienteRepository.findById(clienteId)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("CLIENTE_NAO_ENCONTRADO"));
+        ContaGrafica contaGrafica = contaGraficaRepository.findByCliente(cliente);
 
-        log.info("Valor atual da carteira: {}", valorAtualCarteira);
+        SnapshotCarteira snapshot = snapshotCarteiraRepository.findFirstByClienteIdOrderByDataSnapshotDesc(clienteId)
+                .orElseThrow(() -> {
+                    meterRegistry.counter("carteira.fallback.snapshot", "resultado", "sem-snapshot").increment();
+                    return new ServicoIndisponivelException("SERVICO_INDISPONIVEL", causa);
+                });
 
-        ValoresResponseDTO valores = valoresFeignClient.obterValoresPorCliente(cliente.getId());
+        ResumoResponseDTO resumo = new ResumoResponseDTO(
+                snapshot.getValorInvestido(),
+                snapshot.getValorCarteira(),
+                snapshot.getValorCarteira().subtract(snapshot.getValorInvestido()),
+                snapshot.getRentabilidade()
+        );
 
-        BigDecimal valorTotalInvestido = valores.valorInvestido().subtract(valores.valorVendido());
+        meterRegistry.counter("carteira.fallback.snapshot", "resultado", "snapshot").increment();
 
-        log.info("Valor total investido: {}", valorTotalInvestido);
+        return carteiraMaper.mapearParaCarteiraDesatualizada(cliente, contaGrafica, resumo, snapshot.getDataSnapshot());
+    }
 
-        BigDecimal plTotal = custodiasCliente.isEmpty() ? BigDecimal.ZERO
-                : custodiasCliente.stream()
-                .map(c -> {
-                    BigDecimal diferenca = c.valorAtual().subtract(c.precoMedio());
-                    return diferenca.multiply(BigDecimal.valueOf(c.quantidade()));
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        log.info("PL total: {}", plTotal);
-
-        List<AtivoResponseDTO> ativos = new ArrayList<>();
-
-        for (CustodiaResponseDTO custodia : custodiasCliente) {
-            BigDecimal valorTotalAtivo = custodia.valorAtual().multiply(BigDecimal.valueOf(custodia.quantidade()));
-
-            BigDecimal pl = custodia.valorAtual().subtract(custodia.precoMedio()).multiply(BigDecimal.valueOf(custodia.quantidade()));
-            BigDecimal plPercentual = plTotal.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : pl.divide(plTotal, 2, RoundingMode.HALF_UP);
-            BigDecimal composicaoCarteira = valorAtualCarteira.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : valorTotalAtivo.divide(valorAtualCarteira, 2, RoundingMode.HALF_UP);
-
-            ativos.add(new AtivoResponseDTO(
-                    custodia.ticker(),
-                    custodia.quantidade(),
-                    custodia.precoMedio(),
-                    custodia.valorAtual(),
-                    pl,
-                    plPercentual,
-                    composicaoCarteira
-            ));
-        }
+    public CarteiraResponseDTO montarCarteira(Cliente cliente, ContaGrafica contaGrafica) {
+        log.info("Buscando custodias e valores do cliente: {}", cliente.getNome());
+        ExecutorParalelo.Resultado<List<CustodiaResponseDTO>, ValoresResponseDTO> consultas = executorParalelo.executar(
+                "carteira",
+                new ExecutorParalelo.Chamada<>("custodias", () -> obterCustodias(cliente.getId())),
+                new ExecutorParalelo.Chamada<>("valores", () -> valoresFeignClient.obterValoresPorCliente(cliente.getId()))
+        );
 
-        BigDecimal numerador = valorAtualCarteira.subtract(valorTotalInvestido);
+        List<CustodiaResponseDTO> custodiasCliente = consultas.primeiro();
+        ValoresResponseDTO valores = consultas.segundo();
+        log.info("Total de custodias: {}", custodiasCliente.size());
+
+        AgregadorCarteira.Agregacao agregacao = agregadorCarteira.agregar(custodiasCliente);
+
+        log.info("Valor atual da carteira: {}", agregacao.valorAtualCarteira());
+
+        BigDecimal valorTotalInvestido = valores.valorInvestido().subtract(valores.valorVendido());
 
-        BigDecimal rentabilidadePercentual = valorTotalInvestido.compareTo(BigDecimal.ZERO) == 0
-                ? BigDecimal.ZERO
-                : numerador.divide(valorTotalInvestido, 4, RoundingMode.DOWN).multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.DOWN);
+        log.info("Valor total investido: {}", valorTotalInvestido);
+        log.info("PL total: {}", agregacao.plTotal());
+
+        BigDecimal rentabilidadePercentual = agregadorCarteira.calcularRentabilidade(agregacao.valorAtualCarteira(), valorTotalInvestido);
         log.info("Rentabilidade percentual: {}", rentabilidadePercentual);
 
         ResumoResponseDTO resumo = new ResumoResponseDTO(
                 valorTotalInvestido,
-                valorAtualCarteira,
-                plTotal,
+                agregacao.valorAtualCarteira(),
+                agregacao.plTotal(),
                 rentabilidadePercentual
         );
 
-        return carteiraMaper.mapearParaCarteiraResponseDTO(cliente, contaGrafica, resumo, ativos);
+        return carteiraMaper.mapearParaCarteiraResponseDTO(cliente, contaGrafica, resumo, agregacao.ativos());
     }
 
-    @Transactional
-    public void gerarSnapshots(LocalDate data) {
-        List<SnapshotCarteira> snapshots = new ArrayList<>();
-
-        List<Cliente> clientes = clienteRepository.findAllAtivos();
-
-        for (Cliente cliente : clientes) {
-            SnapshotCarteira snapshot = new SnapshotCarteira();
-
-            snapshot.setClienteId(cliente.getId());
-            snapshot.setDataSnapshot(data);
+    public SnapshotCarteira calcularSnapshot(Long clienteId, LocalDate data) {
+        return calcularSnapshotComCustodias(clienteId, data).snapshot();
+    }
 
-            List<CustodiaResponseDTO> custodiasCliente = custodiasFeignClient.obterCustodiasPorClienteId(cliente.getId());
+    public SnapshotCalculado calcularSnapshotComCustodias(Long clienteId, LocalDate data) {
+        ExecutorParalelo.Resultado<List<CustodiaResponseDTO>, ValoresPorDataResponseDTO> consultas = executorParalelo.executar(
+                "snapshot",
+                new ExecutorParalelo.Chamada<>("custodias", () -> obterCustodias(clienteId)),
+                new ExecutorParalelo.Chamada<>("valores", () -> valoresFeignClient.obterValoresPorClienteEData(clienteId, data))
+        );
 
-            BigDecimal valorAtualCarteira = custodiasCliente.isEmpty() ? BigDecimal.ZERO
-                    : custodiasCliente.stream()
-                    .map(c -> c.valorAtual().multiply(BigDecimal.valueOf(c.quantidade())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        SnapshotCarteira snapshot = montarSnapshot(clienteId, data, consultas.primeiro(), calcularValorInvestido(consultas.segundo()));
 
-            snapshot.setValorCarteira(valorAtualCarteira);
+        return new SnapshotCalculado(snapshot, consultas.primeiro());
+    }
 
-            ValoresPorDataResponseDTO valores = valoresFeignClient.obterValoresPorClienteEData(cliente.getId(), data);
+    public BigDecimal consultarValorInvestido(Long clienteId, LocalDate data) {
+        return calcularValorInvestido(valoresFeignClient.obterValoresPorClienteEData(clienteId, data));
+    }
 
-            BigDecimal valorTotalInvestido = valores.valores().valorInvestido().subtract(valores.valores().valorVendido());
+    public SnapshotCarteira montarSnapshot(Long clienteId, LocalDate data, List<CustodiaResponseDTO> custodias, BigDecimal valorTotalInvestido) {
+        BigDecimal valorAtualCarteira = agregadorCarteira.calcularValorCarteira(custodias);
 
-            BigDecimal numerador = valorAtualCarteira.subtract(valorTotalInvestido);
+        SnapshotCarteira snapshot = new SnapshotCarteira();
 
-            BigDecimal rentabilidadePercentual = valorTotalInvestido.compareTo(BigDecimal.ZERO) == 0
-                    ? BigDecimal.ZERO
-                    : numerador.divide(valorTotalInvestido, 4, RoundingMode.DOWN).multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.DOWN);
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(data);
+        snapshot.setValorCarteira(valorAtualCarteira);
+        snapshot.setValorInvestido(valorTotalInvestido);
+        snapshot.setRentabilidade(agregadorCarteira.calcularRentabilidade(valorAtualCarteira, valorTotalInvestido));
 
-            snapshot.setValorInvestido(valorTotalInvestido);
-            snapshot.setRentabilidade(rentabilidadePercentual);
+        return snapshot;
+    }
 
-            snapshots.add(snapshot);
-        }
+    // O Serviço de Custódias é a fonte da cotação atual: o modelo local não guarda cotações
+    public List<CustodiaResponseDTO> obterCustodias(Long clienteId) {
+        return custodiasFeignClient.obterCustodiasPorClienteId(clienteId);
+    }
 
-        log.info("Salvando {} snapshots", snapshots.size());
+    private BigDecimal calcularValorInvestido(ValoresPorDataResponseDTO valoresPorData) {
+        ValoresResponseDTO valores = valoresPorData.valores();
+        return valores.valorInvestido().subtract(valores.valorVendido());
+    }
 
-        snapshotCarteiraRepository.saveAll(snapshots);
+    public record SnapshotCalculado(SnapshotCarteira snapshot, List<CustodiaResponseDTO> custodias) {
     }
 }
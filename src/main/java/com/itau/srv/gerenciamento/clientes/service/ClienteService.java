@@ -7,21 +7,28 @@ import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalResponseDTO;
+import com.itau.srv.gerenciamento.clientes.event.ClienteAlteradoEvent;
 import com.itau.srv.gerenciamento.clientes.mapper.ClienteMapper;
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
 import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
 import com.itau.srv.gerenciamento.clientes.validator.ClienteValidator;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +40,10 @@ public class ClienteService {
     private final ClienteMapper clienteMapper;
     private final ContaGraficaService contaGraficaService;
     private final ContaGraficaRepository contaGraficaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+
+    private static final int TAMANHO_LOTE_LISTAGEM = 1000;
 
     private static final String ADESAO_ENCERRADA = "Adesão encerrada. Sua posição em custodia foi mantida.";
     private static final String ALTERAR_VALOR_MENSAL = "Valor mensal atualizado. O novo valor será considerado a partir da próxima data de compra.";
@@ -65,6 +76,7 @@ public class ClienteService {
         cliente.setAtivo(false);
 
         clienteRepository.save(cliente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(cliente.getId()));
 
         log.info("Cliente {} cancelado com sucesso", cliente.getCpf());
 
@@ -94,6 +106,7 @@ public class ClienteService {
         cliente.setValorMensal(dto.novoValorMensal());
 
         clienteRepository.save(cliente);
+        eventPublisher.publishEvent(new ClienteAlteradoEvent(cliente.getId()));
 
         log.info("Valor mensal para o cliente {} alterado de {} para {}", cliente.getCpf(), valorAntigo, dto.novoValorMensal());
 
@@ -106,16 +119,28 @@ public class ClienteService {
         );
     }
 
+    /**
+     * Entrega os clientes ativos ao consumidor em lotes lidos por keyset, em uma transação somente leitura. O contexto
+     * de persistência é limpo a cada lote, então a memória usada não cresce com a quantidade de clientes.
+     */
     @Transactional(readOnly = true)
-    public List<AdesaoResponseDTO> buscarClientesAtivos() {
-        List<Cliente> ativos = clienteRepository.findAllAtivos();
-        List<AdesaoResponseDTO> response = new ArrayList<>();
+    public void percorrerClientesAtivos(Consumer<AdesaoResponseDTO> consumidor) {
+        long ultimoId = 0L;
+
+        while (true) {
+            List<Cliente> clientes = clienteRepository.findAtivosAposId(ultimoId, PageRequest.of(0, TAMANHO_LOTE_LISTAGEM));
+            if (clientes.isEmpty()) {
+                return;
+            }
 
-        ativos.forEach(cliente -> {
-            ContaGrafica conta = contaGraficaRepository.findByCliente(cliente);
-            response.add(clienteMapper.mapearParaAdesaoResponseDTO(cliente, conta));
-        });
+            Map<Long, ContaGrafica> contas = contaGraficaRepository.findAllByClienteIdIn(clientes.stream().map(Cliente::getId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(conta -> conta.getCliente().getId(), Function.identity()));
 
-        return response;
+            clientes.forEach(cliente -> consumidor.accept(clienteMapper.mapearParaAdesaoResponseDTO(cliente, contas.get(cliente.getId()))));
+
+            ultimoId = clientes.get(clientes.size() - 1).getId();
+            entityManager.clear();
+        }
     }
 }
@@ -0,0 +1,137 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Agrupa chamadas concorrentes idênticas (mesmo método e mesmos argumentos) em uma única execução.
+ * Quem chega enquanto a chamada está em andamento recebe o mesmo resultado ou o mesmo erro; nada é
+ * guardado depois que a chamada termina. A exceção é o erro causado pela interrupção de quem executava a chamada
+ * (por exemplo, cancelado pelo {@link ExecutorParalelo} ao estourar o próprio prazo): ele pertence só a esse
+ * chamador, e quem aguardava tenta de novo, assumindo a chamada.
+ */
+@Component
+@Slf4j
+public class ColapsadorChamadas {
+
+    private final ConcurrentMap<Chave, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ColapsadorChamadas(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T envolver(Class<T> tipo, T alvo) {
+        InvocationHandler handler = (proxy, metodo, argumentos) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return invocar(alvo, metodo, argumentos);
+            }
+
+            String operacao = tipo.getSimpleName() + "." + metodo.getName();
+            return executar(operacao, new Chave(metodo, argumentos == null ? List.of() : Arrays.asList(argumentos)),
+                    () -> invocar(alvo, metodo, argumentos));
+        };
+
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    Object executar(String operacao, Chave chave, Chamada chamada) throws Throwable {
+        while (true) {
+            CompletableFuture<Object> nova = new CompletableFuture<>();
+            CompletableFuture<Object> existente = emAndamento.putIfAbsent(chave, nova);
+
+            if (existente == null) {
+                return liderar(operacao, chave, nova, chamada);
+            }
+
+            meterRegistry.counter("chamadas.colapsadas", "operacao", operacao).increment();
+            log.debug("Chamada {} colapsada com outra em andamento", operacao);
+
+            try {
+                return aguardar(existente);
+            } catch (ChamadaInterrompida e) {
+                meterRegistry.counter("chamadas.colapsadas.repetidas", "operacao", operacao).increment();
+                log.debug("Chamada {} interrompida em quem a executava, repetindo", operacao);
+            }
+        }
+    }
+
+    private Object liderar(String operacao, Chave chave, CompletableFuture<Object> nova, Chamada chamada) throws Throwable {
+        meterRegistry.counter("chamadas.colapsaveis.executadas", "operacao", operacao).increment();
+
+        // Removida antes de completar: quem repete a chamada não reencontra a que terminou
+        Object resultado;
+        try {
+            resultado = chamada.executar();
+        } catch (Throwable erro) {
+            emAndamento.remove(chave, nova);
+            nova.completeExceptionally(Thread.currentThread().isInterrupted() || causadoPorInterrupcao(erro)
+                    ? new ChamadaInterrompida(erro) : erro);
+            throw erro;
+        }
+
+        emAndamento.remove(chave, nova);
+        nova.complete(resultado);
+        return resultado;
+    }
+
+    // O timeout de leitura também é um InterruptedIOException, mas é um erro da chamada e vale para todos
+    public static boolean causadoPorInterrupcao(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof InterruptedException || causa instanceof ClosedByInterruptException
+                    || (causa instanceof InterruptedIOException && !(causa instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object aguardar(CompletableFuture<Object> existente) throws Throwable {
+        try {
+            return existente.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CONSULTA_INTERROMPIDA", e);
+        }
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    record Chave(Method metodo, List<Object> argumentos) {
+    }
+
+    private static final class ChamadaInterrompida extends Exception {
+        ChamadaInterrompida(Throwable causa) {
+            super(causa);
+        }
+    }
+
+    @FunctionalInterface
+    interface Chamada {
+        Object executar() throws Throwable;
+    }
+}
@@ -0,0 +1,107 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.consumer.CustodiaConsumer;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.mapper.CustodiaMapper;
+import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
+import com.itau.srv.gerenciamento.clientes.model.Custodia;
+import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
+import com.itau.srv.gerenciamento.clientes.repository.CustodiaRepository;
+import com.itau.srv.gerenciamento.clientes.repository.EstadoSnapshotClienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Modelo local das custódias, alimentado pelos eventos de alteração de custódia. Guarda só posições (quantidade e
+ * preço médio), nunca cotações: a carteira e os snapshots leem a custódia do Serviço de Custódias, que é a fonte da
+ * cotação atual. Mudanças de quantidade ou preço médio marcam o cliente como alterado para a geração incremental de
+ * snapshots ({@link SnapshotsIncrementais}), que só confia nas marcações com o consumidor sem defasagem
+ * ({@link DefasagemConsumidores}).
+ */
+@Service
+@Slf4j
+public class CustodiaLocalService {
+
+    private final CustodiaRepository custodiaRepository;
+    private final ContaGraficaRepository contaGraficaRepository;
+    private final EstadoSnapshotClienteRepository estadoSnapshotClienteRepository;
+    private final DefasagemConsumidores defasagemConsumidores;
+    private final CustodiaMapper custodiaMapper;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean habilitado;
+
+    public CustodiaLocalService(CustodiaRepository custodiaRepository,
+                                ContaGraficaRepository contaGraficaRepository,
+                                EstadoSnapshotClienteRepository estadoSnapshotClienteRepository,
+                                DefasagemConsumidores defasagemConsumidores,
+                                CustodiaMapper custodiaMapper,
+                                MeterRegistry meterRegistry,
+                                Clock clock,
+                                @Value("${custodias.local.habilitado:false}") boolean habilitado) {
+        this.custodiaRepository = custodiaRepository;
+        this.contaGraficaRepository = contaGraficaRepository;
+        this.estadoSnapshotClienteRepository = estadoSnapshotClienteRepository;
+        this.defasagemConsumidores = defasagemConsumidores;
+        this.custodiaMapper = custodiaMapper;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.habilitado = habilitado;
+    }
+
+    @Transactional
+    public void aplicarEvento(CustodiaAtualizadaEventoDTO evento) {
+        Optional<ContaGrafica> contaGrafica = contaGraficaRepository.findByClienteId(evento.clienteId());
+
+        if (contaGrafica.isEmpty()) {
+            log.warn("Evento de custodia ignorado, conta grafica nao encontrada para o cliente {}", evento.clienteId());
+            meterRegistry.counter("custodias.local.eventos", "resultado", "ignorado").increment();
+            return;
+        }
+
+        Optional<Custodia> existente = custodiaRepository.findByContaGraficaAndTicker(contaGrafica.get(), evento.ticker());
+        boolean posicaoAlterada;
+
+        if (evento.quantidade() <= 0) {
+            posicaoAlterada = existente.isPresent();
+            existente.ifPresent(custodiaRepository::delete);
+            log.info("Custodia {} do cliente {} zerada", evento.ticker(), evento.clienteId());
+        } else {
+            posicaoAlterada = existente.map(custodia -> posicaoAlterada(custodia, evento)).orElse(true);
+
+            Custodia custodia = existente.orElseGet(() -> {
+                Custodia nova = new Custodia();
+                nova.setContaGrafica(contaGrafica.get());
+                return nova;
+            });
+
+            custodiaMapper.atualizarCustodia(custodia, evento);
+            custodiaRepository.save(custodia);
+            log.info("Custodia {} do cliente {} atualizada para {} unidades", evento.ticker(), evento.clienteId(), evento.quantidade());
+        }
+
+        // Variação apenas da cotação não marca o cliente: o snapshot incremental sempre lê a custódia com a cotação atual
+        if (posicaoAlterada) {
+            estadoSnapshotClienteRepository.marcarAlterado(evento.clienteId(), LocalDateTime.now(clock));
+        }
+
+        meterRegistry.counter("custodias.local.eventos", "resultado", "aplicado").increment();
+    }
+
+    private boolean posicaoAlterada(Custodia custodia, CustodiaAtualizadaEventoDTO evento) {
+        return !evento.quantidade().equals(custodia.getQuantidade())
+                || custodia.getPrecoMedio() == null
+                || custodia.getPrecoMedio().compareTo(evento.precoMedio()) != 0;
+    }
+
+    public boolean estaAtualizado() {
+        return habilitado && defasagemConsumidores.emDia(CustodiaConsumer.LISTENER_ID);
+    }
+}
@@ -0,0 +1,101 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Defasagem real dos consumidores: compara, partição a partição, o offset confirmado pelo grupo do listener com o
+ * último offset do tópico. Um consumidor só está em dia quando todas as partições têm defasagem zero; listener
+ * parado, grupo sem offsets confirmados para uma partição com mensagens ou falha na consulta ao broker contam como
+ * defasagem desconhecida, e quem depende do consumidor deve tratá-lo como defasado.
+ */
+@Component
+@Slf4j
+public class DefasagemConsumidores {
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final Admin admin;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMs;
+
+    public DefasagemConsumidores(KafkaListenerEndpointRegistry registry,
+                                 Admin admin,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${kafka.defasagem.timeout:5000}") long timeoutMs) {
+        this.registry = registry;
+        this.admin = admin;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public boolean emDia(String listenerId) {
+        MessageListenerContainer container = registry.getListenerContainer(listenerId);
+
+        if (container == null || !container.isRunning()) {
+            return registrar(listenerId, "parado", false);
+        }
+
+        try {
+            List<String> topicos = Arrays.asList(container.getContainerProperties().getTopics());
+            long defasagem = calcular(container.getGroupId(), topicos);
+
+            if (defasagem > 0) {
+                log.info("Consumidor {} com {} mensagens pendentes", listenerId, defasagem);
+                return registrar(listenerId, "defasado", false);
+            }
+
+            return registrar(listenerId, "em-dia", true);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Defasagem do consumidor {} desconhecida: {}", listenerId, e.getMessage());
+            return registrar(listenerId, "desconhecida", false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return registrar(listenerId, "desconhecida", false);
+        }
+    }
+
+    private long calcular(String grupo, List<String> topicos) throws ExecutionException, InterruptedException, TimeoutException {
+        Map<TopicPartition, OffsetAndMetadata> confirmados = admin.listConsumerGroupOffsets(grupo)
+                .partitionsToOffsetAndMetadata().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        Map<TopicPartition, OffsetSpec> particoes = new HashMap<>();
+        for (TopicDescription topico : admin.describeTopics(topicos).allTopicNames().get(timeoutMs, TimeUnit.MILLISECONDS).values()) {
+            topico.partitions().forEach(particao ->
+                    particoes.put(new TopicPartition(topico.name(), particao.partition()), OffsetSpec.latest()));
+        }
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> finais = admin.listOffsets(particoes).all()
+                .get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        long defasagem = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> fim : finais.entrySet()) {
+            OffsetAndMetadata confirmado = confirmados.get(fim.getKey());
+            defasagem += Math.max(0, fim.getValue().offset() - (confirmado == null ? 0 : confirmado.offset()));
+        }
+
+        return defasagem;
+    }
+
+    private boolean registrar(String listenerId, String resultado, boolean emDia) {
+        meterRegistry.counter("kafka.consumidores.defasagem", "listener", listenerId, "resultado", resultado).increment();
+        return emDia;
+    }
+}
@@ -0,0 +1,61 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Protege cada serviço externo com um circuit breaker próprio. Enquanto o circuito está aberto as chamadas
+ * falham imediatamente com {@link io.github.resilience4j.circuitbreaker.CallNotPermittedException}.
+ */
+@Component
+@Slf4j
+public class DisjuntorServicosExternos {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    public DisjuntorServicosExternos(CircuitBreakerRegistry circuitBreakerRegistry, MeterRegistry meterRegistry) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T envolver(Class<T> tipo, T alvo, String servico) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(servico);
+
+        circuitBreaker.getEventPublisher().onStateTransition(evento -> {
+            log.warn("Circuit breaker do servico {} mudou de {} para {}", servico,
+                    evento.getStateTransition().getFromState(), evento.getStateTransition().getToState());
+            meterRegistry.counter("disjuntor.transicoes",
+                    "servico", servico,
+                    "de", evento.getStateTransition().getFromState().name(),
+                    "para", evento.getStateTransition().getToState().name()).increment();
+        });
+
+        InvocationHandler handler = (proxy, metodo, argumentos) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return invocar(alvo, metodo, argumentos);
+            }
+
+            return circuitBreaker.executeCheckedSupplier(() -> invocar(alvo, metodo, argumentos));
+        };
+
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
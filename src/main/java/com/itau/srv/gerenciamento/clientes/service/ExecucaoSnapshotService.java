@@ -0,0 +1,150 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.common.library.exception.RecursoNaoEncontradoException;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.ExecucaoSnapshotConflitoException;
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro das execuções de snapshots em {@code execucoes_snapshots}. Garante uma única execução em andamento por
+ * data, mesmo com várias instâncias: a linha da data é bloqueada durante a reserva e só pode ser assumida quando
+ * a execução anterior terminou ou parou de dar sinal de vida por mais de {@code execucao-abandonada-ms}.
+ */
+@Service
+@Slf4j
+public class ExecucaoSnapshotService {
+
+    private final ExecucaoSnapshotRepository execucaoSnapshotRepository;
+    private final ClienteRepository clienteRepository;
+    private final SnapshotMapper snapshotMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration execucaoAbandonada;
+
+    public ExecucaoSnapshotService(ExecucaoSnapshotRepository execucaoSnapshotRepository,
+                                   ClienteRepository clienteRepository,
+                                   SnapshotMapper snapshotMapper,
+                                   TransactionTemplate transactionTemplate,
+                                   Clock clock,
+                                   @Value("${snapshots.execucao-abandonada-ms:1800000}") long execucaoAbandonadaMs) {
+        this.execucaoSnapshotRepository = execucaoSnapshotRepository;
+        this.clienteRepository = clienteRepository;
+        this.snapshotMapper = snapshotMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.execucaoAbandonada = Duration.ofMillis(execucaoAbandonadaMs);
+    }
+
+    public ExecucaoSnapshot reservar(LocalDate data) {
+        try {
+            return transactionTemplate.execute(status -> reservarNaTransacao(data));
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância criou a execução da mesma data ao mesmo tempo
+            throw new ExecucaoSnapshotConflitoException("GERACAO_SNAPSHOTS_EM_ANDAMENTO");
+        }
+    }
+
+    private ExecucaoSnapshot reservarNaTransacao(LocalDate data) {
+        LocalDateTime agora = LocalDateTime.now(clock);
+        ExecucaoSnapshot execucao = execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(data).orElseGet(() -> {
+            ExecucaoSnapshot nova = new ExecucaoSnapshot();
+            nova.setDataSnapshot(data);
+            nova.setUltimoClienteId(0L);
+            return nova;
+        });
+
+        if (execucao.getStatus() == StatusExecucaoSnapshot.EM_ANDAMENTO
+                && execucao.getDataAtualizacao().isAfter(agora.minus(execucaoAbandonada))) {
+            throw new ExecucaoSnapshotConflitoException("GERACAO_SNAPSHOTS_EM_ANDAMENTO");
+        }
+
+        if (execucao.getStatus() == StatusExecucaoSnapshot.CONCLUIDA) {
+            // Nova execução completa; clientes que já têm snapshot na data são ignorados
+            execucao.setUltimoClienteId(0L);
+        } else if (execucao.getId() != null) {
+            log.info("Retomando execucao de snapshots de {} apos o cliente {}", data, execucao.getUltimoClienteId());
+        }
+
+        execucao.setStatus(StatusExecucaoSnapshot.EM_ANDAMENTO);
+        execucao.setTotalClientes(clienteRepository.countAtivosAposId(execucao.getUltimoClienteId()));
+        execucao.setClientesProcessados(0L);
+        execucao.setFalhas(0L);
+        execucao.setClientesRecalculados(0L);
+        execucao.setClientesCustodiaInalterada(0L);
+        execucao.setCancelamentoSolicitado(false);
+        execucao.setDataInicio(agora);
+        execucao.setDataAtualizacao(agora);
+        execucao.setDataFim(null);
+
+        return execucaoSnapshotRepository.saveAndFlush(execucao);
+    }
+
+    public void registrarProgresso(ExecucaoSnapshot execucao) {
+        execucao.setDataAtualizacao(LocalDateTime.now(clock));
+
+        execucaoSnapshotRepository.atualizarProgresso(execucao.getId(), execucao.getUltimoClienteId(),
+                execucao.getClientesProcessados(), execucao.getFalhas(), execucao.getClientesRecalculados(),
+                execucao.getClientesCustodiaInalterada(), execucao.getDataAtualizacao());
+    }
+
+    // Só a data de atualização: o progresso continua sendo gravado por registrarProgresso, ao fim de cada lote
+    public void registrarSinalDeVida(ExecucaoSnapshot execucao) {
+        execucao.setDataAtualizacao(LocalDateTime.now(clock));
+
+        execucaoSnapshotRepository.registrarSinalDeVida(execucao.getId(), StatusExecucaoSnapshot.EM_ANDAMENTO,
+                execucao.getDataAtualizacao());
+    }
+
+    public boolean cancelamentoSolicitado(ExecucaoSnapshot execucao) {
+        return execucaoSnapshotRepository.isCancelamentoSolicitado(execucao.getId());
+    }
+
+    public ExecucaoSnapshot finalizar(ExecucaoSnapshot execucao, StatusExecucaoSnapshot status) {
+        LocalDateTime agora = LocalDateTime.now(clock);
+
+        execucao.setStatus(status);
+        execucao.setCancelamentoSolicitado(status == StatusExecucaoSnapshot.CANCELADA);
+        execucao.setDataAtualizacao(agora);
+        execucao.setDataFim(agora);
+
+        return execucaoSnapshotRepository.save(execucao);
+    }
+
+    public ExecucaoSnapshotResponseDTO consultar(Long id) {
+        return mapear(buscarExecucao(id));
+    }
+
+    public ExecucaoSnapshotResponseDTO solicitarCancelamento(Long id) {
+        if (execucaoSnapshotRepository.solicitarCancelamento(id, StatusExecucaoSnapshot.EM_ANDAMENTO) == 0) {
+            buscarExecucao(id);
+            throw new ExecucaoSnapshotConflitoException("EXECUCAO_SNAPSHOT_NAO_ESTA_EM_ANDAMENTO");
+        }
+
+        log.info("Cancelamento solicitado para a execucao de snapshots {}", id);
+
+        return consultar(id);
+    }
+
+    public ExecucaoSnapshotResponseDTO mapear(ExecucaoSnapshot execucao) {
+        return snapshotMapper.mapearParaExecucaoSnapshotResponseDTO(execucao, LocalDateTime.now(clock));
+    }
+
+    private ExecucaoSnapshot buscarExecucao(Long id) {
+        return execucaoSnapshotRepository.findById(id)
+                .orElseThrow(() -> new RecursoNaoEncontradoException("EXECUCAO_SNAPSHOT_NAO_ENCONTRADA"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.exception.TempoLimiteExcedidoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class ExecutorParalelo {
+
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMs;
+
+    public ExecutorParalelo(@Qualifier("chamadasRemotasExecutor") ExecutorService executor,
+                            MeterRegistry meterRegistry,
+                            @Value("${chamadas-paralelas.timeout:9000}") long timeoutMs) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <A, B> Resultado<A, B> executar(String operacao, Chamada<A> primeira, Chamada<B> segunda) {
+        long inicio = System.nanoTime();
+        long prazo = inicio + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long[] duracoes = new long[2];
+
+        CompletionService<Object> conclusoes = new ExecutorCompletionService<>(executor);
+        Future<Object> futuroPrimeira = conclusoes.submit(() -> cronometrar(operacao, primeira, duracoes, 0));
+        Future<Object> futuroSegunda = conclusoes.submit(() -> cronometrar(operacao, segunda, duracoes, 1));
+
+        try {
+            aguardarConclusao(operacao, conclusoes, prazo);
+            aguardarConclusao(operacao, conclusoes, prazo);
+
+            A resultadoPrimeira = (A) futuroPrimeira.get();
+            B resultadoSegunda = (B) futuroSegunda.get();
+
+            registrarEconomia(operacao, duracoes, System.nanoTime() - inicio);
+
+            return new Resultado<>(resultadoPrimeira, resultadoSegunda);
+        } catch (ExecutionException e) {
+            throw propagar(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("CONSULTA_INTERROMPIDA", e);
+        } finally {
+            futuroPrimeira.cancel(true);
+            futuroSegunda.cancel(true);
+        }
+    }
+
+    private void aguardarConclusao(String operacao, CompletionService<Object> conclusoes, long prazo)
+            throws InterruptedException, ExecutionException {
+        Future<Object> concluida = conclusoes.poll(prazo - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+        if (concluida == null) {
+            log.error("Tempo limite de {} ms excedido na operacao {}", timeoutMs, operacao);
+            meterRegistry.counter("chamadas.paralelas.timeout", "operacao", operacao).increment();
+            throw new TempoLimiteExcedidoException("TEMPO_LIMITE_EXCEDIDO");
+        }
+
+        concluida.get();
+    }
+
+    private <T> T cronometrar(String operacao, Chamada<T> chamada, long[] duracoes, int indice) {
+        long inicio = System.nanoTime();
+        try {
+            return chamada.fornecedor().get();
+        } finally {
+            long duracao = System.nanoTime() - inicio;
+            duracoes[indice] = duracao;
+
+            Timer.builder("chamadas.paralelas.etapa")
+                    .tag("operacao", operacao)
+                    .tag("etapa", chamada.nome())
+                    .register(meterRegistry)
+                    .record(duracao, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void registrarEconomia(String operacao, long[] duracoes, long duracaoTotal) {
+        long economia = Math.max(0, duracoes[0] + duracoes[1] - duracaoTotal);
+
+        Timer.builder("chamadas.paralelas.total")
+                .tag("operacao", operacao)
+                .register(meterRegistry)
+                .record(duracaoTotal, TimeUnit.NANOSECONDS);
+
+        Timer.builder("chamadas.paralelas.economia")
+                .description("Tempo economizado pela sobreposição das chamadas em relação à execução sequencial")
+                .tag("operacao", operacao)
+                .register(meterRegistry)
+                .record(economia, TimeUnit.NANOSECONDS);
+
+        log.debug("Operacao {} concluida em {} ms (economia de {} ms)", operacao,
+                TimeUnit.NANOSECONDS.toMillis(duracaoTotal), TimeUnit.NANOSECONDS.toMillis(economia));
+    }
+
+    private RuntimeException propagar(ExecutionException e) {
+        Throwable causa = e.getCause();
+
+        if (causa instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (causa instanceof Error error) {
+            throw error;
+        }
+
+        return new IllegalStateException(causa);
+    }
+
+    public record Chamada<T>(String nome, Supplier<T> fornecedor) {
+    }
+
+    public record Resultado<A, B>(A primeiro, B segundo) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Gera ETags fortes a partir do conteúdo que determina cada resposta. A data da consulta não participa,
+ * de forma que a mesma carteira gera o mesmo ETag em consultas diferentes.
+ */
+@Component
+public class GeradorEtag {
+
+    private static final char SEPARADOR = '\u001F';
+
+    public String gerarParaCarteira(CarteiraResponseDTO carteira) {
+        StringBuilder conteudo = new StringBuilder()
+                .append(carteira.clienteId()).append(SEPARADOR)
+                .append(carteira.nome()).append(SEPARADOR)
+                .append(carteira.contaGrafica()).append(SEPARADOR)
+                .append(carteira.desatualizada()).append(SEPARADOR)
+                .append(carteira.dataSnapshot()).append(SEPARADOR);
+
+        ResumoResponseDTO resumo = carteira.resumo();
+        if (resumo != null) {
+            conteudo.append(resumo.valorTotalInvestido()).append(SEPARADOR)
+                    .append(resumo.valorAtualCarteira()).append(SEPARADOR)
+                    .append(resumo.plTotal()).append(SEPARADOR)
+                    .append(resumo.rentabilidadePercentual()).append(SEPARADOR);
+        }
+
+        if (carteira.ativos() != null) {
+            for (AtivoResponseDTO ativo : carteira.ativos()) {
+                conteudo.append(ativo.ticker()).append(SEPARADOR)
+                        .append(ativo.quantidade()).append(SEPARADOR)
+                        .append(ativo.precoMedio()).append(SEPARADOR)
+                        .append(ativo.cotacaoAtual()).append(SEPARADOR)
+                        .append(ativo.pl()).append(SEPARADOR)
+                        .append(ativo.plPercentual()).append(SEPARADOR)
+                        .append(ativo.composicaoCarteira()).append(SEPARADOR);
+            }
+        }
+
+        return resumir(conteudo);
+    }
+
+    /**
+     * A rentabilidade é versionada pelos snapshots do cliente e pelo histórico de aportes, que também vai na resposta.
+     */
+    public String gerarParaRentabilidade(Long clienteId, VersaoSnapshotsDTO versao, List<HistoricoAportesResponseDTO> aportes) {
+        StringBuilder conteudo = new StringBuilder()
+                .append(clienteId).append(SEPARADOR)
+                .append(versao.quantidade()).append(SEPARADOR)
+                .append(versao.ultimoId()).append(SEPARADOR)
+                .append(versao.ultimaData()).append(SEPARADOR)
+                .append(versao.ultimaAtualizacao()).append(SEPARADOR);
+
+        if (aportes != null) {
+            for (HistoricoAportesResponseDTO aporte : aportes) {
+                conteudo.append(aporte.data()).append(SEPARADOR)
+                        .append(aporte.valor()).append(SEPARADOR)
+                        .append(aporte.parcela()).append(SEPARADOR);
+            }
+        }
+
+        return resumir(conteudo);
+    }
+
+    private String resumir(CharSequence conteudo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(conteudo.toString().getBytes(StandardCharsets.UTF_8));
+
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
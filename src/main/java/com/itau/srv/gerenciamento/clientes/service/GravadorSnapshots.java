@@ -0,0 +1,170 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Grava (ou atualiza, por cliente e data) um lote de snapshots de uma mesma data na transação corrente. Com {@code snapshots.carga-copy.habilitado} e PostgreSQL,
+ * as linhas são enviadas por COPY para {@code snapshots_carteiras_carga} e mescladas em um único INSERT ... SELECT;
+ * nos demais casos (H2 nos testes, por exemplo) usa o {@code saveAll} do JPA. As partições dos meses do lote são
+ * garantidas antes da gravação.
+ */
+@Component
+@Slf4j
+public class GravadorSnapshots {
+
+    // Igual ao allocationSize de SnapshotCarteira: cada nextval reserva um bloco de ids
+    static final int TAMANHO_BLOCO_IDS = 50;
+
+    private static final String RESERVAR_IDS = "SELECT nextval('snapshots_carteiras_seq') FROM generate_series(1, ?)";
+    private static final String COPIAR_CARGA = "COPY snapshots_carteiras_carga " +
+            "(id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade) FROM STDIN WITH (FORMAT csv)";
+    private static final String MESCLAR_CARGA = "INSERT INTO snapshots_carteiras " +
+            "(id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade) " +
+            "SELECT id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade FROM snapshots_carteiras_carga " +
+            "ON CONFLICT (cliente_id, data_snapshot) DO UPDATE SET " +
+            "valor_carteira = EXCLUDED.valor_carteira, valor_investido = EXCLUDED.valor_investido, rentabilidade = EXCLUDED.rentabilidade";
+    private static final String LIMPAR_CARGA = "DELETE FROM snapshots_carteiras_carga";
+
+    private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ParticoesSnapshots particoesSnapshots;
+    private final MeterRegistry meterRegistry;
+    private final boolean copyHabilitado;
+    private volatile Boolean copyDisponivel;
+
+    public GravadorSnapshots(SnapshotCarteiraRepository snapshotCarteiraRepository,
+                             JdbcTemplate jdbcTemplate,
+                             ParticoesSnapshots particoesSnapshots,
+                             MeterRegistry meterRegistry,
+                             @Value("${snapshots.carga-copy.habilitado:false}") boolean copyHabilitado) {
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.particoesSnapshots = particoesSnapshots;
+        this.meterRegistry = meterRegistry;
+        this.copyHabilitado = copyHabilitado;
+    }
+
+    public void gravar(List<SnapshotCarteira> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        particoesSnapshots.garantirParticoes(snapshots.stream().map(SnapshotCarteira::getDataSnapshot).toList());
+
+        if (usarCopy()) {
+            gravarComCopy(snapshots);
+            meterRegistry.counter("snapshots.gravacao", "modo", "copy").increment(snapshots.size());
+        } else {
+            gravarComJpa(snapshots);
+            meterRegistry.counter("snapshots.gravacao", "modo", "jpa").increment(snapshots.size());
+        }
+    }
+
+    private void gravarComJpa(List<SnapshotCarteira> snapshots) {
+        LocalDate dataSnapshot = snapshots.get(0).getDataSnapshot();
+        List<Long> clienteIds = snapshots.stream().map(SnapshotCarteira::getClienteId).toList();
+
+        Map<Long, SnapshotCarteira> existentes = snapshotCarteiraRepository.findAllByDataSnapshotAndClienteIdIn(dataSnapshot, clienteIds)
+                .stream()
+                .collect(Collectors.toMap(SnapshotCarteira::getClienteId, Function.identity()));
+
+        List<SnapshotCarteira> novos = new ArrayList<>(snapshots.size());
+        for (SnapshotCarteira snapshot : snapshots) {
+            SnapshotCarteira existente = existentes.get(snapshot.getClienteId());
+            if (existente == null) {
+                novos.add(snapshot);
+            } else {
+                existente.setValorCarteira(snapshot.getValorCarteira());
+                existente.setValorInvestido(snapshot.getValorInvestido());
+                existente.setRentabilidade(snapshot.getRentabilidade());
+            }
+        }
+
+        snapshotCarteiraRepository.saveAll(novos);
+    }
+
+    private boolean usarCopy() {
+        if (!copyHabilitado) {
+            return false;
+        }
+
+        Boolean disponivel = copyDisponivel;
+        if (disponivel == null) {
+            disponivel = Boolean.TRUE.equals(jdbcTemplate.execute(
+                    (ConnectionCallback<Boolean>) conexao -> conexao.isWrapperFor(PGConnection.class)));
+            if (!disponivel) {
+                log.warn("Carga de snapshots via COPY habilitada, mas o banco nao e PostgreSQL; usando JPA");
+            }
+            copyDisponivel = disponivel;
+        }
+
+        return disponivel;
+    }
+
+    private void gravarComCopy(List<SnapshotCarteira> snapshots) {
+        Iterator<Long> ids = reservarIds(snapshots.size()).iterator();
+
+        jdbcTemplate.execute((ConnectionCallback<Long>) conexao -> {
+            CopyIn copia = conexao.unwrap(PGConnection.class).getCopyAPI().copyIn(COPIAR_CARGA);
+            try {
+                for (SnapshotCarteira snapshot : snapshots) {
+                    snapshot.setId(ids.next());
+                    byte[] linha = formatarLinha(snapshot).getBytes(StandardCharsets.UTF_8);
+                    copia.writeToCopy(linha, 0, linha.length);
+                }
+                return copia.endCopy();
+            } finally {
+                if (copia.isActive()) {
+                    copia.cancelCopy();
+                }
+            }
+        });
+
+        jdbcTemplate.update(MESCLAR_CARGA);
+        jdbcTemplate.update(LIMPAR_CARGA);
+    }
+
+    private List<Long> reservarIds(int quantidade) {
+        List<Long> ids = new ArrayList<>(quantidade + TAMANHO_BLOCO_IDS);
+
+        while (ids.size() < quantidade) {
+            int blocos = (quantidade - ids.size() + TAMANHO_BLOCO_IDS - 1) / TAMANHO_BLOCO_IDS;
+
+            for (Long limite : jdbcTemplate.queryForList(RESERVAR_IDS, Long.class, blocos)) {
+                // Mesma faixa do otimizador pooled do Hibernate: (limite - 50, limite]
+                for (long id = Math.max(limite - TAMANHO_BLOCO_IDS + 1, 1); id <= limite; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private String formatarLinha(SnapshotCarteira snapshot) {
+        return snapshot.getId() + "," +
+                snapshot.getClienteId() + "," +
+                snapshot.getDataSnapshot() + "," +
+                snapshot.getValorCarteira().toPlainString() + "," +
+                snapshot.getValorInvestido().toPlainString() + "," +
+                snapshot.getRentabilidade().toPlainString() + "\n";
+    }
+}
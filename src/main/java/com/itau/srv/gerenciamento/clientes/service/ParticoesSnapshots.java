@@ -0,0 +1,129 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantém as partições mensais de {@code snapshots_carteiras} (V5__particionamento_snapshots_carteiras.sql): cria a
+ * partição do mês antes de cada geração e, na gravação, a de cada mês do lote que ainda não foi garantida pela
+ * instância (continuações e pontos levados adiante podem cair em outro mês). Com {@code snapshots.retencao-meses} maior que zero, remove as partições
+ * inteiras mais antigas que a retenção. Fora do PostgreSQL (H2 nos testes) a tabela não é particionada e nada é feito.
+ * No armazenamento esparso, o último ponto de cada cliente nas partições removidas é antes levado para a primeira data
+ * gerada mantida, para que a série reconstruída não perca o valor vigente.
+ */
+@Component
+@Slf4j
+public class ParticoesSnapshots {
+
+    private static final Pattern NOME_PARTICAO = Pattern.compile("snapshots_carteiras_(\\d{6})");
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String CRIAR_PARTICAO = "SELECT criar_particao_snapshots_carteiras(?)";
+    private static final String LISTAR_PARTICOES = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass('snapshots_carteiras')";
+    private static final String PRIMEIRA_DATA_MANTIDA = "SELECT MIN(data_snapshot) FROM execucoes_snapshots WHERE data_snapshot >= ?";
+    private static final String LEVAR_ADIANTE_EXPIRADOS = "INSERT INTO snapshots_carteiras " +
+            "(id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade) " +
+            "SELECT nextval('snapshots_carteiras_seq'), u.cliente_id, ?, u.valor_carteira, u.valor_investido, u.rentabilidade " +
+            "FROM (SELECT DISTINCT ON (cliente_id) cliente_id, valor_carteira, valor_investido, rentabilidade " +
+            "FROM snapshots_carteiras WHERE data_snapshot < ? ORDER BY cliente_id, data_snapshot DESC) u " +
+            "ON CONFLICT (cliente_id, data_snapshot) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final int retencaoMeses;
+    private final boolean esparso;
+    private final Set<YearMonth> garantidas = ConcurrentHashMap.newKeySet();
+    private volatile Boolean particionada;
+
+    public ParticoesSnapshots(JdbcTemplate jdbcTemplate,
+                              Clock clock,
+                              @Value("${snapshots.retencao-meses:0}") int retencaoMeses,
+                              @Value("${snapshots.armazenamento-esparso.habilitado:false}") boolean esparso) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.retencaoMeses = retencaoMeses;
+        this.esparso = esparso;
+    }
+
+    public void garantirParticao(LocalDate data) {
+        if (particionada()) {
+            jdbcTemplate.queryForList(CRIAR_PARTICAO, data);
+            garantidas.add(YearMonth.from(data));
+        }
+    }
+
+    public void garantirParticoes(Collection<LocalDate> datas) {
+        if (!particionada()) {
+            return;
+        }
+
+        for (YearMonth mes : datas.stream().map(YearMonth::from).distinct().toList()) {
+            if (!garantidas.contains(mes)) {
+                jdbcTemplate.queryForList(CRIAR_PARTICAO, mes.atDay(1));
+                garantidas.add(mes);
+            }
+        }
+    }
+
+    public int removerExpiradas() {
+        if (retencaoMeses <= 0 || !particionada()) {
+            return 0;
+        }
+
+        YearMonth primeiroMesMantido = YearMonth.now(clock).minusMonths(retencaoMeses);
+        List<String> expiradas = new ArrayList<>();
+
+        for (String particao : jdbcTemplate.queryForList(LISTAR_PARTICOES, String.class)) {
+            Matcher nome = NOME_PARTICAO.matcher(particao);
+            if (nome.matches() && YearMonth.parse(nome.group(1), FORMATO_MES).isBefore(primeiroMesMantido)) {
+                expiradas.add(particao);
+            }
+        }
+
+        if (esparso && !expiradas.isEmpty()) {
+            levarAdianteExpirados(primeiroMesMantido.atDay(1));
+        }
+
+        for (String particao : expiradas) {
+            // DROP de uma partição só remove os arquivos da tabela; não há DELETE nem VACUUM
+            jdbcTemplate.execute("DROP TABLE " + particao);
+            log.info("Particao {} removida pela retencao de {} meses", particao, retencaoMeses);
+        }
+        garantidas.clear();
+
+        return expiradas.size();
+    }
+
+    private void levarAdianteExpirados(LocalDate limite) {
+        LocalDate primeiraData = jdbcTemplate.queryForObject(PRIMEIRA_DATA_MANTIDA, LocalDate.class, limite);
+        if (primeiraData == null) {
+            return;
+        }
+
+        int levados = jdbcTemplate.update(LEVAR_ADIANTE_EXPIRADOS, primeiraData, limite);
+        log.info("{} snapshots levados para {} antes da remocao das particoes expiradas", levados, primeiraData);
+    }
+
+    private boolean particionada() {
+        if (particionada == null) {
+            particionada = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexao -> conexao.isWrapperFor(PGConnection.class));
+        }
+        return Boolean.TRUE.equals(particionada);
+    }
+}
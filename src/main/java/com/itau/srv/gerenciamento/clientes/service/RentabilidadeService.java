@@ -1,38 +1,104 @@
 package com.itau.srv.gerenciamento.clientes.service;
 
+import com.itau.common.library.exception.NegocioException;
 import com.itau.common.library.exception.RecursoNaoEncontradoException;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.FiltroEvolucaoDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeNaDataResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
 import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
-import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
 import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RentabilidadeService {
 
+    static final int LIMITE_MAXIMO_EVOLUCAO = 1000;
+    static final int PONTOS_PADRAO_LTTB = 120;
+    static final int TAMANHO_PAGINA_AMOSTRAGEM = 500;
+
+    // Limites da janela quando de/ate não são informados
+    static final LocalDate INICIO_EVOLUCAO = LocalDate.of(1900, 1, 1);
+    static final LocalDate FIM_EVOLUCAO = LocalDate.of(9999, 12, 31);
+
     private final SnapshotCarteiraRepository snapshotCarteiraRepository;
     private final ClienteRepository clienteRepository;
-    private final SnapshotMapper snapshotMapper;
     private final ValoresFeignClient valoresFeignClient;
+    private final GeradorEtag geradorEtag;
+    private final SnapshotsEsparsos snapshotsEsparsos;
+    private final ResumosRentabilidade resumosRentabilidade;
+    private final AmostradorEvolucao amostradorEvolucao;
+    private final SeriesCarteiraMemoria seriesCarteiraMemoria;
+    private final ExecutorParalelo executorParalelo;
+    private final TransactionTemplate transacaoLeitura;
 
-    @Transactional(readOnly = true)
-    public RentabilidadeResponseDTO consultarRentabilidade(Long clienteId) {
+    public RentabilidadeService(SnapshotCarteiraRepository snapshotCarteiraRepository,
+                                ClienteRepository clienteRepository,
+                                ValoresFeignClient valoresFeignClient,
+                                GeradorEtag geradorEtag,
+                                SnapshotsEsparsos snapshotsEsparsos,
+                                ResumosRentabilidade resumosRentabilidade,
+                                AmostradorEvolucao amostradorEvolucao,
+                                SeriesCarteiraMemoria seriesCarteiraMemoria,
+                                ExecutorParalelo executorParalelo,
+                                PlatformTransactionManager transactionManager) {
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+        this.clienteRepository = clienteRepository;
+        this.valoresFeignClient = valoresFeignClient;
+        this.geradorEtag = geradorEtag;
+        this.snapshotsEsparsos = snapshotsEsparsos;
+        this.resumosRentabilidade = resumosRentabilidade;
+        this.amostradorEvolucao = amostradorEvolucao;
+        this.seriesCarteiraMemoria = seriesCarteiraMemoria;
+        this.executorParalelo = executorParalelo;
+        this.transacaoLeitura = new TransactionTemplate(transactionManager);
+        this.transacaoLeitura.setReadOnly(true);
+    }
+
+    /**
+     * ETag da rentabilidade: versão dos snapshots (contagem, último id, última data e carimbo do resumo, que muda
+     * também quando um snapshot é reescrito na mesma linha) e o histórico de aportes. O histórico vem do cliente do
+     * Serviço de Valores com cache, invalidado a cada novo aporte, e é lido fora da transação.
+     */
+    public String calcularEtagRentabilidade(Long clienteId) {
+        VersaoSnapshotsDTO versao = transacaoLeitura.execute(status -> {
+            Cliente cliente = clienteRepository.findByIdAndAtivo(clienteId)
+                    .orElseThrow(() -> {
+                        log.error("Cliente não encontrado com ID: {}", clienteId);
+                        return new RecursoNaoEncontradoException("CLIENTE_NAO_ENCONTRADO");
+                    });
+
+            return snapshotsEsparsos.versionar(cliente.getId(), snapshotCarteiraRepository.consultarVersao(cliente.getId()));
+        });
+
+        return geradorEtag.gerarParaRentabilidade(clienteId, versao, valoresFeignClient.consultarHistoricoAportes(clienteId));
+    }
+
+    public RentabilidadeResponseDTO consultarRentabilidade(Long clienteId, FiltroEvolucaoDTO filtro) {
+        validarFiltro(filtro);
 
         Cliente cliente = clienteRepository.findByIdAndAtivo(clienteId)
                 .orElseThrow(() -> {
@@ -40,42 +106,212 @@ public class RentabilidadeService {
                     return new RecursoNaoEncontradoException("CLIENTE_NAO_ENCONTRADO");
                 });
 
-        List<SnapshotCarteira> snapshots = snapshotCarteiraRepository.findAllByClienteId(cliente.getId());
+        log.info("Iniciando consulta de snapshots e histórico de aportes do cliente {}", clienteId);
 
-        BigDecimal valorTotalInvestido = snapshots.stream()
-                .map(SnapshotCarteira::getValorInvestido)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Os snapshots são lidos na thread do pool, em uma transação somente leitura própria, enquanto o histórico de
+        // aportes é consultado no Serviço de Valores; as duas etapas correm sob o mesmo prazo
+        ExecutorParalelo.Resultado<SnapshotsConsultados, List<HistoricoAportesResponseDTO>> consultas = executorParalelo.executar(
+                "rentabilidade",
+                new ExecutorParalelo.Chamada<>("snapshots",
+                        () -> transacaoLeitura.execute(status -> consultarSnapshots(cliente.getId(), filtro))),
+                new ExecutorParalelo.Chamada<>("aportes", () -> valoresFeignClient.consultarHistoricoAportes(clienteId))
+        );
+
+        SnapshotsConsultados snapshots = consultas.primeiro();
+
+        return new RentabilidadeResponseDTO(
+                cliente.getId(),
+                cliente.getNome(),
+                LocalDateTime.now(),
+                snapshots.resumo(),
+                consultas.segundo(),
+                snapshots.evolucoes(),
+                snapshots.proximaPagina()
+        );
+    }
 
-        BigDecimal valorAtual = snapshots.get(snapshots.size() - 1).getValorCarteira();
+    /**
+     * Valor da carteira e rentabilidade do cliente na data, a partir do último snapshot gravado até ela. No
+     * armazenamento esparso o último ponto gravado vale até a data consultada, já que só mudanças são gravadas.
+     */
+    @Transactional(readOnly = true)
+    public RentabilidadeNaDataResponseDTO consultarRentabilidadeNaData(Long clienteId, LocalDate data) {
+        Cliente cliente = clienteRepository.findByIdAndAtivo(clienteId)
+                .orElseThrow(() -> {
+                    log.error("Cliente não encontrado com ID: {}", clienteId);
+                    return new RecursoNaoEncontradoException("CLIENTE_NAO_ENCONTRADO");
+                });
+
+        SnapshotCarteira snapshot = snapshotCarteiraRepository
+                .findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(cliente.getId(), data)
+                .orElseThrow(() -> {
+                    log.error("Cliente {} sem snapshot até {}", clienteId, data);
+                    return new RecursoNaoEncontradoException("SNAPSHOT_NAO_ENCONTRADO");
+                });
+
+        ResumoResponseDTO resumo = new ResumoResponseDTO(
+                snapshot.getValorInvestido(),
+                snapshot.getValorCarteira(),
+                snapshot.getValorCarteira().subtract(snapshot.getValorInvestido()),
+                snapshot.getRentabilidade()
+        );
+
+        return new RentabilidadeNaDataResponseDTO(
+                cliente.getId(),
+                cliente.getNome(),
+                LocalDateTime.now(),
+                data,
+                snapshot.getDataSnapshot(),
+                resumo
+        );
+    }
 
-        BigDecimal plTotal = valorTotalInvestido.subtract(valorAtual);
+    private SnapshotsConsultados consultarSnapshots(Long clienteId, FiltroEvolucaoDTO filtro) {
+        List<EvolucaoCarteiraResponseDTO> evolucoes;
 
-        List<EvolucaoCarteiraResponseDTO> evolucoes = snapshots.stream()
-                .map(snapshotMapper::mapearParaEvolucaoCarteiraResponseDTO)
-                .toList();
+        if (filtro.resolucao() != ResolucaoEvolucao.DIARIA) {
+            evolucoes = amostrar(clienteId, filtro);
+        } else if (snapshotsEsparsos.isHabilitado()) {
+            // Poucos pontos por cliente: a série da janela é reconstruída e paginada em memória
+            evolucoes = snapshotsEsparsos.reconstruir(clienteId, inicio(filtro), fim(filtro)).stream()
+                    .limit(filtro.limite() == null ? Long.MAX_VALUE : filtro.limite() + 1L)
+                    .toList();
+        } else if (seriesCarteiraMemoria.isHabilitado()) {
+            evolucoes = seriesCarteiraMemoria.obter(clienteId).evolucao(inicio(filtro), fim(filtro),
+                    filtro.limite() == null ? Long.MAX_VALUE : filtro.limite() + 1L);
+        } else {
+            evolucoes = snapshotCarteiraRepository.findEvolucao(clienteId, inicio(filtro), fim(filtro),
+                    filtro.limite() == null ? Pageable.unpaged() : PageRequest.of(0, filtro.limite() + 1));
+        }
 
-        BigDecimal numerador = valorAtual.subtract(valorTotalInvestido);
+        // Um item além do limite indica que há próxima página; o cursor é a data do último item devolvido
+        LocalDate proximaPagina = null;
+        if (filtro.limite() != null && evolucoes.size() > filtro.limite()) {
+            evolucoes = evolucoes.subList(0, filtro.limite());
+            proximaPagina = evolucoes.get(evolucoes.size() - 1).data();
+        }
+
+        return new SnapshotsConsultados(resumir(resumosRentabilidade.consultar(clienteId)), evolucoes, proximaPagina);
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> amostrar(Long clienteId, FiltroEvolucaoDTO filtro) {
+        int pontos = filtro.pontos() != null ? filtro.pontos() : PONTOS_PADRAO_LTTB;
+
+        if (snapshotsEsparsos.isHabilitado()) {
+            List<EvolucaoCarteiraResponseDTO> serie = snapshotsEsparsos.reconstruir(clienteId, inicio(filtro), fim(filtro));
+
+            return amostradorEvolucao.amostrar(serie.iterator(), filtro.resolucao(), serie.size(), pontos);
+        }
+
+        if (seriesCarteiraMemoria.isHabilitado()) {
+            SeriesCarteiraMemoria.Serie serie = seriesCarteiraMemoria.obter(clienteId);
+            return amostradorEvolucao.amostrar(serie.iterar(inicio(filtro), fim(filtro)), filtro.resolucao(),
+                    serie.contar(inicio(filtro), fim(filtro)), pontos);
+        }
+
+        // Só o LTTB precisa saber o tamanho da série para dividir os baldes
+        long tamanho = filtro.resolucao() == ResolucaoEvolucao.LTTB
+                ? snapshotCarteiraRepository.countEvolucao(clienteId, inicio(filtro), fim(filtro))
+                : 0L;
+
+        return amostradorEvolucao.amostrar(new PaginasEvolucao(clienteId, inicio(filtro), fim(filtro)), filtro.resolucao(),
+                tamanho, pontos);
+    }
+
+    // Totais mantidos na gravação dos snapshots (ResumosRentabilidade): uma linha por cliente
+    private ResumoResponseDTO resumir(ResumoRentabilidade resumo) {
+        BigDecimal valorTotalInvestido = resumo.getValorTotalInvestido();
+
+        BigDecimal numerador = resumo.getValorAtual().subtract(valorTotalInvestido);
 
         BigDecimal rentabilidadePercentual = valorTotalInvestido.compareTo(BigDecimal.ZERO) == 0
                 ? BigDecimal.ZERO
                 : numerador.divide(valorTotalInvestido, 4, RoundingMode.DOWN).multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.DOWN);
 
-        log.info("Iniciando consulta de histórico de aportes do cliente {}", clienteId);
+        return new ResumoResponseDTO(
+                valorTotalInvestido,
+                resumo.getValorAtual(),
+                resumo.getPlTotal(),
+                rentabilidadePercentual
+        );
+    }
 
-        List<HistoricoAportesResponseDTO> historicoAportes = valoresFeignClient.consultarHistoricoAportes(clienteId);
+    private void validarFiltro(FiltroEvolucaoDTO filtro) {
+        if (filtro.limite() != null && (filtro.limite() < 1 || filtro.limite() > LIMITE_MAXIMO_EVOLUCAO)) {
+            throw new NegocioException("LIMITE_EVOLUCAO_INVALIDO");
+        }
 
-        return new RentabilidadeResponseDTO(
-                cliente.getId(),
-                cliente.getNome(),
-                LocalDateTime.now(),
-                new ResumoResponseDTO(
-                        valorTotalInvestido,
-                        valorAtual,
-                        plTotal,
-                        rentabilidadePercentual
-                ),
-                historicoAportes,
-                evolucoes
-        );
+        if (filtro.de() != null && filtro.ate() != null && filtro.de().isAfter(filtro.ate())) {
+            throw new NegocioException("PERIODO_EVOLUCAO_INVALIDO");
+        }
+
+        // A evolução reduzida já cabe em uma resposta e não é paginada
+        if (filtro.resolucao() != ResolucaoEvolucao.DIARIA && (filtro.limite() != null || filtro.antesDe() != null)) {
+            throw new NegocioException("PAGINACAO_EVOLUCAO_INVALIDA");
+        }
+
+        if (filtro.pontos() != null && (filtro.resolucao() != ResolucaoEvolucao.LTTB
+                || filtro.pontos() < 3 || filtro.pontos() > LIMITE_MAXIMO_EVOLUCAO)) {
+            throw new NegocioException("PONTOS_EVOLUCAO_INVALIDOS");
+        }
+    }
+
+    private LocalDate inicio(FiltroEvolucaoDTO filtro) {
+        return filtro.de() != null ? filtro.de() : INICIO_EVOLUCAO;
+    }
+
+    private LocalDate fim(FiltroEvolucaoDTO filtro) {
+        LocalDate fim = filtro.ate() != null ? filtro.ate() : FIM_EVOLUCAO;
+
+        if (filtro.antesDe() != null && !filtro.antesDe().isAfter(fim)) {
+            return filtro.antesDe().minusDays(1);
+        }
+        return fim;
+    }
+
+    /**
+     * Percorre a evolução do período em páginas por keyset, da data mais recente para a mais antiga, sem carregar a
+     * série inteira.
+     */
+    private final class PaginasEvolucao implements Iterator<EvolucaoCarteiraResponseDTO> {
+        private final Long clienteId;
+        private final LocalDate inicio;
+        private LocalDate fim;
+        private List<EvolucaoCarteiraResponseDTO> pagina = List.of();
+        private int posicao;
+        private boolean ultimaPagina;
+
+        PaginasEvolucao(Long clienteId, LocalDate inicio, LocalDate fim) {
+            this.clienteId = clienteId;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (posicao == pagina.size() && !ultimaPagina) {
+                pagina = snapshotCarteiraRepository.findEvolucao(clienteId, inicio, fim, PageRequest.of(0, TAMANHO_PAGINA_AMOSTRAGEM));
+                posicao = 0;
+                ultimaPagina = pagina.size() < TAMANHO_PAGINA_AMOSTRAGEM;
+
+                if (!pagina.isEmpty()) {
+                    fim = pagina.get(pagina.size() - 1).data().minusDays(1);
+                }
+            }
+
+            return posicao < pagina.size();
+        }
+
+        @Override
+        public EvolucaoCarteiraResponseDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pagina.get(posicao++);
+        }
+    }
+
+    private record SnapshotsConsultados(ResumoResponseDTO resumo, List<EvolucaoCarteiraResponseDTO> evolucoes,
+                                        LocalDate proximaPagina) {
     }
 }
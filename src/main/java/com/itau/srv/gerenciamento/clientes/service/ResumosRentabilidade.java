@@ -0,0 +1,242 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.TotalInvestidoDTO;
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ResumoRentabilidadeRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resumo da rentabilidade de cada cliente ({@link ResumoRentabilidade}) mantido na gravação dos snapshots, na mesma
+ * transação do lote, para que a consulta leia uma única linha qualquer que seja o tamanho do histórico. São somados os
+ * snapshots calculados, inclusive os que o armazenamento esparso não grava, já que o resumo acompanha a série diária.
+ * Clientes ainda sem resumo são calculados a partir dos snapshots gravados: na carga inicial do agendamento
+ * ({@link #recalcularPendentes()}) ou, antes dela, na primeira gravação e na consulta. No armazenamento esparso, uma
+ * data anterior à última somada também recalcula o resumo pela série: a data pode já fazer parte dela, levando adiante
+ * o ponto anterior, e somá-la de novo contaria o valor investido duas vezes.
+ * <p>
+ * Lotes de datas diferentes podem rodar ao mesmo tempo (o agendamento e uma geração manual, por exemplo). Toda
+ * escrita de resumos trava antes as linhas dos clientes em {@code clientes}, em ordem de id: a trava cobre também os
+ * clientes que ainda não têm resumo, que não teriam linha em {@code resumos_rentabilidade} para travar. Assim a soma
+ * de um lote nunca se perde na do outro, e dois lotes não inserem o mesmo resumo.
+ */
+@Component
+@Slf4j
+public class ResumosRentabilidade {
+
+    private final ResumoRentabilidadeRepository resumoRentabilidadeRepository;
+    private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final ClienteRepository clienteRepository;
+    private final SnapshotsEsparsos snapshotsEsparsos;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int tamanhoLote;
+
+    public ResumosRentabilidade(ResumoRentabilidadeRepository resumoRentabilidadeRepository,
+                                SnapshotCarteiraRepository snapshotCarteiraRepository,
+                                ClienteRepository clienteRepository,
+                                SnapshotsEsparsos snapshotsEsparsos,
+                                TransactionTemplate transactionTemplate,
+                                Clock clock,
+                                @Value("${snapshots.tamanho-lote:500}") int tamanhoLote) {
+        this.resumoRentabilidadeRepository = resumoRentabilidadeRepository;
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+        this.clienteRepository = clienteRepository;
+        this.snapshotsEsparsos = snapshotsEsparsos;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    public ResumoRentabilidade consultar(Long clienteId) {
+        return resumoRentabilidadeRepository.findById(clienteId)
+                .orElseGet(() -> calcular(List.of(clienteId), Map.of()).get(0));
+    }
+
+    /**
+     * Soma os snapshots calculados de um lote, de uma mesma data, aos resumos dos clientes. Deve rodar na transação
+     * do lote, depois da gravação dos snapshots.
+     */
+    public void atualizar(List<SnapshotCarteira> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        List<Long> clienteIds = snapshots.stream().map(SnapshotCarteira::getClienteId).distinct().sorted().toList();
+        clienteRepository.travarPorIds(clienteIds);
+
+        // Lido depois da trava: já inclui o que um lote concorrente gravou antes de liberá-la
+        Map<Long, ResumoRentabilidade> resumos = new HashMap<>(resumoRentabilidadeRepository.findAllByClienteIdIn(clienteIds).stream()
+                .collect(Collectors.toMap(ResumoRentabilidade::getClienteId, Function.identity())));
+
+        Map<Long, SnapshotCarteira> aCalcular = snapshots.stream()
+                .filter(snapshot -> !resumos.containsKey(snapshot.getClienteId())
+                        || (snapshotsEsparsos.isHabilitado() && anteriorAoResumo(resumos.get(snapshot.getClienteId()), snapshot)))
+                .collect(Collectors.toMap(SnapshotCarteira::getClienteId, Function.identity()));
+
+        // O cálculo já inclui o snapshot do lote: somá-lo de novo contaria a data duas vezes
+        calcular(clienteIds.stream().filter(aCalcular::containsKey).toList(), aCalcular)
+                .forEach(resumo -> resumos.put(resumo.getClienteId(), resumo));
+
+        for (SnapshotCarteira snapshot : snapshots) {
+            if (!aCalcular.containsKey(snapshot.getClienteId())) {
+                somar(resumos.get(snapshot.getClienteId()), snapshot);
+            }
+        }
+
+        resumoRentabilidadeRepository.saveAll(resumos.values());
+    }
+
+    /**
+     * Carga inicial: calcula o resumo dos clientes ativos que ainda não têm um, em lotes por keyset.
+     */
+    public int recalcularPendentes() {
+        return recalcular(clienteRepository::findIdsAtivosSemResumoAposId);
+    }
+
+    /**
+     * Recalcula o resumo de todos os clientes ativos; usado depois que a retenção remove snapshots antigos.
+     */
+    public int recalcularTodos() {
+        return recalcular(clienteRepository::findIdsAtivosAposId);
+    }
+
+    private int recalcular(BiFunction<Long, Pageable, List<Long>> proximosIds) {
+        long ultimoId = 0L;
+        int recalculados = 0;
+
+        while (true) {
+            List<Long> clienteIds = proximosIds.apply(ultimoId, PageRequest.of(0, tamanhoLote));
+            if (clienteIds.isEmpty()) {
+                break;
+            }
+            ultimoId = clienteIds.get(clienteIds.size() - 1);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                clienteRepository.travarPorIds(clienteIds);
+                resumoRentabilidadeRepository.saveAll(calcular(clienteIds, Map.of()));
+            });
+            recalculados += clienteIds.size();
+        }
+
+        log.info("{} resumos de rentabilidade recalculados", recalculados);
+        return recalculados;
+    }
+
+    /**
+     * Calcula os resumos a partir dos snapshots gravados, com consultas agregadas por lote de clientes: a série não é
+     * carregada. O snapshot do lote de cada cliente ({@code doLote}) é somado quando a série gravada ainda não o inclui:
+     * no armazenamento esparso, uma data sem ponto gravado só entra na série quando o checkpoint da execução passa pelo
+     * cliente.
+     */
+    private List<ResumoRentabilidade> calcular(Collection<Long> clienteIds, Map<Long, SnapshotCarteira> doLote) {
+        List<ResumoRentabilidade> resumos = new ArrayList<>(clienteIds.size());
+
+        if (clienteIds.isEmpty()) {
+            return resumos;
+        }
+
+        boolean esparso = snapshotsEsparsos.isHabilitado();
+        List<TotalInvestidoDTO> somas = esparso
+                ? snapshotCarteiraRepository.somarValorInvestidoDaSeriePorCliente(clienteIds, StatusExecucaoSnapshot.CONCLUIDA,
+                        RentabilidadeService.FIM_EVOLUCAO)
+                : snapshotCarteiraRepository.somarValorInvestidoPorCliente(clienteIds);
+        Map<Long, BigDecimal> totais = somas.stream()
+                .collect(Collectors.toMap(TotalInvestidoDTO::clienteId, TotalInvestidoDTO::valorTotalInvestido));
+        Map<Long, SnapshotCarteira> ultimos = snapshotCarteiraRepository.findUltimos(clienteIds).stream()
+                .collect(Collectors.toMap(SnapshotCarteira::getClienteId, Function.identity()));
+        Set<Long> comDataDoLote = esparso && !doLote.isEmpty()
+                ? snapshotsEsparsos.clientesComData(doLote.values().iterator().next().getDataSnapshot(), doLote.keySet())
+                : Set.of();
+
+        for (Long clienteId : clienteIds) {
+            SnapshotCarteira ultimo = ultimos.get(clienteId);
+            BigDecimal total = totais.getOrDefault(clienteId, BigDecimal.ZERO);
+
+            ResumoRentabilidade resumo = ultimo == null ? criar(clienteId, total, null, BigDecimal.ZERO, BigDecimal.ZERO)
+                    : criar(clienteId, total, ultimaData(clienteId, ultimo, esparso), ultimo.getValorCarteira(), ultimo.getValorInvestido());
+
+            // No armazenamento denso todo snapshot calculado é gravado: só falta na tabela se for posterior ao último
+            SnapshotCarteira snapshot = doLote.get(clienteId);
+            boolean incluido = snapshot == null || (esparso ? comDataDoLote.contains(clienteId)
+                    : ultimo != null && !snapshot.getDataSnapshot().isAfter(ultimo.getDataSnapshot()));
+            if (!incluido) {
+                somar(resumo, snapshot);
+            }
+            resumos.add(resumo);
+        }
+
+        return resumos;
+    }
+
+    // No armazenamento esparso o último ponto é levado adiante até a última data gerada para o cliente
+    private LocalDate ultimaData(Long clienteId, SnapshotCarteira ultimo, boolean esparso) {
+        LocalDate ultimaDataGerada = esparso ? snapshotsEsparsos.ultimaDataGerada(clienteId) : null;
+
+        return ultimaDataGerada != null && ultimaDataGerada.isAfter(ultimo.getDataSnapshot())
+                ? ultimaDataGerada : ultimo.getDataSnapshot();
+    }
+
+    private boolean anteriorAoResumo(ResumoRentabilidade resumo, SnapshotCarteira snapshot) {
+        return resumo.getDataSnapshot() != null && snapshot.getDataSnapshot().isBefore(resumo.getDataSnapshot());
+    }
+
+    private void somar(ResumoRentabilidade resumo, SnapshotCarteira snapshot) {
+        LocalDate data = snapshot.getDataSnapshot();
+        BigDecimal total = resumo.getValorTotalInvestido().add(snapshot.getValorInvestido());
+
+        if (resumo.getDataSnapshot() == null || !data.isBefore(resumo.getDataSnapshot())) {
+            // A mesma data calculada de novo (retomada de uma execução) substitui o último snapshot somado
+            if (data.equals(resumo.getDataSnapshot())) {
+                total = total.subtract(resumo.getValorInvestidoAtual());
+            }
+
+            resumo.setDataSnapshot(data);
+            resumo.setValorAtual(snapshot.getValorCarteira());
+            resumo.setValorInvestidoAtual(snapshot.getValorInvestido());
+        }
+
+        // Uma data anterior à última (geração de uma data que faltava, no armazenamento denso) só entra na soma
+        atualizarTotais(resumo, total);
+    }
+
+    private ResumoRentabilidade criar(Long clienteId, BigDecimal valorTotalInvestido, LocalDate dataSnapshot,
+                                      BigDecimal valorAtual, BigDecimal valorInvestidoAtual) {
+        ResumoRentabilidade resumo = new ResumoRentabilidade();
+        resumo.setClienteId(clienteId);
+        resumo.setDataSnapshot(dataSnapshot);
+        resumo.setValorAtual(valorAtual);
+        resumo.setValorInvestidoAtual(valorInvestidoAtual);
+        atualizarTotais(resumo, valorTotalInvestido);
+
+        return resumo;
+    }
+
+    private void atualizarTotais(ResumoRentabilidade resumo, BigDecimal valorTotalInvestido) {
+        resumo.setValorTotalInvestido(valorTotalInvestido);
+        resumo.setPlTotal(valorTotalInvestido.subtract(resumo.getValorAtual()));
+        resumo.setDataAtualizacao(LocalDateTime.now(clock));
+    }
+}
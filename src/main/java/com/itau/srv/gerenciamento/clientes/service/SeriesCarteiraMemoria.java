@@ -0,0 +1,261 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Séries de snapshots dos clientes consultados mantidas em memória, em arrays primitivos: o dia em epoch day e os
+ * valores em centavos (rentabilidade em centésimos de ponto). A série de um cliente é carregada do banco na primeira
+ * consulta e recebe os snapshots gravados depois disso por esta instância; as séries menos usadas são descartadas
+ * quando o total passa do orçamento de memória. Os snapshots gerados em outra réplica chegam pela expiração da série,
+ * que é recarregada após o TTL. Vale só para o armazenamento denso, em que os pontos gravados já são a série diária.
+ */
+@Component
+@Slf4j
+public class SeriesCarteiraMemoria {
+
+    private static final int ESCALA = 2;
+
+    private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final Cache<Long, Serie> series;
+
+    public SeriesCarteiraMemoria(SnapshotCarteiraRepository snapshotCarteiraRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${snapshots.memoria.habilitado:false}") boolean habilitado,
+                                 @Value("${snapshots.memoria.orcamento-mb:64}") long orcamentoMb,
+                                 @Value("${snapshots.memoria.ttl:600000}") long ttlMs) {
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+
+        if (!habilitado) {
+            this.series = null;
+            return;
+        }
+
+        this.series = Caffeine.newBuilder()
+                .maximumWeight(orcamentoMb * 1024 * 1024)
+                .weigher((Long clienteId, Serie serie) -> (int) Math.min(Integer.MAX_VALUE, serie.bytes()))
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, series, "series-carteira");
+        Gauge.builder("snapshots.memoria.bytes", series, cache -> cache.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .description("Memória estimada ocupada pelas séries em memória")
+                .register(meterRegistry);
+
+        log.info("Séries de snapshots em memória habilitadas com orçamento de {} MB", orcamentoMb);
+    }
+
+    public boolean isHabilitado() {
+        return series != null;
+    }
+
+    public Serie obter(Long clienteId) {
+        return series.get(clienteId, this::carregar);
+    }
+
+    /**
+     * Leva às séries já carregadas os snapshots de um lote. Deve ser chamado depois do commit: uma série carregada
+     * antes dele recebe os pontos aqui, e uma carregada depois já os lê do banco.
+     */
+    public void registrar(List<SnapshotCarteira> snapshots) {
+        if (series == null) {
+            return;
+        }
+
+        for (SnapshotCarteira snapshot : snapshots) {
+            series.asMap().computeIfPresent(snapshot.getClienteId(), (clienteId, serie) -> serie.com(snapshot));
+        }
+    }
+
+    public void limpar() {
+        if (series == null) {
+            return;
+        }
+
+        log.info("Descartando séries de snapshots em memória");
+        series.invalidateAll();
+    }
+
+    private Serie carregar(Long clienteId) {
+        // A consulta devolve da data mais recente para a mais antiga; a série guarda em ordem crescente
+        List<EvolucaoCarteiraResponseDTO> evolucao = snapshotCarteiraRepository.findEvolucao(clienteId,
+                RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO, Pageable.unpaged());
+        int tamanho = evolucao.size();
+        int[] dias = new int[tamanho];
+        long[] valoresCarteira = new long[tamanho];
+        long[] valoresInvestidos = new long[tamanho];
+        int[] rentabilidades = new int[tamanho];
+
+        for (int i = 0; i < tamanho; i++) {
+            EvolucaoCarteiraResponseDTO ponto = evolucao.get(tamanho - 1 - i);
+            dias[i] = (int) ponto.data().toEpochDay();
+            valoresCarteira[i] = escalar(ponto.valorCarteira());
+            valoresInvestidos[i] = escalar(ponto.valorInvestido());
+            rentabilidades[i] = (int) escalar(ponto.rentabilidade());
+        }
+
+        return new Serie(dias, valoresCarteira, valoresInvestidos, rentabilidades);
+    }
+
+    static long escalar(BigDecimal valor) {
+        return valor.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Série imutável de um cliente; a gravação de um snapshot gera uma nova cópia, de forma que as leituras não
+     * precisam de trava.
+     */
+    public static final class Serie {
+
+        // Cabeçalhos do objeto e dos quatro arrays
+        private static final long SOBRECARGA_BYTES = 16L + 4 * 16L;
+
+        private final int[] dias;
+        private final long[] valoresCarteira;
+        private final long[] valoresInvestidos;
+        private final int[] rentabilidades;
+
+        Serie(int[] dias, long[] valoresCarteira, long[] valoresInvestidos, int[] rentabilidades) {
+            this.dias = dias;
+            this.valoresCarteira = valoresCarteira;
+            this.valoresInvestidos = valoresInvestidos;
+            this.rentabilidades = rentabilidades;
+        }
+
+        public int tamanho() {
+            return dias.length;
+        }
+
+        long bytes() {
+            return SOBRECARGA_BYTES + dias.length * (Integer.BYTES + 2L * Long.BYTES + Integer.BYTES);
+        }
+
+        public long contar(LocalDate inicio, LocalDate fim) {
+            return Math.max(0, ate(fim) - desde(inicio));
+        }
+
+        /**
+         * Pontos do período, da data mais recente para a mais antiga, até o limite informado.
+         */
+        public List<EvolucaoCarteiraResponseDTO> evolucao(LocalDate inicio, LocalDate fim, long limite) {
+            int primeiro = desde(inicio);
+            int ultimo = ate(fim) - 1;
+            List<EvolucaoCarteiraResponseDTO> evolucao = new ArrayList<>((int) Math.max(0, Math.min(limite, ultimo - primeiro + 1L)));
+
+            for (int i = ultimo; i >= primeiro && evolucao.size() < limite; i--) {
+                evolucao.add(ponto(i));
+            }
+
+            return evolucao;
+        }
+
+        public Iterator<EvolucaoCarteiraResponseDTO> iterar(LocalDate inicio, LocalDate fim) {
+            int primeiro = desde(inicio);
+            int ultimo = ate(fim) - 1;
+
+            return new Iterator<>() {
+                private int posicao = ultimo;
+
+                @Override
+                public boolean hasNext() {
+                    return posicao >= primeiro;
+                }
+
+                @Override
+                public EvolucaoCarteiraResponseDTO next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return ponto(posicao--);
+                }
+            };
+        }
+
+        Serie com(SnapshotCarteira snapshot) {
+            int dia = (int) snapshot.getDataSnapshot().toEpochDay();
+            int posicao = Arrays.binarySearch(dias, dia);
+
+            // Data já presente: o ponto é substituído; senão é inserido na posição, em geral no fim da série
+            boolean novo = posicao < 0;
+            int indice = novo ? -(posicao + 1) : posicao;
+
+            int[] novosDias = abrir(dias, indice, novo);
+            long[] novosValoresCarteira = abrir(valoresCarteira, indice, novo);
+            long[] novosValoresInvestidos = abrir(valoresInvestidos, indice, novo);
+            int[] novasRentabilidades = abrir(rentabilidades, indice, novo);
+
+            novosDias[indice] = dia;
+            novosValoresCarteira[indice] = escalar(snapshot.getValorCarteira());
+            novosValoresInvestidos[indice] = escalar(snapshot.getValorInvestido());
+            novasRentabilidades[indice] = (int) escalar(snapshot.getRentabilidade());
+
+            return new Serie(novosDias, novosValoresCarteira, novosValoresInvestidos, novasRentabilidades);
+        }
+
+        private EvolucaoCarteiraResponseDTO ponto(int indice) {
+            return new EvolucaoCarteiraResponseDTO(
+                    LocalDate.ofEpochDay(dias[indice]),
+                    BigDecimal.valueOf(valoresCarteira[indice], ESCALA),
+                    BigDecimal.valueOf(valoresInvestidos[indice], ESCALA),
+                    BigDecimal.valueOf(rentabilidades[indice], ESCALA)
+            );
+        }
+
+        // Índice do primeiro ponto no dia informado ou depois dele
+        private int desde(LocalDate inicio) {
+            int posicao = Arrays.binarySearch(dias, (int) inicio.toEpochDay());
+            return posicao >= 0 ? posicao : -(posicao + 1);
+        }
+
+        // Quantidade de pontos até o dia informado, inclusive
+        private int ate(LocalDate fim) {
+            int posicao = Arrays.binarySearch(dias, (int) fim.toEpochDay());
+            return posicao >= 0 ? posicao + 1 : -(posicao + 1);
+        }
+
+        // Copia o array, abrindo espaço na posição quando o ponto é novo
+        private static int[] abrir(int[] origem, int indice, boolean novo) {
+            if (!novo) {
+                return origem.clone();
+            }
+
+            int[] destino = new int[origem.length + 1];
+            System.arraycopy(origem, 0, destino, 0, indice);
+            System.arraycopy(origem, indice, destino, indice + 1, origem.length - indice);
+            return destino;
+        }
+
+        private static long[] abrir(long[] origem, int indice, boolean novo) {
+            if (!novo) {
+                return origem.clone();
+            }
+
+            long[] destino = new long[origem.length + 1];
+            System.arraycopy(origem, 0, destino, 0, indice);
+            System.arraycopy(origem, indice, destino, indice + 1, origem.length - indice);
+            return destino;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.EstadoSnapshotCliente;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gera os snapshots diários em lotes de clientes. Os ids são lidos por keyset, cada lote é calculado em paralelo
+ * (no máximo {@code paralelismo} lotes em andamento) e gravado em uma transação própria. O progresso fica em
+ * {@link ExecucaoSnapshot}: uma nova execução para a mesma data retoma do último checkpoint e ignora clientes
+ * que já têm snapshot. O cancelamento é verificado entre lotes; os lotes já iniciados terminam antes da parada.
+ * Enquanto aguarda um lote, a execução registra um sinal de vida a cada {@code sinal-vida-ms}: um lote mais longo
+ * que {@code execucao-abandonada-ms} não permite que outra instância assuma uma execução que ainda está rodando.
+ * Com {@code snapshots.incremental.habilitado}, só os clientes alterados são recalculados ({@link SnapshotsIncrementais});
+ * com {@code snapshots.armazenamento-esparso.habilitado}, só os valores alterados são gravados ({@link SnapshotsEsparsos}).
+ * O resumo da rentabilidade de cada cliente é atualizado na transação do lote ({@link ResumosRentabilidade}).
+ */
+@Service
+@Slf4j
+public class SnapshotCarteiraService {
+
+    private final ClienteRepository clienteRepository;
+    private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final ExecucaoSnapshotService execucaoSnapshotService;
+    private final GravadorSnapshots gravadorSnapshots;
+    private final ParticoesSnapshots particoesSnapshots;
+    private final SnapshotsIncrementais snapshotsIncrementais;
+    private final SnapshotsEsparsos snapshotsEsparsos;
+    private final ResumosRentabilidade resumosRentabilidade;
+    private final SeriesCarteiraMemoria seriesCarteiraMemoria;
+    private final CarteiraService carteiraService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final ExecutorService coordenadorExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int tamanhoLote;
+    private final int paralelismo;
+    private final long intervaloSinalVidaMs;
+
+    public SnapshotCarteiraService(ClienteRepository clienteRepository,
+                                   SnapshotCarteiraRepository snapshotCarteiraRepository,
+                                   ExecucaoSnapshotService execucaoSnapshotService,
+                                   GravadorSnapshots gravadorSnapshots,
+                                   ParticoesSnapshots particoesSnapshots,
+                                   SnapshotsIncrementais snapshotsIncrementais,
+                                   SnapshotsEsparsos snapshotsEsparsos,
+                                   ResumosRentabilidade resumosRentabilidade,
+                                   SeriesCarteiraMemoria seriesCarteiraMemoria,
+                                   CarteiraService carteiraService,
+                                   TransactionTemplate transactionTemplate,
+                                   @Qualifier("snapshotsExecutor") ExecutorService executor,
+                                   @Qualifier("snapshotsCoordenadorExecutor") ExecutorService coordenadorExecutor,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${snapshots.tamanho-lote:500}") int tamanhoLote,
+                                   @Value("${snapshots.paralelismo:4}") int paralelismo,
+                                   @Value("${snapshots.sinal-vida-ms:60000}") long intervaloSinalVidaMs) {
+        this.clienteRepository = clienteRepository;
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+        this.execucaoSnapshotService = execucaoSnapshotService;
+        this.gravadorSnapshots = gravadorSnapshots;
+        this.particoesSnapshots = particoesSnapshots;
+        this.snapshotsIncrementais = snapshotsIncrementais;
+        this.snapshotsEsparsos = snapshotsEsparsos;
+        this.resumosRentabilidade = resumosRentabilidade;
+        this.seriesCarteiraMemoria = seriesCarteiraMemoria;
+        this.carteiraService = carteiraService;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.coordenadorExecutor = coordenadorExecutor;
+        this.meterRegistry = meterRegistry;
+        this.tamanhoLote = tamanhoLote;
+        this.paralelismo = paralelismo;
+        this.intervaloSinalVidaMs = intervaloSinalVidaMs;
+    }
+
+    public ExecucaoSnapshotResponseDTO iniciarGeracao(LocalDate data) {
+        ExecucaoSnapshot execucao = execucaoSnapshotService.reservar(data);
+        ExecucaoSnapshotResponseDTO resposta = execucaoSnapshotService.mapear(execucao);
+
+        coordenadorExecutor.execute(() -> executar(execucao));
+
+        return resposta;
+    }
+
+    public ExecucaoSnapshot gerarSnapshots(LocalDate data) {
+        return executar(execucaoSnapshotService.reservar(data));
+    }
+
+    private ExecucaoSnapshot executar(ExecucaoSnapshot execucao) {
+        try {
+            return processarExecucao(execucao);
+        } catch (RuntimeException e) {
+            log.error("Erro na execucao de snapshots {} de {}: {}", execucao.getId(), execucao.getDataSnapshot(), e.getMessage());
+            return execucaoSnapshotService.finalizar(execucao, StatusExecucaoSnapshot.INCOMPLETA);
+        }
+    }
+
+    private ExecucaoSnapshot processarExecucao(ExecucaoSnapshot execucao) {
+        long inicio = System.nanoTime();
+        LocalDate data = execucao.getDataSnapshot();
+        CompletionService<ResultadoLote> conclusoes = new ExecutorCompletionService<>(executor);
+        Progresso progresso = new Progresso(execucao.getUltimoClienteId());
+        Totais totais = new Totais();
+        boolean cancelada = false;
+        Set<Future<ResultadoLote>> emAndamento = new HashSet<>();
+        long ultimoId = execucao.getUltimoClienteId();
+
+        log.info("Gerando snapshots de {} a partir do cliente {} em lotes de {} clientes com paralelismo {}",
+                data, ultimoId, tamanhoLote, paralelismo);
+        particoesSnapshots.garantirParticao(data);
+        SnapshotsIncrementais.Contexto contexto = snapshotsIncrementais.iniciar();
+
+        try {
+            while (true) {
+                if (execucaoSnapshotService.cancelamentoSolicitado(execucao)) {
+                    log.info("Execucao de snapshots {} de {} cancelada apos o cliente {}", execucao.getId(), data, ultimoId);
+                    cancelada = true;
+                    break;
+                }
+
+                List<Long> clienteIds = clienteRepository.findIdsAtivosAposId(ultimoId, PageRequest.of(0, tamanhoLote));
+                if (clienteIds.isEmpty()) {
+                    break;
+                }
+                ultimoId = clienteIds.get(clienteIds.size() - 1);
+
+                if (emAndamento.size() == paralelismo) {
+                    concluirLote(execucao, progresso, totais, aguardarLote(execucao, conclusoes, emAndamento));
+                }
+
+                progresso.iniciar(ultimoId);
+                emAndamento.add(conclusoes.submit(() -> processarLote(clienteIds, data, contexto)));
+            }
+
+            while (!emAndamento.isEmpty()) {
+                concluirLote(execucao, progresso, totais, aguardarLote(execucao, conclusoes, emAndamento));
+            }
+        } catch (RuntimeException e) {
+            // A execução só é finalizada depois que nenhum lote dela continua gravando
+            aguardarEmAndamento(execucao, progresso, totais, emAndamento);
+            throw e;
+        }
+
+        registrarVazao(data, totais, System.nanoTime() - inicio);
+
+        return execucaoSnapshotService.finalizar(execucao, cancelada ? StatusExecucaoSnapshot.CANCELADA
+                : totais.falhas > 0 ? StatusExecucaoSnapshot.INCOMPLETA : StatusExecucaoSnapshot.CONCLUIDA);
+    }
+
+    private void concluirLote(ExecucaoSnapshot execucao, Progresso progresso, Totais totais, ResultadoLote resultado) {
+        totais.somar(resultado);
+        progresso.concluir(resultado.ultimoClienteId(), resultado.falhas() == 0);
+
+        // Gravado a cada lote; entre um lote e outro o sinal de vida vem de aguardarLote
+        execucao.setUltimoClienteId(progresso.ultimoClienteId);
+        execucao.setClientesProcessados(totais.clientes);
+        execucao.setFalhas(totais.falhas);
+        execucao.setClientesRecalculados(totais.recalculados());
+        execucao.setClientesCustodiaInalterada(totais.custodiaInalterada);
+
+        execucaoSnapshotService.registrarProgresso(execucao);
+    }
+
+    private ResultadoLote processarLote(List<Long> clienteIds, LocalDate data, SnapshotsIncrementais.Contexto contexto) {
+        long inicio = System.nanoTime();
+        Long ultimoClienteId = clienteIds.get(clienteIds.size() - 1);
+        Set<Long> comSnapshot;
+        List<Long> pendentes;
+        Map<Long, EstadoSnapshotCliente> estados;
+
+        try {
+            comSnapshot = new HashSet<>(snapshotCarteiraRepository.findClienteIdsComSnapshot(data, clienteIds));
+            pendentes = clienteIds.stream().filter(clienteId -> !comSnapshot.contains(clienteId)).toList();
+            estados = contexto.habilitado() ? snapshotsIncrementais.buscarEstados(pendentes) : Map.of();
+        } catch (RuntimeException e) {
+            log.error("Erro ao consultar lote de snapshots dos clientes {} a {}: {}",
+                    clienteIds.get(0), ultimoClienteId, e.getMessage());
+            return registrarLote(new ResultadoLote(ultimoClienteId, clienteIds.size(), 0, 0, 0, clienteIds.size()), inicio);
+        }
+
+        List<SnapshotCarteira> snapshots = new ArrayList<>(pendentes.size());
+        List<EstadoSnapshotCliente> estadosAtualizados = new ArrayList<>();
+        int custodiaInalterada = 0;
+        int falhas = 0;
+
+        for (Long clienteId : pendentes) {
+            try {
+                if (contexto.habilitado()) {
+                    SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(contexto, clienteId, data, estados.get(clienteId));
+                    snapshots.add(calculo.snapshot());
+                    if (calculo.estado() != null) {
+                        estadosAtualizados.add(calculo.estado());
+                    }
+                    if (calculo.tipo() == SnapshotsIncrementais.TipoCalculo.CUSTODIA_INALTERADA) {
+                        custodiaInalterada++;
+                    }
+                } else {
+                    snapshots.add(carteiraService.calcularSnapshot(clienteId, data));
+                }
+            } catch (RuntimeException e) {
+                log.error("Erro ao calcular snapshot do cliente {} em {}: {}", clienteId, data, e.getMessage());
+                falhas++;
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                SnapshotsEsparsos.Selecao selecao = snapshotsEsparsos.selecionar(data, snapshots);
+                gravadorSnapshots.gravar(selecao.pontos());
+                gravadorSnapshots.gravar(selecao.continuacoes());
+                snapshotsIncrementais.salvarEstados(estadosAtualizados);
+                resumosRentabilidade.atualizar(snapshots);
+            });
+        } catch (RuntimeException e) {
+            log.error("Erro ao gravar lote de snapshots dos clientes {} a {}: {}",
+                    clienteIds.get(0), ultimoClienteId, e.getMessage());
+            return registrarLote(new ResultadoLote(ultimoClienteId, clienteIds.size(), comSnapshot.size(), 0, 0,
+                    pendentes.size()), inicio);
+        }
+
+        // Só depois do commit: as séries em memória nunca mostram um lote desfeito
+        seriesCarteiraMemoria.registrar(snapshots);
+
+        return registrarLote(new ResultadoLote(ultimoClienteId, clienteIds.size(), comSnapshot.size(), snapshots.size(),
+                custodiaInalterada, falhas), inicio);
+    }
+
+    private ResultadoLote registrarLote(ResultadoLote resultado, long inicio) {
+        Timer.builder("snapshots.lote.duracao")
+                .tag("resultado", resultado.falhas() == 0 ? "sucesso" : "erro")
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("snapshots.clientes", "resultado", "sucesso").increment(resultado.gravados());
+        meterRegistry.counter("snapshots.clientes", "resultado", "erro").increment(resultado.falhas());
+        meterRegistry.counter("snapshots.clientes", "resultado", "ignorado").increment(resultado.ignorados());
+        meterRegistry.counter("snapshots.clientes.calculo", "tipo", "recalculado").increment(resultado.recalculados());
+        meterRegistry.counter("snapshots.clientes.calculo", "tipo", "custodia-inalterada").increment(resultado.custodiaInalterada());
+
+        return resultado;
+    }
+
+    private ResultadoLote aguardarLote(ExecucaoSnapshot execucao, CompletionService<ResultadoLote> conclusoes,
+                                       Set<Future<ResultadoLote>> emAndamento) {
+        try {
+            Future<ResultadoLote> concluido;
+            while ((concluido = conclusoes.poll(intervaloSinalVidaMs, TimeUnit.MILLISECONDS)) == null) {
+                execucaoSnapshotService.registrarSinalDeVida(execucao);
+            }
+            emAndamento.remove(concluido);
+            return concluido.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GERACAO_INTERROMPIDA", e);
+        }
+    }
+
+    private void aguardarEmAndamento(ExecucaoSnapshot execucao, Progresso progresso, Totais totais,
+                                     Set<Future<ResultadoLote>> emAndamento) {
+        boolean interrompida = false;
+
+        for (Future<ResultadoLote> lote : emAndamento) {
+            while (true) {
+                try {
+                    concluirLote(execucao, progresso, totais, lote.get());
+                    break;
+                } catch (InterruptedException e) {
+                    // Mesmo interrompida, a execução espera os lotes em andamento; a interrupção é restaurada no fim
+                    interrompida = true;
+                } catch (ExecutionException | RuntimeException e) {
+                    log.error("Erro ao aguardar lote de snapshots da execucao {}: {}", execucao.getId(), e.getMessage());
+                    break;
+                }
+            }
+        }
+        emAndamento.clear();
+
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void registrarVazao(LocalDate data, Totais totais, long duracaoNanos) {
+        double segundos = Math.max(duracaoNanos, 1) / 1_000_000_000.0;
+        double clientesPorSegundo = totais.clientes / segundos;
+
+        DistributionSummary.builder("snapshots.vazao")
+                .baseUnit("clientes/s")
+                .register(meterRegistry)
+                .record(clientesPorSegundo);
+
+        log.info("Snapshots de {} concluidos: {} clientes, {} ja existentes, {} gravados ({} recalculados, {} com custodia " +
+                        "inalterada), {} falhas em {} ms ({} clientes/s)",
+                data, totais.clientes, totais.ignorados, totais.gravados, totais.recalculados(), totais.custodiaInalterada,
+                totais.falhas,
+                TimeUnit.NANOSECONDS.toMillis(duracaoNanos), String.format("%.1f", clientesPorSegundo));
+    }
+
+    record ResultadoLote(Long ultimoClienteId, int clientes, int ignorados, int gravados, int custodiaInalterada, int falhas) {
+        int recalculados() {
+            return gravados - custodiaInalterada;
+        }
+    }
+
+    /**
+     * Os lotes terminam fora de ordem; o checkpoint só avança até o último lote de uma sequência contígua de lotes
+     * concluídos sem falhas, de forma que a retomada nunca pula um cliente sem snapshot.
+     */
+    private static final class Progresso {
+        private final TreeMap<Long, Boolean> lotes = new TreeMap<>();
+        private long ultimoClienteId;
+
+        Progresso(long ultimoClienteId) {
+            this.ultimoClienteId = ultimoClienteId;
+        }
+
+        void iniciar(Long ultimoIdLote) {
+            lotes.put(ultimoIdLote, null);
+        }
+
+        void concluir(Long ultimoIdLote, boolean semFalhas) {
+            lotes.put(ultimoIdLote, semFalhas);
+
+            while (!lotes.isEmpty() && Boolean.TRUE.equals(lotes.firstEntry().getValue())) {
+                ultimoClienteId = lotes.pollFirstEntry().getKey();
+            }
+        }
+    }
+
+    private static final class Totais {
+        private long clientes;
+        private long ignorados;
+        private long gravados;
+        private long custodiaInalterada;
+        private long falhas;
+
+        void somar(ResultadoLote lote) {
+            clientes += lote.clientes();
+            ignorados += lote.ignorados();
+            gravados += lote.gravados();
+            custodiaInalterada += lote.custodiaInalterada();
+            falhas += lote.falhas();
+        }
+
+        long recalculados() {
+            return gravados - custodiaInalterada;
+        }
+    }
+}
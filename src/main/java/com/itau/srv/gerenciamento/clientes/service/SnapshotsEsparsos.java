@@ -0,0 +1,234 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.DataGeradaDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Armazenamento esparso de {@code snapshots_carteiras}: com {@code snapshots.armazenamento-esparso.habilitado}, um
+ * snapshot só é gravado quando os valores do cliente mudaram desde o último ponto gravado. Na leitura a série diária é
+ * reconstruída sobre as datas geradas ({@link ExecucaoSnapshot}), levando adiante o último ponto; um cliente faz parte
+ * de uma data quando a execução foi concluída ou quando o checkpoint já passou por ele. A leitura da série é limitada
+ * à janela consultada, e a lista das datas geradas (uma linha por data) fica em cache por
+ * {@code snapshots.armazenamento-esparso.datas-cache.ttl}.
+ */
+@Component
+public class SnapshotsEsparsos {
+
+    private final SnapshotCarteiraRepository snapshotCarteiraRepository;
+    private final ExecucaoSnapshotRepository execucaoSnapshotRepository;
+    private final SnapshotMapper snapshotMapper;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean habilitado;
+    private final long ttlDatasMs;
+    private volatile DatasEmCache datasEmCache;
+
+    public SnapshotsEsparsos(SnapshotCarteiraRepository snapshotCarteiraRepository,
+                             ExecucaoSnapshotRepository execucaoSnapshotRepository,
+                             SnapshotMapper snapshotMapper,
+                             MeterRegistry meterRegistry,
+                             Clock clock,
+                             @Value("${snapshots.armazenamento-esparso.habilitado:false}") boolean habilitado,
+                             @Value("${snapshots.armazenamento-esparso.datas-cache.ttl:5000}") long ttlDatasMs) {
+        this.snapshotCarteiraRepository = snapshotCarteiraRepository;
+        this.execucaoSnapshotRepository = execucaoSnapshotRepository;
+        this.snapshotMapper = snapshotMapper;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.habilitado = habilitado;
+        this.ttlDatasMs = ttlDatasMs;
+    }
+
+    public Selecao selecionar(LocalDate data, List<SnapshotCarteira> snapshots) {
+        if (!habilitado || snapshots.isEmpty()) {
+            return new Selecao(snapshots, List.of());
+        }
+
+        List<Long> clienteIds = snapshots.stream().map(SnapshotCarteira::getClienteId).toList();
+        Map<Long, SnapshotCarteira> anteriores = snapshotCarteiraRepository.findUltimosAntesDe(data, clienteIds).stream()
+                .collect(Collectors.toMap(SnapshotCarteira::getClienteId, Function.identity()));
+
+        // Reprocessamento de uma data antiga: a data gerada seguinte pode ter sido omitida levando o ponto anterior adiante
+        LocalDate proximaData = execucaoSnapshotRepository.findPrimeiraDataSnapshotApos(data);
+        Set<Long> comPontoNaProximaData = proximaData == null ? Set.of()
+                : new HashSet<>(snapshotCarteiraRepository.findClienteIdsComSnapshot(proximaData, clienteIds));
+
+        List<SnapshotCarteira> pontos = new ArrayList<>();
+        List<SnapshotCarteira> continuacoes = new ArrayList<>();
+
+        for (SnapshotCarteira snapshot : snapshots) {
+            SnapshotCarteira anterior = anteriores.get(snapshot.getClienteId());
+
+            if (anterior != null && mesmosValores(anterior, snapshot)) {
+                continue;
+            }
+
+            pontos.add(snapshot);
+
+            if (anterior != null && proximaData != null && !comPontoNaProximaData.contains(snapshot.getClienteId())) {
+                continuacoes.add(snapshotMapper.levarAdiante(anterior, proximaData));
+            }
+        }
+
+        meterRegistry.counter("snapshots.armazenamento", "resultado", "gravado").increment(pontos.size());
+        meterRegistry.counter("snapshots.armazenamento", "resultado", "omitido").increment(snapshots.size() - pontos.size());
+        meterRegistry.counter("snapshots.armazenamento", "resultado", "continuacao").increment(continuacoes.size());
+
+        return new Selecao(pontos, continuacoes);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Série diária do cliente na janela [inicio, fim], em ordem decrescente de data. Lê só os pontos gravados na
+     * janela e o último ponto anterior a ela, que é levado adiante até o primeiro ponto da janela.
+     */
+    public List<EvolucaoCarteiraResponseDTO> reconstruir(Long clienteId, LocalDate inicio, LocalDate fim) {
+        List<EvolucaoCarteiraResponseDTO> pontos = snapshotCarteiraRepository.findEvolucao(clienteId, inicio, fim, Pageable.unpaged());
+
+        if (!habilitado) {
+            return pontos;
+        }
+
+        List<EvolucaoCarteiraResponseDTO> crescentes = new ArrayList<>(pontos.size() + 1);
+        snapshotCarteiraRepository.findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(clienteId, inicio.minusDays(1))
+                .map(snapshotMapper::mapearParaEvolucaoCarteiraResponseDTO)
+                .ifPresent(crescentes::add);
+        for (int i = pontos.size() - 1; i >= 0; i--) {
+            crescentes.add(pontos.get(i));
+        }
+
+        if (crescentes.isEmpty()) {
+            return pontos;
+        }
+
+        LocalDate primeiraData = crescentes.get(0).data().isBefore(inicio) ? inicio : crescentes.get(0).data();
+
+        TreeSet<LocalDate> datas = new TreeSet<>();
+        datasGeradas(clienteId, primeiraData, fim).forEach(datas::add);
+        pontos.forEach(ponto -> datas.add(ponto.data()));
+
+        List<EvolucaoCarteiraResponseDTO> serie = new ArrayList<>(datas.size());
+        EvolucaoCarteiraResponseDTO atual = null;
+        int proximo = 0;
+
+        for (LocalDate data : datas) {
+            while (proximo < crescentes.size() && !crescentes.get(proximo).data().isAfter(data)) {
+                atual = crescentes.get(proximo++);
+            }
+            serie.add(atual.data().equals(data) ? atual : snapshotMapper.levarAdiante(atual, data));
+        }
+
+        Collections.reverse(serie);
+        return serie;
+    }
+
+    /**
+     * A série reconstruída também muda quando uma data é gerada sem gravar ponto para o cliente; a versão passa a
+     * contar as datas geradas além dos pontos gravados.
+     */
+    public VersaoSnapshotsDTO versionar(Long clienteId, VersaoSnapshotsDTO versao) {
+        if (!habilitado || versao.quantidade() == 0) {
+            return versao;
+        }
+
+        List<LocalDate> datas = datasGeradas(clienteId, RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO);
+        if (datas.isEmpty()) {
+            return versao;
+        }
+
+        LocalDate ultimaDataGerada = datas.get(datas.size() - 1);
+        LocalDate ultimaData = versao.ultimaData() == null || ultimaDataGerada.isAfter(versao.ultimaData())
+                ? ultimaDataGerada : versao.ultimaData();
+
+        return new VersaoSnapshotsDTO(versao.quantidade() + datas.size(), versao.ultimoId(), ultimaData, versao.ultimaAtualizacao());
+    }
+
+    /**
+     * Clientes cuja série já inclui a data: com ponto gravado nela ou com a data gerada para eles. Consulta o banco,
+     * sem o cache das datas geradas, porque é usada na gravação dos resumos.
+     */
+    public Set<Long> clientesComData(LocalDate data, Collection<Long> clienteIds) {
+        Set<Long> clientes = new HashSet<>(snapshotCarteiraRepository.findClienteIdsComSnapshot(data, clienteIds));
+
+        execucaoSnapshotRepository.findByDataSnapshot(data).ifPresent(execucao -> clienteIds.stream()
+                .filter(clienteId -> execucao.getStatus() == StatusExecucaoSnapshot.CONCLUIDA
+                        || (execucao.getUltimoClienteId() != null && clienteId <= execucao.getUltimoClienteId()))
+                .forEach(clientes::add));
+
+        return clientes;
+    }
+
+    // Também sem cache, pela mesma razão de clientesComData
+    public LocalDate ultimaDataGerada(Long clienteId) {
+        return execucaoSnapshotRepository.findUltimaDataGerada(clienteId, StatusExecucaoSnapshot.CONCLUIDA);
+    }
+
+    private List<LocalDate> datasGeradas(Long clienteId, LocalDate inicio, LocalDate fim) {
+        return datasEmCache().stream()
+                .filter(data -> !data.dataSnapshot().isBefore(inicio) && !data.dataSnapshot().isAfter(fim))
+                .filter(data -> data.status() == StatusExecucaoSnapshot.CONCLUIDA
+                        || (data.ultimoClienteId() != null && clienteId <= data.ultimoClienteId()))
+                .map(DataGeradaDTO::dataSnapshot)
+                .toList();
+    }
+
+    private List<DataGeradaDTO> datasEmCache() {
+        DatasEmCache cache = datasEmCache;
+        Instant agora = clock.instant();
+
+        if (cache == null || !agora.isBefore(cache.validoAte())) {
+            cache = new DatasEmCache(execucaoSnapshotRepository.findDatasGeradas(), agora.plusMillis(ttlDatasMs));
+            datasEmCache = cache;
+        }
+
+        return cache.datas();
+    }
+
+    private boolean mesmosValores(SnapshotCarteira anterior, SnapshotCarteira snapshot) {
+        return iguais(anterior.getValorCarteira(), snapshot.getValorCarteira())
+                && iguais(anterior.getValorInvestido(), snapshot.getValorInvestido())
+                && iguais(anterior.getRentabilidade(), snapshot.getRentabilidade());
+    }
+
+    private boolean iguais(BigDecimal anterior, BigDecimal atual) {
+        return anterior.compareTo(atual) == 0;
+    }
+
+    /**
+     * Pontos a gravar na data do lote e, em reprocessamentos, os pontos que mantêm a data gerada seguinte.
+     */
+    public record Selecao(List<SnapshotCarteira> pontos, List<SnapshotCarteira> continuacoes) {
+    }
+
+    private record DatasEmCache(List<DataGeradaDTO> datas, Instant validoAte) {
+    }
+}
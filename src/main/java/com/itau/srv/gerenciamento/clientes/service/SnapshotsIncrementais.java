@@ -0,0 +1,177 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.consumer.AporteConsumer;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.EstadoSnapshotCliente;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.EstadoSnapshotClienteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Geração incremental dos snapshots a partir do último cálculo de cada cliente ({@link EstadoSnapshotCliente}).
+ * A custódia é sempre lida, para valorizar a carteira pelas cotações atuais. O valor investido anterior só é mantido,
+ * sem consultar o Serviço de Valores, quando a impressão da custódia (ticker, quantidade e preço médio) não mudou e
+ * nenhum evento de custódia ou de aporte marcou o cliente desde o último cálculo. As marcações só valem com os dois
+ * consumidores sem defasagem ({@link DefasagemConsumidores}); fora disso o cálculo é completo.
+ */
+@Component
+@Slf4j
+public class SnapshotsIncrementais {
+
+    private static final char SEPARADOR = '\u001F';
+
+    private final EstadoSnapshotClienteRepository estadoSnapshotClienteRepository;
+    private final CustodiaLocalService custodiaLocalService;
+    private final DefasagemConsumidores defasagemConsumidores;
+    private final CarteiraService carteiraService;
+    private final Clock clock;
+    private final boolean habilitado;
+
+    public SnapshotsIncrementais(EstadoSnapshotClienteRepository estadoSnapshotClienteRepository,
+                                 CustodiaLocalService custodiaLocalService,
+                                 DefasagemConsumidores defasagemConsumidores,
+                                 CarteiraService carteiraService,
+                                 Clock clock,
+                                 @Value("${snapshots.incremental.habilitado:true}") boolean habilitado) {
+        this.estadoSnapshotClienteRepository = estadoSnapshotClienteRepository;
+        this.custodiaLocalService = custodiaLocalService;
+        this.defasagemConsumidores = defasagemConsumidores;
+        this.carteiraService = carteiraService;
+        this.clock = clock;
+        this.habilitado = habilitado;
+    }
+
+    public Contexto iniciar() {
+        if (!habilitado) {
+            return Contexto.DESABILITADO;
+        }
+
+        // Sem os dois consumidores em dia, um aporte ou uma compra pode não ter marcado o cliente
+        boolean marcacoesEmDia = custodiaLocalService.estaAtualizado()
+                && defasagemConsumidores.emDia(AporteConsumer.MARCACOES_LISTENER_ID);
+
+        if (!marcacoesEmDia) {
+            log.info("Marcacoes de custodias e aportes defasadas, valor investido consultado para todos os clientes");
+        }
+
+        return new Contexto(true, marcacoesEmDia);
+    }
+
+    public void registrarAporte(Long clienteId) {
+        estadoSnapshotClienteRepository.marcarAlterado(clienteId, LocalDateTime.now(clock));
+    }
+
+    public Map<Long, EstadoSnapshotCliente> buscarEstados(Collection<Long> clienteIds) {
+        if (clienteIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return estadoSnapshotClienteRepository.findAllByClienteIdIn(clienteIds).stream()
+                .collect(Collectors.toMap(EstadoSnapshotCliente::getClienteId, Function.identity()));
+    }
+
+    public void salvarEstados(List<EstadoSnapshotCliente> estados) {
+        if (!estados.isEmpty()) {
+            estadoSnapshotClienteRepository.saveAll(estados);
+        }
+    }
+
+    public Calculo calcular(Contexto contexto, Long clienteId, LocalDate data, EstadoSnapshotCliente estado) {
+        LocalDateTime inicio = LocalDateTime.now(clock);
+        boolean posterior = estado != null && !data.isBefore(estado.getDataSnapshot());
+
+        if (posterior && contexto.marcacoesEmDia() && !alteradoAposCalculo(estado)) {
+            List<CustodiaResponseDTO> custodias = carteiraService.obterCustodias(clienteId);
+
+            if (impressao(custodias).equals(estado.getImpressaoCustodias())) {
+                estado.setDataCalculo(inicio);
+                return new Calculo(carteiraService.montarSnapshot(clienteId, data, custodias, estado.getValorInvestido()), estado,
+                        TipoCalculo.CUSTODIA_INALTERADA);
+            }
+
+            BigDecimal valorInvestido = carteiraService.consultarValorInvestido(clienteId, data);
+            return new Calculo(carteiraService.montarSnapshot(clienteId, data, custodias, valorInvestido),
+                    atualizarEstado(estado, data, custodias, valorInvestido, inicio), TipoCalculo.RECALCULADO);
+        }
+
+        CarteiraService.SnapshotCalculado calculado = carteiraService.calcularSnapshotComCustodias(clienteId, data);
+
+        // Datas anteriores ao estado (reprocessamento) não o substituem
+        EstadoSnapshotCliente novoEstado = null;
+        if (estado == null) {
+            novoEstado = new EstadoSnapshotCliente();
+            novoEstado.setClienteId(clienteId);
+            // Um cliente novo só mantém o valor investido depois de um segundo cálculo, quando as marcações já o alcançam
+            novoEstado.setDataAlteracao(inicio);
+            atualizarEstado(novoEstado, data, calculado.custodias(), calculado.snapshot().getValorInvestido(), inicio);
+        } else if (posterior) {
+            novoEstado = atualizarEstado(estado, data, calculado.custodias(), calculado.snapshot().getValorInvestido(), inicio);
+        }
+
+        return new Calculo(calculado.snapshot(), novoEstado, TipoCalculo.RECALCULADO);
+    }
+
+    private boolean alteradoAposCalculo(EstadoSnapshotCliente estado) {
+        return !estado.getDataAlteracao().isBefore(estado.getDataCalculo());
+    }
+
+    private EstadoSnapshotCliente atualizarEstado(EstadoSnapshotCliente estado, LocalDate data, List<CustodiaResponseDTO> custodias,
+                                                  BigDecimal valorInvestido, LocalDateTime inicio) {
+        estado.setDataSnapshot(data);
+        estado.setValorInvestido(valorInvestido);
+        estado.setImpressaoCustodias(impressao(custodias));
+        estado.setDataCalculo(inicio);
+
+        return estado;
+    }
+
+    static String impressao(List<CustodiaResponseDTO> custodias) {
+        StringBuilder conteudo = new StringBuilder();
+
+        custodias.stream()
+                .sorted(Comparator.comparing(CustodiaResponseDTO::ticker))
+                .forEach(custodia -> conteudo.append(custodia.ticker()).append(SEPARADOR)
+                        .append(custodia.quantidade()).append(SEPARADOR)
+                        .append(custodia.precoMedio() == null ? null : custodia.precoMedio().stripTrailingZeros().toPlainString())
+                        .append(SEPARADOR));
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Contexto(boolean habilitado, boolean marcacoesEmDia) {
+        public static final Contexto DESABILITADO = new Contexto(false, false);
+    }
+
+    public record Calculo(SnapshotCarteira snapshot, EstadoSnapshotCliente estado, TipoCalculo tipo) {
+    }
+
+    /**
+     * RECALCULADO: custódia e valor investido consultados. CUSTODIA_INALTERADA: custódia consultada, com a mesma
+     * impressão do último cálculo e sem marcação, e valor investido mantido.
+     */
+    public enum TipoCalculo {
+        RECALCULADO, CUSTODIA_INALTERADA
+    }
+}
@@ -0,0 +1,59 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Executa uma tarefa sob um advisory lock de sessão do PostgreSQL, de forma que uma única réplica a execute por vez.
+ * A conexão fica reservada enquanto a tarefa roda, já que a trava pertence à sessão. Fora do PostgreSQL
+ * (H2 nos testes) a tarefa roda sem trava.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TravaConsultiva {
+
+    private final DataSource dataSource;
+
+    public boolean executar(long chave, Runnable tarefa) {
+        try (Connection conexao = dataSource.getConnection()) {
+            if (!conexao.isWrapperFor(PGConnection.class)) {
+                tarefa.run();
+                return true;
+            }
+
+            if (!consultar(conexao, "SELECT pg_try_advisory_lock(?)", chave)) {
+                log.info("Trava {} mantida por outra instancia", chave);
+                return false;
+            }
+
+            try {
+                tarefa.run();
+            } finally {
+                consultar(conexao, "SELECT pg_advisory_unlock(?)", chave);
+            }
+
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("TRAVA_INDISPONIVEL", e);
+        }
+    }
+
+    private boolean consultar(Connection conexao, String sql, long chave) throws SQLException {
+        try (PreparedStatement comando = conexao.prepareStatement(sql)) {
+            comando.setLong(1, chave);
+
+            try (ResultSet resultado = comando.executeQuery()) {
+                return resultado.next() && resultado.getBoolean(1);
+            }
+        }
+    }
+}
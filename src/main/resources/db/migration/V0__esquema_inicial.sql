@@ -0,0 +1,70 @@
+-- Esquema inicial, até aqui criado pelo Hibernate (ddl-auto). Com o Hibernate só validando o esquema, as tabelas
+-- passam a vir das migrações. Em bases existentes a V0 fica abaixo do baseline (ou é ignorada, se V1 em diante já foi
+-- aplicada) e as tabelas criadas pelo Hibernate são mantidas. snapshots_carteiras é criada na forma anterior à V1; as
+-- migrações seguintes criam a sequência, a unicidade e o particionamento.
+CREATE TABLE IF NOT EXISTS clientes (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nome         VARCHAR(200)   NOT NULL,
+    cpf          VARCHAR(11)    NOT NULL,
+    email        VARCHAR(200)   NOT NULL,
+    valor_mensal NUMERIC(18, 2) NOT NULL,
+    ativo        BOOLEAN        NOT NULL,
+    data_adesao  TIMESTAMP      NOT NULL,
+    CONSTRAINT clientes_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_clientes_cpf UNIQUE (cpf)
+);
+
+CREATE TABLE IF NOT EXISTS contas_graficas (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    cliente_id    BIGINT,
+    numero_conta  VARCHAR(20),
+    tipo          VARCHAR(255),
+    data_criacao  TIMESTAMP NOT NULL,
+    CONSTRAINT contas_graficas_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_contas_graficas_cliente UNIQUE (cliente_id),
+    CONSTRAINT uk_contas_graficas_numero_conta UNIQUE (numero_conta),
+    CONSTRAINT fk_contas_graficas_cliente FOREIGN KEY (cliente_id) REFERENCES clientes (id)
+);
+
+CREATE TABLE IF NOT EXISTS custodias (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    conta_grafica_id        BIGINT,
+    ticker                  VARCHAR(10)    NOT NULL,
+    quantidade              INTEGER        NOT NULL,
+    preco_medio             NUMERIC(18, 4) NOT NULL,
+    origem                  VARCHAR(20),
+    data_ultima_atualizacao TIMESTAMP      NOT NULL,
+    CONSTRAINT custodias_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_custodias_conta_ticker UNIQUE (conta_grafica_id, ticker),
+    CONSTRAINT fk_custodias_conta_grafica FOREIGN KEY (conta_grafica_id) REFERENCES contas_graficas (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_custodias_conta_grafica ON custodias (conta_grafica_id);
+
+CREATE TABLE IF NOT EXISTS execucoes_snapshots (
+    id                           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    data_snapshot                DATE        NOT NULL,
+    status                       VARCHAR(20) NOT NULL,
+    ultimo_cliente_id            BIGINT      NOT NULL,
+    total_clientes               BIGINT      NOT NULL DEFAULT 0,
+    clientes_processados         BIGINT      NOT NULL,
+    falhas                       BIGINT      NOT NULL,
+    clientes_recalculados        BIGINT      NOT NULL DEFAULT 0,
+    clientes_custodia_inalterada BIGINT      NOT NULL DEFAULT 0,
+    cancelamento_solicitado      BOOLEAN     NOT NULL DEFAULT FALSE,
+    data_inicio                  TIMESTAMP   NOT NULL,
+    data_atualizacao             TIMESTAMP   NOT NULL,
+    data_fim                     TIMESTAMP,
+    CONSTRAINT execucoes_snapshots_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_execucoes_snapshots_data UNIQUE (data_snapshot)
+);
+
+CREATE TABLE IF NOT EXISTS snapshots_carteiras (
+    id              BIGINT         NOT NULL,
+    cliente_id      BIGINT         NOT NULL,
+    data_snapshot   DATE           NOT NULL,
+    valor_carteira  NUMERIC(18, 2) NOT NULL,
+    valor_investido NUMERIC(18, 2) NOT NULL,
+    rentabilidade   NUMERIC(4, 2)  NOT NULL,
+    CONSTRAINT snapshots_carteiras_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,20 @@
+-- Último cálculo de cada cliente para a geração incremental de snapshots, até aqui criado só pelo Hibernate. Em bases
+-- onde a tabela já existe (ddl-auto), nada muda.
+CREATE TABLE IF NOT EXISTS estados_snapshots_clientes (
+    cliente_id          BIGINT         NOT NULL,
+    data_snapshot       DATE           NOT NULL,
+    valor_investido     NUMERIC(18, 2) NOT NULL,
+    posicoes            VARCHAR(1000)  NOT NULL,
+    impressao_custodias VARCHAR(64)    NOT NULL,
+    data_calculo        TIMESTAMP      NOT NULL,
+    data_alteracao      TIMESTAMP      NOT NULL,
+    CONSTRAINT estados_snapshots_clientes_pkey PRIMARY KEY (cliente_id)
+);
+
+-- Clientes cuja custódia foi lida e estava inalterada: contados à parte dos levados adiante, que não fazem chamadas
+DO $$
+BEGIN
+    IF to_regclass('execucoes_snapshots') IS NOT NULL THEN
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS clientes_custodia_inalterada BIGINT NOT NULL DEFAULT 0;
+    END IF;
+END $$;
@@ -0,0 +1,10 @@
+-- A geração incremental deixa de levar clientes adiante pelas cotações locais: sem as posições por ticker do último
+-- cálculo nem a contagem dos levados adiante.
+ALTER TABLE estados_snapshots_clientes DROP COLUMN IF EXISTS posicoes;
+
+DO $$
+BEGIN
+    IF to_regclass('execucoes_snapshots') IS NOT NULL THEN
+        ALTER TABLE execucoes_snapshots DROP COLUMN IF EXISTS clientes_levados_adiante;
+    END IF;
+END $$;
@@ -0,0 +1,13 @@
+-- O modelo local de custódias guarda só posições: a cotação vem sempre do Serviço de Custódias, e a leitura da
+-- carteira não faz mais a carga inicial por cliente.
+DO $$
+BEGIN
+    IF to_regclass('custodias') IS NOT NULL THEN
+        ALTER TABLE custodias DROP COLUMN IF EXISTS valor_atual;
+    END IF;
+
+    IF to_regclass('contas_graficas') IS NOT NULL THEN
+        ALTER TABLE contas_graficas DROP COLUMN IF EXISTS data_cobertura_custodias;
+        ALTER TABLE contas_graficas DROP COLUMN IF EXISTS data_ultimo_evento_custodia;
+    END IF;
+END $$;
@@ -0,0 +1,11 @@
+-- Ids de snapshots passam a vir de uma sequência com incremento 50 (allocationSize do Hibernate),
+-- permitindo que os inserts sejam agrupados em lote.
+CREATE SEQUENCE IF NOT EXISTS snapshots_carteiras_seq START WITH 1 INCREMENT BY 50;
+
+-- Em bases existentes, a sequência começa após o maior id já gravado
+DO $$
+BEGIN
+    IF to_regclass('snapshots_carteiras') IS NOT NULL THEN
+        PERFORM setval('snapshots_carteiras_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM snapshots_carteiras));
+    END IF;
+END $$;
@@ -0,0 +1,10 @@
+-- Tabela intermediária da carga via COPY. Cada transação copia, mescla e remove as próprias linhas,
+-- por isso a tabela não precisa de WAL (UNLOGGED) nem de índices.
+CREATE UNLOGGED TABLE IF NOT EXISTS snapshots_carteiras_carga (
+    id              BIGINT         NOT NULL,
+    cliente_id      BIGINT         NOT NULL,
+    data_snapshot   DATE           NOT NULL,
+    valor_carteira  NUMERIC(18, 2) NOT NULL,
+    valor_investido NUMERIC(18, 2) NOT NULL,
+    rentabilidade   NUMERIC(4, 2)  NOT NULL
+);
@@ -0,0 +1,17 @@
+-- Um snapshot por cliente e data. Execuções repetidas antes desta versão geravam linhas duplicadas;
+-- mantém a mais recente de cada par antes de criar a restrição.
+DO $$
+BEGIN
+    IF to_regclass('snapshots_carteiras') IS NOT NULL THEN
+        DELETE FROM snapshots_carteiras s
+        USING snapshots_carteiras d
+        WHERE s.cliente_id = d.cliente_id
+          AND s.data_snapshot = d.data_snapshot
+          AND s.id < d.id;
+
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_snapshots_carteiras_cliente_data') THEN
+            ALTER TABLE snapshots_carteiras
+                ADD CONSTRAINT uk_snapshots_carteiras_cliente_data UNIQUE (cliente_id, data_snapshot);
+        END IF;
+    END IF;
+END $$;
@@ -0,0 +1,10 @@
+-- Colunas de acompanhamento e cancelamento das execuções. Com valores padrão para que as linhas
+-- existentes continuem válidas; em bancos novos a tabela é criada pelo Hibernate já com as colunas.
+DO $$
+BEGIN
+    IF to_regclass('execucoes_snapshots') IS NOT NULL THEN
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS total_clientes BIGINT NOT NULL DEFAULT 0;
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS cancelamento_solicitado BOOLEAN NOT NULL DEFAULT FALSE;
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS data_fim TIMESTAMP;
+    END IF;
+END $$;
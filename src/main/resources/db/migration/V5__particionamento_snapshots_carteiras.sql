@@ -0,0 +1,58 @@
+-- snapshots_carteiras passa a ser particionada por mês de data_snapshot. A chave primária inclui a coluna de
+-- partição (exigência do PostgreSQL) e remover o histórico antigo vira um DROP da partição, sem DELETE.
+
+-- Cria, se ainda não existir, a partição do mês da data informada
+CREATE OR REPLACE FUNCTION criar_particao_snapshots_carteiras(p_data DATE) RETURNS VOID AS $$
+DECLARE
+    v_inicio DATE := date_trunc('month', p_data)::date;
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF snapshots_carteiras FOR VALUES FROM (%L) TO (%L)',
+                   'snapshots_carteiras_' || to_char(v_inicio, 'YYYYMM'), v_inicio, (v_inicio + INTERVAL '1 month')::date);
+END $$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    v_mes DATE;
+    v_fim DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('snapshots_carteiras')) = 'p' THEN
+        RETURN;
+    END IF;
+
+    CREATE TABLE snapshots_carteiras_particionada (
+        id              BIGINT         NOT NULL,
+        cliente_id      BIGINT         NOT NULL,
+        data_snapshot   DATE           NOT NULL,
+        valor_carteira  NUMERIC(18, 2) NOT NULL,
+        valor_investido NUMERIC(18, 2) NOT NULL,
+        rentabilidade   NUMERIC(4, 2)  NOT NULL
+    ) PARTITION BY RANGE (data_snapshot);
+
+    IF to_regclass('snapshots_carteiras') IS NOT NULL THEN
+        SELECT date_trunc('month', MIN(data_snapshot))::date, MAX(data_snapshot) INTO v_mes, v_fim FROM snapshots_carteiras;
+
+        WHILE v_mes IS NOT NULL AND v_mes <= v_fim LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF snapshots_carteiras_particionada FOR VALUES FROM (%L) TO (%L)',
+                           'snapshots_carteiras_' || to_char(v_mes, 'YYYYMM'), v_mes, (v_mes + INTERVAL '1 month')::date);
+            v_mes := (v_mes + INTERVAL '1 month')::date;
+        END LOOP;
+
+        INSERT INTO snapshots_carteiras_particionada (id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade)
+        SELECT id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade FROM snapshots_carteiras;
+
+        DROP TABLE snapshots_carteiras;
+    END IF;
+
+    ALTER TABLE snapshots_carteiras_particionada RENAME TO snapshots_carteiras;
+    ALTER TABLE snapshots_carteiras ADD CONSTRAINT snapshots_carteiras_pkey PRIMARY KEY (id, data_snapshot);
+    ALTER TABLE snapshots_carteiras
+        ADD CONSTRAINT uk_snapshots_carteiras_cliente_data UNIQUE (cliente_id, data_snapshot);
+
+    -- Cobre as leituras da rentabilidade por cliente (lista, versão e último snapshot) com index-only scan
+    CREATE INDEX idx_snapshots_carteiras_cliente_data
+        ON snapshots_carteiras (cliente_id, data_snapshot DESC) INCLUDE (id, valor_carteira, valor_investido, rentabilidade);
+END $$;
+
+-- Partições do mês corrente e do próximo; as seguintes são criadas pela aplicação antes de cada geração
+SELECT criar_particao_snapshots_carteiras(CURRENT_DATE);
+SELECT criar_particao_snapshots_carteiras((CURRENT_DATE + INTERVAL '1 month')::date);
@@ -0,0 +1,9 @@
+-- Contagem de clientes recalculados e levados adiante pela geração incremental de snapshots. A tabela
+-- estados_snapshots_clientes é nova e criada pelo Hibernate.
+DO $$
+BEGIN
+    IF to_regclass('execucoes_snapshots') IS NOT NULL THEN
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS clientes_recalculados BIGINT NOT NULL DEFAULT 0;
+        ALTER TABLE execucoes_snapshots ADD COLUMN IF NOT EXISTS clientes_levados_adiante BIGINT NOT NULL DEFAULT 0;
+    END IF;
+END $$;
@@ -0,0 +1,12 @@
+-- Resumo da rentabilidade de cada cliente, mantido na gravação dos snapshots. Em bases onde o Hibernate já criou a
+-- tabela (ddl-auto), nada muda; os resumos ausentes são calculados pela carga inicial do agendamento.
+CREATE TABLE IF NOT EXISTS resumos_rentabilidade (
+    cliente_id            BIGINT         NOT NULL,
+    data_snapshot         DATE,
+    valor_total_investido NUMERIC(24, 2) NOT NULL,
+    valor_atual           NUMERIC(18, 2) NOT NULL,
+    valor_investido_atual NUMERIC(18, 2) NOT NULL,
+    pl_total              NUMERIC(24, 2) NOT NULL,
+    data_atualizacao      TIMESTAMP      NOT NULL,
+    CONSTRAINT resumos_rentabilidade_pkey PRIMARY KEY (cliente_id)
+);
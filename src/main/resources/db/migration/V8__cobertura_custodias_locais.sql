@@ -0,0 +1,9 @@
+-- Cobertura do modelo local de custódias por cliente: enquanto data_cobertura_custodias estiver nula, as custódias
+-- do cliente são lidas do Serviço de Custódias. Em bancos novos a tabela é criada pelo Hibernate já com as colunas.
+DO $$
+BEGIN
+    IF to_regclass('contas_graficas') IS NOT NULL THEN
+        ALTER TABLE contas_graficas ADD COLUMN IF NOT EXISTS data_cobertura_custodias TIMESTAMP;
+        ALTER TABLE contas_graficas ADD COLUMN IF NOT EXISTS data_ultimo_evento_custodia TIMESTAMP;
+    END IF;
+END $$;
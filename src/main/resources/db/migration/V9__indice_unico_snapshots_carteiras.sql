@@ -0,0 +1,19 @@
+-- uk_snapshots_carteiras_cliente_data e idx_snapshots_carteiras_cliente_data eram duas árvores B sobre a mesma chave
+-- (cliente_id, data_snapshot), mantidas a cada gravação. A restrição de unicidade passa a incluir as colunas do
+-- snapshot e atende sozinha às leituras por cliente com index-only scan (a ordem decrescente por data é uma varredura
+-- para trás no mesmo índice); o índice separado é removido.
+DO $$
+BEGIN
+    IF to_regclass('snapshots_carteiras') IS NULL THEN
+        RETURN;
+    END IF;
+
+    DROP INDEX IF EXISTS idx_snapshots_carteiras_cliente_data;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                   WHERE c.relname = 'uk_snapshots_carteiras_cliente_data' AND i.indnatts > i.indnkeyatts) THEN
+        ALTER TABLE snapshots_carteiras DROP CONSTRAINT IF EXISTS uk_snapshots_carteiras_cliente_data;
+        ALTER TABLE snapshots_carteiras ADD CONSTRAINT uk_snapshots_carteiras_cliente_data
+            UNIQUE (cliente_id, data_snapshot) INCLUDE (id, valor_carteira, valor_investido, rentabilidade);
+    END IF;
+END $$;
@@ -0,0 +1,39 @@
+package com.itau.srv.gerenciamento.benchmark;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cópia de {@link com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira} com o id IDENTITY anterior,
+ * usada apenas como referência no benchmark de inserção. Fica fora do pacote da aplicação para não entrar no scan de
+ * entidades dos demais testes; só o benchmark a registra.
+ */
+@Entity
+@Table(name = "snapshots_carteiras_identidade")
+@Setter
+@Getter
+public class SnapshotCarteiraIdentidade {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(name = "data_snapshot", nullable = false)
+    private LocalDate dataSnapshot;
+
+    @Column(name = "valor_carteira", nullable = false, precision = 18, scale = 2)
+    private BigDecimal valorCarteira;
+
+    @Column(name = "valor_investido", nullable = false, precision = 18, scale = 2)
+    private BigDecimal valorInvestido;
+
+    @Column(name = "rentabilidade", nullable = false, precision = 4, scale = 2)
+    private BigDecimal rentabilidade;
+}
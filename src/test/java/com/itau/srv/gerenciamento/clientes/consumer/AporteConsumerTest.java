@@ -0,0 +1,83 @@
+package com.itau.srv.gerenciamento.clientes.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itau.srv.gerenciamento.clientes.service.CacheValores;
+import com.itau.srv.gerenciamento.clientes.service.SnapshotsIncrementais;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AporteConsumerTest {
+
+    @Mock
+    private CacheValores cacheValores;
+
+    @Mock
+    private SnapshotsIncrementais snapshotsIncrementais;
+
+    private AporteConsumer aporteConsumer;
+
+    @BeforeEach
+    void setUp() {
+        aporteConsumer = new AporteConsumer(new ObjectMapper().findAndRegisterModules(), cacheValores, snapshotsIncrementais);
+    }
+
+    @Test
+    void deveInvalidarHistoricoDeAportesDoCliente() {
+        // Arrange
+        String mensagem = """
+                {"clienteId": 1, "data": "2026-03-05", "valor": 1000.00}
+                """;
+
+        // Act
+        aporteConsumer.consumir(mensagem);
+
+        // Assert
+        verify(cacheValores, times(1)).invalidarHistoricoAportes(1L, "novo-aporte");
+        verifyNoInteractions(snapshotsIncrementais);
+    }
+
+    @Test
+    void deveMarcarClienteAlteradoParaSnapshotsIncrementais() {
+        // Arrange
+        String mensagem = """
+                {"clienteId": 1, "data": "2026-03-05", "valor": 1000.00}
+                """;
+
+        // Act
+        aporteConsumer.marcarCliente(mensagem);
+
+        // Assert
+        verify(snapshotsIncrementais, times(1)).registrarAporte(1L);
+        verifyNoInteractions(cacheValores);
+    }
+
+    @Test
+    void deveDescartarMensagemInvalida() {
+        // Act
+        aporteConsumer.consumir("nao-e-json");
+
+        // Assert
+        verifyNoInteractions(cacheValores);
+    }
+
+    @Test
+    void deveDescartarEventoSemCliente() {
+        // Arrange
+        String mensagem = """
+                {"data": "2026-03-05", "valor": 1000.00}
+                """;
+
+        // Act
+        aporteConsumer.consumir(mensagem);
+        aporteConsumer.marcarCliente(mensagem);
+
+        // Assert
+        verifyNoInteractions(cacheValores, snapshotsIncrementais);
+    }
+}
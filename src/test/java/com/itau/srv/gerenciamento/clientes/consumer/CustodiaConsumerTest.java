@@ -0,0 +1,81 @@
+package com.itau.srv.gerenciamento.clientes.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.service.CustodiaLocalService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustodiaConsumerTest {
+
+    @Mock
+    private CustodiaLocalService custodiaLocalService;
+
+    private CustodiaConsumer custodiaConsumer;
+
+    @BeforeEach
+    void setUp() {
+        custodiaConsumer = new CustodiaConsumer(new ObjectMapper(), custodiaLocalService);
+    }
+
+    @Test
+    void deveAplicarEventoDeCustodia() {
+        // Arrange
+        String mensagem = """
+                {"clienteId": 1, "ticker": "PETR4", "quantidade": 100, "precoMedio": 30.00, "valorAtual": 35.00, "origem": "COMPRA"}
+                """;
+
+        // Act
+        custodiaConsumer.consumir(mensagem);
+
+        // Assert
+        verify(custodiaLocalService, times(1)).aplicarEvento(new CustodiaAtualizadaEventoDTO(
+                1L, "PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA"));
+    }
+
+    @Test
+    void deveAplicarEventoDeCustodiaZeradaSemPrecos() {
+        // Arrange
+        String mensagem = """
+                {"clienteId": 1, "ticker": "PETR4", "quantidade": 0}
+                """;
+
+        // Act
+        custodiaConsumer.consumir(mensagem);
+
+        // Assert
+        verify(custodiaLocalService, times(1)).aplicarEvento(any(CustodiaAtualizadaEventoDTO.class));
+    }
+
+    @Test
+    void deveDescartarMensagemInvalida() {
+        // Act
+        custodiaConsumer.consumir("nao-e-json");
+
+        // Assert
+        verifyNoInteractions(custodiaLocalService);
+    }
+
+    @Test
+    void deveDescartarEventoSemPrecoMedio() {
+        // Arrange
+        String mensagem = """
+                {"clienteId": 1, "ticker": "PETR4", "quantidade": 100, "valorAtual": 35.00}
+                """;
+
+        // Act
+        custodiaConsumer.consumir(mensagem);
+
+        // Assert
+        verifyNoInteractions(custodiaLocalService);
+    }
+}
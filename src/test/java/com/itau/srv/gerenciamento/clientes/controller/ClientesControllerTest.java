@@ -6,25 +6,40 @@ import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteRequestDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.contagrafica.ContaGraficaResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.FiltroEvolucaoDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeNaDataResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.ExecucaoSnapshotConflitoException;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
 import com.itau.srv.gerenciamento.clientes.model.enums.TipoConta;
+import com.itau.srv.gerenciamento.clientes.service.CarteiraLoteService;
 import com.itau.srv.gerenciamento.clientes.service.CarteiraService;
 import com.itau.srv.gerenciamento.clientes.service.ClienteService;
+import com.itau.srv.gerenciamento.clientes.service.GeradorEtag;
 import com.itau.srv.gerenciamento.clientes.service.RentabilidadeService;
+import com.itau.srv.gerenciamento.clientes.service.ExecucaoSnapshotService;
+import com.itau.srv.gerenciamento.clientes.service.SnapshotCarteiraService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
@@ -32,6 +47,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -50,6 +66,23 @@ class ClientesControllerTest {
     @Mock
     private RentabilidadeService rentabilidadeService;
 
+    @Spy
+    private GeradorEtag geradorEtag = new GeradorEtag();
+
+    @Mock
+    private CarteiraLoteService carteiraLoteService;
+
+    @Mock
+    private SnapshotCarteiraService snapshotCarteiraService;
+
+    @Mock
+    private ExecucaoSnapshotService execucaoSnapshotService;
+
+    @Spy
+    private ObjectMapper mapeadorJson = new ObjectMapper().findAndRegisterModules();
+
+    private static final String ETAG_RENTABILIDADE = "\"a1b2c3\"";
+
     @InjectMocks
     private ClientesController clientesController;
 
@@ -825,48 +858,213 @@ class ClientesControllerTest {
         verify(carteiraService).consultarCarteiraCliente(99L);
     }
 
+    @Test
+    void deveBuscarCarteirasEmLoteComResultadoParcial() throws Exception {
+        // Arrange
+        CarteiraResponseDTO carteira = criarCarteiraComUmAtivo(LocalDateTime.now());
+        CarteirasLoteResponseDTO lote = new CarteirasLoteResponseDTO(
+                java.util.Map.of(1L, carteira),
+                java.util.Map.of(2L, "TEMPO_LIMITE_EXCEDIDO")
+        );
+        when(carteiraLoteService.consultarCarteiras(Arrays.asList(1L, 2L))).thenReturn(lote);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/clientes/carteiras:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CarteirasLoteRequestDTO(Arrays.asList(1L, 2L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.carteiras['1'].clienteId").value(1))
+                .andExpect(jsonPath("$.carteiras['1'].contaGrafica").value("ITAUFL00001"))
+                .andExpect(jsonPath("$.erros['2']").value("TEMPO_LIMITE_EXCEDIDO"));
+
+        verify(carteiraLoteService, times(1)).consultarCarteiras(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    void deveRetornar400QuandoLoteDeCarteirasVazio() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/clientes/carteiras:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CarteirasLoteRequestDTO(Collections.emptyList()))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(carteiraLoteService);
+    }
+
+    @Test
+    void deveInvalidarCarteiraEmCacheERetornar204() throws Exception {
+        // Arrange
+        Long clienteId = 1L;
+        doNothing().when(carteiraService).invalidarCarteiraEmCache(clienteId);
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/clientes/" + clienteId + "/carteira/cache"))
+                .andExpect(status().isNoContent());
+
+        verify(carteiraService, times(1)).invalidarCarteiraEmCache(clienteId);
+    }
+
+    @Test
+    void deveRetornarEtagAoBuscarCarteira() throws Exception {
+        // Arrange
+        CarteiraResponseDTO carteiraResponse = criarCarteiraComUmAtivo(LocalDateTime.now());
+        when(carteiraService.consultarCarteiraCliente(1L)).thenReturn(carteiraResponse);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/carteira"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", geradorEtag.gerarParaCarteira(carteiraResponse)));
+    }
+
+    @Test
+    void deveRetornar304QuandoCarteiraNaoMudouMesmoComOutraDataDeConsulta() throws Exception {
+        // Arrange
+        String etagAnterior = geradorEtag.gerarParaCarteira(criarCarteiraComUmAtivo(LocalDateTime.now().minusMinutes(5)));
+        when(carteiraService.consultarCarteiraCliente(1L)).thenReturn(criarCarteiraComUmAtivo(LocalDateTime.now()));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/carteira")
+                        .header("If-None-Match", etagAnterior))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void deveRetornar200QuandoCarteiraMudou() throws Exception {
+        // Arrange
+        String etagAnterior = geradorEtag.gerarParaCarteira(criarCarteiraComUmAtivo(LocalDateTime.now()));
+        CarteiraResponseDTO carteiraAtualizada = new CarteiraResponseDTO(
+                1L,
+                "João Silva",
+                "ITAUFL00001",
+                LocalDateTime.now(),
+                new ResumoResponseDTO(new BigDecimal("3000.00"), new BigDecimal("3600.00"), new BigDecimal("600.00"), new BigDecimal("20.00")),
+                Collections.singletonList(new AtivoResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("36.00"),
+                        new BigDecimal("600.00"), new BigDecimal("1.00"), new BigDecimal("1.00")))
+        );
+        when(carteiraService.consultarCarteiraCliente(1L)).thenReturn(carteiraAtualizada);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/carteira")
+                        .header("If-None-Match", etagAnterior))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resumo.valorAtualCarteira").value(3600.00));
+    }
+
+    private CarteiraResponseDTO criarCarteiraComUmAtivo(LocalDateTime dataConsulta) {
+        return new CarteiraResponseDTO(
+                1L,
+                "João Silva",
+                "ITAUFL00001",
+                dataConsulta,
+                new ResumoResponseDTO(new BigDecimal("3000.00"), new BigDecimal("3500.00"), new BigDecimal("500.00"), new BigDecimal("16.66")),
+                Collections.singletonList(new AtivoResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"),
+                        new BigDecimal("500.00"), new BigDecimal("1.00"), new BigDecimal("1.00")))
+        );
+    }
+
     // =========== TESTES PARA GERAR SNAPSHOT DE CARTEIRAS ===========
 
     @Test
     void deveGerarSnapshotDeCarteirasComSucesso() throws Exception {
         // Arrange
         String data = "2026-02-05";
-        doNothing().when(carteiraService).gerarSnapshots(any());
+        when(snapshotCarteiraService.iniciarGeracao(any())).thenReturn(criarExecucaoSnapshot());
 
         // Act & Assert
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", data))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
 
-        verify(carteiraService).gerarSnapshots(any());
+        verify(snapshotCarteiraService).iniciarGeracao(any());
     }
 
     @Test
     void deveChamarServiceParaGerarSnapshotComDataCorreta() throws Exception {
         // Arrange
         String data = "2026-02-15";
-        doNothing().when(carteiraService).gerarSnapshots(any());
+        when(snapshotCarteiraService.iniciarGeracao(any())).thenReturn(criarExecucaoSnapshot());
 
         // Act
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", data))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
 
         // Assert
-        verify(carteiraService, times(1)).gerarSnapshots(any());
+        verify(snapshotCarteiraService, times(1)).iniciarGeracao(any());
     }
 
     @Test
-    void deveRetornar204AoGerarSnapshot() throws Exception {
+    void deveRetornar202ComLocationDaExecucaoAoGerarSnapshot() throws Exception {
         // Arrange
         String data = "2026-01-05";
-        doNothing().when(carteiraService).gerarSnapshots(any());
+        when(snapshotCarteiraService.iniciarGeracao(any())).thenReturn(criarExecucaoSnapshot());
 
         // Act & Assert
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", data))
-                .andExpect(status().isNoContent())
-                .andExpect(content().string(""));
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/clientes/carteiras-snapshots/jobs/12"))
+                .andExpect(jsonPath("$.id").value(12))
+                .andExpect(jsonPath("$.status").value("EM_ANDAMENTO"));
+    }
+
+        @Test
+    void deveRetornar409QuandoGeracaoJaEstaEmAndamento() throws Exception {
+        // Arrange
+        when(snapshotCarteiraService.iniciarGeracao(any())).thenThrow(new ExecucaoSnapshotConflitoException("GERACAO_SNAPSHOTS_EM_ANDAMENTO"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/clientes/carteiras-snapshots")
+                        .param("data", "2026-01-05"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void deveConsultarGeracaoDeSnapshots() throws Exception {
+        // Arrange
+        when(execucaoSnapshotService.consultar(12L)).thenReturn(criarExecucaoSnapshot());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/carteiras-snapshots/jobs/12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clientesProcessados").value(400))
+                .andExpect(jsonPath("$.clientesRecalculados").value(30))
+                .andExpect(jsonPath("$.clientesCustodiaInalterada").value(370))
+                .andExpect(jsonPath("$.clientesRestantes").value(600))
+                .andExpect(jsonPath("$.clientesPorSegundo").value(20.0));
+    }
+
+    @Test
+    void deveSolicitarCancelamentoDaGeracaoDeSnapshots() throws Exception {
+        // Arrange
+        when(execucaoSnapshotService.solicitarCancelamento(12L)).thenReturn(criarExecucaoSnapshot());
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/clientes/carteiras-snapshots/jobs/12"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(12));
+
+        verify(execucaoSnapshotService).solicitarCancelamento(12L);
+    }
+
+    @Test
+    void deveRetornar409AoCancelarGeracaoQueNaoEstaEmAndamento() throws Exception {
+        // Arrange
+        when(execucaoSnapshotService.solicitarCancelamento(12L))
+                .thenThrow(new ExecucaoSnapshotConflitoException("EXECUCAO_SNAPSHOT_NAO_ESTA_EM_ANDAMENTO"));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/clientes/carteiras-snapshots/jobs/12"))
+                .andExpect(status().isConflict());
+    }
+
+    private ExecucaoSnapshotResponseDTO criarExecucaoSnapshot() {
+        LocalDateTime inicio = LocalDateTime.of(2026, 1, 5, 21, 0);
+
+        return new ExecucaoSnapshotResponseDTO(12L, LocalDate.of(2026, 1, 5), StatusExecucaoSnapshot.EM_ANDAMENTO,
+                1000L, 400L, 0L, 30L, 370L, 600L, new BigDecimal("20.0"), inicio.plusSeconds(50), false,
+                inicio, inicio.plusSeconds(20), null);
     }
 
     // =========== TESTES PARA BUSCAR CLIENTES ATIVOS ===========
@@ -910,10 +1108,15 @@ class ClientesControllerTest {
                 contaGrafica2
         );
 
-        when(clienteService.buscarClientesAtivos()).thenReturn(Arrays.asList(cliente1, cliente2));
+        doAnswer(invocation -> {
+            Consumer<AdesaoResponseDTO> consumidor = invocation.getArgument(0);
+            consumidor.accept(cliente1);
+            consumidor.accept(cliente2);
+            return null;
+        }).when(clienteService).percorrerClientesAtivos(any());
 
         // Act & Assert
-        mockMvc.perform(get("/api/clientes"))
+        listarClientesAtivos()
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(2))
@@ -924,47 +1127,46 @@ class ClientesControllerTest {
                 .andExpect(jsonPath("$[1].nome").value("Maria Santos"))
                 .andExpect(jsonPath("$[1].cpf").value("12345678901"));
 
-        verify(clienteService).buscarClientesAtivos();
+        verify(clienteService).percorrerClientesAtivos(any());
     }
 
     @Test
     void deveRetornarListaVaziaQuandoNaoHouverClientesAtivos() throws Exception {
-        // Arrange
-        when(clienteService.buscarClientesAtivos()).thenReturn(Collections.emptyList());
-
         // Act & Assert
-        mockMvc.perform(get("/api/clientes"))
+        listarClientesAtivos()
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(clienteService).buscarClientesAtivos();
+        verify(clienteService).percorrerClientesAtivos(any());
     }
 
     @Test
     void deveChamarServiceParaBuscarClientesAtivos() throws Exception {
-        // Arrange
-        when(clienteService.buscarClientesAtivos()).thenReturn(Collections.emptyList());
-
         // Act
-        mockMvc.perform(get("/api/clientes"))
+        listarClientesAtivos()
                 .andExpect(status().isOk());
 
         // Assert
-        verify(clienteService, times(1)).buscarClientesAtivos();
+        verify(clienteService, times(1)).percorrerClientesAtivos(any());
     }
 
     @Test
     void deveRetornarContentTypeJSONAoBuscarClientesAtivos() throws Exception {
-        // Arrange
-        when(clienteService.buscarClientesAtivos()).thenReturn(Collections.emptyList());
-
         // Act & Assert
-        mockMvc.perform(get("/api/clientes"))
+        listarClientesAtivos()
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        verify(clienteService).buscarClientesAtivos();
+        verify(clienteService).percorrerClientesAtivos(any());
+    }
+
+    private ResultActions listarClientesAtivos() throws Exception {
+        MvcResult resultado = mockMvc.perform(get("/api/clientes"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(resultado));
     }
 
     // ============= Testes para Gerar Snapshot de Carteira =============
@@ -973,50 +1175,50 @@ class ClientesControllerTest {
     void deveGerarSnapshotCarteiraComSucesso() throws Exception {
         // Arrange
         LocalDate data = LocalDate.of(2026, 3, 5);
-        doNothing().when(carteiraService).gerarSnapshots(any(LocalDate.class));
+        when(snapshotCarteiraService.iniciarGeracao(any(LocalDate.class))).thenReturn(criarExecucaoSnapshot());
 
         // Act & Assert
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", "2026-03-05"))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
 
-        verify(carteiraService, times(1)).gerarSnapshots(data);
+        verify(snapshotCarteiraService, times(1)).iniciarGeracao(data);
     }
 
     @Test
     void deveChamarServiceParaGerarSnapshot() throws Exception {
         // Arrange
         LocalDate data = LocalDate.of(2026, 3, 1);
-        doNothing().when(carteiraService).gerarSnapshots(any(LocalDate.class));
+        when(snapshotCarteiraService.iniciarGeracao(any(LocalDate.class))).thenReturn(criarExecucaoSnapshot());
 
         // Act
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                 .param("data", "2026-03-01"));
 
         // Assert
-        verify(carteiraService, times(1)).gerarSnapshots(data);
+        verify(snapshotCarteiraService, times(1)).iniciarGeracao(data);
     }
 
     @Test
     void deveAceitarParametroDataNaRequisicao() throws Exception {
         // Arrange
-        doNothing().when(carteiraService).gerarSnapshots(any(LocalDate.class));
+        when(snapshotCarteiraService.iniciarGeracao(any(LocalDate.class))).thenReturn(criarExecucaoSnapshot());
 
         // Act & Assert
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", "2026-02-15"))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
     }
 
     @Test
-    void deveRetornarStatus204QuandoSnapshotGeradoComSucesso() throws Exception {
+    void deveRetornarStatus202QuandoGeracaoDeSnapshotIniciada() throws Exception {
         // Arrange
-        doNothing().when(carteiraService).gerarSnapshots(any(LocalDate.class));
+        when(snapshotCarteiraService.iniciarGeracao(any(LocalDate.class))).thenReturn(criarExecucaoSnapshot());
 
         // Act & Assert
         mockMvc.perform(post("/api/clientes/carteiras-snapshots")
                         .param("data", "2026-03-01"))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
     }
 
     // ============= Testes para Consultar Rentabilidade =============
@@ -1025,7 +1227,8 @@ class ClientesControllerTest {
     void deveConsultarRentabilidadeComSucesso() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act & Assert
         mockMvc.perform(get("/api/clientes/1/rentabilidade"))
@@ -1036,27 +1239,29 @@ class ClientesControllerTest {
                 .andExpect(jsonPath("$.historicoAportes").isArray())
                 .andExpect(jsonPath("$.evolucaoCarteira").isArray());
 
-        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L);
+        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
     }
 
     @Test
     void deveChamarServiceParaConsultarRentabilidade() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act
         mockMvc.perform(get("/api/clientes/1/rentabilidade"));
 
         // Assert
-        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L);
+        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
     }
 
     @Test
     void deveRetornarDadosDeRentabilidadeNaResposta() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act & Assert
         mockMvc.perform(get("/api/clientes/1/rentabilidade"))
@@ -1071,7 +1276,8 @@ class ClientesControllerTest {
     void deveRetornarHistoricoAportesNaResposta() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act & Assert
         mockMvc.perform(get("/api/clientes/1/rentabilidade"))
@@ -1087,7 +1293,8 @@ class ClientesControllerTest {
     void deveRetornarEvolucaoCarteiraNaResposta() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act & Assert
         mockMvc.perform(get("/api/clientes/1/rentabilidade"))
@@ -1104,7 +1311,8 @@ class ClientesControllerTest {
     void deveRetornarContentTypeJSONAoConsultarRentabilidade() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act & Assert
         mockMvc.perform(get("/api/clientes/1/rentabilidade"))
@@ -1116,14 +1324,100 @@ class ClientesControllerTest {
     void deveUsarPathVariableClienteIdParaConsultarRentabilidade() throws Exception {
         // Arrange
         RentabilidadeResponseDTO rentabilidadeResponse = criarRentabilidadeResponseMock();
-        when(rentabilidadeService.consultarRentabilidade(anyLong())).thenReturn(rentabilidadeResponse);
+        when(rentabilidadeService.calcularEtagRentabilidade(anyLong())).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class))).thenReturn(rentabilidadeResponse);
 
         // Act
         mockMvc.perform(get("/api/clientes/5/rentabilidade"))
                 .andExpect(status().isOk());
 
         // Assert
-        verify(rentabilidadeService, times(1)).consultarRentabilidade(5L);
+        verify(rentabilidadeService, times(1)).consultarRentabilidade(5L, FiltroEvolucaoDTO.COMPLETA);
+    }
+
+    @Test
+    void deveRetornarEtagAoConsultarRentabilidade() throws Exception {
+        // Arrange
+        when(rentabilidadeService.calcularEtagRentabilidade(1L)).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA)).thenReturn(criarRentabilidadeResponseMock());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/rentabilidade"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG_RENTABILIDADE));
+    }
+
+    @Test
+    void deveRetornar304SemConsultarRentabilidadeQuandoEtagNaoMudou() throws Exception {
+        // Arrange
+        when(rentabilidadeService.calcularEtagRentabilidade(1L)).thenReturn(ETAG_RENTABILIDADE);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/rentabilidade")
+                        .header("If-None-Match", ETAG_RENTABILIDADE))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETAG_RENTABILIDADE))
+                .andExpect(content().string(""));
+
+        verify(rentabilidadeService, never()).consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class));
+    }
+
+    @Test
+    void deveRepassarJanelaDaEvolucaoParaOService() throws Exception {
+        // Arrange
+        FiltroEvolucaoDTO filtro = new FiltroEvolucaoDTO(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 3, 5), 2, ResolucaoEvolucao.DIARIA, null);
+        when(rentabilidadeService.calcularEtagRentabilidade(1L)).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(1L, filtro)).thenReturn(criarRentabilidadeResponseMock());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/rentabilidade")
+                        .param("de", "2026-01-01")
+                        .param("ate", "2026-03-31")
+                        .param("antesDe", "2026-03-05")
+                        .param("limite", "2"))
+                .andExpect(status().isOk());
+
+        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L, filtro);
+    }
+
+    @Test
+    void deveRepassarResolucaoDaEvolucaoParaOService() throws Exception {
+        // Arrange
+        FiltroEvolucaoDTO filtro = new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.LTTB, 120);
+        when(rentabilidadeService.calcularEtagRentabilidade(1L)).thenReturn(ETAG_RENTABILIDADE);
+        when(rentabilidadeService.consultarRentabilidade(1L, filtro)).thenReturn(criarRentabilidadeResponseMock());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/rentabilidade")
+                        .param("resolucao", "LTTB")
+                        .param("pontos", "120"))
+                .andExpect(status().isOk());
+
+        verify(rentabilidadeService, times(1)).consultarRentabilidade(1L, filtro);
+    }
+
+    @Test
+    void deveConsultarRentabilidadeNaDataSemEtagNemEvolucao() throws Exception {
+        // Arrange
+        LocalDate data = LocalDate.of(2026, 2, 28);
+        RentabilidadeNaDataResponseDTO rentabilidadeNaData = new RentabilidadeNaDataResponseDTO(1L, "João Silva", LocalDateTime.now(),
+                data, LocalDate.of(2026, 2, 27), new ResumoResponseDTO(new BigDecimal("2000.00"), new BigDecimal("2100.00"),
+                new BigDecimal("100.00"), new BigDecimal("5.00")));
+        when(rentabilidadeService.consultarRentabilidadeNaData(1L, data)).thenReturn(rentabilidadeNaData);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/clientes/1/rentabilidade")
+                        .param("asOf", "2026-02-28"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(jsonPath("$.clienteId").value(1))
+                .andExpect(jsonPath("$.dataSnapshot").isArray())
+                .andExpect(jsonPath("$.rentabilidade.valorAtualCarteira").value(2100.00))
+                .andExpect(jsonPath("$.rentabilidade.rentabilidadePercentual").value(5.00))
+                .andExpect(jsonPath("$.evolucaoCarteira").doesNotExist());
+
+        verify(rentabilidadeService, never()).calcularEtagRentabilidade(anyLong());
+        verify(rentabilidadeService, never()).consultarRentabilidade(anyLong(), any(FiltroEvolucaoDTO.class));
     }
 
     // ============= Métodos auxiliares =============
@@ -1181,7 +1475,8 @@ class ClientesControllerTest {
                 LocalDateTime.now(),
                 resumo,
                 Arrays.asList(aporte1, aporte2, aporte3),
-                Arrays.asList(evolucao1, evolucao2, evolucao3)
+                Arrays.asList(evolucao1, evolucao2, evolucao3),
+                null
         );
     }
 }
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
@@ -262,5 +263,33 @@ class CarteiraMaperTest {
         assertEquals("PETR4", resultado.ativos().get(0).ticker());
         assertEquals("VALE3", resultado.ativos().get(1).ticker());
     }
-}
 
+    @Test
+    void deveMapearCarteiraDesatualizadaSemAtivos() {
+        // Act
+        CarteiraResponseDTO resultado = carteiraMaper.mapearParaCarteiraDesatualizada(
+                cliente,
+                contaGrafica,
+                resumo,
+                LocalDate.of(2026, 3, 4)
+        );
+
+        // Assert
+        assertEquals(1L, resultado.clienteId());
+        assertEquals("ITAUFL00001", resultado.contaGrafica());
+        assertEquals(resumo, resultado.resumo());
+        assertTrue(resultado.ativos().isEmpty());
+        assertTrue(resultado.desatualizada());
+        assertEquals(LocalDate.of(2026, 3, 4), resultado.dataSnapshot());
+    }
+
+    @Test
+    void deveMapearCarteiraAtualizadaSemDataDeSnapshot() {
+        // Act
+        CarteiraResponseDTO resultado = carteiraMaper.mapearParaCarteiraResponseDTO(cliente, contaGrafica, resumo, ativos);
+
+        // Assert
+        assertFalse(resultado.desatualizada());
+        assertNull(resultado.dataSnapshot());
+    }
+}
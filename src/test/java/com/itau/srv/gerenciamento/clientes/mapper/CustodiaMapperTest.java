@@ -0,0 +1,37 @@
+package com.itau.srv.gerenciamento.clientes.mapper;
+
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.model.Custodia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustodiaMapperTest {
+
+    private CustodiaMapper custodiaMapper;
+
+    @BeforeEach
+    void setUp() {
+        custodiaMapper = new CustodiaMapper();
+    }
+
+    @Test
+    void deveAtualizarCustodiaComDadosDoEvento() {
+        // Arrange
+        Custodia custodia = new Custodia();
+        CustodiaAtualizadaEventoDTO evento = new CustodiaAtualizadaEventoDTO(
+                1L, "VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA");
+
+        // Act
+        custodiaMapper.atualizarCustodia(custodia, evento);
+
+        // Assert
+        assertEquals("VALE3", custodia.getTicker());
+        assertEquals(50, custodia.getQuantidade());
+        assertEquals(new BigDecimal("60.00"), custodia.getPrecoMedio());
+        assertEquals("COMPRA", custodia.getOrigem());
+    }
+}
@@ -1,12 +1,16 @@
 package com.itau.srv.gerenciamento.clientes.mapper;
 
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
 import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -111,5 +115,100 @@ class SnapshotMapperTest {
         assertNotNull(resultado);
         assertEquals(dataAtual, resultado.data());
     }
-}
 
+    @Test
+    void deveLevarPontoAdianteSemId() {
+        // Arrange
+        snapshot.setId(10L);
+
+        // Act
+        SnapshotCarteira resultado = snapshotMapper.levarAdiante(snapshot, LocalDate.of(2026, 3, 2));
+
+        // Assert
+        assertNull(resultado.getId());
+        assertEquals(1L, resultado.getClienteId());
+        assertEquals(LocalDate.of(2026, 3, 2), resultado.getDataSnapshot());
+        assertEquals(new BigDecimal("10000.00"), resultado.getValorCarteira());
+        assertEquals(new BigDecimal("8000.00"), resultado.getValorInvestido());
+        assertEquals(new BigDecimal("25.00"), resultado.getRentabilidade());
+    }
+
+    @Test
+    void deveLevarEvolucaoAdianteParaOutraData() {
+        // Arrange
+        EvolucaoCarteiraResponseDTO evolucao = snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(snapshot);
+
+        // Act
+        EvolucaoCarteiraResponseDTO resultado = snapshotMapper.levarAdiante(evolucao, LocalDate.of(2026, 3, 2));
+
+        // Assert
+        assertEquals(new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 3, 2), new BigDecimal("10000.00"),
+                new BigDecimal("8000.00"), new BigDecimal("25.00")), resultado);
+    }
+
+    @Test
+    void deveCalcularVazaoEPrevisaoDeExecucaoEmAndamento() {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2026, 3, 1, 21, 0);
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, inicio, null);
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = snapshotMapper.mapearParaExecucaoSnapshotResponseDTO(execucao, inicio.plusSeconds(20));
+
+        // Assert
+        assertEquals(600L, resultado.clientesRestantes());
+        assertEquals(new BigDecimal("20.0"), resultado.clientesPorSegundo());
+        assertEquals(inicio.plusSeconds(50), resultado.previsaoTermino());
+        assertEquals(StatusExecucaoSnapshot.EM_ANDAMENTO, resultado.status());
+        assertEquals(100L, resultado.clientesRecalculados());
+        assertEquals(50L, resultado.clientesCustodiaInalterada());
+    }
+
+    @Test
+    void deveUsarDataFimENaoPreverTerminoDeExecucaoEncerrada() {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2026, 3, 1, 21, 0);
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.CANCELADA, inicio, inicio.plusSeconds(10));
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = snapshotMapper.mapearParaExecucaoSnapshotResponseDTO(execucao, inicio.plusHours(1));
+
+        // Assert
+        assertEquals(new BigDecimal("40.0"), resultado.clientesPorSegundo());
+        assertNull(resultado.previsaoTermino());
+        assertEquals(inicio.plusSeconds(10), resultado.dataFim());
+    }
+
+    @Test
+    void deveNaoPreverTerminoAntesDoPrimeiroLote() {
+        // Arrange
+        LocalDateTime inicio = LocalDateTime.of(2026, 3, 1, 21, 0);
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, inicio, null);
+        execucao.setClientesProcessados(0L);
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = snapshotMapper.mapearParaExecucaoSnapshotResponseDTO(execucao, inicio);
+
+        // Assert
+        assertEquals(new BigDecimal("0.0"), resultado.clientesPorSegundo());
+        assertEquals(1000L, resultado.clientesRestantes());
+        assertNull(resultado.previsaoTermino());
+    }
+
+    private ExecucaoSnapshot criarExecucao(StatusExecucaoSnapshot status, LocalDateTime inicio, LocalDateTime fim) {
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setId(12L);
+        execucao.setDataSnapshot(LocalDate.of(2026, 3, 1));
+        execucao.setStatus(status);
+        execucao.setUltimoClienteId(400L);
+        execucao.setTotalClientes(1000L);
+        execucao.setClientesProcessados(400L);
+        execucao.setFalhas(0L);
+        execucao.setClientesRecalculados(100L);
+        execucao.setClientesCustodiaInalterada(50L);
+        execucao.setDataInicio(inicio);
+        execucao.setDataAtualizacao(inicio);
+        execucao.setDataFim(fim);
+        return execucao;
+    }
+}
@@ -0,0 +1,123 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.service.GravadorSnapshots;
+import com.itau.srv.gerenciamento.clientes.service.ParticoesSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compara o {@code saveAll} do JPA com a carga via COPY + tabela UNLOGGED. Só roda no PostgreSQL:
+ * {@code mvn test -Pbenchmark -Dspring.datasource.url=jdbc:postgresql://...?reWriteBatchedInserts=true}
+ * (com {@code spring.datasource.username}, {@code spring.datasource.password} e
+ * {@code spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect}).
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Slf4j
+class SnapshotCarteiraCargaCopyBenchmarkTest {
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final LocalDate DATA = LocalDate.of(2026, 2, 27);
+
+    @Autowired
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // O schema do perfil de teste vem do Hibernate, sem particionamento
+    private final ParticoesSnapshots particoesSnapshots = mock(ParticoesSnapshots.class);
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(Boolean.TRUE.equals(jdbcTemplate.execute(
+                (ConnectionCallback<Boolean>) conexao -> conexao.isWrapperFor(PGConnection.class))),
+                "Benchmark de COPY requer PostgreSQL");
+
+        // O perfil de teste gera o schema pelo Hibernate; a tabela de carga vem da migração
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V2__carga_snapshots_carteiras.sql")).execute(dataSource);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000})
+    void deveCompararVazaoDoCopyComSaveAll(int quantidade) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        GravadorSnapshots jpa = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, new SimpleMeterRegistry(), false);
+        GravadorSnapshots copy = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, new SimpleMeterRegistry(), true);
+
+        long duracaoJpa = medir(quantidade, transactionTemplate, jpa);
+        long duracaoCopy = medir(quantidade, transactionTemplate, copy);
+
+        log.info("Gravacao de {} snapshots: saveAll {} linhas/s, COPY {} linhas/s",
+                quantidade, linhasPorSegundo(quantidade, duracaoJpa), linhasPorSegundo(quantidade, duracaoCopy));
+
+        assertEquals(2L * quantidade, snapshotCarteiraRepository.count());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM snapshots_carteiras_carga", Integer.class));
+
+        jdbcTemplate.update("DELETE FROM snapshots_carteiras");
+    }
+
+    private long medir(int quantidade, TransactionTemplate transactionTemplate, GravadorSnapshots gravador) {
+        long inicio = System.nanoTime();
+
+        for (int i = 0; i < quantidade; i += TAMANHO_LOTE) {
+            List<SnapshotCarteira> lote = criarSnapshots(i, Math.min(i + TAMANHO_LOTE, quantidade));
+            transactionTemplate.executeWithoutResult(status -> gravador.gravar(lote));
+        }
+
+        return System.nanoTime() - inicio;
+    }
+
+    private long linhasPorSegundo(int quantidade, long duracaoNanos) {
+        return quantidade * TimeUnit.SECONDS.toNanos(1) / Math.max(duracaoNanos, 1);
+    }
+
+    private List<SnapshotCarteira> criarSnapshots(int inicio, int fim) {
+        List<SnapshotCarteira> snapshots = new ArrayList<>(fim - inicio);
+
+        for (int i = inicio; i < fim; i++) {
+            SnapshotCarteira snapshot = new SnapshotCarteira();
+            snapshot.setClienteId((long) i + 1);
+            snapshot.setDataSnapshot(DATA);
+            snapshot.setValorCarteira(new BigDecimal("1050.00"));
+            snapshot.setValorInvestido(new BigDecimal("1000.00"));
+            snapshot.setRentabilidade(new BigDecimal("5.00"));
+            snapshots.add(snapshot);
+        }
+
+        return snapshots;
+    }
+}
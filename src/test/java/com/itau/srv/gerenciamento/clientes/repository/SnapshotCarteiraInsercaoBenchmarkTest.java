@@ -0,0 +1,119 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import com.itau.srv.gerenciamento.benchmark.SnapshotCarteiraIdentidade;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara a gravação de snapshots com id IDENTITY (um INSERT por linha) e com a sequência em pool
+ * (inserts em lote). Executar com {@code mvn test -Pbenchmark}; para medir no PostgreSQL, informar
+ * {@code -Dspring.datasource.url=jdbc:postgresql://...?reWriteBatchedInserts=true} e as credenciais.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Slf4j
+class SnapshotCarteiraInsercaoBenchmarkTest {
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final LocalDate DATA = LocalDate.of(2026, 2, 27);
+
+    @Autowired
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Registra a entidade de referência só no contexto do benchmark, junto das entidades da aplicação
+    @TestConfiguration
+    @EntityScan(basePackageClasses = {SnapshotCarteira.class, SnapshotCarteiraIdentidade.class})
+    static class EntidadesBenchmark {
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000})
+    void deveCompararVazaoDeInsercao(int quantidade) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long antes = medir(quantidade, inicio -> transactionTemplate.executeWithoutResult(status -> {
+            for (int i = inicio; i < Math.min(inicio + TAMANHO_LOTE, quantidade); i++) {
+                entityManager.persist(criarSnapshotIdentidade(i));
+            }
+        }));
+        long depois = medir(quantidade, inicio -> transactionTemplate.executeWithoutResult(status ->
+                snapshotCarteiraRepository.saveAll(criarSnapshots(inicio, Math.min(inicio + TAMANHO_LOTE, quantidade)))));
+
+        log.info("Insercao de {} snapshots: IDENTITY {} linhas/s, sequencia em lote {} linhas/s",
+                quantidade, linhasPorSegundo(quantidade, antes), linhasPorSegundo(quantidade, depois));
+
+        assertEquals(quantidade, snapshotCarteiraRepository.count());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM SnapshotCarteiraIdentidade").executeUpdate();
+            entityManager.createQuery("DELETE FROM SnapshotCarteira").executeUpdate();
+        });
+    }
+
+    private long medir(int quantidade, IntConsumer gravarLote) {
+        long inicio = System.nanoTime();
+
+        for (int i = 0; i < quantidade; i += TAMANHO_LOTE) {
+            gravarLote.accept(i);
+        }
+
+        return System.nanoTime() - inicio;
+    }
+
+    private long linhasPorSegundo(int quantidade, long duracaoNanos) {
+        return quantidade * TimeUnit.SECONDS.toNanos(1) / Math.max(duracaoNanos, 1);
+    }
+
+    private List<SnapshotCarteira> criarSnapshots(int inicio, int fim) {
+        List<SnapshotCarteira> snapshots = new ArrayList<>(fim - inicio);
+
+        for (int i = inicio; i < fim; i++) {
+            SnapshotCarteira snapshot = new SnapshotCarteira();
+            snapshot.setClienteId((long) i + 1);
+            snapshot.setDataSnapshot(DATA);
+            snapshot.setValorCarteira(new BigDecimal("1050.00"));
+            snapshot.setValorInvestido(new BigDecimal("1000.00"));
+            snapshot.setRentabilidade(new BigDecimal("5.00"));
+            snapshots.add(snapshot);
+        }
+
+        return snapshots;
+    }
+
+    private SnapshotCarteiraIdentidade criarSnapshotIdentidade(int indice) {
+        SnapshotCarteiraIdentidade snapshot = new SnapshotCarteiraIdentidade();
+        snapshot.setClienteId((long) indice + 1);
+        snapshot.setDataSnapshot(DATA);
+        snapshot.setValorCarteira(new BigDecimal("1050.00"));
+        snapshot.setValorInvestido(new BigDecimal("1000.00"));
+        snapshot.setRentabilidade(new BigDecimal("5.00"));
+        return snapshot;
+    }
+}
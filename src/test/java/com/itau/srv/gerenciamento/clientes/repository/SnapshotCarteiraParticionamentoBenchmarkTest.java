@@ -0,0 +1,127 @@
+package com.itau.srv.gerenciamento.clientes.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Mede a leitura da rentabilidade ({@link SnapshotCarteiraRepository#findAllByClienteId}) enquanto
+ * {@code snapshots_carteiras} cresce até {@code benchmark.snapshots.linhas} linhas sintéticas (padrão 50 milhões).
+ * Cada cliente tem sempre {@link #DIAS_POR_CLIENTE} snapshots; o que cresce é a quantidade de clientes, então a
+ * latência deve se manter estável. Só roda no PostgreSQL, como {@link SnapshotCarteiraCargaCopyBenchmarkTest}:
+ * {@code mvn test -Pbenchmark -Dtest=SnapshotCarteiraParticionamentoBenchmarkTest -Dbenchmark.snapshots.linhas=50000000 ...}
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Slf4j
+class SnapshotCarteiraParticionamentoBenchmarkTest {
+
+    private static final int DIAS_POR_CLIENTE = 250;
+    private static final int LEITURAS_POR_ETAPA = 2000;
+    private static final LocalDate PRIMEIRA_DATA = LocalDate.of(2025, 1, 1);
+    private static final String GERAR_SNAPSHOTS = "INSERT INTO snapshots_carteiras " +
+            "(id, cliente_id, data_snapshot, valor_carteira, valor_investido, rentabilidade) " +
+            "SELECT c * " + DIAS_POR_CLIENTE + " + d, c, ?::date + d, 1000 + c % 997, 1000, (c % 20) - 10 " +
+            "FROM generate_series(?::bigint, ?::bigint) c, generate_series(0, " + (DIAS_POR_CLIENTE - 1) + ") d";
+
+    @Autowired
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(Boolean.TRUE.equals(jdbcTemplate.execute(
+                (ConnectionCallback<Boolean>) conexao -> conexao.isWrapperFor(PGConnection.class))),
+                "Benchmark de particionamento requer PostgreSQL");
+
+        // O perfil de teste gera a tabela pelo Hibernate; a migração a converte na versão particionada
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__particionamento_snapshots_carteiras.sql")).execute(dataSource);
+        for (LocalDate mes = PRIMEIRA_DATA; mes.isBefore(PRIMEIRA_DATA.plusDays(DIAS_POR_CLIENTE)); mes = mes.plusMonths(1)) {
+            jdbcTemplate.queryForList("SELECT criar_particao_snapshots_carteiras(?)", mes);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE snapshots_carteiras");
+    }
+
+    @Test
+    void deveManterLatenciaDaRentabilidadeEstavelComCrescimentoDaTabela() {
+        long linhas = Long.getLong("benchmark.snapshots.linhas", 50_000_000L);
+        long totalClientes = linhas / DIAS_POR_CLIENTE;
+        long[] etapas = {totalClientes / 50, totalClientes / 5, totalClientes};
+
+        long clientesCarregados = 0;
+        long[] p99PorEtapa = new long[etapas.length];
+
+        for (int etapa = 0; etapa < etapas.length; etapa++) {
+            jdbcTemplate.update(GERAR_SNAPSHOTS, PRIMEIRA_DATA, clientesCarregados + 1, etapas[etapa]);
+            clientesCarregados = etapas[etapa];
+            // Atualiza o mapa de visibilidade para que a leitura use index-only scan
+            jdbcTemplate.execute("VACUUM ANALYZE snapshots_carteiras");
+
+            long[] latencias = medirLeituras(clientesCarregados);
+            p99PorEtapa[etapa] = percentil(latencias, 99);
+
+            log.info("{} linhas: p50 {} us, p99 {} us", clientesCarregados * DIAS_POR_CLIENTE,
+                    TimeUnit.NANOSECONDS.toMicros(percentil(latencias, 50)), TimeUnit.NANOSECONDS.toMicros(p99PorEtapa[etapa]));
+        }
+
+        String plano = String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT id, cliente_id, data_snapshot, valor_carteira, " +
+                "valor_investido, rentabilidade FROM snapshots_carteiras WHERE cliente_id = 1 ORDER BY data_snapshot DESC", String.class));
+        log.info("Plano da leitura da rentabilidade:\n{}", plano);
+
+        assertTrue(plano.contains("Index Only Scan"), plano);
+        assertTrue(p99PorEtapa[etapas.length - 1] <= 3 * Math.max(p99PorEtapa[0], TimeUnit.MILLISECONDS.toNanos(1)),
+                () -> "p99 cresceu com o volume: " + Arrays.toString(p99PorEtapa));
+    }
+
+    private long[] medirLeituras(long clientes) {
+        Random random = new Random(clientes);
+        long[] latencias = new long[LEITURAS_POR_ETAPA];
+
+        for (int i = 0; i < LEITURAS_POR_ETAPA; i++) {
+            long clienteId = 1 + (long) (random.nextDouble() * clientes);
+            long inicio = System.nanoTime();
+            List<?> snapshots = snapshotCarteiraRepository.findAllByClienteId(clienteId);
+            latencias[i] = System.nanoTime() - inicio;
+
+            assertEquals(DIAS_POR_CLIENTE, snapshots.size());
+        }
+
+        return latencias;
+    }
+
+    private long percentil(long[] latencias, int percentil) {
+        long[] ordenadas = latencias.clone();
+        Arrays.sort(ordenadas);
+        return ordenadas[Math.min(ordenadas.length - 1, ordenadas.length * percentil / 100)];
+    }
+}
@@ -0,0 +1,194 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.exception.ExecucaoSnapshotConflitoException;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AgendadorSnapshotsTest {
+
+    // Sexta-feira, 23h: o disparo das 22h do dia já passou
+    private static final LocalDateTime AGORA = LocalDateTime.of(2026, 3, 6, 23, 0);
+    private static final String CRON = "0 0 22 * * MON-FRI";
+
+    @Mock
+    private SnapshotCarteiraService snapshotCarteiraService;
+
+    @Mock
+    private ExecucaoSnapshotRepository execucaoSnapshotRepository;
+
+    @Mock
+    private TravaConsultiva travaConsultiva;
+
+    @Mock
+    private ParticoesSnapshots particoesSnapshots;
+
+    @Mock
+    private ResumosRentabilidade resumosRentabilidade;
+
+    @Mock
+    private SeriesCarteiraMemoria seriesCarteiraMemoria;
+
+    @Mock
+    private ExecutorService coordenadorExecutor;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AgendadorSnapshots agendadorSnapshots;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(AGORA.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        agendadorSnapshots = new AgendadorSnapshots(snapshotCarteiraService, execucaoSnapshotRepository, travaConsultiva, particoesSnapshots,
+                resumosRentabilidade, seriesCarteiraMemoria, coordenadorExecutor, meterRegistry, clock, CRON, 7);
+    }
+
+    @Test
+    void deveListarDiasDoCronSemExecucaoConcluida() {
+        // Arrange
+        when(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(StatusExecucaoSnapshot.CONCLUIDA,
+                LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 6)))
+                .thenReturn(List.of(LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3)));
+
+        // Act
+        List<LocalDate> pendentes = agendadorSnapshots.datasPendentes();
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 6)), pendentes);
+    }
+
+    @Test
+    void deveIgnorarDisparoDoDiaQueAindaNaoAconteceu() {
+        // Arrange
+        Clock antesDoDisparo = Clock.fixed(AGORA.minusHours(2).atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        agendadorSnapshots = new AgendadorSnapshots(snapshotCarteiraService, execucaoSnapshotRepository, travaConsultiva, particoesSnapshots,
+                resumosRentabilidade, seriesCarteiraMemoria, coordenadorExecutor, meterRegistry, antesDoDisparo, CRON, 1);
+        when(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(any(), any(), any())).thenReturn(Collections.emptyList());
+
+        // Act
+        List<LocalDate> pendentes = agendadorSnapshots.datasPendentes();
+
+        // Assert
+        assertEquals(List.of(LocalDate.of(2026, 3, 5)), pendentes);
+    }
+
+    @Test
+    void deveGerarDatasPendentesDaMaisAntigaParaAMaisRecenteSobTrava() {
+        // Arrange
+        executarTarefaNaTrava();
+        when(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(any(), any(), any()))
+                .thenReturn(List.of(LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3), LocalDate.of(2026, 3, 4)));
+        when(snapshotCarteiraService.gerarSnapshots(any(LocalDate.class)))
+                .thenAnswer(invocation -> criarExecucao(StatusExecucaoSnapshot.CONCLUIDA));
+
+        // Act
+        agendadorSnapshots.gerarPendentes();
+
+        // Assert
+        InOrder ordem = inOrder(resumosRentabilidade, snapshotCarteiraService);
+        ordem.verify(resumosRentabilidade).recalcularPendentes();
+        ordem.verify(snapshotCarteiraService).gerarSnapshots(LocalDate.of(2026, 3, 5));
+        ordem.verify(snapshotCarteiraService).gerarSnapshots(LocalDate.of(2026, 3, 6));
+        verify(travaConsultiva).executar(eq(AgendadorSnapshots.CHAVE_TRAVA), any());
+        verify(particoesSnapshots).removerExpiradas();
+        verify(resumosRentabilidade, never()).recalcularTodos();
+        verify(seriesCarteiraMemoria, never()).limpar();
+        assertEquals(2.0, meterRegistry.get("snapshots.agendamento").tag("resultado", "concluida").counter().count());
+    }
+
+    @Test
+    void deveSeguirParaProximaDataQuandoUmaJaEstaEmAndamento() {
+        // Arrange
+        executarTarefaNaTrava();
+        when(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(any(), any(), any()))
+                .thenReturn(List.of(LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3), LocalDate.of(2026, 3, 4)));
+        when(snapshotCarteiraService.gerarSnapshots(LocalDate.of(2026, 3, 5)))
+                .thenThrow(new ExecucaoSnapshotConflitoException("GERACAO_SNAPSHOTS_EM_ANDAMENTO"));
+        when(snapshotCarteiraService.gerarSnapshots(LocalDate.of(2026, 3, 6)))
+                .thenReturn(criarExecucao(StatusExecucaoSnapshot.INCOMPLETA));
+
+        // Act
+        agendadorSnapshots.gerarPendentes();
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("snapshots.agendamento").tag("resultado", "em-andamento").counter().count());
+        assertEquals(1.0, meterRegistry.get("snapshots.agendamento").tag("resultado", "incompleta").counter().count());
+    }
+
+    @Test
+    void deveRecalcularResumosQuandoARetencaoRemoverParticoes() {
+        // Arrange
+        executarTarefaNaTrava();
+        when(execucaoSnapshotRepository.findDatasSnapshotPorStatusEntre(any(), any(), any()))
+                .thenReturn(List.of(LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3),
+                        LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 5), LocalDate.of(2026, 3, 6)));
+        when(particoesSnapshots.removerExpiradas()).thenReturn(2);
+
+        // Act
+        agendadorSnapshots.gerarPendentes();
+
+        // Assert
+        InOrder ordem = inOrder(particoesSnapshots, resumosRentabilidade, seriesCarteiraMemoria);
+        ordem.verify(particoesSnapshots).removerExpiradas();
+        ordem.verify(resumosRentabilidade).recalcularTodos();
+        ordem.verify(seriesCarteiraMemoria).limpar();
+        verifyNoInteractions(snapshotCarteiraService);
+    }
+
+    @Test
+    void deveNaoGerarQuandoOutraReplicaDetemATrava() {
+        // Arrange
+        when(travaConsultiva.executar(eq(AgendadorSnapshots.CHAVE_TRAVA), any())).thenReturn(false);
+
+        // Act
+        agendadorSnapshots.gerarPendentes();
+
+        // Assert
+        verifyNoInteractions(snapshotCarteiraService, execucaoSnapshotRepository, particoesSnapshots, resumosRentabilidade);
+        assertEquals(1.0, meterRegistry.get("snapshots.agendamento").tag("resultado", "sem-trava").counter().count());
+    }
+
+    @Test
+    void deveRecuperarDatasPerdidasEmSegundoPlanoAoIniciar() {
+        // Act
+        agendadorSnapshots.recuperarAoIniciar();
+
+        // Assert
+        verify(coordenadorExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(travaConsultiva);
+    }
+
+    private void executarTarefaNaTrava() {
+        when(travaConsultiva.executar(eq(AgendadorSnapshots.CHAVE_TRAVA), any())).thenAnswer(invocation -> {
+            Runnable tarefa = invocation.getArgument(1);
+            tarefa.run();
+            return true;
+        });
+    }
+
+    private ExecucaoSnapshot criarExecucao(StatusExecucaoSnapshot status) {
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setStatus(status);
+        return execucao;
+    }
+}
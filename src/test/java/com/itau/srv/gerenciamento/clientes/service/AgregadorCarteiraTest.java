@@ -0,0 +1,198 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgregadorCarteiraTest {
+
+    private static final int CARTEIRAS_ALEATORIAS = 2000;
+
+    private AgregadorCarteira agregadorCarteira;
+
+    @BeforeEach
+    void setUp() {
+        agregadorCarteira = new AgregadorCarteira();
+    }
+
+    @Test
+    void deveAgregarCarteiraComValoresConhecidos() {
+        // Arrange
+        List<CustodiaResponseDTO> custodias = List.of(
+                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA"),
+                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA")
+        );
+
+        // Act
+        AgregadorCarteira.Agregacao agregacao = agregadorCarteira.agregar(custodias);
+
+        // Assert
+        assertEquals(new BigDecimal("6750.00"), agregacao.valorAtualCarteira());
+        assertEquals(new BigDecimal("750.00"), agregacao.plTotal());
+        assertEquals(new BigDecimal("500.00"), agregacao.ativos().get(0).pl());
+        assertEquals(new BigDecimal("0.67"), agregacao.ativos().get(0).plPercentual());
+        assertEquals(new BigDecimal("0.52"), agregacao.ativos().get(0).composicaoCarteira());
+        assertEquals(new BigDecimal("250.00"), agregacao.ativos().get(1).pl());
+        assertEquals(new BigDecimal("0.33"), agregacao.ativos().get(1).plPercentual());
+        assertEquals(new BigDecimal("0.48"), agregacao.ativos().get(1).composicaoCarteira());
+    }
+
+    @Test
+    void deveRetornarZeroQuandoNaoHaCustodias() {
+        // Act
+        AgregadorCarteira.Agregacao agregacao = agregadorCarteira.agregar(Collections.emptyList());
+
+        // Assert
+        assertEquals(BigDecimal.ZERO, agregacao.valorAtualCarteira());
+        assertEquals(BigDecimal.ZERO, agregacao.plTotal());
+        assertTrue(agregacao.ativos().isEmpty());
+        assertEquals(BigDecimal.ZERO, agregadorCarteira.calcularValorCarteira(Collections.emptyList()));
+    }
+
+    @Test
+    void deveRetornarRentabilidadeZeroQuandoValorInvestidoZero() {
+        assertEquals(BigDecimal.ZERO, agregadorCarteira.calcularRentabilidade(new BigDecimal("100.00"), new BigDecimal("0.00")));
+    }
+
+    @Test
+    void deveTruncarRentabilidadeComoCalculoOriginal() {
+        // (3500 - 3000) / 3000 * 100 = 16.666... -> 16.66
+        assertEquals(new BigDecimal("16.66"), agregadorCarteira.calcularRentabilidade(new BigDecimal("3500.00"), new BigDecimal("3000.00")));
+        // (2000 - 3000) / 3000 * 100 = -33.333... -> -33.33
+        assertEquals(new BigDecimal("-33.33"), agregadorCarteira.calcularRentabilidade(new BigDecimal("2000.00"), new BigDecimal("3000.00")));
+    }
+
+    @Test
+    void deveSerIdenticoAoCalculoEmBigDecimalParaCarteirasAleatorias() {
+        Random random = new Random(20260305L);
+
+        for (int execucao = 0; execucao < CARTEIRAS_ALEATORIAS; execucao++) {
+            List<CustodiaResponseDTO> custodias = gerarCustodias(random);
+
+            AgregadorCarteira.Agregacao esperado = agregarComoReferencia(custodias);
+            AgregadorCarteira.Agregacao obtido = agregadorCarteira.agregar(custodias);
+
+            assertAgregacoesIdenticas(esperado, obtido, custodias);
+            assertEquals(esperado.valorAtualCarteira(), agregadorCarteira.calcularValorCarteira(custodias));
+        }
+    }
+
+    @Test
+    void deveSerIdenticoAoCalculoEmBigDecimalParaRentabilidadesAleatorias() {
+        Random random = new Random(7L);
+
+        for (int execucao = 0; execucao < CARTEIRAS_ALEATORIAS; execucao++) {
+            BigDecimal valorAtual = gerarValor(random, random.nextInt(5)).subtract(gerarValor(random, 2));
+            BigDecimal valorInvestido = gerarValor(random, random.nextInt(5)).subtract(gerarValor(random, 1));
+
+            assertEquals(rentabilidadeComoReferencia(valorAtual, valorInvestido),
+                    agregadorCarteira.calcularRentabilidade(valorAtual, valorInvestido),
+                    () -> "Divergência para atual=" + valorAtual + " investido=" + valorInvestido);
+        }
+    }
+
+    @Test
+    void deveUsarBigDecimalQuandoValoresNaoCabemEmPontoFixo() {
+        // Arrange
+        List<CustodiaResponseDTO> custodias = List.of(
+                new CustodiaResponseDTO("PETR4", Integer.MAX_VALUE, new BigDecimal("123456789012345.123456"), new BigDecimal("987654321098765.654321"), "COMPRA"),
+                new CustodiaResponseDTO("VALE3", 10, new BigDecimal("1E+2"), new BigDecimal("0.000000000001"), "COMPRA")
+        );
+
+        // Act
+        AgregadorCarteira.Agregacao obtido = agregadorCarteira.agregar(custodias);
+
+        // Assert
+        assertAgregacoesIdenticas(agregarComoReferencia(custodias), obtido, custodias);
+        assertEquals(agregarComoReferencia(custodias).valorAtualCarteira(), agregadorCarteira.calcularValorCarteira(custodias));
+    }
+
+    private void assertAgregacoesIdenticas(AgregadorCarteira.Agregacao esperado, AgregadorCarteira.Agregacao obtido,
+                                           List<CustodiaResponseDTO> custodias) {
+        assertEquals(esperado.valorAtualCarteira(), obtido.valorAtualCarteira(), () -> "valorAtualCarteira para " + custodias);
+        assertEquals(esperado.plTotal(), obtido.plTotal(), () -> "plTotal para " + custodias);
+        assertEquals(esperado.ativos().size(), obtido.ativos().size());
+
+        for (int i = 0; i < esperado.ativos().size(); i++) {
+            AtivoResponseDTO ativoEsperado = esperado.ativos().get(i);
+            AtivoResponseDTO ativoObtido = obtido.ativos().get(i);
+
+            assertEquals(ativoEsperado, ativoObtido, () -> "Ativo divergente para " + custodias);
+        }
+    }
+
+    private List<CustodiaResponseDTO> gerarCustodias(Random random) {
+        int quantidadeAtivos = random.nextInt(8);
+        List<CustodiaResponseDTO> custodias = new ArrayList<>();
+
+        for (int i = 0; i < quantidadeAtivos; i++) {
+            BigDecimal precoMedio = gerarValor(random, random.nextInt(5));
+            BigDecimal valorAtual = random.nextInt(10) == 0 ? precoMedio : gerarValor(random, random.nextInt(5));
+            int quantidade = random.nextInt(10) == 0 ? 0 : random.nextInt(100_000);
+
+            custodias.add(new CustodiaResponseDTO("ATIVO" + i, quantidade, precoMedio, valorAtual, "COMPRA"));
+        }
+
+        return custodias;
+    }
+
+    private BigDecimal gerarValor(Random random, int escala) {
+        return BigDecimal.valueOf(random.nextInt(50_000_000), escala);
+    }
+
+    // Cálculo original do CarteiraService, mantido como referência
+    private AgregadorCarteira.Agregacao agregarComoReferencia(List<CustodiaResponseDTO> custodiasCliente) {
+        BigDecimal valorAtualCarteira = custodiasCliente.isEmpty() ? BigDecimal.ZERO
+                : custodiasCliente.stream()
+                .map(c -> c.valorAtual().multiply(BigDecimal.valueOf(c.quantidade())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal plTotal = custodiasCliente.isEmpty() ? BigDecimal.ZERO
+                : custodiasCliente.stream()
+                .map(c -> {
+                    BigDecimal diferenca = c.valorAtual().subtract(c.precoMedio());
+                    return diferenca.multiply(BigDecimal.valueOf(c.quantidade()));
+                })
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        List<AtivoResponseDTO> ativos = new ArrayList<>();
+
+        for (CustodiaResponseDTO custodia : custodiasCliente) {
+            BigDecimal valorTotalAtivo = custodia.valorAtual().multiply(BigDecimal.valueOf(custodia.quantidade()));
+
+            BigDecimal pl = custodia.valorAtual().subtract(custodia.precoMedio()).multiply(BigDecimal.valueOf(custodia.quantidade()));
+            BigDecimal plPercentual = plTotal.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : pl.divide(plTotal, 2, RoundingMode.HALF_UP);
+            BigDecimal composicaoCarteira = valorAtualCarteira.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO : valorTotalAtivo.divide(valorAtualCarteira, 2, RoundingMode.HALF_UP);
+
+            ativos.add(new AtivoResponseDTO(
+                    custodia.ticker(),
+                    custodia.quantidade(),
+                    custodia.precoMedio(),
+                    custodia.valorAtual(),
+                    pl,
+                    plPercentual,
+                    composicaoCarteira
+            ));
+        }
+
+        return new AgregadorCarteira.Agregacao(valorAtualCarteira, plTotal, ativos);
+    }
+
+    private BigDecimal rentabilidadeComoReferencia(BigDecimal valorAtualCarteira, BigDecimal valorTotalInvestido) {
+        BigDecimal numerador = valorAtualCarteira.subtract(valorTotalInvestido);
+
+        return valorTotalInvestido.compareTo(BigDecimal.ZERO) == 0
+                ? BigDecimal.ZERO
+                : numerador.divide(valorTotalInvestido, 4, RoundingMode.DOWN).multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.DOWN);
+    }
+}
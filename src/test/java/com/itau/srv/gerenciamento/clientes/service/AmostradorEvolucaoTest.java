@@ -0,0 +1,135 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmostradorEvolucaoTest {
+
+    private static final LocalDate ULTIMA_DATA = LocalDate.of(2026, 3, 5);
+
+    private final AmostradorEvolucao amostradorEvolucao = new AmostradorEvolucao();
+
+    @Test
+    void deveManterTodosOsPontosNaResolucaoDiaria() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(10);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.DIARIA, 10, 3);
+
+        // Assert
+        assertEquals(serie, resultado);
+    }
+
+    @Test
+    void deveManterUltimoSnapshotDeCadaSemana() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(21);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.SEMANAL, 0, 0);
+
+        // Assert
+        // 05/03/2026 é quinta-feira: a semana corrente e as três anteriores
+        assertEquals(List.of(ULTIMA_DATA, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 2, 22), LocalDate.of(2026, 2, 15)),
+                resultado.stream().map(EvolucaoCarteiraResponseDTO::data).toList());
+        assertTrue(resultado.stream().skip(1).allMatch(evolucao -> evolucao.data().getDayOfWeek() == DayOfWeek.SUNDAY));
+    }
+
+    @Test
+    void deveManterUltimoSnapshotDeCadaMes() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(70);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.MENSAL, 0, 0);
+
+        // Assert
+        assertEquals(List.of(ULTIMA_DATA, LocalDate.of(2026, 2, 28), LocalDate.of(2026, 1, 31), LocalDate.of(2025, 12, 31)),
+                resultado.stream().map(EvolucaoCarteiraResponseDTO::data).toList());
+    }
+
+    @Test
+    void deveManterSerieInteiraNoLttbQuandoCabeNosPontos() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(5);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.LTTB, 5, 5);
+
+        // Assert
+        assertEquals(serie, resultado);
+    }
+
+    @Test
+    void deveReduzirPorLttbMantendoExtremosEPicos() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = IntStream.range(0, 30)
+                .mapToObj(i -> criarEvolucao(ULTIMA_DATA.minusDays(i), i == 14 ? 5000 : 1000))
+                .toList();
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.LTTB, 30, 5);
+
+        // Assert
+        assertEquals(5, resultado.size());
+        assertSame(serie.get(0), resultado.get(0));
+        assertSame(serie.get(29), resultado.get(4));
+        assertTrue(resultado.contains(serie.get(14)));
+        // A ordem da série (mais recente primeiro) é preservada
+        for (int i = 1; i < resultado.size(); i++) {
+            assertTrue(resultado.get(i).data().isBefore(resultado.get(i - 1).data()));
+        }
+    }
+
+    @Test
+    void deveManterUltimoPontoQuandoSerieCresceuDepoisDaContagem() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(40);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> resultado = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.LTTB, 30, 5);
+
+        // Assert
+        assertEquals(5, resultado.size());
+        assertSame(serie.get(39), resultado.get(4));
+    }
+
+    @Test
+    void deveReduzirMaisDeDezVezesHistoricoDeCincoAnos() {
+        // Arrange
+        int dias = 5 * 365 + 1;
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerie(dias);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> mensal = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.MENSAL, dias, 0);
+        List<EvolucaoCarteiraResponseDTO> semanal = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.SEMANAL, dias, 0);
+        List<EvolucaoCarteiraResponseDTO> lttb = amostradorEvolucao.amostrar(serie.iterator(), ResolucaoEvolucao.LTTB, dias,
+                RentabilidadeService.PONTOS_PADRAO_LTTB);
+
+        // Assert
+        assertEquals(61, mensal.size());
+        assertTrue(semanal.size() * 5 < dias);
+        assertEquals(RentabilidadeService.PONTOS_PADRAO_LTTB, lttb.size());
+        assertTrue(lttb.size() * 10 < dias);
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> criarSerie(int dias) {
+        return IntStream.range(0, dias)
+                .mapToObj(i -> criarEvolucao(ULTIMA_DATA.minusDays(i), 1000 + (i % 11) * 10))
+                .toList();
+    }
+
+    private EvolucaoCarteiraResponseDTO criarEvolucao(LocalDate data, long valorCarteira) {
+        return new EvolucaoCarteiraResponseDTO(data, BigDecimal.valueOf(valorCarteira), new BigDecimal("1000.00"), BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,142 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresPorDataResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheValoresTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2026, 3, 5);
+
+    @Mock
+    private ValoresFeignClient alvo;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheValores cacheValores;
+    private ValoresFeignClient valoresFeignClient;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(HOJE.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        cacheValores = new CacheValores(meterRegistry, clock, 2, 100, 60000L);
+        valoresFeignClient = cacheValores.envolver(alvo);
+    }
+
+    @Test
+    void deveConsultarValoresDeDataPassadaApenasUmaVez() {
+        // Arrange
+        LocalDate ontem = HOJE.minusDays(1);
+        ValoresPorDataResponseDTO valores = criarValores(ontem);
+        when(alvo.obterValoresPorClienteEData(1L, ontem)).thenReturn(valores);
+
+        // Act
+        ValoresPorDataResponseDTO primeira = valoresFeignClient.obterValoresPorClienteEData(1L, ontem);
+        ValoresPorDataResponseDTO segunda = valoresFeignClient.obterValoresPorClienteEData(1L, ontem);
+
+        // Assert
+        assertSame(valores, primeira);
+        assertSame(valores, segunda);
+        verify(alvo, times(1)).obterValoresPorClienteEData(1L, ontem);
+        assertEquals(0.5, meterRegistry.get("valores.cache.taxa-acerto").tag("cache", "valores-por-data").gauge().value());
+    }
+
+    @Test
+    void deveSempreConsultarValoresDaDataCorrente() {
+        // Arrange
+        when(alvo.obterValoresPorClienteEData(1L, HOJE)).thenReturn(criarValores(HOJE));
+
+        // Act
+        valoresFeignClient.obterValoresPorClienteEData(1L, HOJE);
+        valoresFeignClient.obterValoresPorClienteEData(1L, HOJE);
+
+        // Assert
+        verify(alvo, times(2)).obterValoresPorClienteEData(1L, HOJE);
+    }
+
+    @Test
+    void deveManterValoresSeparadosPorClienteEData() {
+        // Arrange
+        LocalDate ontem = HOJE.minusDays(1);
+        LocalDate anteontem = HOJE.minusDays(2);
+        when(alvo.obterValoresPorClienteEData(anyLong(), any())).thenAnswer(invocation -> criarValores(invocation.getArgument(1)));
+
+        // Act
+        valoresFeignClient.obterValoresPorClienteEData(1L, ontem);
+        ValoresPorDataResponseDTO outraData = valoresFeignClient.obterValoresPorClienteEData(1L, anteontem);
+        valoresFeignClient.obterValoresPorClienteEData(2L, ontem);
+
+        // Assert
+        assertEquals(anteontem, outraData.dataEvento());
+        verify(alvo, times(3)).obterValoresPorClienteEData(anyLong(), any());
+    }
+
+    @Test
+    void deveGuardarHistoricoDeAportesAteNovoAporte() {
+        // Arrange
+        List<HistoricoAportesResponseDTO> historico = List.of(
+                new HistoricoAportesResponseDTO(HOJE.minusMonths(1), new BigDecimal("1000.00"), "1/12"));
+        when(alvo.consultarHistoricoAportes(1L)).thenReturn(historico);
+
+        // Act
+        valoresFeignClient.consultarHistoricoAportes(1L);
+        valoresFeignClient.consultarHistoricoAportes(1L);
+        cacheValores.invalidarHistoricoAportes(1L, "novo-aporte");
+        valoresFeignClient.consultarHistoricoAportes(1L);
+
+        // Assert
+        verify(alvo, times(2)).consultarHistoricoAportes(1L);
+        assertEquals(1.0, meterRegistry.get("valores.cache.invalidacoes").tag("motivo", "novo-aporte").counter().count());
+    }
+
+    @Test
+    void deveRepassarValoresAtuaisSemCache() {
+        // Arrange
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
+        when(alvo.obterValoresPorCliente(1L)).thenReturn(valores);
+
+        // Act
+        valoresFeignClient.obterValoresPorCliente(1L);
+        valoresFeignClient.obterValoresPorCliente(1L);
+
+        // Assert
+        verify(alvo, times(2)).obterValoresPorCliente(1L);
+    }
+
+    @Test
+    void naoDeveGuardarFalhaDoServico() {
+        // Arrange
+        LocalDate ontem = HOJE.minusDays(1);
+        when(alvo.obterValoresPorClienteEData(1L, ontem))
+                .thenThrow(new IllegalStateException("SERVICO_VALORES_INDISPONIVEL"))
+                .thenReturn(criarValores(ontem));
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> valoresFeignClient.obterValoresPorClienteEData(1L, ontem));
+        ValoresPorDataResponseDTO valores = valoresFeignClient.obterValoresPorClienteEData(1L, ontem);
+
+        // Assert
+        assertEquals(ontem, valores.dataEvento());
+    }
+
+    private ValoresPorDataResponseDTO criarValores(LocalDate data) {
+        return new ValoresPorDataResponseDTO(data, new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO));
+    }
+}
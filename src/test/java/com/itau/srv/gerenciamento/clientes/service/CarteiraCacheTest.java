@@ -0,0 +1,135 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.event.ClienteAlteradoEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarteiraCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CarteiraCache carteiraCache;
+    private AtomicInteger carregamentos;
+    private Function<Long, CarteiraResponseDTO> carregador;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        carteiraCache = new CarteiraCache(meterRegistry, true, 100, 60000L);
+        carregamentos = new AtomicInteger();
+        carregador = clienteId -> {
+            carregamentos.incrementAndGet();
+            return criarCarteira(clienteId);
+        };
+    }
+
+    @Test
+    void deveCarregarApenasNaPrimeiraConsulta() {
+        // Act
+        CarteiraResponseDTO primeira = carteiraCache.obter(1L, carregador);
+        CarteiraResponseDTO segunda = carteiraCache.obter(1L, carregador);
+
+        // Assert
+        assertSame(primeira, segunda);
+        assertEquals(1, carregamentos.get());
+    }
+
+    @Test
+    void deveManterEntradasSeparadasPorCliente() {
+        // Act
+        carteiraCache.obter(1L, carregador);
+        CarteiraResponseDTO outroCliente = carteiraCache.obter(2L, carregador);
+
+        // Assert
+        assertEquals(2L, outroCliente.clienteId());
+        assertEquals(2, carregamentos.get());
+    }
+
+    @Test
+    void deveRecarregarAposInvalidacaoExplicita() {
+        // Arrange
+        carteiraCache.obter(1L, carregador);
+
+        // Act
+        carteiraCache.invalidar(1L, "manual");
+        carteiraCache.obter(1L, carregador);
+
+        // Assert
+        assertEquals(2, carregamentos.get());
+        assertEquals(1.0, meterRegistry.get("carteira.cache.invalidacoes").tag("motivo", "manual").counter().count());
+    }
+
+    @Test
+    void deveInvalidarAoReceberEventoDeClienteAlterado() {
+        // Arrange
+        carteiraCache.obter(1L, carregador);
+
+        // Act
+        carteiraCache.aoAlterarCliente(new ClienteAlteradoEvent(1L));
+        carteiraCache.obter(1L, carregador);
+
+        // Assert
+        assertEquals(2, carregamentos.get());
+        assertEquals(1.0, meterRegistry.get("carteira.cache.invalidacoes").tag("motivo", "cliente-alterado").counter().count());
+    }
+
+    @Test
+    void deveRegistrarMetricasDeAcertoEFalha() {
+        // Act
+        carteiraCache.obter(1L, carregador);
+        carteiraCache.obter(1L, carregador);
+        carteiraCache.obter(1L, carregador);
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "carteira").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "carteira").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void deveSempreCarregarQuandoDesabilitado() {
+        // Arrange
+        CarteiraCache cacheDesabilitado = new CarteiraCache(meterRegistry, false, 100, 60000L);
+
+        // Act
+        cacheDesabilitado.obter(1L, carregador);
+        cacheDesabilitado.obter(1L, carregador);
+        cacheDesabilitado.invalidar(1L, "manual");
+
+        // Assert
+        assertEquals(2, carregamentos.get());
+        assertTrue(meterRegistry.find("carteira.cache.invalidacoes").counters().isEmpty());
+    }
+
+    @Test
+    void deveNaoArmazenarQuandoCarregamentoFalha() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> carteiraCache.obter(1L, clienteId -> {
+            throw new IllegalStateException("FALHA");
+        }));
+        carteiraCache.obter(1L, carregador);
+
+        // Assert
+        assertEquals(1, carregamentos.get());
+    }
+
+    private CarteiraResponseDTO criarCarteira(Long clienteId) {
+        return new CarteiraResponseDTO(
+                clienteId,
+                "Cliente " + clienteId,
+                "ITAUFL0000" + clienteId,
+                LocalDateTime.now(),
+                new ResumoResponseDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO),
+                Collections.emptyList()
+        );
+    }
+}
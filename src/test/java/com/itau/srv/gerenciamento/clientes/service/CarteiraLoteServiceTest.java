@@ -0,0 +1,251 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteirasLoteResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.TempoLimiteExcedidoException;
+import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CarteiraLoteServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private ContaGraficaRepository contaGraficaRepository;
+
+    @Mock
+    private CarteiraService carteiraService;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private CarteiraLoteService carteiraLoteService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+        carteiraLoteService = criarServico(2000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deveConsultarCarteirasDeTodosOsClientes() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        Cliente cliente2 = criarCliente(2L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1, cliente2));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1), criarConta(cliente2)));
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class)))
+                .thenAnswer(invocation -> criarCarteira(invocation.<Cliente>getArgument(0).getId()));
+
+        // Act
+        CarteirasLoteResponseDTO resultado = carteiraLoteService.consultarCarteiras(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(2, resultado.carteiras().size());
+        assertEquals(1L, resultado.carteiras().get(1L).clienteId());
+        assertEquals(2L, resultado.carteiras().get(2L).clienteId());
+        assertTrue(resultado.erros().isEmpty());
+    }
+
+    @Test
+    void deveCarregarClientesEContasComUmaConsultaCada() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1)));
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class))).thenReturn(criarCarteira(1L));
+
+        // Act
+        carteiraLoteService.consultarCarteiras(List.of(1L, 1L, 3L));
+
+        // Assert
+        verify(clienteRepository, times(1)).findAllById(anyCollection());
+        verify(contaGraficaRepository, times(1)).findAllByClienteIdIn(anyCollection());
+        verify(carteiraService, times(1)).montarCarteira(any(Cliente.class), any(ContaGrafica.class));
+        verifyNoMoreInteractions(clienteRepository, contaGraficaRepository);
+    }
+
+    @Test
+    void deveRetornarErroParaClienteOuContaNaoEncontrados() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        Cliente cliente2 = criarCliente(2L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1, cliente2));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1)));
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class))).thenReturn(criarCarteira(1L));
+
+        // Act
+        CarteirasLoteResponseDTO resultado = carteiraLoteService.consultarCarteiras(List.of(1L, 2L, 3L));
+
+        // Assert
+        assertEquals(1, resultado.carteiras().size());
+        assertEquals("CONTA_GRAFICA_NAO_ENCONTRADA", resultado.erros().get(2L));
+        assertEquals("CLIENTE_NAO_ENCONTRADO", resultado.erros().get(3L));
+    }
+
+    @Test
+    void deveRetornarResultadoParcialQuandoUmClienteFalha() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        Cliente cliente2 = criarCliente(2L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1, cliente2));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1), criarConta(cliente2)));
+        when(carteiraService.montarCarteira(eq(cliente1), any(ContaGrafica.class))).thenReturn(criarCarteira(1L));
+        when(carteiraService.montarCarteira(eq(cliente2), any(ContaGrafica.class)))
+                .thenThrow(new TempoLimiteExcedidoException("TEMPO_LIMITE_EXCEDIDO"));
+
+        // Act
+        CarteirasLoteResponseDTO resultado = carteiraLoteService.consultarCarteiras(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(1, resultado.carteiras().size());
+        assertEquals("TEMPO_LIMITE_EXCEDIDO", resultado.erros().get(2L));
+    }
+
+    @Test
+    void deveUsarCodigoGenericoParaErrosSemCodigo() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1)));
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class)))
+                .thenThrow(new RuntimeException("Connection refused executing GET http://localhost:8082"));
+
+        // Act
+        CarteirasLoteResponseDTO resultado = carteiraLoteService.consultarCarteiras(List.of(1L));
+
+        // Assert
+        assertEquals("ERRO_CONSULTA_CARTEIRA", resultado.erros().get(1L));
+    }
+
+    @Test
+    void deveRetornarResultadoParcialQuandoPrazoDoLoteExcede() {
+        // Arrange
+        CarteiraLoteService servicoComPrazoCurto = criarServico(300L);
+        Cliente cliente1 = criarCliente(1L);
+        Cliente cliente2 = criarCliente(2L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1, cliente2));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1), criarConta(cliente2)));
+        when(carteiraService.montarCarteira(eq(cliente1), any(ContaGrafica.class))).thenReturn(criarCarteira(1L));
+        when(carteiraService.montarCarteira(eq(cliente2), any(ContaGrafica.class))).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return criarCarteira(2L);
+        });
+
+        // Act
+        long inicio = System.currentTimeMillis();
+        CarteirasLoteResponseDTO resultado = servicoComPrazoCurto.consultarCarteiras(List.of(1L, 2L));
+
+        // Assert
+        assertTrue(System.currentTimeMillis() - inicio < 2000);
+        assertEquals(1L, resultado.carteiras().get(1L).clienteId());
+        assertEquals("TEMPO_LIMITE_EXCEDIDO", resultado.erros().get(2L));
+    }
+
+    @Test
+    void deveLimitarConsultasSimultaneasAoTamanhoDoPool() {
+        // Arrange
+        List<Cliente> clientes = List.of(criarCliente(1L), criarCliente(2L), criarCliente(3L), criarCliente(4L), criarCliente(5L));
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(clientes);
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(clientes.stream().map(this::criarConta).toList());
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class))).thenAnswer(invocation -> {
+            maximo.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            emAndamento.decrementAndGet();
+            return criarCarteira(invocation.<Cliente>getArgument(0).getId());
+        });
+
+        // Act
+        CarteirasLoteResponseDTO resultado = carteiraLoteService.consultarCarteiras(List.of(1L, 2L, 3L, 4L, 5L));
+
+        // Assert
+        assertEquals(5, resultado.carteiras().size());
+        assertTrue(maximo.get() <= 2, "Consultas simultaneas: " + maximo.get());
+    }
+
+    @Test
+    void deveRegistrarMetricasDoLote() {
+        // Arrange
+        Cliente cliente1 = criarCliente(1L);
+        when(clienteRepository.findAllById(anyCollection())).thenReturn(List.of(cliente1));
+        when(contaGraficaRepository.findAllByClienteIdIn(anyCollection())).thenReturn(List.of(criarConta(cliente1)));
+        when(carteiraService.montarCarteira(any(Cliente.class), any(ContaGrafica.class))).thenReturn(criarCarteira(1L));
+
+        // Act
+        carteiraLoteService.consultarCarteiras(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("carteiras.lote.clientes").tag("resultado", "sucesso").counter().count());
+        assertEquals(1.0, meterRegistry.get("carteiras.lote.clientes").tag("resultado", "erro").counter().count());
+    }
+
+    private CarteiraLoteService criarServico(long timeoutMs) {
+        return new CarteiraLoteService(
+                clienteRepository,
+                contaGraficaRepository,
+                carteiraService,
+                new CarteiraCache(meterRegistry, false, 100, 30000L),
+                executor,
+                meterRegistry,
+                timeoutMs
+        );
+    }
+
+    private Cliente criarCliente(Long id) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setNome("Cliente " + id);
+        return cliente;
+    }
+
+    private ContaGrafica criarConta(Cliente cliente) {
+        ContaGrafica contaGrafica = new ContaGrafica();
+        contaGrafica.setCliente(cliente);
+        contaGrafica.setNumeroConta("ITAUFL0000" + cliente.getId());
+        return contaGrafica;
+    }
+
+    private CarteiraResponseDTO criarCarteira(Long clienteId) {
+        return new CarteiraResponseDTO(
+                clienteId,
+                "Cliente " + clienteId,
+                "ITAUFL0000" + clienteId,
+                LocalDateTime.now(),
+                new ResumoResponseDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO),
+                Collections.emptyList()
+        );
+    }
+}
@@ -7,6 +7,7 @@ import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresPorDataResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.ServicoIndisponivelException;
 import com.itau.srv.gerenciamento.clientes.feign.CustodiasFeignClient;
 import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
 import com.itau.srv.gerenciamento.clientes.mapper.CarteiraMaper;
@@ -16,11 +17,15 @@ import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
 import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -30,6 +35,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -56,6 +62,18 @@ class CarteiraServiceTest {
     @Mock
     private SnapshotCarteiraRepository snapshotCarteiraRepository;
 
+    @Spy
+    private ExecutorParalelo executorParalelo = new ExecutorParalelo(Executors.newCachedThreadPool(), new SimpleMeterRegistry(), 5000L);
+
+    @Spy
+    private AgregadorCarteira agregadorCarteira = new AgregadorCarteira();
+
+    @Spy
+    private CarteiraCache carteiraCache = new CarteiraCache(new SimpleMeterRegistry(), false, 100, 30000L);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private CarteiraService carteiraService;
 
@@ -147,6 +165,82 @@ class CarteiraServiceTest {
         );
     }
 
+    @Test
+    void deveConsultarCarteiraPorMeioDoCache() {
+        // Arrange
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
+        when(contaGraficaRepository.findByCliente(cliente)).thenReturn(contaGrafica);
+        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenReturn(valores);
+        when(carteiraMaper.mapearParaCarteiraResponseDTO(any(), any(), any(), anyList())).thenReturn(carteiraResponseDTO);
+
+        // Act
+        carteiraService.consultarCarteiraCliente(1L);
+
+        // Assert
+        verify(carteiraCache).obter(eq(1L), any());
+    }
+
+    @Test
+    void deveResponderComUltimoSnapshotQuandoCircuitoAberto() {
+        // Arrange
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(1L);
+        snapshot.setDataSnapshot(LocalDate.of(2026, 3, 4));
+        snapshot.setValorInvestido(new BigDecimal("6000.00"));
+        snapshot.setValorCarteira(new BigDecimal("6600.00"));
+        snapshot.setRentabilidade(new BigDecimal("10.00"));
+        CarteiraResponseDTO desatualizada = new CarteiraResponseDTO(1L, "João Silva", "ITAUFL00001", LocalDateTime.now(),
+                null, Collections.emptyList(), true, LocalDate.of(2026, 3, 4));
+
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
+        when(contaGraficaRepository.findByCliente(cliente)).thenReturn(contaGrafica);
+        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenThrow(circuitoAberto("custodias"));
+        lenient().when(valoresFeignClient.obterValoresPorCliente(1L)).thenReturn(valores);
+        when(snapshotCarteiraRepository.findFirstByClienteIdOrderByDataSnapshotDesc(1L)).thenReturn(Optional.of(snapshot));
+        when(carteiraMaper.mapearParaCarteiraDesatualizada(eq(cliente), eq(contaGrafica), any(ResumoResponseDTO.class),
+                eq(LocalDate.of(2026, 3, 4)))).thenReturn(desatualizada);
+
+        // Act
+        CarteiraResponseDTO resultado = carteiraService.consultarCarteiraCliente(1L);
+
+        // Assert
+        assertSame(desatualizada, resultado);
+        verify(carteiraMaper).mapearParaCarteiraDesatualizada(eq(cliente), eq(contaGrafica), argThat(resumo ->
+                new BigDecimal("600.00").equals(resumo.plTotal())
+                        && new BigDecimal("6600.00").equals(resumo.valorAtualCarteira())
+                        && new BigDecimal("10.00").equals(resumo.rentabilidadePercentual())), eq(LocalDate.of(2026, 3, 4)));
+        assertEquals(1.0, meterRegistry.get("carteira.fallback.snapshot").tag("resultado", "snapshot").counter().count());
+    }
+
+    @Test
+    void deveLancarServicoIndisponivelQuandoCircuitoAbertoESemSnapshot() {
+        // Arrange
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
+        when(contaGraficaRepository.findByCliente(cliente)).thenReturn(contaGrafica);
+        lenient().when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenThrow(circuitoAberto("valores"));
+        when(snapshotCarteiraRepository.findFirstByClienteIdOrderByDataSnapshotDesc(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        ServicoIndisponivelException exception = assertThrows(
+                ServicoIndisponivelException.class,
+                () -> carteiraService.consultarCarteiraCliente(1L)
+        );
+
+        assertEquals("SERVICO_INDISPONIVEL", exception.getMessage());
+        assertInstanceOf(CallNotPermittedException.class, exception.getCause());
+    }
+
+    @Test
+    void deveInvalidarCarteiraEmCache() {
+        // Act
+        carteiraService.invalidarCarteiraEmCache(1L);
+
+        // Assert
+        verify(carteiraCache).invalidar(1L, "manual");
+    }
+
     @Test
     void deveLancarExcecaoQuandoClienteNaoEncontrado() {
         // Arrange
@@ -362,354 +456,171 @@ class CarteiraServiceTest {
         verify(valoresFeignClient).obterValoresPorCliente(1L);
     }
 
-    // =========== TESTES PARA GERAR SNAPSHOTS ===========
+    // =========== TESTES PARA CALCULAR SNAPSHOTS ===========
 
     @Test
-    void deveGerarSnapshotsComSucesso() {
+    void deveCalcularSnapshotComSucesso() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
 
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-        cliente1.setNome("Cliente 1");
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-        cliente2.setNome("Cliente 2");
-
-        List<Cliente> clientes = Arrays.asList(cliente1, cliente2);
-
-        List<CustodiaResponseDTO> custodias1 = Arrays.asList(
-                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA")
-        );
-
-        List<CustodiaResponseDTO> custodias2 = Arrays.asList(
-                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA")
-        );
-
-        ValoresResponseDTO valores1 = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
-        ValoresResponseDTO valores2 = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
-
-        ValoresPorDataResponseDTO valoresPorData1 = new ValoresPorDataResponseDTO(data, valores1);
-        ValoresPorDataResponseDTO valoresPorData2 = new ValoresPorDataResponseDTO(data, valores2);
-
-        when(clienteRepository.findAllAtivos()).thenReturn(clientes);
-        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias1);
-        when(custodiasFeignClient.obterCustodiasPorClienteId(2L)).thenReturn(custodias2);
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData1);
-        when(valoresFeignClient.obterValoresPorClienteEData(2L, data)).thenReturn(valoresPorData2);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
+        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(clienteRepository).findAllAtivos();
+        assertNotNull(snapshot);
         verify(custodiasFeignClient).obterCustodiasPorClienteId(1L);
-        verify(custodiasFeignClient).obterCustodiasPorClienteId(2L);
         verify(valoresFeignClient).obterValoresPorClienteEData(1L, data);
-        verify(valoresFeignClient).obterValoresPorClienteEData(2L, data);
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        verifyNoInteractions(snapshotCarteiraRepository);
     }
 
     @Test
     void deveCalcularValorCarteiraCorretamente() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
-
-        List<CustodiaResponseDTO> custodias = Arrays.asList(
-                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA"),
-                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA")
-        );
 
         // Valor esperado: (35 * 100) + (65 * 50) = 3500 + 3250 = 6750
         ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("6000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
         when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(new BigDecimal("6750.00"), snapshots.get(0).getValorCarteira());
-            return snapshots;
-        });
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(new BigDecimal("6750.00"), snapshot.getValorCarteira());
     }
 
     @Test
-    void deveCalcularRentabilidadeCorretamente() {
+    void deveRetornarCustodiasLidasJuntoComOSnapshot() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("6000.00"), new BigDecimal("500.00"));
 
-        List<CustodiaResponseDTO> custodias = Arrays.asList(
-                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA")
-        );
+        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
-        // Valor carteira: 35 * 100 = 3500
-        // Valor investido: 3000 - 0 = 3000
-        // Rentabilidade: ((3500 - 3000) / 3000) * 100 = 16.66%
-        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
+        // Act
+        CarteiraService.SnapshotCalculado calculado = carteiraService.calcularSnapshotComCustodias(1L, data);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
-        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(new BigDecimal("16.66"), snapshots.get(0).getRentabilidade());
-            return snapshots;
-        });
+        // Assert
+        assertSame(custodias, calculado.custodias());
+        assertEquals(new BigDecimal("5500.00"), calculado.snapshot().getValorInvestido());
+    }
+
+    @Test
+    void deveConsultarApenasValorInvestido() {
+        // Arrange
+        LocalDate data = LocalDate.of(2026, 2, 5);
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("6000.00"), new BigDecimal("500.00"));
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        BigDecimal valorInvestido = carteiraService.consultarValorInvestido(1L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(new BigDecimal("5500.00"), valorInvestido);
+        verifyNoInteractions(custodiasFeignClient);
     }
 
     @Test
-    void deveRetornarRentabilidadeZeroQuandoValorInvestidoForZero() {
+    void deveCalcularRentabilidadeCorretamente() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
 
         List<CustodiaResponseDTO> custodias = Arrays.asList(
                 new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA")
         );
 
-        ValoresResponseDTO valores = new ValoresResponseDTO(BigDecimal.ZERO, BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
+        // Valor carteira: 35 * 100 = 3500
+        // Valor investido: 3000 - 0 = 3000
+        // Rentabilidade: ((3500 - 3000) / 3000) * 100 = 16.66%
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
         when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(BigDecimal.ZERO, snapshots.get(0).getRentabilidade());
-            return snapshots;
-        });
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(new BigDecimal("16.66"), snapshot.getRentabilidade());
     }
 
     @Test
-    void deveGerarSnapshotParaTodosClientesAtivos() {
+    void deveRetornarRentabilidadeZeroQuandoValorInvestidoForZero() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
+        ValoresResponseDTO valores = new ValoresResponseDTO(BigDecimal.ZERO, BigDecimal.ZERO);
 
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-
-        Cliente cliente3 = new Cliente();
-        cliente3.setId(3L);
-
-        List<Cliente> clientes = Arrays.asList(cliente1, cliente2, cliente3);
-
-        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
-
-        when(clienteRepository.findAllAtivos()).thenReturn(clientes);
-        when(custodiasFeignClient.obterCustodiasPorClienteId(anyLong())).thenReturn(Collections.emptyList());
-        when(valoresFeignClient.obterValoresPorClienteEData(anyLong(), eq(data))).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(3, snapshots.size());
-            return snapshots;
-        });
+        when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(clienteRepository).findAllAtivos();
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(BigDecimal.ZERO, snapshot.getRentabilidade());
     }
 
     @Test
     void deveDefinirClienteIdEDataNoSnapshot() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 15);
-        Cliente cliente = new Cliente();
-        cliente.setId(99L);
-
         ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
         when(custodiasFeignClient.obterCustodiasPorClienteId(99L)).thenReturn(Collections.emptyList());
-        when(valoresFeignClient.obterValoresPorClienteEData(99L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(99L, snapshots.get(0).getClienteId());
-            assertEquals(data, snapshots.get(0).getDataSnapshot());
-            return snapshots;
-        });
+        when(valoresFeignClient.obterValoresPorClienteEData(99L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(99L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(99L, snapshot.getClienteId());
+        assertEquals(data, snapshot.getDataSnapshot());
     }
 
     @Test
     void deveCalcularValorInvestidoSubtraindoValorVendido() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
-
-        List<CustodiaResponseDTO> custodias = Arrays.asList(
-                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA")
-        );
 
         // Valor investido: 10000 - 4000 = 6000
         ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("10000.00"), new BigDecimal("4000.00"));
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
         when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(custodias);
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(new BigDecimal("6000.00"), snapshots.get(0).getValorInvestido());
-            return snapshots;
-        });
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(new BigDecimal("6000.00"), snapshot.getValorInvestido());
     }
 
     @Test
     void deveRetornarValorCarteiraZeroQuandoNaoHouverCustodias() {
         // Arrange
         LocalDate data = LocalDate.of(2026, 2, 5);
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
-
         ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.singletonList(cliente));
         when(custodiasFeignClient.obterCustodiasPorClienteId(1L)).thenReturn(Collections.emptyList());
-        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertEquals(1, snapshots.size());
-            assertEquals(BigDecimal.ZERO, snapshots.get(0).getValorCarteira());
-            return snapshots;
-        });
+        when(valoresFeignClient.obterValoresPorClienteEData(1L, data)).thenReturn(new ValoresPorDataResponseDTO(data, valores));
 
         // Act
-        carteiraService.gerarSnapshots(data);
+        SnapshotCarteira snapshot = carteiraService.calcularSnapshot(1L, data);
 
         // Assert
-        verify(snapshotCarteiraRepository).saveAll(anyList());
+        assertEquals(BigDecimal.ZERO, snapshot.getValorCarteira());
     }
 
-    @Test
-    void deveNaoGerarSnapshotsQuandoNaoHouverClientesAtivos() {
-        // Arrange
-        LocalDate data = LocalDate.of(2026, 2, 5);
-        when(clienteRepository.findAllAtivos()).thenReturn(Collections.emptyList());
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
-            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
-            assertTrue(snapshots.isEmpty());
-            return snapshots;
-        });
-
-        // Act
-        carteiraService.gerarSnapshots(data);
-
-        // Assert
-        verify(clienteRepository).findAllAtivos();
-        verify(snapshotCarteiraRepository).saveAll(anyList());
-        verify(custodiasFeignClient, never()).obterCustodiasPorClienteId(anyLong());
-        verify(valoresFeignClient, never()).obterValoresPorClienteEData(anyLong(), any(LocalDate.class));
-    }
-
-    @Test
-    void deveChamarFeignClientParaCadaCliente() {
-        // Arrange
-        LocalDate data = LocalDate.of(2026, 2, 5);
-
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-
-        List<Cliente> clientes = Arrays.asList(cliente1, cliente2);
-
-        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
-
-        when(clienteRepository.findAllAtivos()).thenReturn(clientes);
-        when(custodiasFeignClient.obterCustodiasPorClienteId(anyLong())).thenReturn(Collections.emptyList());
-        when(valoresFeignClient.obterValoresPorClienteEData(anyLong(), eq(data))).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-
-        // Act
-        carteiraService.gerarSnapshots(data);
-
-        // Assert
-        verify(custodiasFeignClient, times(1)).obterCustodiasPorClienteId(1L);
-        verify(custodiasFeignClient, times(1)).obterCustodiasPorClienteId(2L);
-        verify(valoresFeignClient, times(1)).obterValoresPorClienteEData(1L, data);
-        verify(valoresFeignClient, times(1)).obterValoresPorClienteEData(2L, data);
-    }
-
-    @Test
-    void deveSalvarTodosSnapshotsDeUmaVez() {
-        // Arrange
-        LocalDate data = LocalDate.of(2026, 2, 5);
-
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-
-        List<Cliente> clientes = Arrays.asList(cliente1, cliente2);
-
-        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO);
-        ValoresPorDataResponseDTO valoresPorData = new ValoresPorDataResponseDTO(data, valores);
-
-        when(clienteRepository.findAllAtivos()).thenReturn(clientes);
-        when(custodiasFeignClient.obterCustodiasPorClienteId(anyLong())).thenReturn(Collections.emptyList());
-        when(valoresFeignClient.obterValoresPorClienteEData(anyLong(), eq(data))).thenReturn(valoresPorData);
-        when(snapshotCarteiraRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-
-        // Act
-        carteiraService.gerarSnapshots(data);
-
-        // Assert
-        verify(snapshotCarteiraRepository, times(1)).saveAll(anyList());
+    private CallNotPermittedException circuitoAberto(String servico) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults(servico);
+        circuitBreaker.transitionToOpenState();
+        return CallNotPermittedException.createCallNotPermittedException(circuitBreaker);
     }
 }
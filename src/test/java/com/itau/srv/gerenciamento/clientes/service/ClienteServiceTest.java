@@ -7,6 +7,7 @@ import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.adesao.AdesaoResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalRequestDTO;
 import com.itau.srv.gerenciamento.clientes.dto.valormensal.AlterarValorMensalResponseDTO;
+import com.itau.srv.gerenciamento.clientes.event.ClienteAlteradoEvent;
 import com.itau.srv.gerenciamento.clientes.mapper.ClienteMapper;
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
 import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
@@ -14,18 +15,25 @@ import com.itau.srv.gerenciamento.clientes.model.enums.TipoConta;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
 import com.itau.srv.gerenciamento.clientes.validator.ClienteValidator;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +54,12 @@ class ClienteServiceTest {
     @Mock
     private ContaGraficaRepository contaGraficaRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private ClienteService clienteService;
 
@@ -233,6 +247,19 @@ class ClienteServiceTest {
         verify(clienteRepository, times(1)).save(clienteSalvo);
     }
 
+    @Test
+    void devePublicarEventoDeClienteAlteradoAoCancelar() {
+        // Arrange
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(java.util.Optional.of(clienteSalvo));
+        when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteSalvo);
+
+        // Act
+        clienteService.cancelarAdesao(1L);
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(new ClienteAlteradoEvent(1L));
+    }
+
     @Test
     void deveDefinirClienteComoInativoAoCancelar() {
         // Arrange
@@ -363,6 +390,32 @@ class ClienteServiceTest {
         verify(clienteRepository, times(1)).save(clienteSalvo);
     }
 
+    @Test
+    void devePublicarEventoDeClienteAlteradoAoAlterarValorMensal() {
+        // Arrange
+        AlterarValorMensalRequestDTO requestDTO = new AlterarValorMensalRequestDTO(new BigDecimal("200.00"));
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(java.util.Optional.of(clienteSalvo));
+        when(clienteRepository.save(any(Cliente.class))).thenReturn(clienteSalvo);
+
+        // Act
+        clienteService.alterarValorMensal(1L, requestDTO);
+
+        // Assert
+        verify(eventPublisher, times(1)).publishEvent(new ClienteAlteradoEvent(1L));
+    }
+
+    @Test
+    void deveNaoPublicarEventoQuandoAlteracaoFalha() {
+        // Arrange
+        AlterarValorMensalRequestDTO requestDTO = new AlterarValorMensalRequestDTO(new BigDecimal("50.00"));
+
+        // Act
+        assertThrows(NegocioException.class, () -> clienteService.alterarValorMensal(1L, requestDTO));
+
+        // Assert
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     void deveAtualizarValorMensalDoCliente() {
         // Arrange
@@ -525,221 +578,129 @@ class ClienteServiceTest {
     @Test
     void deveBuscarClientesAtivosComSucesso() {
         // Arrange
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-        cliente1.setNome("João Silva");
-        cliente1.setCpf("12345678901");
-        cliente1.setEmail("joao@email.com");
-        cliente1.setValorMensal(new BigDecimal("150.00"));
-        cliente1.setAtivo(true);
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-        cliente2.setNome("Maria Santos");
-        cliente2.setCpf("98765432100");
-        cliente2.setEmail("maria@email.com");
-        cliente2.setValorMensal(new BigDecimal("200.00"));
-        cliente2.setAtivo(true);
-
-        ContaGrafica conta1 = new ContaGrafica();
-        conta1.setId(1L);
-        conta1.setCliente(cliente1);
-        conta1.setNumeroConta("ITAUFL00001");
-        conta1.setTipo(TipoConta.FILHOTE);
-
-        ContaGrafica conta2 = new ContaGrafica();
-        conta2.setId(2L);
-        conta2.setCliente(cliente2);
-        conta2.setNumeroConta("ITAUFL00002");
-        conta2.setTipo(TipoConta.FILHOTE);
-
-        AdesaoResponseDTO responseDTO1 = new AdesaoResponseDTO(
-                1L,
-                "João Silva",
-                "12345678901",
-                "joao@email.com",
-                new BigDecimal("150.00"),
-                true,
-                LocalDateTime.now(),
-                null
-        );
+        Cliente cliente1 = criarCliente(1L, "João Silva", "12345678901");
+        Cliente cliente2 = criarCliente(2L, "Maria Santos", "98765432100");
+        ContaGrafica conta1 = criarConta(cliente1, "ITAUFL00001");
+        ContaGrafica conta2 = criarConta(cliente2, "ITAUFL00002");
 
-        AdesaoResponseDTO responseDTO2 = new AdesaoResponseDTO(
-                2L,
-                "Maria Santos",
-                "98765432100",
-                "maria@email.com",
-                new BigDecimal("200.00"),
-                true,
-                LocalDateTime.now(),
-                null
-        );
+        AdesaoResponseDTO responseDTO1 = new AdesaoResponseDTO(1L, "João Silva", "12345678901", "joao@email.com",
+                new BigDecimal("150.00"), true, LocalDateTime.now(), null);
+        AdesaoResponseDTO responseDTO2 = new AdesaoResponseDTO(2L, "Maria Santos", "98765432100", "maria@email.com",
+                new BigDecimal("200.00"), true, LocalDateTime.now(), null);
 
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Arrays.asList(cliente1, cliente2));
-        when(contaGraficaRepository.findByCliente(cliente1)).thenReturn(conta1);
-        when(contaGraficaRepository.findByCliente(cliente2)).thenReturn(conta2);
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1, cliente2));
+        when(clienteRepository.findAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(contaGraficaRepository.findAllByClienteIdIn(List.of(1L, 2L))).thenReturn(List.of(conta1, conta2));
         when(clienteMapper.mapearParaAdesaoResponseDTO(cliente1, conta1)).thenReturn(responseDTO1);
         when(clienteMapper.mapearParaAdesaoResponseDTO(cliente2, conta2)).thenReturn(responseDTO2);
 
         // Act
-        var resultado = clienteService.buscarClientesAtivos();
+        List<AdesaoResponseDTO> resultado = percorrerClientesAtivos();
 
         // Assert
-        assertNotNull(resultado);
         assertEquals(2, resultado.size());
         assertEquals("João Silva", resultado.get(0).nome());
         assertEquals("Maria Santos", resultado.get(1).nome());
-        verify(clienteRepository).findAllAtivos();
-        verify(contaGraficaRepository).findByCliente(cliente1);
-        verify(contaGraficaRepository).findByCliente(cliente2);
         verify(clienteMapper, times(2)).mapearParaAdesaoResponseDTO(any(Cliente.class), any(ContaGrafica.class));
     }
 
     @Test
     void deveRetornarListaVaziaQuandoNaoHouverClientesAtivos() {
         // Arrange
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Collections.emptyList());
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
 
         // Act
-        var resultado = clienteService.buscarClientesAtivos();
+        List<AdesaoResponseDTO> resultado = percorrerClientesAtivos();
 
         // Assert
-        assertNotNull(resultado);
         assertTrue(resultado.isEmpty());
-        verify(clienteRepository).findAllAtivos();
-        verify(contaGraficaRepository, never()).findByCliente(any(Cliente.class));
+        verify(contaGraficaRepository, never()).findAllByClienteIdIn(any());
         verify(clienteMapper, never()).mapearParaAdesaoResponseDTO(any(Cliente.class), any(ContaGrafica.class));
+        verify(entityManager, never()).clear();
     }
 
     @Test
-    void deveChamarRepositoryParaBuscarClientesAtivos() {
+    void deveLerClientesAtivosPorKeysetEmLotes() {
         // Arrange
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Collections.emptyList());
+        Cliente cliente1 = criarCliente(1L, "Cliente A", "cpf1");
+        Cliente cliente7 = criarCliente(7L, "Cliente B", "cpf2");
+
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1));
+        when(clienteRepository.findAtivosAposId(eq(1L), any(Pageable.class))).thenReturn(List.of(cliente7));
+        when(clienteRepository.findAtivosAposId(eq(7L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(contaGraficaRepository.findAllByClienteIdIn(any())).thenReturn(Collections.emptyList());
 
         // Act
-        clienteService.buscarClientesAtivos();
+        percorrerClientesAtivos();
 
         // Assert
-        verify(clienteRepository, times(1)).findAllAtivos();
+        ArgumentCaptor<Pageable> paginas = ArgumentCaptor.forClass(Pageable.class);
+        verify(clienteRepository, times(3)).findAtivosAposId(anyLong(), paginas.capture());
+        assertEquals(0, paginas.getValue().getPageNumber());
+        assertEquals(1000, paginas.getValue().getPageSize());
     }
 
     @Test
-    void deveBuscarContaGraficaParaCadaCliente() {
+    void deveBuscarContasGraficasDoLoteEmUmaConsulta() {
         // Arrange
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-        cliente1.setNome("João Silva");
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-        cliente2.setNome("Maria Santos");
+        Cliente cliente1 = criarCliente(1L, "João Silva", "cpf1");
+        Cliente cliente2 = criarCliente(2L, "Maria Santos", "cpf2");
+        Cliente cliente3 = criarCliente(3L, "Pedro Costa", "cpf3");
 
-        Cliente cliente3 = new Cliente();
-        cliente3.setId(3L);
-        cliente3.setNome("Pedro Costa");
-
-        ContaGrafica conta1 = new ContaGrafica();
-        conta1.setId(1L);
-        conta1.setNumeroConta("ITAUFL00001");
-
-        ContaGrafica conta2 = new ContaGrafica();
-        conta2.setId(2L);
-        conta2.setNumeroConta("ITAUFL00002");
-
-        ContaGrafica conta3 = new ContaGrafica();
-        conta3.setId(3L);
-        conta3.setNumeroConta("ITAUFL00003");
-
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Arrays.asList(cliente1, cliente2, cliente3));
-        when(contaGraficaRepository.findByCliente(cliente1)).thenReturn(conta1);
-        when(contaGraficaRepository.findByCliente(cliente2)).thenReturn(conta2);
-        when(contaGraficaRepository.findByCliente(cliente3)).thenReturn(conta3);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(any(Cliente.class), any(ContaGrafica.class)))
-                .thenReturn(new AdesaoResponseDTO(1L, "Nome", "cpf", "email", BigDecimal.ZERO, true, LocalDateTime.now(), null));
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1, cliente2, cliente3));
+        when(clienteRepository.findAtivosAposId(eq(3L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(contaGraficaRepository.findAllByClienteIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(criarConta(cliente1, "ITAUFL00001"), criarConta(cliente2, "ITAUFL00002"), criarConta(cliente3, "ITAUFL00003")));
 
         // Act
-        clienteService.buscarClientesAtivos();
+        percorrerClientesAtivos();
 
         // Assert
-        verify(contaGraficaRepository, times(1)).findByCliente(cliente1);
-        verify(contaGraficaRepository, times(1)).findByCliente(cliente2);
-        verify(contaGraficaRepository, times(1)).findByCliente(cliente3);
+        verify(contaGraficaRepository, times(1)).findAllByClienteIdIn(List.of(1L, 2L, 3L));
+        verify(contaGraficaRepository, never()).findByCliente(any(Cliente.class));
     }
 
     @Test
     void deveMappearCadaClienteComSuaConta() {
         // Arrange
-        Cliente cliente = new Cliente();
-        cliente.setId(1L);
-        cliente.setNome("João Silva");
-        cliente.setCpf("12345678901");
-
-        ContaGrafica conta = new ContaGrafica();
-        conta.setId(1L);
-        conta.setNumeroConta("ITAUFL00001");
-
-        AdesaoResponseDTO responseDTO = new AdesaoResponseDTO(
-                1L,
-                "João Silva",
-                "12345678901",
-                "joao@email.com",
-                new BigDecimal("150.00"),
-                true,
-                LocalDateTime.now(),
-                null
-        );
+        Cliente cliente1 = criarCliente(1L, "João Silva", "12345678901");
+        Cliente cliente2 = criarCliente(2L, "Maria Santos", "98765432100");
+        ContaGrafica conta1 = criarConta(cliente1, "ITAUFL00001");
+        ContaGrafica conta2 = criarConta(cliente2, "ITAUFL00002");
 
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Collections.singletonList(cliente));
-        when(contaGraficaRepository.findByCliente(cliente)).thenReturn(conta);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(cliente, conta)).thenReturn(responseDTO);
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1, cliente2));
+        when(clienteRepository.findAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        // Contas em ordem diferente da dos clientes
+        when(contaGraficaRepository.findAllByClienteIdIn(List.of(1L, 2L))).thenReturn(List.of(conta2, conta1));
 
         // Act
-        var resultado = clienteService.buscarClientesAtivos();
+        percorrerClientesAtivos();
 
         // Assert
-        assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        assertEquals("João Silva", resultado.get(0).nome());
-        assertEquals("12345678901", resultado.get(0).cpf());
-        verify(clienteMapper).mapearParaAdesaoResponseDTO(cliente, conta);
+        verify(clienteMapper).mapearParaAdesaoResponseDTO(cliente1, conta1);
+        verify(clienteMapper).mapearParaAdesaoResponseDTO(cliente2, conta2);
     }
 
     @Test
     void deveRetornarTodosClientesAtivosNaOrdemCorreta() {
         // Arrange
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
-        cliente1.setNome("Cliente A");
-
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-        cliente2.setNome("Cliente B");
-
-        Cliente cliente3 = new Cliente();
-        cliente3.setId(3L);
-        cliente3.setNome("Cliente C");
-
-        ContaGrafica conta1 = new ContaGrafica();
-        ContaGrafica conta2 = new ContaGrafica();
-        ContaGrafica conta3 = new ContaGrafica();
-
-        AdesaoResponseDTO response1 = new AdesaoResponseDTO(1L, "Cliente A", "cpf1", "email1", BigDecimal.ZERO, true, LocalDateTime.now(), null);
-        AdesaoResponseDTO response2 = new AdesaoResponseDTO(2L, "Cliente B", "cpf2", "email2", BigDecimal.ZERO, true, LocalDateTime.now(), null);
-        AdesaoResponseDTO response3 = new AdesaoResponseDTO(3L, "Cliente C", "cpf3", "email3", BigDecimal.ZERO, true, LocalDateTime.now(), null);
-
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Arrays.asList(cliente1, cliente2, cliente3));
-        when(contaGraficaRepository.findByCliente(cliente1)).thenReturn(conta1);
-        when(contaGraficaRepository.findByCliente(cliente2)).thenReturn(conta2);
-        when(contaGraficaRepository.findByCliente(cliente3)).thenReturn(conta3);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(cliente1, conta1)).thenReturn(response1);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(cliente2, conta2)).thenReturn(response2);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(cliente3, conta3)).thenReturn(response3);
+        Cliente cliente1 = criarCliente(1L, "Cliente A", "cpf1");
+        Cliente cliente2 = criarCliente(2L, "Cliente B", "cpf2");
+        Cliente cliente3 = criarCliente(3L, "Cliente C", "cpf3");
+
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1, cliente2));
+        when(clienteRepository.findAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(cliente3));
+        when(clienteRepository.findAtivosAposId(eq(3L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(contaGraficaRepository.findAllByClienteIdIn(any())).thenReturn(Collections.emptyList());
+        when(clienteMapper.mapearParaAdesaoResponseDTO(any(Cliente.class), isNull())).thenAnswer(invocation -> {
+            Cliente cliente = invocation.getArgument(0);
+            return new AdesaoResponseDTO(cliente.getId(), cliente.getNome(), cliente.getCpf(), "email", BigDecimal.ZERO, true, LocalDateTime.now(), null);
+        });
 
         // Act
-        var resultado = clienteService.buscarClientesAtivos();
+        List<AdesaoResponseDTO> resultado = percorrerClientesAtivos();
 
         // Assert
-        assertNotNull(resultado);
         assertEquals(3, resultado.size());
         assertEquals("Cliente A", resultado.get(0).nome());
         assertEquals("Cliente B", resultado.get(1).nome());
@@ -747,28 +708,44 @@ class ClienteServiceTest {
     }
 
     @Test
-    void deveChamarMapperParaCadaCliente() {
+    void deveLimparContextoDePersistenciaACadaLote() {
         // Arrange
-        Cliente cliente1 = new Cliente();
-        cliente1.setId(1L);
+        Cliente cliente1 = criarCliente(1L, "Cliente A", "cpf1");
+        Cliente cliente2 = criarCliente(2L, "Cliente B", "cpf2");
 
-        Cliente cliente2 = new Cliente();
-        cliente2.setId(2L);
-
-        ContaGrafica conta1 = new ContaGrafica();
-        ContaGrafica conta2 = new ContaGrafica();
-
-        when(clienteRepository.findAllAtivos()).thenReturn(java.util.Arrays.asList(cliente1, cliente2));
-        when(contaGraficaRepository.findByCliente(any(Cliente.class))).thenReturn(conta1, conta2);
-        when(clienteMapper.mapearParaAdesaoResponseDTO(any(Cliente.class), any(ContaGrafica.class)))
-                .thenReturn(new AdesaoResponseDTO(1L, "Nome", "cpf", "email", BigDecimal.ZERO, true, LocalDateTime.now(), null));
+        when(clienteRepository.findAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(cliente1));
+        when(clienteRepository.findAtivosAposId(eq(1L), any(Pageable.class))).thenReturn(List.of(cliente2));
+        when(clienteRepository.findAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(contaGraficaRepository.findAllByClienteIdIn(any())).thenReturn(Collections.emptyList());
 
         // Act
-        clienteService.buscarClientesAtivos();
+        percorrerClientesAtivos();
 
         // Assert
-        verify(clienteMapper, times(2)).mapearParaAdesaoResponseDTO(any(Cliente.class), any(ContaGrafica.class));
+        verify(entityManager, times(2)).clear();
+    }
+
+    private List<AdesaoResponseDTO> percorrerClientesAtivos() {
+        List<AdesaoResponseDTO> resultado = new ArrayList<>();
+        clienteService.percorrerClientesAtivos(resultado::add);
+        return resultado;
     }
-}
 
+    private Cliente criarCliente(Long id, String nome, String cpf) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setNome(nome);
+        cliente.setCpf(cpf);
+        cliente.setAtivo(true);
+        return cliente;
+    }
 
+    private ContaGrafica criarConta(Cliente cliente, String numeroConta) {
+        ContaGrafica conta = new ContaGrafica();
+        conta.setId(cliente.getId());
+        conta.setCliente(cliente);
+        conta.setNumeroConta(numeroConta);
+        conta.setTipo(TipoConta.FILHOTE);
+        return conta;
+    }
+}
@@ -0,0 +1,174 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ColapsadorChamadasTest {
+
+    private static final int CHAMADAS_CONCORRENTES = 8;
+
+    @Mock
+    private ValoresFeignClient valoresFeignClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ValoresFeignClient clienteColapsado;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clienteColapsado = new ColapsadorChamadas(meterRegistry).envolver(ValoresFeignClient.class, valoresFeignClient);
+        executor = Executors.newFixedThreadPool(CHAMADAS_CONCORRENTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deveCompartilharResultadoEntreChamadasConcorrentesIdenticas() throws Exception {
+        // Arrange
+        CountDownLatch liberarChamada = new CountDownLatch(1);
+        AtomicInteger execucoes = new AtomicInteger();
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenAnswer(invocation -> {
+            execucoes.incrementAndGet();
+            liberarChamada.await(2, TimeUnit.SECONDS);
+            return valores;
+        });
+
+        // Act
+        List<Future<ValoresResponseDTO>> resultados = new ArrayList<>();
+        for (int i = 0; i < CHAMADAS_CONCORRENTES; i++) {
+            resultados.add(executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L)));
+        }
+        Thread.sleep(200);
+        liberarChamada.countDown();
+
+        // Assert
+        for (Future<ValoresResponseDTO> resultado : resultados) {
+            assertSame(valores, resultado.get(2, TimeUnit.SECONDS));
+        }
+        assertEquals(1, execucoes.get());
+        assertEquals(CHAMADAS_CONCORRENTES - 1.0, meterRegistry.get("chamadas.colapsadas")
+                .tag("operacao", "ValoresFeignClient.obterValoresPorCliente").counter().count());
+    }
+
+    @Test
+    void deveCompartilharErroEntreChamadasConcorrentesIdenticas() throws Exception {
+        // Arrange
+        CountDownLatch liberarChamada = new CountDownLatch(1);
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenAnswer(invocation -> {
+            liberarChamada.await(2, TimeUnit.SECONDS);
+            throw new IllegalStateException("SERVICO_INDISPONIVEL");
+        });
+
+        // Act
+        Future<ValoresResponseDTO> primeira = executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L));
+        Thread.sleep(100);
+        Future<ValoresResponseDTO> segunda = executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L));
+        Thread.sleep(100);
+        liberarChamada.countDown();
+
+        // Assert
+        for (Future<ValoresResponseDTO> resultado : List.of(primeira, segunda)) {
+            Exception exception = assertThrows(Exception.class, () -> resultado.get(2, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+            assertEquals("SERVICO_INDISPONIVEL", exception.getCause().getMessage());
+        }
+        verify(valoresFeignClient, times(1)).obterValoresPorCliente(1L);
+    }
+
+    @Test
+    void deveRepetirChamadaQuandoQuemAExecutavaForCancelado() throws Exception {
+        // Arrange
+        CountDownLatch liderIniciou = new CountDownLatch(1);
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
+        when(valoresFeignClient.obterValoresPorCliente(1L))
+                .thenAnswer(invocation -> {
+                    liderIniciou.countDown();
+                    new CountDownLatch(1).await();
+                    return null;
+                })
+                .thenReturn(valores);
+
+        // Act
+        Future<ValoresResponseDTO> lider = executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L));
+        assertTrue(liderIniciou.await(2, TimeUnit.SECONDS));
+        Future<ValoresResponseDTO> seguidor = executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L));
+        Thread.sleep(100);
+        lider.cancel(true);
+
+        // Assert
+        assertSame(valores, seguidor.get(2, TimeUnit.SECONDS));
+        verify(valoresFeignClient, times(2)).obterValoresPorCliente(1L);
+        assertEquals(1.0, meterRegistry.get("chamadas.colapsadas.repetidas")
+                .tag("operacao", "ValoresFeignClient.obterValoresPorCliente").counter().count());
+    }
+
+    @Test
+    void deveExecutarNovamenteAposChamadaConcluida() {
+        // Arrange
+        when(valoresFeignClient.obterValoresPorCliente(1L))
+                .thenReturn(new ValoresResponseDTO(new BigDecimal("1000.00"), BigDecimal.ZERO))
+                .thenReturn(new ValoresResponseDTO(new BigDecimal("2000.00"), BigDecimal.ZERO));
+
+        // Act
+        ValoresResponseDTO primeira = clienteColapsado.obterValoresPorCliente(1L);
+        ValoresResponseDTO segunda = clienteColapsado.obterValoresPorCliente(1L);
+
+        // Assert
+        assertEquals(new BigDecimal("1000.00"), primeira.valorInvestido());
+        assertEquals(new BigDecimal("2000.00"), segunda.valorInvestido());
+        verify(valoresFeignClient, times(2)).obterValoresPorCliente(1L);
+    }
+
+    @Test
+    void deveNaoColapsarChamadasComArgumentosDiferentes() throws Exception {
+        // Arrange
+        CountDownLatch ambasIniciadas = new CountDownLatch(2);
+        when(valoresFeignClient.obterValoresPorCliente(anyLong())).thenAnswer(invocation -> {
+            ambasIniciadas.countDown();
+            ambasIniciadas.await(2, TimeUnit.SECONDS);
+            return new ValoresResponseDTO(BigDecimal.valueOf(invocation.<Long>getArgument(0)), BigDecimal.ZERO);
+        });
+
+        // Act
+        Future<ValoresResponseDTO> cliente1 = executor.submit(() -> clienteColapsado.obterValoresPorCliente(1L));
+        Future<ValoresResponseDTO> cliente2 = executor.submit(() -> clienteColapsado.obterValoresPorCliente(2L));
+
+        // Assert
+        assertEquals(BigDecimal.ONE, cliente1.get(2, TimeUnit.SECONDS).valorInvestido());
+        assertEquals(BigDecimal.valueOf(2), cliente2.get(2, TimeUnit.SECONDS).valorInvestido());
+        assertTrue(meterRegistry.find("chamadas.colapsadas").counters().isEmpty());
+    }
+
+    @Test
+    void deveDelegarMetodosDeObjectSemColapsar() {
+        // Act & Assert
+        assertNotNull(clienteColapsado.toString());
+        assertEquals(clienteColapsado.hashCode(), clienteColapsado.hashCode());
+    }
+}
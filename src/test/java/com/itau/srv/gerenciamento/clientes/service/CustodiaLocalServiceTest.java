@@ -0,0 +1,192 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.consumer.CustodiaConsumer;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaAtualizadaEventoDTO;
+import com.itau.srv.gerenciamento.clientes.mapper.CustodiaMapper;
+import com.itau.srv.gerenciamento.clientes.model.ContaGrafica;
+import com.itau.srv.gerenciamento.clientes.model.Custodia;
+import com.itau.srv.gerenciamento.clientes.repository.ContaGraficaRepository;
+import com.itau.srv.gerenciamento.clientes.repository.CustodiaRepository;
+import com.itau.srv.gerenciamento.clientes.repository.EstadoSnapshotClienteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustodiaLocalServiceTest {
+
+    @Mock
+    private CustodiaRepository custodiaRepository;
+
+    @Mock
+    private ContaGraficaRepository contaGraficaRepository;
+
+    @Mock
+    private EstadoSnapshotClienteRepository estadoSnapshotClienteRepository;
+
+    @Mock
+    private DefasagemConsumidores defasagemConsumidores;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustodiaLocalService custodiaLocalService;
+    private ContaGrafica contaGrafica;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        custodiaLocalService = criarServico(true);
+        lenient().when(clock.instant()).thenReturn(Instant.parse("2026-03-06T12:00:00Z"));
+        lenient().when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+
+        contaGrafica = new ContaGrafica();
+        contaGrafica.setId(10L);
+        contaGrafica.setNumeroConta("ITAUFL00001");
+    }
+
+    @Test
+    void deveCriarCustodiaQuandoNaoExiste() {
+        // Arrange
+        CustodiaAtualizadaEventoDTO evento = criarEvento(100);
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.of(contaGrafica));
+        when(custodiaRepository.findByContaGraficaAndTicker(contaGrafica, "PETR4")).thenReturn(Optional.empty());
+
+        // Act
+        custodiaLocalService.aplicarEvento(evento);
+
+        // Assert
+        ArgumentCaptor<Custodia> captor = ArgumentCaptor.forClass(Custodia.class);
+        verify(custodiaRepository).save(captor.capture());
+        assertSame(contaGrafica, captor.getValue().getContaGrafica());
+        assertEquals("PETR4", captor.getValue().getTicker());
+        assertEquals(100, captor.getValue().getQuantidade());
+        assertEquals(new BigDecimal("30.00"), captor.getValue().getPrecoMedio());
+        verify(estadoSnapshotClienteRepository).marcarAlterado(1L, LocalDateTime.of(2026, 3, 6, 12, 0));
+    }
+
+    @Test
+    void deveAtualizarCustodiaExistente() {
+        // Arrange
+        Custodia existente = new Custodia();
+        existente.setId(5L);
+        existente.setContaGrafica(contaGrafica);
+        existente.setTicker("PETR4");
+        existente.setQuantidade(10);
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.of(contaGrafica));
+        when(custodiaRepository.findByContaGraficaAndTicker(contaGrafica, "PETR4")).thenReturn(Optional.of(existente));
+
+        // Act
+        custodiaLocalService.aplicarEvento(criarEvento(150));
+
+        // Assert
+        verify(custodiaRepository).save(existente);
+        assertEquals(150, existente.getQuantidade());
+        assertEquals(5L, existente.getId());
+        verify(estadoSnapshotClienteRepository).marcarAlterado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void deveNaoMarcarClienteQuandoApenasACotacaoMuda() {
+        // Arrange
+        Custodia existente = new Custodia();
+        existente.setContaGrafica(contaGrafica);
+        existente.setTicker("PETR4");
+        existente.setQuantidade(100);
+        existente.setPrecoMedio(new BigDecimal("30.0000"));
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.of(contaGrafica));
+        when(custodiaRepository.findByContaGraficaAndTicker(contaGrafica, "PETR4")).thenReturn(Optional.of(existente));
+
+        // Act
+        custodiaLocalService.aplicarEvento(criarEvento(100));
+
+        // Assert
+        verify(custodiaRepository).save(existente);
+        verifyNoInteractions(estadoSnapshotClienteRepository);
+    }
+
+    @Test
+    void deveRemoverCustodiaZerada() {
+        // Arrange
+        Custodia existente = new Custodia();
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.of(contaGrafica));
+        when(custodiaRepository.findByContaGraficaAndTicker(contaGrafica, "PETR4")).thenReturn(Optional.of(existente));
+
+        // Act
+        custodiaLocalService.aplicarEvento(criarEvento(0));
+
+        // Assert
+        verify(custodiaRepository).delete(existente);
+        verify(custodiaRepository, never()).save(any());
+        verify(estadoSnapshotClienteRepository).marcarAlterado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void deveIgnorarEventoDeClienteSemContaGrafica() {
+        // Arrange
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.empty());
+
+        // Act
+        custodiaLocalService.aplicarEvento(criarEvento(100));
+
+        // Assert
+        verifyNoInteractions(custodiaRepository, estadoSnapshotClienteRepository);
+        assertEquals(1.0, meterRegistry.get("custodias.local.eventos").tag("resultado", "ignorado").counter().count());
+    }
+
+    @Test
+    void deveConsiderarAtualizadoComConsumidorSemDefasagem() {
+        // Arrange
+        when(defasagemConsumidores.emDia(CustodiaConsumer.LISTENER_ID)).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(custodiaLocalService.estaAtualizado());
+    }
+
+    @Test
+    void deveConsiderarDefasadoQuandoModeloLocalDesabilitado() {
+        // Act & Assert
+        assertFalse(criarServico(false).estaAtualizado());
+        verifyNoInteractions(defasagemConsumidores);
+    }
+
+    @Test
+    void deveNaoConsiderarAtualizadoApenasPorAplicarEvento() {
+        // Arrange
+        when(contaGraficaRepository.findByClienteId(1L)).thenReturn(Optional.of(contaGrafica));
+        when(custodiaRepository.findByContaGraficaAndTicker(contaGrafica, "PETR4")).thenReturn(Optional.empty());
+        when(defasagemConsumidores.emDia(CustodiaConsumer.LISTENER_ID)).thenReturn(false);
+
+        // Act
+        custodiaLocalService.aplicarEvento(criarEvento(100));
+
+        // Assert
+        assertFalse(custodiaLocalService.estaAtualizado());
+    }
+
+    private CustodiaLocalService criarServico(boolean habilitado) {
+        return new CustodiaLocalService(custodiaRepository, contaGraficaRepository, estadoSnapshotClienteRepository,
+                defasagemConsumidores, new CustodiaMapper(), meterRegistry, clock, habilitado);
+    }
+
+    private CustodiaAtualizadaEventoDTO criarEvento(int quantidade) {
+        return new CustodiaAtualizadaEventoDTO(1L, "PETR4", quantidade, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA");
+    }
+}
@@ -0,0 +1,165 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DefasagemConsumidoresTest {
+
+    private static final String LISTENER = "custodias-local";
+    private static final String GRUPO = "cliente-service-group";
+    private static final String TOPICO = "custodias-atualizadas";
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private Admin admin;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private ListConsumerGroupOffsetsResult offsetsGrupo;
+
+    @Mock
+    private DescribeTopicsResult descricaoTopicos;
+
+    @Mock
+    private ListOffsetsResult offsetsFinais;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DefasagemConsumidores defasagemConsumidores;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        defasagemConsumidores = new DefasagemConsumidores(registry, admin, meterRegistry, 5000L);
+    }
+
+    @Test
+    void deveEstarEmDiaQuandoTodasAsParticoesTemDefasagemZero() {
+        // Arrange
+        prepararContainer();
+        prepararOffsets(Map.of(particao(0), new OffsetAndMetadata(120), particao(1), new OffsetAndMetadata(80)),
+                Map.of(particao(0), 120L, particao(1), 80L));
+
+        // Act
+        boolean emDia = defasagemConsumidores.emDia(LISTENER);
+
+        // Assert
+        assertTrue(emDia);
+        assertEquals(1.0, meterRegistry.get("kafka.consumidores.defasagem").tag("resultado", "em-dia").counter().count());
+    }
+
+    @Test
+    void deveEstarDefasadoQuandoAlgumaParticaoTemMensagensPendentes() {
+        // Arrange
+        prepararContainer();
+        prepararOffsets(Map.of(particao(0), new OffsetAndMetadata(120), particao(1), new OffsetAndMetadata(79)),
+                Map.of(particao(0), 120L, particao(1), 80L));
+
+        // Act
+        boolean emDia = defasagemConsumidores.emDia(LISTENER);
+
+        // Assert
+        assertFalse(emDia);
+        assertEquals(1.0, meterRegistry.get("kafka.consumidores.defasagem").tag("resultado", "defasado").counter().count());
+    }
+
+    @Test
+    void deveEstarDefasadoQuandoParticaoComMensagensNaoTemOffsetConfirmado() {
+        // Arrange
+        prepararContainer();
+        prepararOffsets(Map.of(particao(0), new OffsetAndMetadata(120)), Map.of(particao(0), 120L, particao(1), 5L));
+
+        // Act & Assert
+        assertFalse(defasagemConsumidores.emDia(LISTENER));
+    }
+
+    @Test
+    void deveEstarDefasadoQuandoListenerEstaParado() {
+        // Arrange
+        when(registry.getListenerContainer(LISTENER)).thenReturn(container);
+        when(container.isRunning()).thenReturn(false);
+
+        // Act
+        boolean emDia = defasagemConsumidores.emDia(LISTENER);
+
+        // Assert
+        assertFalse(emDia);
+        verifyNoInteractions(admin);
+        assertEquals(1.0, meterRegistry.get("kafka.consumidores.defasagem").tag("resultado", "parado").counter().count());
+    }
+
+    @Test
+    void deveTratarFalhaNaConsultaAoBrokerComoDefasagemDesconhecida() {
+        // Arrange
+        prepararContainer();
+        KafkaFutureImpl<Map<TopicPartition, OffsetAndMetadata>> falha = new KafkaFutureImpl<>();
+        falha.completeExceptionally(new IllegalStateException("broker indisponivel"));
+        when(admin.listConsumerGroupOffsets(GRUPO)).thenReturn(offsetsGrupo);
+        when(offsetsGrupo.partitionsToOffsetAndMetadata()).thenReturn(falha);
+
+        // Act
+        boolean emDia = defasagemConsumidores.emDia(LISTENER);
+
+        // Assert
+        assertFalse(emDia);
+        assertEquals(1.0, meterRegistry.get("kafka.consumidores.defasagem").tag("resultado", "desconhecida").counter().count());
+    }
+
+    private void prepararContainer() {
+        when(registry.getListenerContainer(LISTENER)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+        when(container.getGroupId()).thenReturn(GRUPO);
+        when(container.getContainerProperties()).thenReturn(new ContainerProperties(TOPICO));
+    }
+
+    private void prepararOffsets(Map<TopicPartition, OffsetAndMetadata> confirmados, Map<TopicPartition, Long> finais) {
+        when(admin.listConsumerGroupOffsets(GRUPO)).thenReturn(offsetsGrupo);
+        when(offsetsGrupo.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(confirmados));
+
+        List<TopicPartitionInfo> particoes = finais.keySet().stream()
+                .map(particao -> new TopicPartitionInfo(particao.partition(), null, List.of(), List.of()))
+                .toList();
+        when(admin.describeTopics(List.of(TOPICO))).thenReturn(descricaoTopicos);
+        when(descricaoTopicos.allTopicNames()).thenReturn(KafkaFuture.completedFuture(
+                Map.of(TOPICO, new TopicDescription(TOPICO, false, particoes))));
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> resultado = new HashMap<>();
+        finais.forEach((particao, offset) -> resultado.put(particao, new ListOffsetsResult.ListOffsetsResultInfo(offset, -1L, Optional.empty())));
+        when(admin.listOffsets(anyMap())).thenReturn(offsetsFinais);
+        when(offsetsFinais.all()).thenReturn(KafkaFuture.completedFuture(resultado));
+    }
+
+    private TopicPartition particao(int numero) {
+        return new TopicPartition(TOPICO, numero);
+    }
+}
@@ -0,0 +1,130 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.config.DisjuntorConfig;
+import com.itau.srv.gerenciamento.clientes.dto.valor.ValoresResponseDTO;
+import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisjuntorServicosExternosTest {
+
+    @Mock
+    private ValoresFeignClient valoresFeignClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private ValoresFeignClient clienteProtegido;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreakerRegistry = new DisjuntorConfig().circuitBreakerRegistry(4, 4, 50, 3000, 80, 60000, 2, meterRegistry);
+        clienteProtegido = new DisjuntorServicosExternos(circuitBreakerRegistry, meterRegistry)
+                .envolver(ValoresFeignClient.class, valoresFeignClient, "valores");
+    }
+
+    @Test
+    void deveRepassarChamadaQuandoCircuitoFechado() {
+        // Arrange
+        ValoresResponseDTO valores = new ValoresResponseDTO(new BigDecimal("3000.00"), BigDecimal.ZERO);
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenReturn(valores);
+
+        // Act
+        ValoresResponseDTO resultado = clienteProtegido.obterValoresPorCliente(1L);
+
+        // Assert
+        assertSame(valores, resultado);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("valores").getState());
+    }
+
+    @Test
+    void deveAbrirCircuitoAposFalhasERejeitarSemChamarServico() {
+        // Arrange
+        when(valoresFeignClient.obterValoresPorCliente(1L)).thenThrow(new IllegalStateException("FALHA"));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> clienteProtegido.obterValoresPorCliente(1L));
+        }
+
+        // Act & Assert
+        assertThrows(CallNotPermittedException.class, () -> clienteProtegido.obterValoresPorCliente(1L));
+        verify(valoresFeignClient, times(4)).obterValoresPorCliente(1L);
+        assertEquals(1.0, meterRegistry.get("disjuntor.transicoes")
+                .tag("servico", "valores").tag("de", "CLOSED").tag("para", "OPEN").counter().count());
+    }
+
+    @Test
+    void deveIgnorarErrosDoCliente() {
+        // Arrange
+        Request request = Request.create(Request.HttpMethod.GET, "/api/valores/1", Collections.emptyMap(),
+                null, StandardCharsets.UTF_8, null);
+        when(valoresFeignClient.obterValoresPorCliente(1L))
+                .thenThrow(new FeignException.NotFound("nao encontrado", request, null, Collections.emptyMap()));
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            assertThrows(FeignException.NotFound.class, () -> clienteProtegido.obterValoresPorCliente(1L));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("valores").getState());
+    }
+
+    @Test
+    void deveIgnorarChamadasInterrompidasPorQuemAguardava() {
+        // Arrange
+        when(valoresFeignClient.obterValoresPorCliente(1L))
+                .thenThrow(new IllegalStateException("INTERROMPIDA", new InterruptedIOException()));
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            assertThrows(IllegalStateException.class, () -> clienteProtegido.obterValoresPorCliente(1L));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("valores").getState());
+        assertEquals(0, circuitBreakerRegistry.circuitBreaker("valores").getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void deveContarTimeoutDeLeituraComoFalha() {
+        // Arrange
+        when(valoresFeignClient.obterValoresPorCliente(1L))
+                .thenThrow(new IllegalStateException("TIMEOUT", new SocketTimeoutException("Read timed out")));
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> clienteProtegido.obterValoresPorCliente(1L));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("valores").getState());
+    }
+
+    @Test
+    void deveRepassarMetodosDeObjectSemPassarPeloCircuito() {
+        // Act
+        clienteProtegido.toString();
+
+        // Assert
+        assertEquals(0, circuitBreakerRegistry.circuitBreaker("valores").getMetrics().getNumberOfBufferedCalls());
+    }
+}
@@ -0,0 +1,287 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.common.library.exception.RecursoNaoEncontradoException;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.exception.ExecucaoSnapshotConflitoException;
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExecucaoSnapshotServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 2, 5);
+    private static final LocalDateTime AGORA = LocalDateTime.of(2026, 2, 5, 22, 0);
+    private static final long ABANDONO_MS = 60_000L;
+
+    @Mock
+    private ExecucaoSnapshotRepository execucaoSnapshotRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExecucaoSnapshotService execucaoSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(AGORA.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        execucaoSnapshotService = new ExecucaoSnapshotService(execucaoSnapshotRepository, clienteRepository, new SnapshotMapper(),
+                new TransactionTemplate(transactionManager), clock, ABANDONO_MS);
+    }
+
+    @Test
+    void deveCriarExecucaoNaPrimeiraReservaDaData() {
+        // Arrange
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.empty());
+        when(clienteRepository.countAtivosAposId(0L)).thenReturn(1000L);
+        when(execucaoSnapshotRepository.saveAndFlush(any(ExecucaoSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ExecucaoSnapshot execucao = execucaoSnapshotService.reservar(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.EM_ANDAMENTO, execucao.getStatus());
+        assertEquals(DATA, execucao.getDataSnapshot());
+        assertEquals(0L, execucao.getUltimoClienteId());
+        assertEquals(1000L, execucao.getTotalClientes());
+        assertEquals(AGORA, execucao.getDataInicio());
+        assertNull(execucao.getDataFim());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void deveRetomarDoCheckpointDeExecucaoIncompleta() {
+        // Arrange
+        ExecucaoSnapshot anterior = criarExecucao(StatusExecucaoSnapshot.INCOMPLETA, 400L, AGORA.minusHours(1));
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.of(anterior));
+        when(clienteRepository.countAtivosAposId(400L)).thenReturn(600L);
+        when(execucaoSnapshotRepository.saveAndFlush(any(ExecucaoSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ExecucaoSnapshot execucao = execucaoSnapshotService.reservar(DATA);
+
+        // Assert
+        assertEquals(400L, execucao.getUltimoClienteId());
+        assertEquals(600L, execucao.getTotalClientes());
+        assertEquals(0L, execucao.getClientesProcessados());
+        assertEquals(0L, execucao.getFalhas());
+        assertEquals(0L, execucao.getClientesRecalculados());
+        assertEquals(0L, execucao.getClientesCustodiaInalterada());
+    }
+
+    @Test
+    void deveRecomecarDoInicioQuandoExecucaoAnteriorFoiConcluida() {
+        // Arrange
+        ExecucaoSnapshot anterior = criarExecucao(StatusExecucaoSnapshot.CONCLUIDA, 1000L, AGORA.minusHours(1));
+        anterior.setDataFim(AGORA.minusHours(1));
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.of(anterior));
+        when(clienteRepository.countAtivosAposId(0L)).thenReturn(1000L);
+        when(execucaoSnapshotRepository.saveAndFlush(any(ExecucaoSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ExecucaoSnapshot execucao = execucaoSnapshotService.reservar(DATA);
+
+        // Assert
+        assertEquals(0L, execucao.getUltimoClienteId());
+        assertNull(execucao.getDataFim());
+    }
+
+    @Test
+    void deveRejeitarReservaQuandoExecucaoDaDataEstaEmAndamento() {
+        // Arrange
+        ExecucaoSnapshot emAndamento = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusSeconds(10));
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.of(emAndamento));
+
+        // Act
+        ExecucaoSnapshotConflitoException exception = assertThrows(
+                ExecucaoSnapshotConflitoException.class,
+                () -> execucaoSnapshotService.reservar(DATA)
+        );
+
+        // Assert
+        assertEquals("GERACAO_SNAPSHOTS_EM_ANDAMENTO", exception.getMessage());
+        verify(execucaoSnapshotRepository, never()).saveAndFlush(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void deveAssumirExecucaoAbandonada() {
+        // Arrange
+        ExecucaoSnapshot abandonada = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusMinutes(5));
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.of(abandonada));
+        when(clienteRepository.countAtivosAposId(400L)).thenReturn(600L);
+        when(execucaoSnapshotRepository.saveAndFlush(any(ExecucaoSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ExecucaoSnapshot execucao = execucaoSnapshotService.reservar(DATA);
+
+        // Assert
+        assertEquals(400L, execucao.getUltimoClienteId());
+        assertEquals(AGORA, execucao.getDataAtualizacao());
+    }
+
+    @Test
+    void deveRejeitarReservaQuandoOutraInstanciaCriouAExecucao() {
+        // Arrange
+        when(execucaoSnapshotRepository.findByDataSnapshotParaAtualizacao(DATA)).thenReturn(Optional.empty());
+        when(execucaoSnapshotRepository.saveAndFlush(any(ExecucaoSnapshot.class))).thenThrow(new DataIntegrityViolationException("uk"));
+
+        // Act & Assert
+        assertThrows(ExecucaoSnapshotConflitoException.class, () -> execucaoSnapshotService.reservar(DATA));
+    }
+
+    @Test
+    void deveRegistrarProgressoSemSobrescreverCancelamento() {
+        // Arrange
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusSeconds(10));
+        execucao.setClientesProcessados(400L);
+        execucao.setClientesRecalculados(30L);
+        execucao.setClientesCustodiaInalterada(370L);
+
+        // Act
+        execucaoSnapshotService.registrarProgresso(execucao);
+
+        // Assert
+        verify(execucaoSnapshotRepository).atualizarProgresso(1L, 400L, 400L, 0L, 30L, 370L, AGORA);
+        verify(execucaoSnapshotRepository, never()).save(any());
+    }
+
+    @Test
+    void deveRegistrarSinalDeVidaSemAlterarProgresso() {
+        // Arrange
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusMinutes(20));
+
+        // Act
+        execucaoSnapshotService.registrarSinalDeVida(execucao);
+
+        // Assert
+        assertEquals(AGORA, execucao.getDataAtualizacao());
+        verify(execucaoSnapshotRepository).registrarSinalDeVida(1L, StatusExecucaoSnapshot.EM_ANDAMENTO, AGORA);
+        verify(execucaoSnapshotRepository, never()).atualizarProgresso(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void deveFinalizarExecucaoComDataFim() {
+        // Arrange
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusSeconds(10));
+        when(execucaoSnapshotRepository.save(execucao)).thenReturn(execucao);
+
+        // Act
+        ExecucaoSnapshot resultado = execucaoSnapshotService.finalizar(execucao, StatusExecucaoSnapshot.CANCELADA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.CANCELADA, resultado.getStatus());
+        assertTrue(resultado.isCancelamentoSolicitado());
+        assertEquals(AGORA, resultado.getDataFim());
+    }
+
+    @Test
+    void deveConsultarExecucaoComAndamento() {
+        // Arrange
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusSeconds(10));
+        execucao.setClientesProcessados(400L);
+        execucao.setDataInicio(AGORA.minusSeconds(20));
+        when(execucaoSnapshotRepository.findById(1L)).thenReturn(Optional.of(execucao));
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = execucaoSnapshotService.consultar(1L);
+
+        // Assert
+        assertEquals(600L, resultado.clientesRestantes());
+        assertEquals(AGORA.plusSeconds(30), resultado.previsaoTermino());
+    }
+
+    @Test
+    void deveLancarExcecaoAoConsultarExecucaoInexistente() {
+        // Arrange
+        when(execucaoSnapshotRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act
+        RecursoNaoEncontradoException exception = assertThrows(
+                RecursoNaoEncontradoException.class,
+                () -> execucaoSnapshotService.consultar(99L)
+        );
+
+        // Assert
+        assertEquals("EXECUCAO_SNAPSHOT_NAO_ENCONTRADA", exception.getMessage());
+    }
+
+    @Test
+    void deveSolicitarCancelamentoDeExecucaoEmAndamento() {
+        // Arrange
+        ExecucaoSnapshot execucao = criarExecucao(StatusExecucaoSnapshot.EM_ANDAMENTO, 400L, AGORA.minusSeconds(10));
+        execucao.setCancelamentoSolicitado(true);
+        when(execucaoSnapshotRepository.solicitarCancelamento(1L, StatusExecucaoSnapshot.EM_ANDAMENTO)).thenReturn(1);
+        when(execucaoSnapshotRepository.findById(1L)).thenReturn(Optional.of(execucao));
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = execucaoSnapshotService.solicitarCancelamento(1L);
+
+        // Assert
+        assertTrue(resultado.cancelamentoSolicitado());
+    }
+
+    @Test
+    void deveRejeitarCancelamentoDeExecucaoEncerrada() {
+        // Arrange
+        when(execucaoSnapshotRepository.solicitarCancelamento(1L, StatusExecucaoSnapshot.EM_ANDAMENTO)).thenReturn(0);
+        when(execucaoSnapshotRepository.findById(1L))
+                .thenReturn(Optional.of(criarExecucao(StatusExecucaoSnapshot.CONCLUIDA, 1000L, AGORA.minusHours(1))));
+
+        // Act
+        ExecucaoSnapshotConflitoException exception = assertThrows(
+                ExecucaoSnapshotConflitoException.class,
+                () -> execucaoSnapshotService.solicitarCancelamento(1L)
+        );
+
+        // Assert
+        assertEquals("EXECUCAO_SNAPSHOT_NAO_ESTA_EM_ANDAMENTO", exception.getMessage());
+    }
+
+    @Test
+    void deveLancarExcecaoAoCancelarExecucaoInexistente() {
+        // Arrange
+        when(execucaoSnapshotRepository.solicitarCancelamento(99L, StatusExecucaoSnapshot.EM_ANDAMENTO)).thenReturn(0);
+        when(execucaoSnapshotRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RecursoNaoEncontradoException.class, () -> execucaoSnapshotService.solicitarCancelamento(99L));
+    }
+
+    private ExecucaoSnapshot criarExecucao(StatusExecucaoSnapshot status, Long ultimoClienteId, LocalDateTime dataAtualizacao) {
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setId(1L);
+        execucao.setDataSnapshot(DATA);
+        execucao.setStatus(status);
+        execucao.setUltimoClienteId(ultimoClienteId);
+        execucao.setTotalClientes(1000L);
+        execucao.setClientesProcessados(0L);
+        execucao.setFalhas(0L);
+        execucao.setDataInicio(dataAtualizacao.minusMinutes(1));
+        execucao.setDataAtualizacao(dataAtualizacao);
+        return execucao;
+    }
+}
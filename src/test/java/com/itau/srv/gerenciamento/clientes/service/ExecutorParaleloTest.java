@@ -0,0 +1,131 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.exception.TempoLimiteExcedidoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorParaleloTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorParalelo executorParalelo;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        meterRegistry = new SimpleMeterRegistry();
+        executorParalelo = new ExecutorParalelo(executor, meterRegistry, 2000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deveRetornarResultadoDasDuasChamadas() {
+        // Act
+        ExecutorParalelo.Resultado<String, Integer> resultado = executorParalelo.executar(
+                "teste",
+                new ExecutorParalelo.Chamada<>("primeira", () -> "custodias"),
+                new ExecutorParalelo.Chamada<>("segunda", () -> 42)
+        );
+
+        // Assert
+        assertEquals("custodias", resultado.primeiro());
+        assertEquals(42, resultado.segundo());
+    }
+
+    @Test
+    void deveExecutarChamadasAoMesmoTempo() {
+        // Arrange
+        long inicio = System.nanoTime();
+
+        // Act
+        executorParalelo.executar(
+                "teste",
+                new ExecutorParalelo.Chamada<>("primeira", () -> dormir(300)),
+                new ExecutorParalelo.Chamada<>("segunda", () -> dormir(300))
+        );
+
+        // Assert - sequencialmente levaria 600 ms
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        assertTrue(duracaoMs < 550, "Duração esperada menor que a soma das chamadas, obtida: " + duracaoMs);
+    }
+
+    @Test
+    void deveRegistrarMetricasDeEtapaEEconomia() {
+        // Act
+        executorParalelo.executar(
+                "teste",
+                new ExecutorParalelo.Chamada<>("primeira", () -> dormir(100)),
+                new ExecutorParalelo.Chamada<>("segunda", () -> dormir(100))
+        );
+
+        // Assert
+        assertEquals(1, meterRegistry.get("chamadas.paralelas.etapa").tag("etapa", "primeira").timer().count());
+        assertEquals(1, meterRegistry.get("chamadas.paralelas.etapa").tag("etapa", "segunda").timer().count());
+        assertEquals(1, meterRegistry.get("chamadas.paralelas.total").tag("operacao", "teste").timer().count());
+        assertTrue(meterRegistry.get("chamadas.paralelas.economia").tag("operacao", "teste").timer()
+                .totalTime(TimeUnit.MILLISECONDS) > 0);
+    }
+
+    @Test
+    void devePropagarExcecaoECancelarChamadaIrma() throws InterruptedException {
+        // Arrange
+        CountDownLatch irmaInterrompida = new CountDownLatch(1);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> executorParalelo.executar(
+                "teste",
+                new ExecutorParalelo.Chamada<>("primeira", () -> {
+                    throw new IllegalArgumentException("FALHA_CUSTODIAS");
+                }),
+                new ExecutorParalelo.Chamada<>("segunda", () -> {
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        irmaInterrompida.countDown();
+                    }
+                    return null;
+                })
+        ));
+
+        assertEquals("FALHA_CUSTODIAS", exception.getMessage());
+        assertTrue(irmaInterrompida.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoPrazoExcedido() {
+        // Arrange
+        ExecutorParalelo executorComPrazoCurto = new ExecutorParalelo(executor, meterRegistry, 100L);
+
+        // Act & Assert
+        TempoLimiteExcedidoException exception = assertThrows(TempoLimiteExcedidoException.class, () -> executorComPrazoCurto.executar(
+                "teste",
+                new ExecutorParalelo.Chamada<>("primeira", () -> "rapida"),
+                new ExecutorParalelo.Chamada<>("segunda", () -> dormir(2000))
+        ));
+
+        assertEquals("TEMPO_LIMITE_EXCEDIDO", exception.getMessage());
+        assertEquals(1.0, meterRegistry.get("chamadas.paralelas.timeout").tag("operacao", "teste").counter().count());
+    }
+
+    private String dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "ok";
+    }
+}
@@ -0,0 +1,117 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.carteira.AtivoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.CarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.carteira.ResumoResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeradorEtagTest {
+
+    private final GeradorEtag geradorEtag = new GeradorEtag();
+
+    @Test
+    void deveGerarEtagForteEntreAspas() {
+        // Act
+        String etag = geradorEtag.gerarParaCarteira(criarCarteira(LocalDateTime.now(), new BigDecimal("35.00")));
+
+        // Assert
+        assertTrue(etag.matches("\"[0-9a-f]{32}\""), etag);
+    }
+
+    @Test
+    void deveIgnorarDataConsultaNoEtagDaCarteira() {
+        // Act
+        String primeira = geradorEtag.gerarParaCarteira(criarCarteira(LocalDateTime.of(2026, 3, 1, 10, 0), new BigDecimal("35.00")));
+        String segunda = geradorEtag.gerarParaCarteira(criarCarteira(LocalDateTime.of(2026, 3, 1, 10, 5), new BigDecimal("35.00")));
+
+        // Assert
+        assertEquals(primeira, segunda);
+    }
+
+    @Test
+    void deveMudarEtagQuandoCotacaoMuda() {
+        // Act
+        String anterior = geradorEtag.gerarParaCarteira(criarCarteira(LocalDateTime.now(), new BigDecimal("35.00")));
+        String atual = geradorEtag.gerarParaCarteira(criarCarteira(LocalDateTime.now(), new BigDecimal("35.01")));
+
+        // Assert
+        assertNotEquals(anterior, atual);
+    }
+
+    @Test
+    void deveGerarEtagParaCarteiraSemAtivos() {
+        // Arrange
+        CarteiraResponseDTO carteira = new CarteiraResponseDTO(1L, "João Silva", "ITAUFL00001", LocalDateTime.now(),
+                new ResumoResponseDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO), Collections.emptyList());
+
+        // Act & Assert
+        assertNotNull(geradorEtag.gerarParaCarteira(carteira));
+    }
+
+    @Test
+    void deveDiferenciarEtagDeCarteiraDesatualizada() {
+        // Arrange
+        CarteiraResponseDTO atual = criarCarteira(LocalDateTime.now(), new BigDecimal("35.00"));
+        CarteiraResponseDTO desatualizada = new CarteiraResponseDTO(atual.clienteId(), atual.nome(), atual.contaGrafica(),
+                atual.dataConsulta(), atual.resumo(), atual.ativos(), true, LocalDate.of(2026, 3, 4));
+
+        // Act & Assert
+        assertNotEquals(geradorEtag.gerarParaCarteira(atual), geradorEtag.gerarParaCarteira(desatualizada));
+    }
+
+    @Test
+    void deveGerarEtagDeRentabilidadePelaVersaoDosSnapshots() {
+        // Arrange
+        VersaoSnapshotsDTO versao = new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0));
+
+        // Act & Assert
+        assertEquals(geradorEtag.gerarParaRentabilidade(1L, versao, List.of()), geradorEtag.gerarParaRentabilidade(1L, versao, List.of()));
+        assertNotEquals(geradorEtag.gerarParaRentabilidade(1L, versao, List.of()), geradorEtag.gerarParaRentabilidade(2L, versao, List.of()));
+        assertNotEquals(geradorEtag.gerarParaRentabilidade(1L, versao, List.of()), geradorEtag.gerarParaRentabilidade(1L,
+                new VersaoSnapshotsDTO(3L, 31L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0)), List.of()));
+    }
+
+    @Test
+    void deveMudarEtagDeRentabilidadeQuandoSnapshotForReescritoNoLugar() {
+        // Arrange: mesma contagem, mesmo id e mesma data; só o carimbo do resumo mudou
+        VersaoSnapshotsDTO anterior = new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0));
+        VersaoSnapshotsDTO reescrita = new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 6, 9, 30));
+
+        // Act & Assert
+        assertNotEquals(geradorEtag.gerarParaRentabilidade(1L, anterior, List.of()), geradorEtag.gerarParaRentabilidade(1L, reescrita, List.of()));
+    }
+
+    @Test
+    void deveMudarEtagDeRentabilidadeQuandoHouverNovoAporte() {
+        // Arrange
+        VersaoSnapshotsDTO versao = new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0));
+        HistoricoAportesResponseDTO aporte = new HistoricoAportesResponseDTO(LocalDate.of(2026, 3, 5), new BigDecimal("1000.00"), "3/12");
+        HistoricoAportesResponseDTO novoAporte = new HistoricoAportesResponseDTO(LocalDate.of(2026, 3, 15), new BigDecimal("1000.00"), "4/12");
+
+        // Act & Assert
+        assertNotEquals(geradorEtag.gerarParaRentabilidade(1L, versao, List.of(aporte)),
+                geradorEtag.gerarParaRentabilidade(1L, versao, List.of(aporte, novoAporte)));
+    }
+
+    private CarteiraResponseDTO criarCarteira(LocalDateTime dataConsulta, BigDecimal cotacao) {
+        return new CarteiraResponseDTO(
+                1L,
+                "João Silva",
+                "ITAUFL00001",
+                dataConsulta,
+                new ResumoResponseDTO(new BigDecimal("3000.00"), new BigDecimal("3500.00"), new BigDecimal("500.00"), new BigDecimal("16.66")),
+                List.of(new AtivoResponseDTO("PETR4", 100, new BigDecimal("30.00"), cotacao,
+                        new BigDecimal("500.00"), new BigDecimal("1.00"), new BigDecimal("1.00")))
+        );
+    }
+}
@@ -0,0 +1,197 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.and;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GravadorSnapshotsTest {
+
+    @Mock
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ParticoesSnapshots particoesSnapshots;
+
+    @Mock
+    private Connection conexao;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    @Mock
+    private CopyIn copyIn;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void deveGravarComJpaQuandoCopyDesabilitado() {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, false);
+        List<SnapshotCarteira> snapshots = List.of(criarSnapshot(1L));
+
+        // Act
+        gravador.gravar(snapshots);
+
+        // Assert
+        verify(snapshotCarteiraRepository).saveAll(snapshots);
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(1.0, meterRegistry.get("snapshots.gravacao").tag("modo", "jpa").counter().count());
+    }
+
+    @Test
+    void deveGarantirParticoesDoLoteAntesDeGravar() {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, false);
+        List<SnapshotCarteira> snapshots = List.of(criarSnapshot(1L));
+
+        // Act
+        gravador.gravar(snapshots);
+
+        // Assert
+        InOrder ordem = inOrder(particoesSnapshots, snapshotCarteiraRepository);
+        ordem.verify(particoesSnapshots).garantirParticoes(List.of(LocalDate.of(2026, 2, 27)));
+        ordem.verify(snapshotCarteiraRepository).saveAll(snapshots);
+    }
+
+    @Test
+    void deveAtualizarSnapshotExistenteDoClienteNaMesmaData() {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, false);
+        SnapshotCarteira existente = criarSnapshot(1L);
+        existente.setId(10L);
+        existente.setValorCarteira(new BigDecimal("900.00"));
+        SnapshotCarteira atualizado = criarSnapshot(1L);
+        SnapshotCarteira novo = criarSnapshot(2L);
+        when(snapshotCarteiraRepository.findAllByDataSnapshotAndClienteIdIn(LocalDate.of(2026, 2, 27), List.of(1L, 2L)))
+                .thenReturn(List.of(existente));
+
+        // Act
+        gravador.gravar(List.of(atualizado, novo));
+
+        // Assert
+        assertEquals(new BigDecimal("1050.00"), existente.getValorCarteira());
+        assertEquals(10L, existente.getId());
+        verify(snapshotCarteiraRepository).saveAll(List.of(novo));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveGravarComJpaQuandoBancoNaoEPostgres() throws Exception {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, true);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(conexao));
+        when(conexao.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        // Act
+        gravador.gravar(List.of(criarSnapshot(1L)));
+        gravador.gravar(List.of(criarSnapshot(2L)));
+
+        // Assert
+        verify(snapshotCarteiraRepository, times(2)).saveAll(anyList());
+        verify(conexao, times(1)).isWrapperFor(PGConnection.class);
+    }
+
+    @Test
+    void deveIgnorarLoteVazio() {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, true);
+
+        // Act
+        gravador.gravar(Collections.emptyList());
+
+        // Assert
+        verifyNoInteractions(snapshotCarteiraRepository, jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveCopiarParaTabelaDeCargaEMesclarQuandoPostgres() throws Exception {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, true);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(conexao));
+        when(conexao.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(conexao.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(startsWith("COPY snapshots_carteiras_carga"))).thenReturn(copyIn);
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq(1))).thenReturn(List.of(150L));
+        List<SnapshotCarteira> snapshots = List.of(criarSnapshot(1L), criarSnapshot(2L));
+
+        // Act
+        gravador.gravar(snapshots);
+
+        // Assert
+        ArgumentCaptor<byte[]> linhas = ArgumentCaptor.forClass(byte[].class);
+        verify(copyIn, times(2)).writeToCopy(linhas.capture(), eq(0), anyInt());
+        assertEquals("101,1,2026-02-27,1050.00,1000.00,5.00\n", new String(linhas.getAllValues().get(0), StandardCharsets.UTF_8));
+        assertEquals(102L, snapshots.get(1).getId());
+        verify(copyIn).endCopy();
+        verify(jdbcTemplate).update(and(startsWith("INSERT INTO snapshots_carteiras "), contains("ON CONFLICT (cliente_id, data_snapshot) DO UPDATE")));
+        verify(jdbcTemplate).update("DELETE FROM snapshots_carteiras_carga");
+        verifyNoInteractions(snapshotCarteiraRepository);
+        assertEquals(2.0, meterRegistry.get("snapshots.gravacao").tag("modo", "copy").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveDescartarIdsNaoPositivosDoPrimeiroBlocoDaSequencia() {
+        // Arrange
+        GravadorSnapshots gravador = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, true);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(true, 0L);
+        when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), eq(1))).thenReturn(List.of(1L), List.of(51L));
+        List<SnapshotCarteira> snapshots = List.of(criarSnapshot(1L), criarSnapshot(2L));
+
+        // Act
+        gravador.gravar(snapshots);
+
+        // Assert
+        verify(jdbcTemplate, times(2)).queryForList(contains("nextval"), eq(Long.class), eq(1));
+    }
+
+    private SnapshotCarteira criarSnapshot(Long clienteId) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(LocalDate.of(2026, 2, 27));
+        snapshot.setValorCarteira(new BigDecimal("1050.00"));
+        snapshot.setValorInvestido(new BigDecimal("1000.00"));
+        snapshot.setRentabilidade(new BigDecimal("5.00"));
+        return snapshot;
+    }
+}
@@ -0,0 +1,141 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticoesSnapshotsTest {
+
+    private static final LocalDate HOJE = LocalDate.of(2026, 3, 6);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = Clock.fixed(HOJE.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+    }
+
+    @Test
+    void deveCriarParticaoDoMesNoPostgres() {
+        // Arrange
+        comPostgres(true);
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 0, false);
+
+        // Act
+        particoesSnapshots.garantirParticao(HOJE);
+        particoesSnapshots.garantirParticao(HOJE);
+
+        // Assert
+        verify(jdbcTemplate, times(2)).queryForList("SELECT criar_particao_snapshots_carteiras(?)", HOJE);
+        verify(jdbcTemplate, times(1)).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void deveCriarUmaVezAParticaoDeCadaMesDosLotes() {
+        // Arrange
+        comPostgres(true);
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 0, false);
+
+        // Act
+        particoesSnapshots.garantirParticao(HOJE);
+        particoesSnapshots.garantirParticoes(List.of(HOJE, HOJE.plusDays(1), LocalDate.of(2026, 4, 1)));
+        particoesSnapshots.garantirParticoes(List.of(LocalDate.of(2026, 4, 2)));
+
+        // Assert
+        verify(jdbcTemplate).queryForList("SELECT criar_particao_snapshots_carteiras(?)", HOJE);
+        verify(jdbcTemplate).queryForList("SELECT criar_particao_snapshots_carteiras(?)", LocalDate.of(2026, 4, 1));
+        verify(jdbcTemplate, times(2)).queryForList(eq("SELECT criar_particao_snapshots_carteiras(?)"), any(LocalDate.class));
+    }
+
+    @Test
+    void deveIgnorarParticoesForaDoPostgres() {
+        // Arrange
+        comPostgres(false);
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 6, false);
+
+        // Act
+        particoesSnapshots.garantirParticao(HOJE);
+        int removidas = particoesSnapshots.removerExpiradas();
+
+        // Assert
+        assertEquals(0, removidas);
+        verify(jdbcTemplate, only()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void deveRemoverApenasParticoesAnterioresARetencao() {
+        // Arrange
+        comPostgres(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "snapshots_carteiras_202508", "snapshots_carteiras_202509", "snapshots_carteiras_202510",
+                "snapshots_carteiras_202603", "snapshots_carteiras_carga"));
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 5, false);
+
+        // Act
+        int removidas = particoesSnapshots.removerExpiradas();
+
+        // Assert
+        assertEquals(2, removidas);
+        verify(jdbcTemplate).execute("DROP TABLE snapshots_carteiras_202508");
+        verify(jdbcTemplate).execute("DROP TABLE snapshots_carteiras_202509");
+        verify(jdbcTemplate, never()).execute("DROP TABLE snapshots_carteiras_202510");
+        verify(jdbcTemplate, never()).execute("DROP TABLE snapshots_carteiras_202603");
+        verify(jdbcTemplate, never()).execute("DROP TABLE snapshots_carteiras_carga");
+    }
+
+    @Test
+    void deveLevarAdianteUltimosPontosAntesDeRemoverNoArmazenamentoEsparso() {
+        // Arrange
+        comPostgres(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "snapshots_carteiras_202509", "snapshots_carteiras_202510"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDate.class), eq(LocalDate.of(2025, 10, 1))))
+                .thenReturn(LocalDate.of(2025, 10, 2));
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 5, true);
+
+        // Act
+        int removidas = particoesSnapshots.removerExpiradas();
+
+        // Assert
+        assertEquals(1, removidas);
+        InOrder ordem = inOrder(jdbcTemplate);
+        ordem.verify(jdbcTemplate).update(contains("DISTINCT ON (cliente_id)"), eq(LocalDate.of(2025, 10, 2)), eq(LocalDate.of(2025, 10, 1)));
+        ordem.verify(jdbcTemplate).execute("DROP TABLE snapshots_carteiras_202509");
+    }
+
+    @Test
+    void deveManterTodasAsParticoesSemRetencaoConfigurada() {
+        // Arrange
+        ParticoesSnapshots particoesSnapshots = new ParticoesSnapshots(jdbcTemplate, clock, 0, false);
+
+        // Act
+        int removidas = particoesSnapshots.removerExpiradas();
+
+        // Assert
+        assertEquals(0, removidas);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void comPostgres(boolean postgres) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(postgres);
+    }
+}
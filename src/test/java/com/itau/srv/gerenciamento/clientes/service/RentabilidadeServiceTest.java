@@ -1,21 +1,33 @@
 package com.itau.srv.gerenciamento.clientes.service;
 
+import com.itau.common.library.exception.NegocioException;
 import com.itau.common.library.exception.RecursoNaoEncontradoException;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.FiltroEvolucaoDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.HistoricoAportesResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeNaDataResponseDTO;
 import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.RentabilidadeResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
 import com.itau.srv.gerenciamento.clientes.feign.ValoresFeignClient;
-import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
 import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
 import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
 import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
 import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -23,10 +35,13 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,21 +54,44 @@ class RentabilidadeServiceTest {
     private ClienteRepository clienteRepository;
 
     @Mock
-    private SnapshotMapper snapshotMapper;
+    private ValoresFeignClient valoresFeignClient;
+
+    @Spy
+    private GeradorEtag geradorEtag = new GeradorEtag();
 
     @Mock
-    private ValoresFeignClient valoresFeignClient;
+    private SnapshotsEsparsos snapshotsEsparsos;
+
+    @Mock
+    private ResumosRentabilidade resumosRentabilidade;
+
+    @Spy
+    private AmostradorEvolucao amostradorEvolucao = new AmostradorEvolucao();
+
+    @Mock
+    private SeriesCarteiraMemoria seriesCarteiraMemoria;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ExecutorParalelo executorParalelo = new ExecutorParalelo(Executors.newCachedThreadPool(), meterRegistry, 5000L);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private RentabilidadeService rentabilidadeService;
 
     private Cliente cliente;
-    private List<SnapshotCarteira> snapshots;
+    private ResumoRentabilidade resumo;
     private List<HistoricoAportesResponseDTO> historicoAportes;
     private List<EvolucaoCarteiraResponseDTO> evolucoes;
 
     @BeforeEach
     void setUp() {
+        // Armazenamento denso: os pontos gravados já são a série diária
+        lenient().when(snapshotsEsparsos.versionar(anyLong(), any(VersaoSnapshotsDTO.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
         cliente = new Cliente();
         cliente.setId(1L);
         cliente.setNome("João Silva");
@@ -63,29 +101,8 @@ class RentabilidadeServiceTest {
         cliente.setAtivo(true);
         cliente.setDataAdesao(LocalDateTime.now());
 
-        // Criar snapshots
-        SnapshotCarteira snapshot1 = new SnapshotCarteira();
-        snapshot1.setClienteId(1L);
-        snapshot1.setDataSnapshot(LocalDate.of(2026, 1, 5));
-        snapshot1.setValorCarteira(new BigDecimal("1000.00"));
-        snapshot1.setValorInvestido(new BigDecimal("1000.00"));
-        snapshot1.setRentabilidade(BigDecimal.ZERO);
-
-        SnapshotCarteira snapshot2 = new SnapshotCarteira();
-        snapshot2.setClienteId(1L);
-        snapshot2.setDataSnapshot(LocalDate.of(2026, 2, 5));
-        snapshot2.setValorCarteira(new BigDecimal("2100.00"));
-        snapshot2.setValorInvestido(new BigDecimal("2000.00"));
-        snapshot2.setRentabilidade(new BigDecimal("5.00"));
-
-        SnapshotCarteira snapshot3 = new SnapshotCarteira();
-        snapshot3.setClienteId(1L);
-        snapshot3.setDataSnapshot(LocalDate.of(2026, 3, 5));
-        snapshot3.setValorCarteira(new BigDecimal("3300.00"));
-        snapshot3.setValorInvestido(new BigDecimal("3000.00"));
-        snapshot3.setRentabilidade(new BigDecimal("10.00"));
-
-        snapshots = Arrays.asList(snapshot1, snapshot2, snapshot3);
+        // Resumo mantido na gravação: soma dos valores investidos e último snapshot
+        resumo = criarResumo(LocalDate.of(2026, 3, 5), "6000.00", "3300.00");
 
         // Criar histórico de aportes
         historicoAportes = Arrays.asList(
@@ -94,25 +111,21 @@ class RentabilidadeServiceTest {
                 new HistoricoAportesResponseDTO(LocalDate.of(2026, 3, 5), new BigDecimal("1000.00"), "3/12")
         );
 
-        // Criar evoluções
+        // Criar evoluções, da mais recente para a mais antiga como na consulta
         evolucoes = Arrays.asList(
-                new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 1, 5), new BigDecimal("1000.00"), new BigDecimal("1000.00"), BigDecimal.ZERO),
+                new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 3, 5), new BigDecimal("3300.00"), new BigDecimal("3000.00"), new BigDecimal("10.00")),
                 new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 2, 5), new BigDecimal("2100.00"), new BigDecimal("2000.00"), new BigDecimal("5.00")),
-                new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 3, 5), new BigDecimal("3300.00"), new BigDecimal("3000.00"), new BigDecimal("10.00"))
+                new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 1, 5), new BigDecimal("1000.00"), new BigDecimal("1000.00"), BigDecimal.ZERO)
         );
     }
 
     @Test
     void deveConsultarRentabilidadeComSucesso() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertNotNull(resultado);
@@ -124,11 +137,89 @@ class RentabilidadeServiceTest {
         assertNotNull(resultado.evolucaoCarteira());
 
         verify(clienteRepository, times(1)).findByIdAndAtivo(1L);
-        verify(snapshotCarteiraRepository, times(1)).findAllByClienteId(1L);
-        verify(snapshotMapper, times(3)).mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class));
+        verify(resumosRentabilidade, times(1)).consultar(1L);
+        verify(snapshotCarteiraRepository, never()).findAllByClienteId(anyLong());
         verify(valoresFeignClient, times(1)).consultarHistoricoAportes(1L);
     }
 
+    @Test
+    void deveLerSnapshotsEmTransacaoSomenteLeituraEmParaleloComAportes() {
+        // Arrange
+        comSnapshotsDensos();
+        ArgumentCaptor<TransactionDefinition> definicao = ArgumentCaptor.forClass(TransactionDefinition.class);
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
+
+        // Assert
+        assertEquals(evolucoes, resultado.evolucaoCarteira());
+        assertEquals(historicoAportes, resultado.historicoAportes());
+        verify(transactionManager).getTransaction(definicao.capture());
+        assertTrue(definicao.getValue().isReadOnly());
+        verify(transactionManager).commit(any());
+        assertEquals(1, meterRegistry.get("chamadas.paralelas.etapa")
+                .tag("operacao", "rentabilidade").tag("etapa", "snapshots").timer().count());
+        assertEquals(1, meterRegistry.get("chamadas.paralelas.etapa")
+                .tag("operacao", "rentabilidade").tag("etapa", "aportes").timer().count());
+    }
+
+    @Test
+    void devePropagarFalhaDoHistoricoDeAportes() {
+        // Arrange
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
+        lenient().when(resumosRentabilidade.consultar(1L)).thenReturn(resumo);
+        lenient().when(snapshotCarteiraRepository.findEvolucao(eq(1L), any(), any(), any())).thenReturn(evolucoes);
+        when(valoresFeignClient.consultarHistoricoAportes(1L)).thenThrow(new IllegalStateException("SERVICO_VALORES_INDISPONIVEL"));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA));
+        assertEquals("SERVICO_VALORES_INDISPONIVEL", exception.getMessage());
+    }
+
+    @Test
+    void deveCalcularEtagPelaVersaoDosSnapshotsEPeloHistoricoDeAportes() {
+        // Arrange
+        VersaoSnapshotsDTO versao = new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0));
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(Optional.of(cliente));
+        when(snapshotCarteiraRepository.consultarVersao(1L)).thenReturn(versao);
+        when(valoresFeignClient.consultarHistoricoAportes(1L)).thenReturn(historicoAportes);
+
+        // Act
+        String etag = rentabilidadeService.calcularEtagRentabilidade(1L);
+
+        // Assert
+        assertEquals(geradorEtag.gerarParaRentabilidade(1L, versao, historicoAportes), etag);
+        verify(snapshotCarteiraRepository, never()).findEvolucao(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void deveMudarEtagQuandoNovoSnapshotForGerado() {
+        // Arrange
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(Optional.of(cliente));
+        when(snapshotCarteiraRepository.consultarVersao(1L))
+                .thenReturn(new VersaoSnapshotsDTO(3L, 30L, LocalDate.of(2026, 3, 5), LocalDateTime.of(2026, 3, 5, 20, 0)))
+                .thenReturn(new VersaoSnapshotsDTO(4L, 41L, LocalDate.of(2026, 4, 5), LocalDateTime.of(2026, 4, 5, 20, 0)));
+        when(valoresFeignClient.consultarHistoricoAportes(1L)).thenReturn(historicoAportes);
+
+        // Act
+        String etagAnterior = rentabilidadeService.calcularEtagRentabilidade(1L);
+        String etagAtual = rentabilidadeService.calcularEtagRentabilidade(1L);
+
+        // Assert
+        assertNotEquals(etagAnterior, etagAtual);
+    }
+
+    @Test
+    void deveLancarExcecaoAoCalcularEtagDeClienteNaoEncontrado() {
+        // Arrange
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RecursoNaoEncontradoException.class, () -> rentabilidadeService.calcularEtagRentabilidade(999L));
+        verifyNoInteractions(snapshotCarteiraRepository);
+    }
+
     @Test
     void deveLancarExcecaoQuandoClienteNaoEncontrado() {
         // Arrange
@@ -136,24 +227,20 @@ class RentabilidadeServiceTest {
 
         // Act & Assert
         assertThrows(RecursoNaoEncontradoException.class, () -> {
-            rentabilidadeService.consultarRentabilidade(999L);
+            rentabilidadeService.consultarRentabilidade(999L, FiltroEvolucaoDTO.COMPLETA);
         });
 
         verify(clienteRepository, times(1)).findByIdAndAtivo(999L);
-        verify(snapshotCarteiraRepository, never()).findAllByClienteId(anyLong());
+        verifyNoInteractions(snapshotCarteiraRepository);
     }
 
     @Test
     void deveRetornarRentabilidadeCorreta() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertNotNull(resultado.rentabilidade());
@@ -164,14 +251,10 @@ class RentabilidadeServiceTest {
     @Test
     void deveRetornarHistoricoAportesCompleto() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertNotNull(resultado.historicoAportes());
@@ -182,48 +265,50 @@ class RentabilidadeServiceTest {
     @Test
     void deveRetornarEvolucaoCarteiraCompleta() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertNotNull(resultado.evolucaoCarteira());
         assertEquals(3, resultado.evolucaoCarteira().size());
+        assertNull(resultado.proximaPagina());
     }
 
     @Test
     void deveCalcularValorTotalInvestidoCorretamente() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         BigDecimal valorTotalEsperado = new BigDecimal("6000.00"); // Soma dos valores investidos
         assertEquals(valorTotalEsperado, resultado.rentabilidade().valorTotalInvestido());
     }
 
+    @Test
+    void deveUsarResultadoMantidoNoResumo() {
+        // Arrange
+        comSnapshotsDensos();
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
+
+        // Assert
+        assertEquals(new BigDecimal("2700.00"), resultado.rentabilidade().plTotal());
+        verify(snapshotCarteiraRepository, never()).findFirstByClienteIdOrderByDataSnapshotDesc(anyLong());
+    }
+
     @Test
     void deveUsarUltimoSnapshotParaValorAtual() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         BigDecimal valorAtualEsperado = new BigDecimal("3300.00"); // Valor do último snapshot
@@ -231,32 +316,96 @@ class RentabilidadeServiceTest {
     }
 
     @Test
-    void deveChamarMapperParaCadaSnapshot() {
+    void deveConsultarEvolucaoCompletaPorProjecaoSemPaginacao() {
+        // Arrange
+        comSnapshotsDensos();
+
+        // Act
+        rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
+
+        // Assert
+        verify(snapshotCarteiraRepository, times(1))
+                .findEvolucao(1L, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31), Pageable.unpaged());
+    }
+
+    @Test
+    void devePaginarEvolucaoPorKeysetDentroDoPeriodo() {
+        // Arrange
+        comSnapshotsDensos();
+        FiltroEvolucaoDTO filtro = new FiltroEvolucaoDTO(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 3, 5), 1, ResolucaoEvolucao.DIARIA, null);
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 4), PageRequest.of(0, 2)))
+                .thenReturn(evolucoes.subList(1, 3));
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, filtro);
+
+        // Assert
+        assertEquals(List.of(evolucoes.get(1)), resultado.evolucaoCarteira());
+        assertEquals(LocalDate.of(2026, 2, 5), resultado.proximaPagina());
+        // O resumo continua sobre todo o histórico
+        assertEquals(new BigDecimal("6000.00"), resultado.rentabilidade().valorTotalInvestido());
+        assertEquals(new BigDecimal("3300.00"), resultado.rentabilidade().valorAtualCarteira());
+    }
+
+    @Test
+    void deveEncerrarPaginacaoNaUltimaPagina() {
+        // Arrange
+        comSnapshotsDensos();
+        FiltroEvolucaoDTO filtro = new FiltroEvolucaoDTO(null, null, LocalDate.of(2026, 2, 5), 5, ResolucaoEvolucao.DIARIA, null);
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(1900, 1, 1), LocalDate.of(2026, 2, 4), PageRequest.of(0, 6)))
+                .thenReturn(evolucoes.subList(2, 3));
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, filtro);
+
+        // Assert
+        assertEquals(1, resultado.evolucaoCarteira().size());
+        assertNull(resultado.proximaPagina());
+    }
+
+    @Test
+    void deveRejeitarLimiteDeEvolucaoInvalido() {
+        // Act & Assert
+        assertThrows(NegocioException.class,
+                () -> rentabilidadeService.consultarRentabilidade(1L, new FiltroEvolucaoDTO(null, null, null, 0, ResolucaoEvolucao.DIARIA, null)));
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, RentabilidadeService.LIMITE_MAXIMO_EVOLUCAO + 1, ResolucaoEvolucao.DIARIA, null)));
+        verifyNoInteractions(clienteRepository, snapshotCarteiraRepository, valoresFeignClient);
+    }
+
+    @Test
+    void deveRejeitarPeriodoDeEvolucaoInvertido() {
+        // Act & Assert
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 2, 1), null, null, ResolucaoEvolucao.DIARIA, null)));
+        verifyNoInteractions(clienteRepository, snapshotCarteiraRepository, valoresFeignClient);
+    }
+
+    @Test
+    void deveRetornarResumoZeradoSemSnapshots() {
         // Arrange
         when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
+        when(resumosRentabilidade.consultar(1L)).thenReturn(criarResumo(null, "0", "0"));
+        when(snapshotCarteiraRepository.findEvolucao(eq(1L), any(), any(), any())).thenReturn(List.of());
         when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
 
         // Act
-        rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
-        verify(snapshotMapper, times(3)).mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class));
+        assertEquals(BigDecimal.ZERO, resultado.rentabilidade().valorTotalInvestido());
+        assertEquals(BigDecimal.ZERO, resultado.rentabilidade().valorAtualCarteira());
+        assertEquals(BigDecimal.ZERO, resultado.rentabilidade().rentabilidadePercentual());
+        assertTrue(resultado.evolucaoCarteira().isEmpty());
     }
 
     @Test
     void deveChamarFeignClientParaHistoricoAportes() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        rentabilidadeService.consultarRentabilidade(1L);
+        rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         verify(valoresFeignClient, times(1)).consultarHistoricoAportes(1L);
@@ -265,16 +414,12 @@ class RentabilidadeServiceTest {
     @Test
     void deveRetornarDataConsultaAtual() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         LocalDateTime antes = LocalDateTime.now();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         LocalDateTime depois = LocalDateTime.now();
 
@@ -287,14 +432,10 @@ class RentabilidadeServiceTest {
     @Test
     void deveRetornarDadosDoClienteCorretamente() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertEquals(cliente.getId(), resultado.clienteId());
@@ -304,42 +445,275 @@ class RentabilidadeServiceTest {
     @Test
     void deveCalcularRentabilidadePercentualCorretamente() {
         // Arrange
-        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(snapshots);
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
-        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+        comSnapshotsDensos();
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
-        assertNotNull(resultado.rentabilidade().rentabilidadePercentual());
         // Rentabilidade esperada: (3300 - 6000) / 6000 * 100 = -45.00%
-        assertTrue(resultado.rentabilidade().rentabilidadePercentual().compareTo(BigDecimal.ZERO) != 0);
+        assertEquals(new BigDecimal("-45.00"), resultado.rentabilidade().rentabilidadePercentual());
     }
 
     @Test
     void deveRetornarRentabilidadeZeroQuandoValorInvestidoZero() {
         // Arrange
-        SnapshotCarteira snapshotZero = new SnapshotCarteira();
-        snapshotZero.setClienteId(1L);
-        snapshotZero.setDataSnapshot(LocalDate.of(2026, 1, 5));
-        snapshotZero.setValorCarteira(BigDecimal.ZERO);
-        snapshotZero.setValorInvestido(BigDecimal.ZERO);
-        snapshotZero.setRentabilidade(BigDecimal.ZERO);
-
         when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
-        when(snapshotCarteiraRepository.findAllByClienteId(anyLong())).thenReturn(List.of(snapshotZero));
-        when(snapshotMapper.mapearParaEvolucaoCarteiraResponseDTO(any(SnapshotCarteira.class)))
-                .thenReturn(new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 1, 5), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        when(resumosRentabilidade.consultar(1L)).thenReturn(criarResumo(LocalDate.of(2026, 1, 5), "0", "0"));
+        when(snapshotCarteiraRepository.findEvolucao(eq(1L), any(), any(), any()))
+                .thenReturn(List.of(new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 1, 5), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO)));
         when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
 
         // Act
-        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L);
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
 
         // Assert
         assertEquals(BigDecimal.ZERO, resultado.rentabilidade().rentabilidadePercentual());
     }
-}
 
+    @Test
+    void deveConsultarEvolucaoSobreSerieReconstruida() {
+        // Arrange
+        EvolucaoCarteiraResponseDTO levado = new EvolucaoCarteiraResponseDTO(LocalDate.of(2026, 3, 6),
+                new BigDecimal("3300.00"), new BigDecimal("3000.00"), new BigDecimal("10.00"));
+        List<EvolucaoCarteiraResponseDTO> serie = List.of(levado, evolucoes.get(0), evolucoes.get(1), evolucoes.get(2));
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
+        when(snapshotsEsparsos.reconstruir(1L, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(serie);
+        when(resumosRentabilidade.consultar(1L)).thenReturn(criarResumo(LocalDate.of(2026, 3, 6), "9000.00", "3300.00"));
+        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L, FiltroEvolucaoDTO.COMPLETA);
+
+        // Assert
+        assertEquals(new BigDecimal("9000.00"), resultado.rentabilidade().valorTotalInvestido());
+        assertEquals(new BigDecimal("3300.00"), resultado.rentabilidade().valorAtualCarteira());
+        assertEquals(serie, resultado.evolucaoCarteira());
+    }
+
+    @Test
+    void devePaginarSerieReconstruidaEmMemoria() {
+        // Arrange
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
+        // A série já vem recortada à janela consultada
+        when(snapshotsEsparsos.reconstruir(1L, LocalDate.of(1900, 1, 1), LocalDate.of(2026, 3, 5))).thenReturn(evolucoes);
+        when(resumosRentabilidade.consultar(1L)).thenReturn(criarResumo(LocalDate.of(2026, 3, 6), "9000.00", "3300.00"));
+        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, LocalDate.of(2026, 3, 5), null, 1, ResolucaoEvolucao.DIARIA, null));
+
+        // Assert
+        assertEquals(List.of(evolucoes.get(0)), resultado.evolucaoCarteira());
+        assertEquals(LocalDate.of(2026, 3, 5), resultado.proximaPagina());
+        assertEquals(new BigDecimal("9000.00"), resultado.rentabilidade().valorTotalInvestido());
+    }
+
+    @Test
+    void deveReduzirEvolucaoPorMesPercorrendoPaginas() {
+        // Arrange
+        comSnapshotsDensos();
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerieDiaria(LocalDate.of(2026, 3, 5), 600);
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31), PageRequest.of(0, 500)))
+                .thenReturn(serie.subList(0, 500));
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(1900, 1, 1), serie.get(499).data().minusDays(1), PageRequest.of(0, 500)))
+                .thenReturn(serie.subList(500, 600));
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.MENSAL, null));
+
+        // Assert
+        assertEquals(21, resultado.evolucaoCarteira().size());
+        assertEquals(serie.get(0), resultado.evolucaoCarteira().get(0));
+        assertEquals(LocalDate.of(2026, 2, 28), resultado.evolucaoCarteira().get(1).data());
+        assertNull(resultado.proximaPagina());
+        verify(snapshotCarteiraRepository, never()).countEvolucao(anyLong(), any(), any());
+    }
+
+    @Test
+    void deveReduzirEvolucaoPorLttbComPontosInformados() {
+        // Arrange
+        comSnapshotsDensos();
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerieDiaria(LocalDate.of(2026, 3, 5), 600);
+        when(snapshotCarteiraRepository.countEvolucao(1L, LocalDate.of(2026, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(600L);
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(2026, 1, 1), LocalDate.of(9999, 12, 31), PageRequest.of(0, 500)))
+                .thenReturn(serie.subList(0, 500));
+        when(snapshotCarteiraRepository.findEvolucao(1L, LocalDate.of(2026, 1, 1), serie.get(499).data().minusDays(1), PageRequest.of(0, 500)))
+                .thenReturn(serie.subList(500, 600));
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(LocalDate.of(2026, 1, 1), null, null, null, ResolucaoEvolucao.LTTB, 50));
+
+        // Assert
+        assertEquals(50, resultado.evolucaoCarteira().size());
+        assertEquals(serie.get(0), resultado.evolucaoCarteira().get(0));
+        assertEquals(serie.get(599), resultado.evolucaoCarteira().get(49));
+    }
+
+    @Test
+    void deveReduzirSerieReconstruidaQuandoEsparso() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> serie = criarSerieDiaria(LocalDate.of(2026, 3, 5), 100);
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
+        when(snapshotsEsparsos.reconstruir(1L, LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(serie);
+        when(resumosRentabilidade.consultar(1L)).thenReturn(resumo);
+        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.LTTB, 10));
+
+        // Assert
+        assertEquals(10, resultado.evolucaoCarteira().size());
+        verify(snapshotCarteiraRepository, never()).countEvolucao(anyLong(), any(), any());
+    }
+
+    @Test
+    void deveLerEvolucaoDaSerieEmMemoriaQuandoHabilitada() {
+        // Arrange
+        comSnapshotsDensos();
+        SeriesCarteiraMemoria.Serie serie = mock(SeriesCarteiraMemoria.Serie.class);
+        when(seriesCarteiraMemoria.isHabilitado()).thenReturn(true);
+        when(seriesCarteiraMemoria.obter(1L)).thenReturn(serie);
+        when(serie.evolucao(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 4), 2L)).thenReturn(evolucoes.subList(1, 3));
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(LocalDate.of(2026, 1, 1), null, LocalDate.of(2026, 3, 5), 1, ResolucaoEvolucao.DIARIA, null));
+
+        // Assert
+        assertEquals(List.of(evolucoes.get(1)), resultado.evolucaoCarteira());
+        assertEquals(LocalDate.of(2026, 2, 5), resultado.proximaPagina());
+        verify(snapshotCarteiraRepository, never()).findEvolucao(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void deveReduzirSerieEmMemoriaSemConsultarOBanco() {
+        // Arrange
+        comSnapshotsDensos();
+        List<EvolucaoCarteiraResponseDTO> pontos = criarSerieDiaria(LocalDate.of(2026, 3, 5), 600);
+        SeriesCarteiraMemoria.Serie serie = mock(SeriesCarteiraMemoria.Serie.class);
+        when(seriesCarteiraMemoria.isHabilitado()).thenReturn(true);
+        when(seriesCarteiraMemoria.obter(1L)).thenReturn(serie);
+        when(serie.iterar(LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(pontos.iterator());
+        when(serie.contar(LocalDate.of(1900, 1, 1), LocalDate.of(9999, 12, 31))).thenReturn(600L);
+
+        // Act
+        RentabilidadeResponseDTO resultado = rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.LTTB, 30));
+
+        // Assert
+        assertEquals(30, resultado.evolucaoCarteira().size());
+        verify(snapshotCarteiraRepository, never()).findEvolucao(anyLong(), any(), any(), any());
+        verify(snapshotCarteiraRepository, never()).countEvolucao(anyLong(), any(), any());
+    }
+
+    @Test
+    void deveRejeitarPaginacaoComResolucaoReduzida() {
+        // Act & Assert
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, 10, ResolucaoEvolucao.SEMANAL, null)));
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, LocalDate.of(2026, 3, 1), null, ResolucaoEvolucao.LTTB, null)));
+        verifyNoInteractions(clienteRepository, snapshotCarteiraRepository, valoresFeignClient);
+    }
+
+    @Test
+    void deveRejeitarPontosDeEvolucaoInvalidos() {
+        // Act & Assert
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.LTTB, 2)));
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.LTTB, RentabilidadeService.LIMITE_MAXIMO_EVOLUCAO + 1)));
+        assertThrows(NegocioException.class, () -> rentabilidadeService.consultarRentabilidade(1L,
+                new FiltroEvolucaoDTO(null, null, null, null, ResolucaoEvolucao.MENSAL, 50)));
+        verifyNoInteractions(clienteRepository, snapshotCarteiraRepository, valoresFeignClient);
+    }
+
+    @Test
+    void deveConsultarRentabilidadeNaDataPeloUltimoSnapshotAteEla() {
+        // Arrange
+        LocalDate data = LocalDate.of(2026, 2, 28);
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(1L);
+        snapshot.setDataSnapshot(LocalDate.of(2026, 2, 27));
+        snapshot.setValorCarteira(new BigDecimal("2100.00"));
+        snapshot.setValorInvestido(new BigDecimal("2000.00"));
+        snapshot.setRentabilidade(new BigDecimal("5.00"));
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(Optional.of(cliente));
+        when(snapshotCarteiraRepository.findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(1L, data))
+                .thenReturn(Optional.of(snapshot));
+
+        // Act
+        RentabilidadeNaDataResponseDTO resultado = rentabilidadeService.consultarRentabilidadeNaData(1L, data);
+
+        // Assert
+        assertEquals(1L, resultado.clienteId());
+        assertEquals("João Silva", resultado.nome());
+        assertEquals(data, resultado.dataReferencia());
+        assertEquals(LocalDate.of(2026, 2, 27), resultado.dataSnapshot());
+        assertEquals(new BigDecimal("2000.00"), resultado.rentabilidade().valorTotalInvestido());
+        assertEquals(new BigDecimal("2100.00"), resultado.rentabilidade().valorAtualCarteira());
+        assertEquals(new BigDecimal("100.00"), resultado.rentabilidade().plTotal());
+        assertEquals(new BigDecimal("5.00"), resultado.rentabilidade().rentabilidadePercentual());
+
+        // Uma única busca no índice: nem a série, nem o resumo, nem o Serviço de Valores
+        verify(snapshotCarteiraRepository, never()).findEvolucao(anyLong(), any(), any(), any());
+        verifyNoInteractions(resumosRentabilidade, valoresFeignClient, seriesCarteiraMemoria);
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoNaoHaSnapshotAteAData() {
+        // Arrange
+        LocalDate data = LocalDate.of(2025, 12, 31);
+        when(clienteRepository.findByIdAndAtivo(1L)).thenReturn(Optional.of(cliente));
+        when(snapshotCarteiraRepository.findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(1L, data))
+                .thenReturn(Optional.empty());
+
+        // Act & Assert
+        RecursoNaoEncontradoException exception = assertThrows(RecursoNaoEncontradoException.class,
+                () -> rentabilidadeService.consultarRentabilidadeNaData(1L, data));
+        assertEquals("SNAPSHOT_NAO_ENCONTRADO", exception.getMessage());
+    }
+
+    @Test
+    void deveLancarExcecaoNaDataQuandoClienteNaoEncontrado() {
+        // Arrange
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(RecursoNaoEncontradoException.class,
+                () -> rentabilidadeService.consultarRentabilidadeNaData(999L, LocalDate.of(2026, 2, 28)));
+        verifyNoInteractions(snapshotCarteiraRepository);
+    }
+
+    private void comSnapshotsDensos() {
+        when(clienteRepository.findByIdAndAtivo(anyLong())).thenReturn(Optional.of(cliente));
+        when(resumosRentabilidade.consultar(1L)).thenReturn(resumo);
+        lenient().when(snapshotCarteiraRepository.findEvolucao(eq(1L), any(), any(), any())).thenReturn(evolucoes);
+        when(valoresFeignClient.consultarHistoricoAportes(anyLong())).thenReturn(historicoAportes);
+    }
+
+    private ResumoRentabilidade criarResumo(LocalDate dataSnapshot, String valorTotalInvestido, String valorAtual) {
+        ResumoRentabilidade resumoRentabilidade = new ResumoRentabilidade();
+        resumoRentabilidade.setClienteId(1L);
+        resumoRentabilidade.setDataSnapshot(dataSnapshot);
+        resumoRentabilidade.setValorTotalInvestido(new BigDecimal(valorTotalInvestido));
+        resumoRentabilidade.setValorAtual(new BigDecimal(valorAtual));
+        resumoRentabilidade.setPlTotal(new BigDecimal(valorTotalInvestido).subtract(new BigDecimal(valorAtual)));
+        return resumoRentabilidade;
+    }
+
+    private List<EvolucaoCarteiraResponseDTO> criarSerieDiaria(LocalDate ultimaData, int dias) {
+        return IntStream.range(0, dias)
+                .mapToObj(i -> new EvolucaoCarteiraResponseDTO(ultimaData.minusDays(i),
+                        BigDecimal.valueOf(1000 + (i % 7) * 10L), new BigDecimal("1000.00"), BigDecimal.ZERO))
+                .toList();
+    }
+}
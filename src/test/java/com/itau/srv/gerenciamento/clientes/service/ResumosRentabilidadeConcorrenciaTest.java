@@ -0,0 +1,154 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.model.Cliente;
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ResumoRentabilidadeRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lotes de duas datas diferentes gravando ao mesmo tempo os snapshots do mesmo cliente: o primeiro segura a transação
+ * aberta depois de atualizar o resumo, e o segundo precisa esperar por ele em vez de sobrescrever a soma.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class ResumosRentabilidadeConcorrenciaTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 2);
+    private static final long ESPERA_COM_TRAVA_MS = 200L;
+
+    @Autowired
+    private ResumosRentabilidade resumosRentabilidade;
+
+    @Autowired
+    private ResumoRentabilidadeRepository resumoRentabilidadeRepository;
+
+    @Autowired
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService executor;
+    private Long clienteId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newFixedThreadPool(2);
+
+        Cliente cliente = new Cliente();
+        cliente.setNome("João Silva");
+        cliente.setCpf("12345678901");
+        cliente.setEmail("joao@email.com");
+        cliente.setValorMensal(new BigDecimal("300.00"));
+        clienteId = clienteRepository.save(cliente).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        resumoRentabilidadeRepository.deleteAll();
+        snapshotCarteiraRepository.deleteAll();
+        clienteRepository.deleteAll();
+    }
+
+    @Test
+    void naoDevePerderSomaDeLoteConcorrenteDeOutraData() throws Exception {
+        // Arrange
+        gravar(DATA, "1000.00", "1000.00");
+
+        // Act
+        gravarEmParalelo(DATA.plusDays(1), DATA.plusDays(2));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoRentabilidadeRepository.findById(clienteId).orElseThrow();
+        assertEquals(0, new BigDecimal("3000.00").compareTo(resumo.getValorTotalInvestido()));
+        assertEquals(DATA.plusDays(2), resumo.getDataSnapshot());
+    }
+
+    @Test
+    void naoDeveInserirOMesmoResumoEmLotesConcorrentes() throws Exception {
+        // Act
+        gravarEmParalelo(DATA.plusDays(1), DATA.plusDays(2));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoRentabilidadeRepository.findById(clienteId).orElseThrow();
+        assertEquals(0, new BigDecimal("2000.00").compareTo(resumo.getValorTotalInvestido()));
+        assertEquals(DATA.plusDays(2), resumo.getDataSnapshot());
+    }
+
+    private void gravarEmParalelo(LocalDate primeiraData, LocalDate segundaData) throws Exception {
+        CountDownLatch primeiroAtualizou = new CountDownLatch(1);
+
+        Future<?> primeiro = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            resumosRentabilidade.atualizar(List.of(salvarSnapshot(primeiraData, "1000.00", "1000.00")));
+            primeiroAtualizou.countDown();
+            esperar(ESPERA_COM_TRAVA_MS);
+        }));
+        Future<?> segundo = executor.submit(() -> {
+            esperar(primeiroAtualizou);
+            gravar(segundaData, "1100.00", "1000.00");
+        });
+
+        primeiro.get(10, TimeUnit.SECONDS);
+        segundo.get(10, TimeUnit.SECONDS);
+    }
+
+    private void gravar(LocalDate data, String valorCarteira, String valorInvestido) {
+        transactionTemplate.executeWithoutResult(status ->
+                resumosRentabilidade.atualizar(List.of(salvarSnapshot(data, valorCarteira, valorInvestido))));
+    }
+
+    private SnapshotCarteira salvarSnapshot(LocalDate data, String valorCarteira, String valorInvestido) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(data);
+        snapshot.setValorCarteira(new BigDecimal(valorCarteira));
+        snapshot.setValorInvestido(new BigDecimal(valorInvestido));
+        snapshot.setRentabilidade(BigDecimal.ZERO);
+        return snapshotCarteiraRepository.save(snapshot);
+    }
+
+    private void esperar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void esperar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.TotalInvestidoDTO;
+import com.itau.srv.gerenciamento.clientes.model.ResumoRentabilidade;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ResumoRentabilidadeRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumosRentabilidadeTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 6);
+    private static final LocalDateTime AGORA = LocalDateTime.of(2026, 3, 6, 22, 0);
+
+    @Mock
+    private ResumoRentabilidadeRepository resumoRentabilidadeRepository;
+
+    @Mock
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private SnapshotsEsparsos snapshotsEsparsos;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ResumosRentabilidade resumosRentabilidade;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(AGORA.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        resumosRentabilidade = new ResumosRentabilidade(resumoRentabilidadeRepository, snapshotCarteiraRepository, clienteRepository,
+                snapshotsEsparsos, new TransactionTemplate(transactionManager), clock, 2);
+    }
+
+    @Test
+    void deveSomarSnapshotDeNovaDataAoResumo() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L)))
+                .thenReturn(List.of(criarResumo(1L, DATA.minusDays(1), "1000.00", "900.00", "1000.00")));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA, "1100.00", "1000.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(DATA, resumo.getDataSnapshot());
+        assertEquals(new BigDecimal("2000.00"), resumo.getValorTotalInvestido());
+        assertEquals(new BigDecimal("1100.00"), resumo.getValorAtual());
+        assertEquals(new BigDecimal("1000.00"), resumo.getValorInvestidoAtual());
+        assertEquals(new BigDecimal("900.00"), resumo.getPlTotal());
+        assertEquals(AGORA, resumo.getDataAtualizacao());
+        verifyNoInteractions(snapshotCarteiraRepository);
+    }
+
+    @Test
+    void deveSubstituirUltimoSnapshotQuandoAMesmaDataECalculadaNovamente() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L)))
+                .thenReturn(List.of(criarResumo(1L, DATA, "2000.00", "1100.00", "1000.00")));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA, "1300.00", "1200.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(new BigDecimal("2200.00"), resumo.getValorTotalInvestido());
+        assertEquals(new BigDecimal("1300.00"), resumo.getValorAtual());
+        assertEquals(new BigDecimal("1200.00"), resumo.getValorInvestidoAtual());
+    }
+
+    @Test
+    void deveSomarDataAnteriorSemAlterarValorAtual() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L)))
+                .thenReturn(List.of(criarResumo(1L, DATA, "2000.00", "1100.00", "1000.00")));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA.minusDays(3), "800.00", "700.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(DATA, resumo.getDataSnapshot());
+        assertEquals(new BigDecimal("2700.00"), resumo.getValorTotalInvestido());
+        assertEquals(new BigDecimal("1100.00"), resumo.getValorAtual());
+        assertEquals(new BigDecimal("1600.00"), resumo.getPlTotal());
+    }
+
+    @Test
+    void deveCalcularResumoAusenteAPartirDosSnapshotsJaGravados() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L, 2L))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.somarValorInvestidoPorCliente(List.of(1L, 2L)))
+                .thenReturn(List.of(new TotalInvestidoDTO(1L, new BigDecimal("3000.00")), new TotalInvestidoDTO(2L, new BigDecimal("500.00"))));
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L, 2L)))
+                .thenReturn(List.of(criarSnapshot(1L, DATA, "3300.00", "1000.00"), criarSnapshot(2L, DATA, "550.00", "500.00")));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA, "3300.00", "1000.00"), criarSnapshot(2L, DATA, "550.00", "500.00")));
+
+        // Assert
+        List<ResumoRentabilidade> resumos = resumosGravados();
+        ResumoRentabilidade primeiro = resumos.stream().filter(resumo -> resumo.getClienteId() == 1L).findFirst().orElseThrow();
+        assertEquals(2, resumos.size());
+        assertEquals(new BigDecimal("3000.00"), primeiro.getValorTotalInvestido());
+        assertEquals(new BigDecimal("3300.00"), primeiro.getValorAtual());
+        assertEquals(new BigDecimal("-300.00"), primeiro.getPlTotal());
+    }
+
+    @Test
+    void deveSomarSnapshotOmitidoPeloArmazenamentoEsparsoAoCalcularResumoAusente() {
+        // Arrange: o último ponto gravado é levado adiante até a última data gerada
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.somarValorInvestidoDaSeriePorCliente(List.of(1L), StatusExecucaoSnapshot.CONCLUIDA,
+                RentabilidadeService.FIM_EVOLUCAO)).thenReturn(List.of(new TotalInvestidoDTO(1L, new BigDecimal("2000.00"))));
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L))).thenReturn(List.of(criarSnapshot(1L, DATA.minusDays(2), "1100.00", "1000.00")));
+        when(snapshotsEsparsos.ultimaDataGerada(1L)).thenReturn(DATA.minusDays(1));
+        when(snapshotsEsparsos.clientesComData(DATA, Set.of(1L))).thenReturn(Set.of());
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA, "1000.00", "900.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(DATA, resumo.getDataSnapshot());
+        assertEquals(new BigDecimal("2900.00"), resumo.getValorTotalInvestido());
+        verify(snapshotCarteiraRepository, never()).somarValorInvestidoPorCliente(any());
+        verify(snapshotCarteiraRepository, never()).findEvolucao(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void deveRecalcularPelaSerieAoReprocessarDataAnteriorNoArmazenamentoEsparso() {
+        // Arrange: a data reprocessada já levava adiante o ponto anterior e já estava no total
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L)))
+                .thenReturn(List.of(criarResumo(1L, DATA, "3000.00", "1100.00", "1000.00")));
+        when(snapshotCarteiraRepository.somarValorInvestidoDaSeriePorCliente(List.of(1L), StatusExecucaoSnapshot.CONCLUIDA,
+                RentabilidadeService.FIM_EVOLUCAO)).thenReturn(List.of(new TotalInvestidoDTO(1L, new BigDecimal("3000.00"))));
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L))).thenReturn(List.of(criarSnapshot(1L, DATA, "1100.00", "1000.00")));
+        when(snapshotsEsparsos.ultimaDataGerada(1L)).thenReturn(DATA);
+        when(snapshotsEsparsos.clientesComData(DATA.minusDays(1), Set.of(1L))).thenReturn(Set.of(1L));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA.minusDays(1), "1100.00", "1000.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(DATA, resumo.getDataSnapshot());
+        assertEquals(new BigDecimal("3000.00"), resumo.getValorTotalInvestido());
+        assertEquals(new BigDecimal("1100.00"), resumo.getValorAtual());
+    }
+
+    @Test
+    void deveSomarDataAnteriorForaDaSerieAoRecalcularNoArmazenamentoEsparso() {
+        // Arrange: data que faltava, sem ponto gravado e ainda não coberta pelo checkpoint da execução
+        when(snapshotsEsparsos.isHabilitado()).thenReturn(true);
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L)))
+                .thenReturn(List.of(criarResumo(1L, DATA, "2000.00", "1100.00", "1000.00")));
+        when(snapshotCarteiraRepository.somarValorInvestidoDaSeriePorCliente(List.of(1L), StatusExecucaoSnapshot.CONCLUIDA,
+                RentabilidadeService.FIM_EVOLUCAO)).thenReturn(List.of(new TotalInvestidoDTO(1L, new BigDecimal("2000.00"))));
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L))).thenReturn(List.of(criarSnapshot(1L, DATA, "1100.00", "1000.00")));
+        when(snapshotsEsparsos.ultimaDataGerada(1L)).thenReturn(DATA);
+        when(snapshotsEsparsos.clientesComData(DATA.minusDays(1), Set.of(1L))).thenReturn(Set.of());
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(1L, DATA.minusDays(1), "1100.00", "1000.00")));
+
+        // Assert
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(DATA, resumo.getDataSnapshot());
+        assertEquals(new BigDecimal("3000.00"), resumo.getValorTotalInvestido());
+    }
+
+    @Test
+    void deveTravarClientesEmOrdemAntesDeLerOsResumos() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findAllByClienteIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(criarResumo(1L, DATA.minusDays(1), "1000.00", "900.00", "1000.00"),
+                        criarResumo(2L, DATA.minusDays(1), "500.00", "450.00", "500.00")));
+
+        // Act
+        resumosRentabilidade.atualizar(List.of(criarSnapshot(2L, DATA, "550.00", "500.00"), criarSnapshot(1L, DATA, "1100.00", "1000.00")));
+
+        // Assert
+        InOrder ordem = inOrder(clienteRepository, resumoRentabilidadeRepository);
+        ordem.verify(clienteRepository).travarPorIds(List.of(1L, 2L));
+        ordem.verify(resumoRentabilidadeRepository).findAllByClienteIdIn(List.of(1L, 2L));
+        ordem.verify(resumoRentabilidadeRepository).saveAll(anyCollection());
+    }
+
+    @Test
+    void deveCalcularResumoAusenteNaConsultaSemGravar() {
+        // Arrange
+        when(resumoRentabilidadeRepository.findById(1L)).thenReturn(Optional.empty());
+        when(snapshotCarteiraRepository.somarValorInvestidoPorCliente(List.of(1L))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L))).thenReturn(Collections.emptyList());
+
+        // Act
+        ResumoRentabilidade resumo = resumosRentabilidade.consultar(1L);
+
+        // Assert
+        assertNull(resumo.getDataSnapshot());
+        assertEquals(BigDecimal.ZERO, resumo.getValorTotalInvestido());
+        assertEquals(BigDecimal.ZERO, resumo.getValorAtual());
+        verify(resumoRentabilidadeRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void deveCalcularResumosPendentesEmLotesComTransacaoPropria() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosSemResumoAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosSemResumoAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(5L));
+        when(clienteRepository.findIdsAtivosSemResumoAposId(eq(5L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.somarValorInvestidoPorCliente(any())).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.findUltimos(any())).thenReturn(Collections.emptyList());
+
+        // Act
+        int recalculados = resumosRentabilidade.recalcularPendentes();
+
+        // Assert
+        assertEquals(3, recalculados);
+        verify(resumoRentabilidadeRepository, times(2)).saveAll(anyList());
+        verify(clienteRepository).travarPorIds(List.of(1L, 2L));
+        verify(clienteRepository).travarPorIds(List.of(5L));
+        verify(transactionManager, times(2)).commit(any());
+        verify(clienteRepository, never()).findIdsAtivosAposId(anyLong(), any());
+    }
+
+    @Test
+    void deveRecalcularResumosDeTodosOsClientesAtivos() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        when(clienteRepository.findIdsAtivosAposId(eq(1L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.somarValorInvestidoPorCliente(List.of(1L)))
+                .thenReturn(List.of(new TotalInvestidoDTO(1L, new BigDecimal("1500.00"))));
+        when(snapshotCarteiraRepository.findUltimos(List.of(1L))).thenReturn(List.of(criarSnapshot(1L, DATA, "1600.00", "1000.00")));
+
+        // Act
+        int recalculados = resumosRentabilidade.recalcularTodos();
+
+        // Assert
+        assertEquals(1, recalculados);
+        ResumoRentabilidade resumo = resumoGravado();
+        assertEquals(new BigDecimal("1500.00"), resumo.getValorTotalInvestido());
+        assertEquals(new BigDecimal("1600.00"), resumo.getValorAtual());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ResumoRentabilidade> resumosGravados() {
+        ArgumentCaptor<Collection<ResumoRentabilidade>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(resumoRentabilidadeRepository).saveAll(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private ResumoRentabilidade resumoGravado() {
+        List<ResumoRentabilidade> resumos = resumosGravados();
+        assertEquals(1, resumos.size());
+        return resumos.get(0);
+    }
+
+    private ResumoRentabilidade criarResumo(Long clienteId, LocalDate data, String valorTotalInvestido, String valorAtual,
+                                           String valorInvestidoAtual) {
+        ResumoRentabilidade resumo = new ResumoRentabilidade();
+        resumo.setClienteId(clienteId);
+        resumo.setDataSnapshot(data);
+        resumo.setValorTotalInvestido(new BigDecimal(valorTotalInvestido));
+        resumo.setValorAtual(new BigDecimal(valorAtual));
+        resumo.setValorInvestidoAtual(new BigDecimal(valorInvestidoAtual));
+        resumo.setPlTotal(new BigDecimal(valorTotalInvestido).subtract(new BigDecimal(valorAtual)));
+        return resumo;
+    }
+
+
+    private SnapshotCarteira criarSnapshot(Long clienteId, LocalDate data, String valorCarteira, String valorInvestido) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(data);
+        snapshot.setValorCarteira(new BigDecimal(valorCarteira));
+        snapshot.setValorInvestido(new BigDecimal(valorInvestido));
+        snapshot.setRentabilidade(new BigDecimal("10.00"));
+        return snapshot;
+    }
+}
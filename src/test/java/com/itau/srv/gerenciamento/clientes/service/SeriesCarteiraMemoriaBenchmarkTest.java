@@ -0,0 +1,116 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.enums.ResolucaoEvolucao;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mede com JMH ({@link GCProfiler}) os bytes alocados por consulta ao ler a evolução de um cliente com 5 anos de
+ * snapshots diários a partir das séries em memória. Executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeriesCarteiraMemoriaBenchmarkTest {
+
+    private static final int DIAS = 5 * 365 + 1;
+    private static final LocalDate ULTIMA_DATA = LocalDate.of(2026, 3, 5);
+
+    private SeriesCarteiraMemoria.Serie serie;
+    private AmostradorEvolucao amostradorEvolucao;
+
+    @Setup
+    public void preparar() {
+        int[] dias = new int[DIAS];
+        long[] valoresCarteira = new long[DIAS];
+        long[] valoresInvestidos = new long[DIAS];
+        int[] rentabilidades = new int[DIAS];
+
+        for (int i = 0; i < DIAS; i++) {
+            dias[i] = (int) ULTIMA_DATA.minusDays(DIAS - 1L - i).toEpochDay();
+            valoresCarteira[i] = 100_000L + (i % 37) * 1_000L;
+            valoresInvestidos[i] = 100_000L + i * 100L;
+            rentabilidades[i] = (int) SeriesCarteiraMemoria.escalar(BigDecimal.valueOf(i % 37 - 18));
+        }
+
+        serie = new SeriesCarteiraMemoria.Serie(dias, valoresCarteira, valoresInvestidos, rentabilidades);
+        amostradorEvolucao = new AmostradorEvolucao();
+    }
+
+    @Benchmark
+    public List<EvolucaoCarteiraResponseDTO> paginaDeCemPontos() {
+        return serie.evolucao(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO, 101);
+    }
+
+    @Benchmark
+    public List<EvolucaoCarteiraResponseDTO> serieCompleta() {
+        return serie.evolucao(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<EvolucaoCarteiraResponseDTO> lttbDeCentoEVintePontos() {
+        return amostradorEvolucao.amostrar(serie.iterar(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO),
+                ResolucaoEvolucao.LTTB, serie.contar(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO),
+                RentabilidadeService.PONTOS_PADRAO_LTTB);
+    }
+
+    @Test
+    void deveMedirAlocacaoPorConsulta() throws RunnerException {
+        Collection<RunResult> resultados = new Runner(new OptionsBuilder()
+                .include(SeriesCarteiraMemoriaBenchmarkTest.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        Map<String, Double> bytesPorConsulta = new HashMap<>();
+        for (RunResult resultado : resultados) {
+            String benchmark = resultado.getParams().getBenchmark();
+            String metodo = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+
+            for (Map.Entry<String, Result> secundario : resultado.getSecondaryResults().entrySet()) {
+                if (secundario.getKey().endsWith("gc.alloc.rate.norm")) {
+                    bytesPorConsulta.put(metodo, secundario.getValue().getScore());
+                }
+            }
+
+            log.info("Evolução em memória ({}): {} us/consulta, {} bytes alocados/consulta", metodo,
+                    resultado.getPrimaryResult().getScore(), bytesPorConsulta.get(metodo));
+        }
+
+        assertEquals(3, bytesPorConsulta.size());
+        // Só os pontos devolvidos geram objetos: a série em arrays primitivos não é copiada na leitura
+        assertTrue(bytesPorConsulta.get("paginaDeCemPontos") < bytesPorConsulta.get("serieCompleta"));
+    }
+}
@@ -0,0 +1,170 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeriesCarteiraMemoriaTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SeriesCarteiraMemoria seriesCarteiraMemoria;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        seriesCarteiraMemoria = new SeriesCarteiraMemoria(snapshotCarteiraRepository, meterRegistry, true, 1, 60000L);
+    }
+
+    @Test
+    void deveCarregarSerieDoBancoApenasNaPrimeiraConsulta() {
+        // Arrange
+        comSerieNoBanco(1L, List.of(criarEvolucao(D1.plusDays(1), "1100.00"), criarEvolucao(D1, "1000.00")));
+
+        // Act
+        seriesCarteiraMemoria.obter(1L);
+        SeriesCarteiraMemoria.Serie serie = seriesCarteiraMemoria.obter(1L);
+
+        // Assert
+        assertEquals(2, serie.tamanho());
+        verify(snapshotCarteiraRepository, times(1)).findEvolucao(1L, RentabilidadeService.INICIO_EVOLUCAO,
+                RentabilidadeService.FIM_EVOLUCAO, Pageable.unpaged());
+    }
+
+    @Test
+    void deveDevolverEvolucaoDoPeriodoDaMaisRecenteParaAMaisAntiga() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> pontos = List.of(criarEvolucao(D1.plusDays(3), "1300.00"),
+                criarEvolucao(D1.plusDays(2), "1200.00"), criarEvolucao(D1.plusDays(1), "1100.50"), criarEvolucao(D1, "1000.00"));
+        comSerieNoBanco(1L, pontos);
+        SeriesCarteiraMemoria.Serie serie = seriesCarteiraMemoria.obter(1L);
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> completa = serie.evolucao(RentabilidadeService.INICIO_EVOLUCAO,
+                RentabilidadeService.FIM_EVOLUCAO, Long.MAX_VALUE);
+        List<EvolucaoCarteiraResponseDTO> pagina = serie.evolucao(D1.plusDays(1), D1.plusDays(2), 1);
+
+        // Assert
+        assertEquals(pontos, completa);
+        assertEquals(List.of(pontos.get(1)), pagina);
+        assertEquals(2, serie.contar(D1.plusDays(1), D1.plusDays(2)));
+        assertEquals(0, serie.contar(D1.plusDays(10), D1.plusDays(20)));
+    }
+
+    @Test
+    void deveIterarPeloPeriodoSemMontarALista() {
+        // Arrange
+        List<EvolucaoCarteiraResponseDTO> pontos = List.of(criarEvolucao(D1.plusDays(2), "1200.00"),
+                criarEvolucao(D1.plusDays(1), "1100.00"), criarEvolucao(D1, "1000.00"));
+        comSerieNoBanco(1L, pontos);
+
+        // Act
+        Iterator<EvolucaoCarteiraResponseDTO> iterador = seriesCarteiraMemoria.obter(1L).iterar(D1, D1.plusDays(1));
+        List<EvolucaoCarteiraResponseDTO> lidos = new ArrayList<>();
+        iterador.forEachRemaining(lidos::add);
+
+        // Assert
+        assertEquals(pontos.subList(1, 3), lidos);
+    }
+
+    @Test
+    void deveLevarSnapshotsGravadosApenasASeriesCarregadas() {
+        // Arrange
+        comSerieNoBanco(1L, List.of(criarEvolucao(D1, "1000.00")));
+        seriesCarteiraMemoria.obter(1L);
+
+        // Act
+        seriesCarteiraMemoria.registrar(List.of(criarSnapshot(1L, D1.plusDays(1), "1100.00"), criarSnapshot(2L, D1.plusDays(1), "500.00")));
+        SeriesCarteiraMemoria.Serie serie = seriesCarteiraMemoria.obter(1L);
+
+        // Assert
+        assertEquals(List.of(criarEvolucao(D1.plusDays(1), "1100.00"), criarEvolucao(D1, "1000.00")),
+                serie.evolucao(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO, Long.MAX_VALUE));
+        verify(snapshotCarteiraRepository, never()).findEvolucao(eq(2L), any(), any(), any());
+    }
+
+    @Test
+    void deveSubstituirDataExistenteEInserirDataAnterior() {
+        // Arrange
+        comSerieNoBanco(1L, List.of(criarEvolucao(D1.plusDays(2), "1200.00"), criarEvolucao(D1, "1000.00")));
+        seriesCarteiraMemoria.obter(1L);
+
+        // Act
+        seriesCarteiraMemoria.registrar(List.of(criarSnapshot(1L, D1.plusDays(2), "1250.00")));
+        seriesCarteiraMemoria.registrar(List.of(criarSnapshot(1L, D1.plusDays(1), "1100.00")));
+        SeriesCarteiraMemoria.Serie serie = seriesCarteiraMemoria.obter(1L);
+
+        // Assert
+        assertEquals(List.of(criarEvolucao(D1.plusDays(2), "1250.00"), criarEvolucao(D1.plusDays(1), "1100.00"),
+                        criarEvolucao(D1, "1000.00")),
+                serie.evolucao(RentabilidadeService.INICIO_EVOLUCAO, RentabilidadeService.FIM_EVOLUCAO, Long.MAX_VALUE));
+    }
+
+    @Test
+    void deveRecarregarSeriesDepoisDeLimpar() {
+        // Arrange
+        comSerieNoBanco(1L, List.of(criarEvolucao(D1, "1000.00")));
+        seriesCarteiraMemoria.obter(1L);
+
+        // Act
+        seriesCarteiraMemoria.limpar();
+        seriesCarteiraMemoria.obter(1L);
+
+        // Assert
+        verify(snapshotCarteiraRepository, times(2)).findEvolucao(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void deveIgnorarGravacoesQuandoDesabilitado() {
+        // Arrange
+        SeriesCarteiraMemoria desabilitado = new SeriesCarteiraMemoria(snapshotCarteiraRepository, meterRegistry, false, 1, 60000L);
+
+        // Act
+        desabilitado.registrar(List.of(criarSnapshot(1L, D1, "1000.00")));
+        desabilitado.limpar();
+
+        // Assert
+        assertFalse(desabilitado.isHabilitado());
+        verifyNoInteractions(snapshotCarteiraRepository);
+    }
+
+    private void comSerieNoBanco(Long clienteId, List<EvolucaoCarteiraResponseDTO> pontos) {
+        when(snapshotCarteiraRepository.findEvolucao(clienteId, RentabilidadeService.INICIO_EVOLUCAO,
+                RentabilidadeService.FIM_EVOLUCAO, Pageable.unpaged())).thenReturn(pontos);
+    }
+
+    private EvolucaoCarteiraResponseDTO criarEvolucao(LocalDate data, String valorCarteira) {
+        return new EvolucaoCarteiraResponseDTO(data, new BigDecimal(valorCarteira), new BigDecimal("1000.00"), new BigDecimal("-1.25"));
+    }
+
+    private SnapshotCarteira criarSnapshot(Long clienteId, LocalDate data, String valorCarteira) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(data);
+        snapshot.setValorCarteira(new BigDecimal(valorCarteira));
+        snapshot.setValorInvestido(new BigDecimal("1000.00"));
+        snapshot.setRentabilidade(new BigDecimal("-1.25"));
+        return snapshot;
+    }
+}
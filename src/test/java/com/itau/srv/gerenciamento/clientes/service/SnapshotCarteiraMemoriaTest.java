@@ -0,0 +1,137 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Gera snapshots de 1 milhão de clientes e verifica que o heap usado não cresce com a quantidade de clientes.
+ * Os dublês são stub-only para que o Mockito não guarde as invocações. Depende do GC da JVM e fica fora da suíte
+ * padrão: executar com {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class SnapshotCarteiraMemoriaTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 2, 5);
+    private static final long TOTAL_CLIENTES = 1_000_000L;
+    private static final int TAMANHO_LOTE = 1000;
+    private static final long AMOSTRAR_A_CADA_LOTES = 100;
+    // Reter um SnapshotCarteira por cliente ocuparia bem mais que isso
+    private static final long CRESCIMENTO_MAXIMO_BYTES = 32L * 1024 * 1024;
+
+    private ExecutorService executor;
+    private ExecutorService coordenadorExecutor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        coordenadorExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        coordenadorExecutor.shutdownNow();
+    }
+
+    @Test
+    void deveGerarSnapshotsDeUmMilhaoDeClientesComHeapLimitado() {
+        // Arrange
+        ClienteRepository clienteRepository = mock(ClienteRepository.class, withSettings().stubOnly());
+        SnapshotCarteiraRepository snapshotCarteiraRepository = mock(SnapshotCarteiraRepository.class, withSettings().stubOnly());
+        ExecucaoSnapshotService execucaoSnapshotService = mock(ExecucaoSnapshotService.class, withSettings().stubOnly());
+        ParticoesSnapshots particoesSnapshots = mock(ParticoesSnapshots.class, withSettings().stubOnly());
+        SnapshotsIncrementais snapshotsIncrementais = mock(SnapshotsIncrementais.class, withSettings().stubOnly());
+        ResumosRentabilidade resumosRentabilidade = mock(ResumosRentabilidade.class, withSettings().stubOnly());
+        SeriesCarteiraMemoria seriesCarteiraMemoria = mock(SeriesCarteiraMemoria.class, withSettings().stubOnly());
+        CarteiraService carteiraService = mock(CarteiraService.class, withSettings().stubOnly());
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class, withSettings().stubOnly());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setId(1L);
+        execucao.setDataSnapshot(DATA);
+        execucao.setStatus(StatusExecucaoSnapshot.EM_ANDAMENTO);
+        execucao.setUltimoClienteId(0L);
+        when(execucaoSnapshotService.reservar(DATA)).thenReturn(execucao);
+        when(snapshotsIncrementais.iniciar()).thenReturn(SnapshotsIncrementais.Contexto.DESABILITADO);
+        when(execucaoSnapshotService.finalizar(any(), any())).thenReturn(execucao);
+
+        long heapInicial = heapUsadoAposGc();
+        AtomicLong paginas = new AtomicLong();
+        AtomicLong maiorCrescimento = new AtomicLong();
+        when(clienteRepository.findIdsAtivosAposId(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long ultimoId = invocation.getArgument(0);
+            if (paginas.incrementAndGet() % AMOSTRAR_A_CADA_LOTES == 0) {
+                maiorCrescimento.accumulateAndGet(heapUsadoAposGc() - heapInicial, Math::max);
+            }
+            if (ultimoId >= TOTAL_CLIENTES) {
+                return Collections.emptyList();
+            }
+            return LongStream.rangeClosed(ultimoId + 1, Math.min(ultimoId + TAMANHO_LOTE, TOTAL_CLIENTES)).boxed().toList();
+        });
+        when(snapshotCarteiraRepository.findClienteIdsComSnapshot(any(), any())).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.findAllByDataSnapshotAndClienteIdIn(any(), any())).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+
+        GravadorSnapshots gravadorSnapshots = new GravadorSnapshots(snapshotCarteiraRepository, mock(JdbcTemplate.class), mock(ParticoesSnapshots.class), meterRegistry, false);
+        SnapshotsEsparsos snapshotsEsparsos = new SnapshotsEsparsos(snapshotCarteiraRepository, mock(ExecucaoSnapshotRepository.class),
+                new SnapshotMapper(), meterRegistry, Clock.systemDefaultZone(), false, 5000L);
+        SnapshotCarteiraService snapshotCarteiraService = new SnapshotCarteiraService(clienteRepository, snapshotCarteiraRepository,
+                execucaoSnapshotService, gravadorSnapshots, particoesSnapshots, snapshotsIncrementais, snapshotsEsparsos,
+                resumosRentabilidade, seriesCarteiraMemoria, carteiraService, new TransactionTemplate(transactionManager),
+                executor, coordenadorExecutor, meterRegistry, TAMANHO_LOTE, 4, 60_000L);
+
+        // Act
+        snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(TOTAL_CLIENTES, execucao.getClientesProcessados());
+        assertEquals((double) TOTAL_CLIENTES, meterRegistry.get("snapshots.gravacao").tag("modo", "jpa").counter().count());
+        assertTrue(maiorCrescimento.get() < CRESCIMENTO_MAXIMO_BYTES,
+                () -> "Heap cresceu " + maiorCrescimento.get() / (1024 * 1024) + " MB durante a geração");
+    }
+
+    private long heapUsadoAposGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private SnapshotCarteira criarSnapshot(Long clienteId) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(DATA);
+        snapshot.setValorCarteira(new BigDecimal("1000.00"));
+        snapshot.setValorInvestido(new BigDecimal("900.00"));
+        snapshot.setRentabilidade(new BigDecimal("11.11"));
+        return snapshot;
+    }
+}
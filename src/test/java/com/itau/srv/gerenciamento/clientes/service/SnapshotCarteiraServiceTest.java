@@ -0,0 +1,474 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.ExecucaoSnapshotResponseDTO;
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.EstadoSnapshotCliente;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ClienteRepository;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotCarteiraServiceTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 2, 5);
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Mock
+    private ExecucaoSnapshotService execucaoSnapshotService;
+
+    @Mock
+    private ParticoesSnapshots particoesSnapshots;
+
+    @Mock
+    private SnapshotsIncrementais snapshotsIncrementais;
+
+    @Mock
+    private ExecucaoSnapshotRepository execucaoSnapshotRepository;
+
+    @Mock
+    private ResumosRentabilidade resumosRentabilidade;
+
+    @Mock
+    private SeriesCarteiraMemoria seriesCarteiraMemoria;
+
+    @Mock
+    private CarteiraService carteiraService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private ExecutorService coordenadorExecutor;
+    private ExecucaoSnapshot execucao;
+    private SnapshotCarteiraService snapshotCarteiraService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(2);
+        coordenadorExecutor = Executors.newSingleThreadExecutor();
+        snapshotCarteiraService = criarServico(false);
+
+        execucao = criarExecucao(0L);
+        when(execucaoSnapshotService.reservar(DATA)).thenReturn(execucao);
+        when(snapshotsIncrementais.iniciar()).thenReturn(SnapshotsIncrementais.Contexto.DESABILITADO);
+        when(execucaoSnapshotService.finalizar(any(ExecucaoSnapshot.class), any(StatusExecucaoSnapshot.class))).thenAnswer(invocation -> {
+            ExecucaoSnapshot finalizada = invocation.getArgument(0);
+            finalizada.setStatus(invocation.getArgument(1));
+            return finalizada;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        coordenadorExecutor.shutdownNow();
+    }
+
+    @Test
+    void deveGerarSnapshotsEmLotesComTransacaoPropria() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(clienteRepository.findIdsAtivosAposId(eq(3L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+
+        // Act
+        snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        verify(particoesSnapshots).garantirParticao(DATA);
+        verify(carteiraService).calcularSnapshot(1L, DATA);
+        verify(carteiraService).calcularSnapshot(2L, DATA);
+        verify(carteiraService).calcularSnapshot(3L, DATA);
+        verify(snapshotCarteiraRepository, times(2)).saveAll(anyList());
+        verify(resumosRentabilidade, times(2)).atualizar(anyList());
+        verify(seriesCarteiraMemoria, times(2)).registrar(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.get("snapshots.clientes").tag("resultado", "sucesso").counter().count());
+        assertEquals(2, meterRegistry.get("snapshots.lote.duracao").timer().count());
+        assertEquals(1, meterRegistry.get("snapshots.vazao").summary().count());
+    }
+
+    @Test
+    void deveLerIdsDosClientesPorKeyset() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 5L));
+        when(clienteRepository.findIdsAtivosAposId(eq(5L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+
+        // Act
+        snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        ArgumentCaptor<Pageable> paginas = ArgumentCaptor.forClass(Pageable.class);
+        verify(clienteRepository, times(2)).findIdsAtivosAposId(anyLong(), paginas.capture());
+        assertEquals(2, paginas.getValue().getPageSize());
+        assertEquals(0, paginas.getValue().getPageNumber());
+    }
+
+    @Test
+    void deveNaoGravarQuandoNaoHouverClientesAtivos() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        verifyNoInteractions(carteiraService, snapshotCarteiraRepository, transactionManager);
+        assertEquals(StatusExecucaoSnapshot.CONCLUIDA, resultado.getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveGravarDemaisClientesDoLoteQuandoUmFalha() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(1L, DATA)).thenReturn(criarSnapshot(1L));
+        when(carteiraService.calcularSnapshot(2L, DATA)).thenThrow(new IllegalStateException("FALHA"));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+        ArgumentCaptor<List<SnapshotCarteira>> gravados = ArgumentCaptor.forClass(List.class);
+        verify(snapshotCarteiraRepository).saveAll(gravados.capture());
+        assertEquals(1, gravados.getValue().size());
+        assertEquals(1L, gravados.getValue().get(0).getClienteId());
+        assertEquals(1.0, meterRegistry.get("snapshots.clientes").tag("resultado", "erro").counter().count());
+    }
+
+    @Test
+    void deveManterLotesGravadosQuandoGravacaoDeOutroLoteFalha() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(3L, 4L));
+        when(clienteRepository.findIdsAtivosAposId(eq(4L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+        when(snapshotCarteiraRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<SnapshotCarteira> snapshots = invocation.getArgument(0);
+            if (snapshots.get(0).getClienteId() == 3L) {
+                throw new IllegalStateException("BANCO_INDISPONIVEL");
+            }
+            return snapshots;
+        });
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        // O lote desfeito não chega às séries em memória
+        verify(seriesCarteiraMemoria, times(1)).registrar(anyList());
+        assertEquals(2.0, meterRegistry.get("snapshots.clientes").tag("resultado", "sucesso").counter().count());
+        assertEquals(2.0, meterRegistry.get("snapshots.clientes").tag("resultado", "erro").counter().count());
+    }
+
+    @Test
+    void deveRetomarAPartirDoCheckpointDeExecucaoInterrompida() {
+        // Arrange
+        execucao.setUltimoClienteId(2L);
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(3L));
+        when(clienteRepository.findIdsAtivosAposId(eq(3L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(3L, DATA)).thenReturn(criarSnapshot(3L));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        verify(clienteRepository, never()).findIdsAtivosAposId(eq(0L), any(Pageable.class));
+        verify(carteiraService, times(1)).calcularSnapshot(anyLong(), any());
+        assertEquals(StatusExecucaoSnapshot.CONCLUIDA, resultado.getStatus());
+        assertEquals(3L, resultado.getUltimoClienteId());
+    }
+
+    @Test
+    void deveIgnorarClientesQueJaPossuemSnapshotNaData() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.findClienteIdsComSnapshot(DATA, List.of(1L, 2L))).thenReturn(List.of(1L));
+        when(carteiraService.calcularSnapshot(2L, DATA)).thenReturn(criarSnapshot(2L));
+
+        // Act
+        snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        verify(carteiraService, never()).calcularSnapshot(1L, DATA);
+        assertEquals(1.0, meterRegistry.get("snapshots.clientes").tag("resultado", "ignorado").counter().count());
+        assertEquals(1.0, meterRegistry.get("snapshots.clientes").tag("resultado", "sucesso").counter().count());
+    }
+
+    @Test
+    void deveAvancarCheckpointSomenteAteOLoteComFalha() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(List.of(3L, 4L));
+        when(clienteRepository.findIdsAtivosAposId(eq(4L), any(Pageable.class))).thenReturn(List.of(5L));
+        when(clienteRepository.findIdsAtivosAposId(eq(5L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> {
+            Long clienteId = invocation.getArgument(0);
+            if (clienteId == 3L) {
+                throw new IllegalStateException("FALHA");
+            }
+            return criarSnapshot(clienteId);
+        });
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+        assertEquals(2L, resultado.getUltimoClienteId());
+        assertEquals(5L, resultado.getClientesProcessados());
+        assertEquals(1L, resultado.getFalhas());
+        verify(execucaoSnapshotService, times(3)).registrarProgresso(execucao);
+    }
+
+    @Test
+    void deveRegistrarSinalDeVidaEnquantoAguardaLoteLongo() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L));
+        when(clienteRepository.findIdsAtivosAposId(eq(1L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(1L, DATA)).thenAnswer(invocation -> {
+            // Lote mais longo que o intervalo do sinal de vida (20 ms)
+            Thread.sleep(200);
+            return criarSnapshot(1L);
+        });
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.CONCLUIDA, resultado.getStatus());
+        verify(execucaoSnapshotService, atLeast(2)).registrarSinalDeVida(execucao);
+        verify(execucaoSnapshotService).registrarProgresso(execucao);
+    }
+
+    @Test
+    void devePararEntreLotesQuandoCancelamentoForSolicitado() {
+        // Arrange
+        when(execucaoSnapshotService.cancelamentoSolicitado(execucao)).thenReturn(false, true);
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.CANCELADA, resultado.getStatus());
+        assertEquals(2L, resultado.getUltimoClienteId());
+        verify(clienteRepository, never()).findIdsAtivosAposId(eq(2L), any(Pageable.class));
+        verify(snapshotCarteiraRepository).saveAll(anyList());
+    }
+
+    @Test
+    void deveFinalizarComoIncompletaQuandoExecucaoFalhaInesperadamente() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenThrow(new IllegalStateException("BANCO_INDISPONIVEL"));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+    }
+
+    @Test
+    void deveContarLoteComoFalhaQuandoConsultaDoLoteFalha() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(snapshotCarteiraRepository.findClienteIdsComSnapshot(DATA, List.of(1L, 2L)))
+                .thenThrow(new IllegalStateException("BANCO_INDISPONIVEL"));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+        assertEquals(0L, resultado.getUltimoClienteId());
+        assertEquals(2L, resultado.getFalhas());
+        verifyNoInteractions(carteiraService);
+        verify(snapshotCarteiraRepository, never()).saveAll(anyList());
+        assertEquals(2.0, meterRegistry.get("snapshots.clientes").tag("resultado", "erro").counter().count());
+    }
+
+    @Test
+    void deveAguardarLotesEmAndamentoAntesDeFinalizarExecucaoQueFalhou() {
+        // Arrange
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenThrow(new IllegalStateException("BANCO_INDISPONIVEL"));
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> {
+            // O lote ainda está calculando quando a leitura da página seguinte falha
+            Thread.sleep(200);
+            return criarSnapshot(invocation.getArgument(0));
+        });
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.INCOMPLETA, resultado.getStatus());
+        assertEquals(2L, resultado.getUltimoClienteId());
+        InOrder ordem = inOrder(snapshotCarteiraRepository, execucaoSnapshotService);
+        ordem.verify(snapshotCarteiraRepository).saveAll(anyList());
+        ordem.verify(execucaoSnapshotService).registrarProgresso(execucao);
+        ordem.verify(execucaoSnapshotService).finalizar(execucao, StatusExecucaoSnapshot.INCOMPLETA);
+    }
+
+    @Test
+    void deveContarClientesRecalculadosEComCustodiaInalteradaNoModoIncremental() {
+        // Arrange
+        SnapshotsIncrementais.Contexto contexto = new SnapshotsIncrementais.Contexto(true, true);
+        EstadoSnapshotCliente estado = new EstadoSnapshotCliente();
+        EstadoSnapshotCliente estadoInalterado = new EstadoSnapshotCliente();
+        EstadoSnapshotCliente novoEstado = new EstadoSnapshotCliente();
+        when(snapshotsIncrementais.iniciar()).thenReturn(contexto);
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L));
+        when(clienteRepository.findIdsAtivosAposId(eq(3L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(snapshotsIncrementais.buscarEstados(List.of(1L, 2L, 3L))).thenReturn(Map.of(1L, estado, 3L, estadoInalterado));
+        when(snapshotsIncrementais.calcular(contexto, 1L, DATA, estado)).thenReturn(new SnapshotsIncrementais.Calculo(
+                criarSnapshot(1L), null, SnapshotsIncrementais.TipoCalculo.RECALCULADO));
+        when(snapshotsIncrementais.calcular(contexto, 2L, DATA, null)).thenReturn(new SnapshotsIncrementais.Calculo(
+                criarSnapshot(2L), novoEstado, SnapshotsIncrementais.TipoCalculo.RECALCULADO));
+        when(snapshotsIncrementais.calcular(contexto, 3L, DATA, estadoInalterado)).thenReturn(new SnapshotsIncrementais.Calculo(
+                criarSnapshot(3L), estadoInalterado, SnapshotsIncrementais.TipoCalculo.CUSTODIA_INALTERADA));
+
+        // Act
+        ExecucaoSnapshot resultado = snapshotCarteiraService.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.CONCLUIDA, resultado.getStatus());
+        assertEquals(2L, resultado.getClientesRecalculados());
+        assertEquals(1L, resultado.getClientesCustodiaInalterada());
+        verify(snapshotsIncrementais).salvarEstados(List.of(novoEstado, estadoInalterado));
+        verify(snapshotCarteiraRepository).saveAll(anyList());
+        verifyNoInteractions(carteiraService);
+        assertEquals(1.0, meterRegistry.get("snapshots.clientes.calculo").tag("tipo", "custodia-inalterada").counter().count());
+        assertEquals(2.0, meterRegistry.get("snapshots.clientes.calculo").tag("tipo", "recalculado").counter().count());
+    }
+
+    @Test
+    void deveIniciarGeracaoEmSegundoPlano() throws InterruptedException {
+        // Arrange
+        ExecucaoSnapshotResponseDTO resposta = mock(ExecucaoSnapshotResponseDTO.class);
+        when(execucaoSnapshotService.mapear(execucao)).thenReturn(resposta);
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        // Act
+        ExecucaoSnapshotResponseDTO resultado = snapshotCarteiraService.iniciarGeracao(DATA);
+        coordenadorExecutor.shutdown();
+        assertTrue(coordenadorExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertSame(resposta, resultado);
+        verify(execucaoSnapshotService).finalizar(execucao, StatusExecucaoSnapshot.CONCLUIDA);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deveGravarApenasClientesComValoresAlteradosNoArmazenamentoEsparso() {
+        // Arrange
+        SnapshotCarteiraService servicoEsparso = criarServico(true);
+        SnapshotCarteira inalterado = criarSnapshot(1L);
+        inalterado.setDataSnapshot(DATA.minusDays(1));
+        SnapshotCarteira alterado = criarSnapshot(2L);
+        alterado.setDataSnapshot(DATA.minusDays(1));
+        alterado.setValorCarteira(new BigDecimal("950.00"));
+        when(clienteRepository.findIdsAtivosAposId(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(clienteRepository.findIdsAtivosAposId(eq(2L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(carteiraService.calcularSnapshot(anyLong(), eq(DATA))).thenAnswer(invocation -> criarSnapshot(invocation.getArgument(0)));
+        when(snapshotCarteiraRepository.findUltimosAntesDe(DATA, List.of(1L, 2L))).thenReturn(List.of(inalterado, alterado));
+        ArgumentCaptor<List<SnapshotCarteira>> captor = ArgumentCaptor.forClass(List.class);
+
+        // Act
+        ExecucaoSnapshot resultado = servicoEsparso.gerarSnapshots(DATA);
+
+        // Assert
+        assertEquals(StatusExecucaoSnapshot.CONCLUIDA, resultado.getStatus());
+        assertEquals(2L, resultado.getClientesProcessados());
+        verify(snapshotCarteiraRepository).saveAll(captor.capture());
+        assertEquals(List.of(2L), captor.getValue().stream().map(SnapshotCarteira::getClienteId).toList());
+        assertEquals(1.0, meterRegistry.get("snapshots.armazenamento").tag("resultado", "omitido").counter().count());
+        // O resumo acompanha a série diária: o cliente omitido também é somado
+        verify(resumosRentabilidade).atualizar(captor.capture());
+        assertEquals(List.of(1L, 2L), captor.getValue().stream().map(SnapshotCarteira::getClienteId).toList());
+    }
+
+    private SnapshotCarteiraService criarServico(boolean armazenamentoEsparso) {
+        GravadorSnapshots gravadorSnapshots = new GravadorSnapshots(snapshotCarteiraRepository, jdbcTemplate, particoesSnapshots, meterRegistry, false);
+        SnapshotsEsparsos snapshotsEsparsos = new SnapshotsEsparsos(snapshotCarteiraRepository, execucaoSnapshotRepository,
+                new SnapshotMapper(), meterRegistry, Clock.systemDefaultZone(), armazenamentoEsparso, 5000L);
+
+        return new SnapshotCarteiraService(clienteRepository, snapshotCarteiraRepository, execucaoSnapshotService,
+                gravadorSnapshots, particoesSnapshots, snapshotsIncrementais, snapshotsEsparsos, resumosRentabilidade,
+                seriesCarteiraMemoria, carteiraService, new TransactionTemplate(transactionManager), executor, coordenadorExecutor, meterRegistry, 2, 2, 20L);
+    }
+
+    private ExecucaoSnapshot criarExecucao(Long ultimoClienteId) {
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setId(1L);
+        execucao.setDataSnapshot(DATA);
+        execucao.setStatus(StatusExecucaoSnapshot.EM_ANDAMENTO);
+        execucao.setUltimoClienteId(ultimoClienteId);
+        execucao.setTotalClientes(0L);
+        execucao.setClientesProcessados(0L);
+        execucao.setFalhas(0L);
+        return execucao;
+    }
+
+    private SnapshotCarteira criarSnapshot(Long clienteId) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(DATA);
+        snapshot.setValorCarteira(new BigDecimal("1000.00"));
+        snapshot.setValorInvestido(new BigDecimal("900.00"));
+        snapshot.setRentabilidade(new BigDecimal("11.11"));
+        return snapshot;
+    }
+}
@@ -0,0 +1,229 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.dto.rentabilidade.EvolucaoCarteiraResponseDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.DataGeradaDTO;
+import com.itau.srv.gerenciamento.clientes.dto.snapshot.VersaoSnapshotsDTO;
+import com.itau.srv.gerenciamento.clientes.mapper.SnapshotMapper;
+import com.itau.srv.gerenciamento.clientes.model.ExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.model.enums.StatusExecucaoSnapshot;
+import com.itau.srv.gerenciamento.clientes.repository.ExecucaoSnapshotRepository;
+import com.itau.srv.gerenciamento.clientes.repository.SnapshotCarteiraRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotsEsparsosTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 2);
+    private static final Instant AGORA = Instant.parse("2026-03-10T12:00:00Z");
+
+    @Mock
+    private SnapshotCarteiraRepository snapshotCarteiraRepository;
+
+    @Mock
+    private ExecucaoSnapshotRepository execucaoSnapshotRepository;
+
+    @Mock
+    private Clock clock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SnapshotsEsparsos snapshotsEsparsos;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        snapshotsEsparsos = new SnapshotsEsparsos(snapshotCarteiraRepository, execucaoSnapshotRepository,
+                new SnapshotMapper(), meterRegistry, clock, true, 5000L);
+    }
+
+    @Test
+    void deveGravarTodosOsSnapshotsQuandoDesabilitado() {
+        // Arrange
+        SnapshotsEsparsos desabilitado = new SnapshotsEsparsos(snapshotCarteiraRepository, execucaoSnapshotRepository,
+                new SnapshotMapper(), meterRegistry, clock, false, 5000L);
+        List<SnapshotCarteira> snapshots = List.of(criarSnapshot(1L, DATA, "1000.00"));
+        List<EvolucaoCarteiraResponseDTO> pontos = List.of(criarEvolucao(DATA, "1000.00"));
+        when(snapshotCarteiraRepository.findEvolucao(1L, DATA, DATA, Pageable.unpaged())).thenReturn(pontos);
+
+        // Act
+        SnapshotsEsparsos.Selecao selecao = desabilitado.selecionar(DATA, snapshots);
+        List<EvolucaoCarteiraResponseDTO> serie = desabilitado.reconstruir(1L, DATA, DATA);
+
+        // Assert
+        assertSame(snapshots, selecao.pontos());
+        assertTrue(selecao.continuacoes().isEmpty());
+        assertSame(pontos, serie);
+        verify(snapshotCarteiraRepository, never()).findUltimosAntesDe(any(), any());
+        verifyNoInteractions(execucaoSnapshotRepository);
+    }
+
+    @Test
+    void deveOmitirSnapshotsIguaisAoUltimoPontoGravado() {
+        // Arrange
+        SnapshotCarteira inalterado = criarSnapshot(1L, DATA, "1000.00");
+        SnapshotCarteira alterado = criarSnapshot(2L, DATA, "1100.00");
+        SnapshotCarteira novo = criarSnapshot(3L, DATA, "500.00");
+        when(snapshotCarteiraRepository.findUltimosAntesDe(DATA, List.of(1L, 2L, 3L))).thenReturn(List.of(
+                criarSnapshot(1L, DATA.minusDays(3), "1000.0"), criarSnapshot(2L, DATA.minusDays(3), "1000.00")));
+
+        // Act
+        SnapshotsEsparsos.Selecao selecao = snapshotsEsparsos.selecionar(DATA, List.of(inalterado, alterado, novo));
+
+        // Assert
+        assertEquals(List.of(alterado, novo), selecao.pontos());
+        assertTrue(selecao.continuacoes().isEmpty());
+        assertEquals(1.0, meterRegistry.get("snapshots.armazenamento").tag("resultado", "omitido").counter().count());
+        assertEquals(2.0, meterRegistry.get("snapshots.armazenamento").tag("resultado", "gravado").counter().count());
+    }
+
+    @Test
+    void deveManterDataSeguinteAoReprocessarDataAnterior() {
+        // Arrange
+        LocalDate proximaData = DATA.plusDays(1);
+        when(snapshotCarteiraRepository.findUltimosAntesDe(DATA, List.of(1L, 2L))).thenReturn(List.of(
+                criarSnapshot(1L, DATA.minusDays(3), "1000.00"), criarSnapshot(2L, DATA.minusDays(3), "1000.00")));
+        when(execucaoSnapshotRepository.findPrimeiraDataSnapshotApos(DATA)).thenReturn(proximaData);
+        when(snapshotCarteiraRepository.findClienteIdsComSnapshot(proximaData, List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        // Act
+        SnapshotsEsparsos.Selecao selecao = snapshotsEsparsos.selecionar(DATA,
+                List.of(criarSnapshot(1L, DATA, "1200.00"), criarSnapshot(2L, DATA, "1200.00")));
+
+        // Assert
+        assertEquals(2, selecao.pontos().size());
+        assertEquals(1, selecao.continuacoes().size());
+        SnapshotCarteira continuacao = selecao.continuacoes().get(0);
+        assertNull(continuacao.getId());
+        assertEquals(1L, continuacao.getClienteId());
+        assertEquals(proximaData, continuacao.getDataSnapshot());
+        assertEquals(new BigDecimal("1000.00"), continuacao.getValorCarteira());
+    }
+
+    @Test
+    void deveReconstruirSerieDiariaLevandoUltimoPontoAdiante() {
+        // Arrange
+        LocalDate d1 = LocalDate.of(2026, 3, 2);
+        LocalDate fim = LocalDate.of(9999, 12, 31);
+        List<EvolucaoCarteiraResponseDTO> pontos = List.of(criarEvolucao(d1.plusDays(3), "1200.00"), criarEvolucao(d1, "1000.00"));
+        when(snapshotCarteiraRepository.findEvolucao(5L, d1.minusDays(10), fim, Pageable.unpaged())).thenReturn(pontos);
+        when(snapshotCarteiraRepository.findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(5L, d1.minusDays(11)))
+                .thenReturn(Optional.empty());
+        when(clock.instant()).thenReturn(AGORA);
+        when(execucaoSnapshotRepository.findDatasGeradas()).thenReturn(datasGeradas(d1));
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> serie = snapshotsEsparsos.reconstruir(5L, d1.minusDays(10), fim);
+
+        // Assert
+        assertEquals(List.of(d1.plusDays(4), d1.plusDays(3), d1.plusDays(2), d1.plusDays(1), d1),
+                serie.stream().map(EvolucaoCarteiraResponseDTO::data).toList());
+        assertEquals(List.of(new BigDecimal("1200.00"), new BigDecimal("1200.00"), new BigDecimal("1000.00"),
+                        new BigDecimal("1000.00"), new BigDecimal("1000.00")),
+                serie.stream().map(EvolucaoCarteiraResponseDTO::valorCarteira).toList());
+        assertSame(pontos.get(0), serie.get(1));
+        assertSame(pontos.get(1), serie.get(4));
+    }
+
+    @Test
+    void deveReconstruirSomenteAJanelaLevandoAdianteOPontoAnteriorAEla() {
+        // Arrange: janela sem pontos gravados; o ponto anterior a ela vale nas datas geradas da janela
+        LocalDate d1 = LocalDate.of(2026, 3, 2);
+        when(snapshotCarteiraRepository.findEvolucao(5L, d1.plusDays(1), d1.plusDays(2), Pageable.unpaged())).thenReturn(List.of());
+        when(snapshotCarteiraRepository.findFirstByClienteIdAndDataSnapshotLessThanEqualOrderByDataSnapshotDesc(5L, d1))
+                .thenReturn(Optional.of(criarSnapshot(5L, d1, "1000.00")));
+        when(clock.instant()).thenReturn(AGORA);
+        when(execucaoSnapshotRepository.findDatasGeradas()).thenReturn(datasGeradas(d1));
+
+        // Act
+        List<EvolucaoCarteiraResponseDTO> serie = snapshotsEsparsos.reconstruir(5L, d1.plusDays(1), d1.plusDays(2));
+
+        // Assert
+        assertEquals(List.of(d1.plusDays(2), d1.plusDays(1)), serie.stream().map(EvolucaoCarteiraResponseDTO::data).toList());
+        assertEquals(new BigDecimal("1000.00"), serie.get(0).valorCarteira());
+        verify(snapshotCarteiraRepository, never()).findEvolucao(5L, RentabilidadeService.INICIO_EVOLUCAO,
+                RentabilidadeService.FIM_EVOLUCAO, Pageable.unpaged());
+    }
+
+    @Test
+    void deveVersionarSeriePelasDatasGeradas() {
+        // Arrange
+        VersaoSnapshotsDTO versao = new VersaoSnapshotsDTO(1L, 10L, DATA, DATA.atTime(20, 0));
+        when(clock.instant()).thenReturn(AGORA, AGORA.plusMillis(4999), AGORA.plusMillis(5000));
+        when(execucaoSnapshotRepository.findDatasGeradas())
+                .thenReturn(List.of(new DataGeradaDTO(DATA, StatusExecucaoSnapshot.CONCLUIDA, 99L)))
+                .thenReturn(List.of(new DataGeradaDTO(DATA, StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                        new DataGeradaDTO(DATA.plusDays(1), StatusExecucaoSnapshot.CONCLUIDA, 99L)));
+
+        // Act: a segunda versão só enxerga a nova data depois que o cache expira
+        VersaoSnapshotsDTO anterior = snapshotsEsparsos.versionar(1L, versao);
+        VersaoSnapshotsDTO emCache = snapshotsEsparsos.versionar(1L, versao);
+        VersaoSnapshotsDTO atual = snapshotsEsparsos.versionar(1L, versao);
+
+        // Assert
+        assertEquals(new VersaoSnapshotsDTO(2L, 10L, DATA, DATA.atTime(20, 0)), anterior);
+        assertEquals(anterior, emCache);
+        assertEquals(new VersaoSnapshotsDTO(3L, 10L, DATA.plusDays(1), DATA.atTime(20, 0)), atual);
+        verify(execucaoSnapshotRepository, times(2)).findDatasGeradas();
+    }
+
+    @Test
+    void deveConsiderarNaSerieClientesComPontoOuCobertosPeloCheckpoint() {
+        // Arrange
+        ExecucaoSnapshot execucao = new ExecucaoSnapshot();
+        execucao.setDataSnapshot(DATA);
+        execucao.setStatus(StatusExecucaoSnapshot.EM_ANDAMENTO);
+        execucao.setUltimoClienteId(2L);
+        when(snapshotCarteiraRepository.findClienteIdsComSnapshot(DATA, List.of(1L, 3L, 4L))).thenReturn(List.of(4L));
+        when(execucaoSnapshotRepository.findByDataSnapshot(DATA)).thenReturn(Optional.of(execucao));
+
+        // Act
+        Set<Long> clientes = snapshotsEsparsos.clientesComData(DATA, List.of(1L, 3L, 4L));
+
+        // Assert
+        assertEquals(Set.of(1L, 4L), clientes);
+    }
+
+    private List<DataGeradaDTO> datasGeradas(LocalDate d1) {
+        return List.of(
+                new DataGeradaDTO(d1.minusDays(1), StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                new DataGeradaDTO(d1, StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                new DataGeradaDTO(d1.plusDays(1), StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                new DataGeradaDTO(d1.plusDays(2), StatusExecucaoSnapshot.INCOMPLETA, 7L),
+                new DataGeradaDTO(d1.plusDays(3), StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                new DataGeradaDTO(d1.plusDays(4), StatusExecucaoSnapshot.CONCLUIDA, 99L),
+                new DataGeradaDTO(d1.plusDays(5), StatusExecucaoSnapshot.EM_ANDAMENTO, 3L));
+    }
+
+
+    private EvolucaoCarteiraResponseDTO criarEvolucao(LocalDate data, String valorCarteira) {
+        return new EvolucaoCarteiraResponseDTO(data, new BigDecimal(valorCarteira), new BigDecimal("900.00"), new BigDecimal("11.11"));
+    }
+
+    private SnapshotCarteira criarSnapshot(Long clienteId, LocalDate data, String valorCarteira) {
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setClienteId(clienteId);
+        snapshot.setDataSnapshot(data);
+        snapshot.setValorCarteira(new BigDecimal(valorCarteira));
+        snapshot.setValorInvestido(new BigDecimal("900.00"));
+        snapshot.setRentabilidade(new BigDecimal("11.11"));
+        return snapshot;
+    }
+}
@@ -0,0 +1,285 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import com.itau.srv.gerenciamento.clientes.consumer.AporteConsumer;
+import com.itau.srv.gerenciamento.clientes.dto.custodia.CustodiaResponseDTO;
+import com.itau.srv.gerenciamento.clientes.model.EstadoSnapshotCliente;
+import com.itau.srv.gerenciamento.clientes.model.SnapshotCarteira;
+import com.itau.srv.gerenciamento.clientes.repository.EstadoSnapshotClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotsIncrementaisTest {
+
+    private static final LocalDate DATA = LocalDate.of(2026, 3, 6);
+    private static final LocalDateTime AGORA = LocalDateTime.of(2026, 3, 6, 22, 0);
+    private static final BigDecimal VALOR_INVESTIDO = new BigDecimal("6000.00");
+
+    @Mock
+    private EstadoSnapshotClienteRepository estadoSnapshotClienteRepository;
+
+    @Mock
+    private CustodiaLocalService custodiaLocalService;
+
+    @Mock
+    private DefasagemConsumidores defasagemConsumidores;
+
+    @Mock
+    private CarteiraService carteiraService;
+
+    private SnapshotsIncrementais snapshotsIncrementais;
+    private List<CustodiaResponseDTO> custodias;
+
+    @BeforeEach
+    void setUp() {
+        snapshotsIncrementais = criarServico(true);
+        custodias = List.of(
+                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.00"), new BigDecimal("35.00"), "COMPRA"),
+                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA")
+        );
+    }
+
+    @Test
+    void deveRetornarContextoDesabilitadoSemConsultarModeloLocal() {
+        // Act
+        SnapshotsIncrementais.Contexto contexto = criarServico(false).iniciar();
+
+        // Assert
+        assertFalse(contexto.habilitado());
+        verifyNoInteractions(custodiaLocalService, defasagemConsumidores);
+    }
+
+    @Test
+    void deveConfiarNasMarcacoesComOsDoisConsumidoresEmDia() {
+        // Arrange
+        when(custodiaLocalService.estaAtualizado()).thenReturn(true);
+        when(defasagemConsumidores.emDia(AporteConsumer.MARCACOES_LISTENER_ID)).thenReturn(true);
+
+        // Act
+        SnapshotsIncrementais.Contexto contexto = snapshotsIncrementais.iniciar();
+
+        // Assert
+        assertTrue(contexto.habilitado());
+        assertTrue(contexto.marcacoesEmDia());
+    }
+
+    @Test
+    void deveDesconsiderarMarcacoesQuandoModeloLocalEstaDefasado() {
+        // Arrange
+        when(custodiaLocalService.estaAtualizado()).thenReturn(false);
+
+        // Act
+        SnapshotsIncrementais.Contexto contexto = snapshotsIncrementais.iniciar();
+
+        // Assert
+        assertTrue(contexto.habilitado());
+        assertFalse(contexto.marcacoesEmDia());
+        verifyNoInteractions(defasagemConsumidores);
+    }
+
+    @Test
+    void deveDesconsiderarMarcacoesQuandoConsumidorDeAportesEstaDefasado() {
+        // Arrange
+        when(custodiaLocalService.estaAtualizado()).thenReturn(true);
+        when(defasagemConsumidores.emDia(AporteConsumer.MARCACOES_LISTENER_ID)).thenReturn(false);
+
+        // Act
+        SnapshotsIncrementais.Contexto contexto = snapshotsIncrementais.iniciar();
+
+        // Assert
+        assertFalse(contexto.marcacoesEmDia());
+    }
+
+    @Test
+    void deveMarcarClienteAoRegistrarAporte() {
+        // Act
+        snapshotsIncrementais.registrarAporte(1L);
+
+        // Assert
+        verify(estadoSnapshotClienteRepository).marcarAlterado(1L, AGORA);
+    }
+
+    @Test
+    void deveManterValorInvestidoQuandoImpressaoDaCustodiaNaoMudouESemMarcacao() {
+        // Arrange
+        EstadoSnapshotCliente estado = criarEstado(AGORA.minusDays(1), AGORA.minusDays(2));
+        when(carteiraService.obterCustodias(1L)).thenReturn(custodias);
+        when(carteiraService.montarSnapshot(1L, DATA, custodias, VALOR_INVESTIDO)).thenReturn(new SnapshotCarteira());
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, true), 1L, DATA, estado);
+
+        // Assert
+        assertEquals(SnapshotsIncrementais.TipoCalculo.CUSTODIA_INALTERADA, calculo.tipo());
+        assertSame(estado, calculo.estado());
+        assertEquals(AGORA, estado.getDataCalculo());
+        verify(carteiraService, never()).consultarValorInvestido(anyLong(), any());
+    }
+
+    @Test
+    void deveConsultarValorInvestidoQuandoImpressaoDaCustodiaMudou() {
+        // Arrange
+        EstadoSnapshotCliente estado = criarEstado(AGORA.minusDays(1), AGORA.minusDays(2));
+        List<CustodiaResponseDTO> alteradas = List.of(
+                new CustodiaResponseDTO("PETR4", 200, new BigDecimal("32.50"), new BigDecimal("35.00"), "COMPRA"));
+        when(carteiraService.obterCustodias(1L)).thenReturn(alteradas);
+        when(carteiraService.consultarValorInvestido(1L, DATA)).thenReturn(new BigDecimal("6500.00"));
+        when(carteiraService.montarSnapshot(1L, DATA, alteradas, new BigDecimal("6500.00"))).thenReturn(new SnapshotCarteira());
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, true), 1L, DATA, estado);
+
+        // Assert
+        assertEquals(SnapshotsIncrementais.TipoCalculo.RECALCULADO, calculo.tipo());
+        assertSame(estado, calculo.estado());
+        assertEquals(SnapshotsIncrementais.impressao(alteradas), estado.getImpressaoCustodias());
+        assertEquals(new BigDecimal("6500.00"), estado.getValorInvestido());
+        assertEquals(DATA, estado.getDataSnapshot());
+        assertEquals(AGORA, estado.getDataCalculo());
+    }
+
+    @Test
+    void deveRecalcularClienteMarcadoAposOUltimoCalculoMesmoComCustodiaInalterada() {
+        // Arrange: aporte ainda sem compra, a custódia não mudou
+        EstadoSnapshotCliente estado = criarEstado(AGORA.minusDays(1), AGORA.minusHours(1));
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setValorInvestido(new BigDecimal("7000.00"));
+        when(carteiraService.calcularSnapshotComCustodias(1L, DATA)).thenReturn(new CarteiraService.SnapshotCalculado(snapshot, custodias));
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, true), 1L, DATA, estado);
+
+        // Assert
+        assertEquals(SnapshotsIncrementais.TipoCalculo.RECALCULADO, calculo.tipo());
+        assertSame(estado, calculo.estado());
+        assertEquals(new BigDecimal("7000.00"), estado.getValorInvestido());
+        assertEquals(DATA, estado.getDataSnapshot());
+        assertEquals(AGORA, estado.getDataCalculo());
+        verify(carteiraService, never()).obterCustodias(anyLong());
+    }
+
+    @Test
+    void deveConsultarValorInvestidoQuandoMarcacoesNaoEstaoEmDia() {
+        // Arrange
+        EstadoSnapshotCliente estado = criarEstado(AGORA.minusDays(1), AGORA.minusDays(2));
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setValorInvestido(new BigDecimal("7000.00"));
+        when(carteiraService.calcularSnapshotComCustodias(1L, DATA)).thenReturn(new CarteiraService.SnapshotCalculado(snapshot, custodias));
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, false), 1L, DATA, estado);
+
+        // Assert
+        assertSame(snapshot, calculo.snapshot());
+        assertEquals(SnapshotsIncrementais.TipoCalculo.RECALCULADO, calculo.tipo());
+        assertEquals(new BigDecimal("7000.00"), estado.getValorInvestido());
+        verify(carteiraService, never()).obterCustodias(anyLong());
+    }
+
+    @Test
+    void deveCalcularCompletoECriarEstadoDeClienteNovo() {
+        // Arrange
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setValorInvestido(VALOR_INVESTIDO);
+        when(carteiraService.calcularSnapshotComCustodias(1L, DATA)).thenReturn(new CarteiraService.SnapshotCalculado(snapshot, custodias));
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, true), 1L, DATA, null);
+
+        // Assert
+        assertSame(snapshot, calculo.snapshot());
+        assertEquals(SnapshotsIncrementais.TipoCalculo.RECALCULADO, calculo.tipo());
+        assertEquals(1L, calculo.estado().getClienteId());
+        assertEquals(SnapshotsIncrementais.impressao(custodias), calculo.estado().getImpressaoCustodias());
+        assertEquals(VALOR_INVESTIDO, calculo.estado().getValorInvestido());
+        // Ainda não elegível para manter o valor investido sem consultar o Serviço de Valores
+        assertEquals(AGORA, calculo.estado().getDataAlteracao());
+        assertEquals(AGORA, calculo.estado().getDataCalculo());
+    }
+
+    @Test
+    void deveNaoSubstituirEstadoAoReprocessarDataAnterior() {
+        // Arrange
+        EstadoSnapshotCliente estado = criarEstado(AGORA.minusDays(1), AGORA.minusDays(2));
+        estado.setDataSnapshot(DATA.plusDays(1));
+        SnapshotCarteira snapshot = new SnapshotCarteira();
+        snapshot.setValorInvestido(VALOR_INVESTIDO);
+        when(carteiraService.calcularSnapshotComCustodias(1L, DATA)).thenReturn(new CarteiraService.SnapshotCalculado(snapshot, custodias));
+
+        // Act
+        SnapshotsIncrementais.Calculo calculo = snapshotsIncrementais.calcular(
+                new SnapshotsIncrementais.Contexto(true, true), 1L, DATA, estado);
+
+        // Assert
+        assertSame(snapshot, calculo.snapshot());
+        assertNull(calculo.estado());
+        assertEquals(DATA.plusDays(1), estado.getDataSnapshot());
+    }
+
+    @Test
+    void deveGerarMesmaImpressaoIndependenteDaOrdemEDaEscala() {
+        // Arrange
+        List<CustodiaResponseDTO> reordenadas = List.of(
+                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.0000"), new BigDecimal("70.00"), "COMPRA"),
+                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("30.0000"), new BigDecimal("40.00"), "COMPRA")
+        );
+        List<CustodiaResponseDTO> precoMedioAlterado = List.of(
+                new CustodiaResponseDTO("PETR4", 100, new BigDecimal("31.00"), new BigDecimal("35.00"), "COMPRA"),
+                new CustodiaResponseDTO("VALE3", 50, new BigDecimal("60.00"), new BigDecimal("65.00"), "COMPRA")
+        );
+
+        // Act & Assert
+        assertEquals(SnapshotsIncrementais.impressao(custodias), SnapshotsIncrementais.impressao(reordenadas));
+        assertNotEquals(SnapshotsIncrementais.impressao(custodias), SnapshotsIncrementais.impressao(precoMedioAlterado));
+    }
+
+    @Test
+    void deveBuscarEstadosPorCliente() {
+        // Arrange
+        EstadoSnapshotCliente estado = criarEstado(AGORA, AGORA);
+        when(estadoSnapshotClienteRepository.findAllByClienteIdIn(List.of(1L, 2L))).thenReturn(List.of(estado));
+
+        // Act
+        Map<Long, EstadoSnapshotCliente> estados = snapshotsIncrementais.buscarEstados(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(Map.of(1L, estado), estados);
+    }
+
+    private SnapshotsIncrementais criarServico(boolean habilitado) {
+        Clock clock = Clock.fixed(AGORA.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        return new SnapshotsIncrementais(estadoSnapshotClienteRepository, custodiaLocalService, defasagemConsumidores,
+                carteiraService, clock, habilitado);
+    }
+
+    private EstadoSnapshotCliente criarEstado(LocalDateTime dataCalculo, LocalDateTime dataAlteracao) {
+        EstadoSnapshotCliente estado = new EstadoSnapshotCliente();
+        estado.setClienteId(1L);
+        estado.setDataSnapshot(DATA.minusDays(1));
+        estado.setValorInvestido(VALOR_INVESTIDO);
+        estado.setImpressaoCustodias(SnapshotsIncrementais.impressao(custodias));
+        estado.setDataCalculo(dataCalculo);
+        estado.setDataAlteracao(dataAlteracao);
+        return estado;
+    }
+}
@@ -0,0 +1,126 @@
+package com.itau.srv.gerenciamento.clientes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TravaConsultivaTest {
+
+    private static final long CHAVE = 42L;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection conexao;
+
+    @Mock
+    private PreparedStatement travar;
+
+    @Mock
+    private PreparedStatement destravar;
+
+    @Mock
+    private ResultSet resultadoTravar;
+
+    @Mock
+    private ResultSet resultadoDestravar;
+
+    @Mock
+    private Runnable tarefa;
+
+    private TravaConsultiva travaConsultiva;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        travaConsultiva = new TravaConsultiva(dataSource);
+        when(dataSource.getConnection()).thenReturn(conexao);
+    }
+
+    @Test
+    void deveExecutarTarefaEDestravarQuandoObtemATrava() throws SQLException {
+        // Arrange
+        comPostgres();
+        when(resultadoTravar.next()).thenReturn(true);
+        when(resultadoTravar.getBoolean(1)).thenReturn(true);
+        when(conexao.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(destravar);
+        when(destravar.executeQuery()).thenReturn(resultadoDestravar);
+
+        // Act
+        boolean executou = travaConsultiva.executar(CHAVE, tarefa);
+
+        // Assert
+        assertTrue(executou);
+        InOrder ordem = inOrder(travar, tarefa, destravar, conexao);
+        ordem.verify(travar).setLong(1, CHAVE);
+        ordem.verify(tarefa).run();
+        ordem.verify(destravar).setLong(1, CHAVE);
+        ordem.verify(conexao).close();
+    }
+
+    @Test
+    void deveNaoExecutarQuandoOutraSessaoDetemATrava() throws SQLException {
+        // Arrange
+        comPostgres();
+        when(resultadoTravar.next()).thenReturn(true);
+        when(resultadoTravar.getBoolean(1)).thenReturn(false);
+
+        // Act
+        boolean executou = travaConsultiva.executar(CHAVE, tarefa);
+
+        // Assert
+        assertFalse(executou);
+        verifyNoInteractions(tarefa);
+        verify(conexao, never()).prepareStatement("SELECT pg_advisory_unlock(?)");
+        verify(conexao).close();
+    }
+
+    @Test
+    void deveDestravarMesmoQuandoTarefaFalha() throws SQLException {
+        // Arrange
+        comPostgres();
+        when(resultadoTravar.next()).thenReturn(true);
+        when(resultadoTravar.getBoolean(1)).thenReturn(true);
+        when(conexao.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(destravar);
+        when(destravar.executeQuery()).thenReturn(resultadoDestravar);
+        doThrow(new IllegalStateException("FALHA")).when(tarefa).run();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> travaConsultiva.executar(CHAVE, tarefa));
+        verify(destravar).executeQuery();
+    }
+
+    @Test
+    void deveExecutarSemTravaForaDoPostgres() throws SQLException {
+        // Arrange
+        when(conexao.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        // Act
+        boolean executou = travaConsultiva.executar(CHAVE, tarefa);
+
+        // Assert
+        assertTrue(executou);
+        verify(tarefa).run();
+        verify(conexao, never()).prepareStatement(anyString());
+    }
+
+    private void comPostgres() throws SQLException {
+        when(conexao.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(conexao.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(travar);
+        when(travar.executeQuery()).thenReturn(resultadoTravar);
+    }
+}